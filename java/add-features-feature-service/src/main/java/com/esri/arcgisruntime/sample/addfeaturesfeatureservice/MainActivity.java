@@ -17,9 +17,7 @@
 package com.esri.arcgisruntime.sample.addfeaturesfeatureservice;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
 
 import android.os.Bundle;
 import android.support.annotation.Nullable;
@@ -28,7 +26,6 @@ import android.util.Log;
 import android.view.MotionEvent;
 import android.widget.Toast;
 
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
@@ -47,6 +44,8 @@ public class MainActivity extends AppCompatActivity {
 
   private ServiceFeatureTable mServiceFeatureTable;
 
+  private FeatureEditQueue mEditQueue;
+
   @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_main);
@@ -59,6 +58,9 @@ public class MainActivity extends AppCompatActivity {
     // create service feature table from URL
     mServiceFeatureTable = new ServiceFeatureTable(getString(R.string.service_layer_url));
 
+    // queue additions and apply them to the server in batches
+    mEditQueue = createEditQueue(mServiceFeatureTable);
+
     // create a feature layer from table
     FeatureLayer featureLayer = new FeatureLayer(mServiceFeatureTable);
 
@@ -86,8 +88,8 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Adds a new Feature to a ServiceFeatureTable and applies the changes to the
-   * server.
+   * Adds a new Feature to a ServiceFeatureTable. The addition is queued and applied to the server with the next batch
+   * of edits.
    *
    * @param mapPoint     location to add feature
    * @param featureTable service feature table to add feature
@@ -104,35 +106,43 @@ public class MainActivity extends AppCompatActivity {
 
     // check if feature can be added to feature table
     if (featureTable.canAdd()) {
-      // add the new feature to the feature table and to server
-      featureTable.addFeatureAsync(feature).addDoneListener(() -> applyEdits(featureTable));
+      // add the new feature to the feature table, the edit queue sends it to the server
+      mEditQueue.addFeature(feature);
     } else {
       runOnUiThread(() -> logToUser(true, getString(R.string.error_cannot_add_to_feature_table)));
     }
   }
 
   /**
-   * Sends any edits on the ServiceFeatureTable to the server.
+   * Creates an edit queue which applies additions to the server in batches.
    *
    * @param featureTable service feature table
    */
-  private void applyEdits(ServiceFeatureTable featureTable) {
-
-    // apply the changes to the server
-    final ListenableFuture<List<FeatureEditResult>> editResult = featureTable.applyEditsAsync();
-    editResult.addDoneListener(() -> {
-      try {
-        List<FeatureEditResult> editResults = editResult.get();
-        // check if the server edit was successful
-        if (editResults != null && !editResults.isEmpty()) {
-          if (!editResults.get(0).hasCompletedWithErrors()) {
-            runOnUiThread(() -> logToUser(false, getString(R.string.feature_added)));
-          } else {
-            throw editResults.get(0).getError();
+  private FeatureEditQueue createEditQueue(ServiceFeatureTable featureTable) {
+    return new FeatureEditQueue(featureTable, getResources().getInteger(R.integer.edit_batch_size),
+        getResources().getInteger(R.integer.edit_flush_window_ms), new FeatureEditQueue.Listener() {
+      @Override public void onQueueDepthChanged(int depth) {
+        if (getSupportActionBar() != null) {
+          getSupportActionBar().setSubtitle(getString(R.string.queue_depth, depth));
+        }
+      }
+
+      @Override public void onFlushComplete(FeatureEditQueue.FlushRecord record) {
+        Log.d(TAG, getString(R.string.flush_report, record.featureCount, record.submittedEdits,
+            record.latencyMillis));
+        // check if the server edits were successful
+        if (record.succeeded()) {
+          logToUser(false, getResources().getQuantityString(R.plurals.features_added, record.featureCount,
+              record.featureCount));
+        } else {
+          Throwable error = record.error;
+          for (FeatureEditResult result : record.results) {
+            if (error == null && result.hasCompletedWithErrors()) {
+              error = result.getError();
+            }
           }
+          logToUser(true, getString(R.string.error_applying_edits, error != null ? error.getMessage() : ""));
         }
-      } catch (InterruptedException | ExecutionException e) {
-        runOnUiThread(() -> logToUser(true, getString(R.string.error_applying_edits, e.getCause().getMessage())));
       }
     });
   }
@@ -158,11 +168,14 @@ public class MainActivity extends AppCompatActivity {
   }
 
   @Override protected void onPause() {
+    // send any queued additions before leaving the sample
+    mEditQueue.flush();
     mMapView.pause();
     super.onPause();
   }
 
   @Override protected void onDestroy() {
+    mEditQueue.cancelTimer();
     mMapView.dispose();
     super.onDestroy();
   }
@@ -30,7 +30,9 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.MotionEvent;
 import android.view.View;
+import android.widget.ArrayAdapter;
 import android.widget.CheckBox;
+import android.widget.Spinner;
 import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
@@ -62,18 +64,25 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
 
   private MapView mMapView;
   private CheckBox mAxisCheckbox;
+  private Spinner mPageSizeSpinner;
   private RecyclerView mLayersRecyclerView;
   private View mLoadingView;
   private BottomSheetBehavior<View> mBottomSheetBehavior;
 
   private WfsLayerInfo mSelectedWfsLayerInfo;
 
+  // the page request currently in flight, cancelled when the user selects another layer
+  private ListenableFuture<FeatureQueryResult> mPageFuture;
+  // incremented on every layer change so that results of abandoned requests are ignored
+  private int mPopulateGeneration;
+
   @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_main);
 
     mMapView = findViewById(R.id.mapView);
     mAxisCheckbox = findViewById(R.id.axisCheckbox);
+    mPageSizeSpinner = findViewById(R.id.pageSizeSpinner);
     mLayersRecyclerView = findViewById(R.id.layersRecyclerView);
     mLoadingView = findViewById(R.id.loadingView);
 
@@ -97,6 +106,12 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
       }
     });
 
+    // populate the page size spinner
+    ArrayAdapter<CharSequence> pageSizeAdapter = ArrayAdapter
+        .createFromResource(this, R.array.page_sizes, android.R.layout.simple_spinner_item);
+    pageSizeAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+    mPageSizeSpinner.setAdapter(pageSizeAdapter);
+
     ArcGISMap map = new ArcGISMap(Basemap.createImagery());
     mMapView.setMap(map);
 
@@ -121,6 +136,9 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
     mBottomSheetBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
     mLoadingView.setVisibility(View.VISIBLE);
 
+    // cancel any population still running for the previously selected layer
+    cancelPopulation();
+
     // clear existing layer infos
     mMapView.getMap().getOperationalLayers().clear();
 
@@ -142,18 +160,71 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
     // add the layer to the map
     mMapView.getMap().getOperationalLayers().add(featureLayer);
 
-    // populate the table
-    ListenableFuture<FeatureQueryResult> featureQueryResultFuture = featureTable
-        .populateFromServiceAsync(new QueryParameters(), false, null);
+    // populate the table one page at a time, starting with the first page
+    int pageSize = Integer.parseInt(mPageSizeSpinner.getSelectedItem().toString());
+    populatePage(featureTable, featureLayer, pageSize, 0, mPopulateGeneration);
+  }
 
-    // run when the table has been populated
-    featureQueryResultFuture.addDoneListener(() -> {
-      // zoom to the extent of the layer
-      mMapView.setViewpointGeometryAsync(featureLayer.getFullExtent(), 50);
-      mLoadingView.setVisibility(View.GONE);
+  /**
+   * Request a single page of features from the service and append it to the {@link WfsFeatureTable}'s local cache.
+   * Features in the page are rendered as soon as it lands, and the next page is requested until the service returns
+   * a page which isn't full.
+   *
+   * @param featureTable to populate
+   * @param featureLayer displaying the table
+   * @param pageSize     maximum number of features to request per page
+   * @param offset       index of the first feature in the page
+   * @param generation   value of mPopulateGeneration when population of this table started
+   */
+  private void populatePage(WfsFeatureTable featureTable, FeatureLayer featureLayer, int pageSize, int offset,
+      int generation) {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setMaxFeatures(pageSize);
+    queryParameters.setResultOffset(offset);
+
+    // don't clear the cache so that each page is appended to the features already in the table
+    mPageFuture = featureTable.populateFromServiceAsync(queryParameters, false, null);
+    ListenableFuture<FeatureQueryResult> pageFuture = mPageFuture;
+    pageFuture.addDoneListener(() -> {
+      // ignore pages belonging to a layer which is no longer selected
+      if (generation != mPopulateGeneration || pageFuture.isCancelled()) {
+        return;
+      }
+      int pageCount = 0;
+      try {
+        for (Feature ignored : pageFuture.get()) {
+          pageCount++;
+        }
+      } catch (Exception e) {
+        mLoadingView.setVisibility(View.GONE);
+        logErrorToUser(getString(R.string.error_wfs_populate_failure, e.getMessage()));
+        return;
+      }
+      if (offset == 0) {
+        // zoom to the extent of the first page and hide the loading view, the remaining pages render as they arrive
+        mMapView.setViewpointGeometryAsync(featureLayer.getFullExtent(), 50);
+        mLoadingView.setVisibility(View.GONE);
+      }
+      Log.d(TAG, "Populated " + (offset + pageCount) + " features from " + featureTable.getTableName());
+      if (pageCount == pageSize) {
+        populatePage(featureTable, featureLayer, pageSize, offset + pageCount, generation);
+      } else {
+        mPageFuture = null;
+      }
     });
   }
 
+  /**
+   * Cancel the page request in flight, if any, and invalidate any pages still to be delivered.
+   */
+  private void cancelPopulation() {
+    mPopulateGeneration++;
+    if (mPageFuture != null) {
+      mPageFuture.cancel(true);
+      mPageFuture = null;
+    }
+  }
+
   /**
    * Create a {@link SimpleRenderer} to render the {@link Feature}s in the {@link FeatureLayer}
    *
@@ -229,6 +300,7 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
 
   @Override
   protected void onDestroy() {
+    cancelPopulation();
     mMapView.dispose();
     super.onDestroy();
   }
@@ -16,7 +16,6 @@
 
 package com.esri.arcgisruntime.samples.deletefeaturesfeatureservice;
 
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import android.annotation.SuppressLint;
@@ -55,6 +54,8 @@ public class MainActivity extends AppCompatActivity implements ConfirmDeleteFeat
 
   private FeatureLayer mFeatureLayer;
 
+  private FeatureEditQueue mEditQueue;
+
   @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_main);
@@ -67,6 +68,9 @@ public class MainActivity extends AppCompatActivity implements ConfirmDeleteFeat
     // create service feature table from URL
     mFeatureTable = new ServiceFeatureTable(getString(R.string.feature_layer_url));
 
+    // queue deletions and apply them to the server in batches
+    mEditQueue = createEditQueue(mFeatureTable);
+
     // create a feature layer from table
     mFeatureLayer = new FeatureLayer(mFeatureTable);
 
@@ -154,8 +158,8 @@ public class MainActivity extends AppCompatActivity implements ConfirmDeleteFeat
         if (featureQueryResult.get().iterator().hasNext()) {
           // attempt to get first feature from result as it should be the only feature
           Feature foundFeature = featureQueryResult.get().iterator().next();
-          // delete found features
-          deleteFeature(foundFeature, mFeatureTable, () -> applyEdits(mFeatureTable));
+          // delete found features, the edit queue sends the deletion to the server
+          mEditQueue.deleteFeature(foundFeature);
         }
       } catch (InterruptedException | ExecutionException e) {
         logToUser(true, getString(R.string.error_feature_deletion, e.getCause().getMessage()));
@@ -164,41 +168,36 @@ public class MainActivity extends AppCompatActivity implements ConfirmDeleteFeat
   }
 
   /**
-   * Deletes a feature from a {@link ServiceFeatureTable} and applies the changes to the
-   * server.
-   *
-   * @param feature                     {@link Feature} to delete
-   * @param featureTable                {@link ServiceFeatureTable} to delete {@link Feature} from
-   * @param onDeleteFeatureDoneListener {@link Runnable} to be invoked when action has completed
-   */
-  private void deleteFeature(Feature feature, ServiceFeatureTable featureTable,
-      Runnable onDeleteFeatureDoneListener) {
-    featureTable.deleteFeatureAsync(feature).addDoneListener(onDeleteFeatureDoneListener);
-  }
-
-  /**
-   * Sends any edits on the {@link ServiceFeatureTable} to the server.
+   * Creates an edit queue which applies deletions to the server in batches.
    *
    * @param featureTable {@link ServiceFeatureTable} to apply edits to
+   * @return a {@link FeatureEditQueue} for the feature table
    */
-  private void applyEdits(ServiceFeatureTable featureTable) {
-    // apply the changes to the server
-    ListenableFuture<List<FeatureEditResult>> featureEditsFuture = featureTable.applyEditsAsync();
-    featureEditsFuture.addDoneListener(() -> {
-      try {
-        // check result has an edit
-        if (featureEditsFuture.get().iterator().hasNext()) {
-          // attempt to get first edit from result as it should be the only edit
-          FeatureEditResult edit = featureEditsFuture.get().iterator().next();
-          // check if the server edit was successful
-          if (!edit.hasCompletedWithErrors()) {
-            logToUser(false, getString(R.string.success_feature_deleted));
-          } else {
-            throw edit.getError();
+  private FeatureEditQueue createEditQueue(ServiceFeatureTable featureTable) {
+    return new FeatureEditQueue(featureTable, getResources().getInteger(R.integer.edit_batch_size),
+        getResources().getInteger(R.integer.edit_flush_window_ms), new FeatureEditQueue.Listener() {
+      @Override public void onQueueDepthChanged(int depth) {
+        if (getSupportActionBar() != null) {
+          getSupportActionBar().setSubtitle(getString(R.string.queue_depth, depth));
+        }
+      }
+
+      @Override public void onFlushComplete(FeatureEditQueue.FlushRecord record) {
+        Log.d(TAG, getString(R.string.flush_report, record.featureCount, record.submittedEdits,
+            record.latencyMillis));
+        // check if the server edits were successful
+        if (record.succeeded()) {
+          logToUser(false, getResources().getQuantityString(R.plurals.success_features_deleted, record.featureCount,
+              record.featureCount));
+        } else {
+          Throwable error = record.error;
+          for (FeatureEditResult edit : record.results) {
+            if (error == null && edit.hasCompletedWithErrors()) {
+              error = edit.getError();
+            }
           }
+          logToUser(true, getString(R.string.error_applying_edits, error != null ? error.getMessage() : ""));
         }
-      } catch (InterruptedException | ExecutionException e) {
-        logToUser(true, getString(R.string.error_applying_edits, e.getCause().getMessage()));
       }
     });
   }
@@ -223,11 +222,14 @@ public class MainActivity extends AppCompatActivity implements ConfirmDeleteFeat
   }
 
   @Override protected void onPause() {
+    // send any queued deletions before leaving the sample
+    mEditQueue.flush();
     mMapView.pause();
     super.onPause();
   }
 
   @Override protected void onDestroy() {
+    mEditQueue.cancelTimer();
     mMapView.dispose();
     super.onDestroy();
   }
@@ -0,0 +1,84 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editandsyncfeatures;
+
+import java.util.List;
+
+import android.net.TrafficStats;
+import android.os.Process;
+
+import com.esri.arcgisruntime.concurrent.Job;
+import com.esri.arcgisruntime.data.Geodatabase;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
+import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseJob;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseParameters;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncLayerOption;
+
+/**
+ * A {@link SyncScheduler.SyncEndpoint} which runs a bidirectional {@link SyncGeodatabaseJob} for the given layers of a
+ * geodatabase, or for all of its layers if none are given. The payload size is measured as the network traffic of the
+ * app while the job runs.
+ */
+class GeodatabaseSyncEndpoint implements SyncScheduler.SyncEndpoint {
+
+  private final GeodatabaseSyncTask mGeodatabaseSyncTask;
+  private final Geodatabase mGeodatabase;
+
+  GeodatabaseSyncEndpoint(GeodatabaseSyncTask geodatabaseSyncTask, Geodatabase geodatabase) {
+    mGeodatabaseSyncTask = geodatabaseSyncTask;
+    mGeodatabase = geodatabase;
+  }
+
+  @Override public void sync(List<Long> serviceLayerIds, SyncScheduler.SyncCallback callback) {
+    // create parameters for the sync task including only the given layers
+    SyncGeodatabaseParameters syncGeodatabaseParameters = new SyncGeodatabaseParameters();
+    syncGeodatabaseParameters.setSyncDirection(SyncGeodatabaseParameters.SyncDirection.BIDIRECTIONAL);
+    syncGeodatabaseParameters.setRollbackOnFailure(false);
+    if (serviceLayerIds.isEmpty()) {
+      // nothing to upload, but pull down the changes made on the service to every layer
+      for (GeodatabaseFeatureTable featureTable : mGeodatabase.getGeodatabaseFeatureTables()) {
+        syncGeodatabaseParameters.getLayerOptions().add(new SyncLayerOption(featureTable.getServiceLayerId()));
+      }
+    } else {
+      for (long serviceLayerId : serviceLayerIds) {
+        syncGeodatabaseParameters.getLayerOptions().add(new SyncLayerOption(serviceLayerId));
+      }
+    }
+
+    final long startBytes = getTrafficBytes();
+    final SyncGeodatabaseJob syncGeodatabaseJob = mGeodatabaseSyncTask
+        .syncGeodatabase(syncGeodatabaseParameters, mGeodatabase);
+    syncGeodatabaseJob.addJobDoneListener(() -> {
+      long endBytes = getTrafficBytes();
+      long payloadBytes = startBytes >= 0 && endBytes >= 0 ? endBytes - startBytes : -1;
+      callback.onSyncComplete(syncGeodatabaseJob.getStatus() == Job.Status.SUCCEEDED, payloadBytes,
+          syncGeodatabaseJob.getError());
+    });
+    syncGeodatabaseJob.start();
+  }
+
+  /**
+   * @return bytes sent and received by this app, or -1 if traffic statistics aren't supported on the device
+   */
+  private static long getTrafficBytes() {
+    int uid = Process.myUid();
+    long txBytes = TrafficStats.getUidTxBytes(uid);
+    long rxBytes = TrafficStats.getUidRxBytes(uid);
+    return txBytes == TrafficStats.UNSUPPORTED || rxBytes == TrafficStats.UNSUPPORTED ? -1 : txBytes + rxBytes;
+  }
+}
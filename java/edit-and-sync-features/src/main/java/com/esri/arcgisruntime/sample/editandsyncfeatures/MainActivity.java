@@ -18,7 +18,9 @@ package com.esri.arcgisruntime.sample.editandsyncfeatures;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import android.Manifest;
@@ -46,6 +48,7 @@ import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.TileCache;
 import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.GeometryType;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.layers.ArcGISTiledLayer;
@@ -62,9 +65,6 @@ import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseJob;
 import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseParameters;
 import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
-import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseJob;
-import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseParameters;
-import com.esri.arcgisruntime.tasks.geodatabase.SyncLayerOption;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -77,8 +77,11 @@ public class MainActivity extends AppCompatActivity {
   private GraphicsOverlay mGraphicsOverlay;
   private GeodatabaseSyncTask mGeodatabaseSyncTask;
   private Geodatabase mGeodatabase;
+  private SyncScheduler mSyncScheduler;
 
   private List<Feature> mSelectedFeatures;
+  // point index for each geodatabase feature layer, used to resolve taps without querying the table
+  private final Map<FeatureLayer, PointGridIndex> mPointIndexes = new HashMap<>();
   private MainActivity.EditState mCurrentEditState;
 
   @Override
@@ -181,10 +184,13 @@ public class MainActivity extends AppCompatActivity {
                       .getGeodatabaseFeatureTables().get(0);
                   pointsGeodatabaseFeatureTable.loadAsync();
                   FeatureLayer geodatabaseFeatureLayer = new FeatureLayer(pointsGeodatabaseFeatureTable);
+                  // index the table's points once loaded so taps can be resolved synchronously
+                  pointsGeodatabaseFeatureTable.addDoneLoadingListener(() -> buildPointIndex(geodatabaseFeatureLayer));
                   // add geodatabase layer to the map as a feature layer and make it selectable
                   mMapView.getMap().getOperationalLayers().add(geodatabaseFeatureLayer);
                   mGeodatabaseButton.setVisibility(View.GONE);
                   Log.i(TAG, "Local geodatabase stored at: " + localGeodatabasePath);
+                  createSyncScheduler();
                 } else {
                   Log.e(TAG, "Error loading geodatabase: " + mGeodatabase.getLoadError().getMessage());
                 }
@@ -211,38 +217,38 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Syncs changes made on either the local or web service geodatabase with each other.
+   * Creates a scheduler which syncs the layers with local edits in the background, a short while after they're edited.
    */
-  private void syncGeodatabase() {
-    // create parameters for the sync task
-    SyncGeodatabaseParameters syncGeodatabaseParameters = new SyncGeodatabaseParameters();
-    syncGeodatabaseParameters.setSyncDirection(SyncGeodatabaseParameters.SyncDirection.BIDIRECTIONAL);
-    syncGeodatabaseParameters.setRollbackOnFailure(false);
-    // get the layer ID for each feature table in the geodatabase, then add to the sync job
-    for (GeodatabaseFeatureTable geodatabaseFeatureTable : mGeodatabase.getGeodatabaseFeatureTables()) {
-      long serviceLayerId = geodatabaseFeatureTable.getServiceLayerId();
-      SyncLayerOption syncLayerOption = new SyncLayerOption(serviceLayerId);
-      syncGeodatabaseParameters.getLayerOptions().add(syncLayerOption);
-    }
-
-    final SyncGeodatabaseJob syncGeodatabaseJob = mGeodatabaseSyncTask
-        .syncGeodatabase(syncGeodatabaseParameters, mGeodatabase);
-
-    syncGeodatabaseJob.start();
-
-    createProgressDialog(syncGeodatabaseJob);
-
-    syncGeodatabaseJob.addJobDoneListener(() -> {
-      if (syncGeodatabaseJob.getStatus() == Job.Status.SUCCEEDED) {
+  private void createSyncScheduler() {
+    mSyncScheduler = new SyncScheduler(new GeodatabaseSyncEndpoint(mGeodatabaseSyncTask, mGeodatabase),
+        getResources().getInteger(R.integer.sync_batch_window_ms),
+        getResources().getInteger(R.integer.sync_initial_backoff_ms),
+        getResources().getInteger(R.integer.sync_max_backoff_ms), record -> {
+      Log.i(TAG, record.toString());
+      if (record.succeeded) {
         Toast.makeText(this, "Sync complete", Toast.LENGTH_SHORT).show();
-        mGeodatabaseButton.setVisibility(View.INVISIBLE);
+        // the sync may have pulled down features added, moved or deleted on the service, so index the tables again
+        for (FeatureLayer featureLayer : new ArrayList<>(mPointIndexes.keySet())) {
+          buildPointIndex(featureLayer);
+        }
+        if (!mSyncScheduler.hasPendingEdits()) {
+          mGeodatabaseButton.setVisibility(View.INVISIBLE);
+        }
       } else {
-        Log.e(TAG, "Database did not sync correctly!");
-        Toast.makeText(this, "Database did not sync correctly!", Toast.LENGTH_LONG).show();
+        Log.e(TAG, "Database did not sync correctly!", record.error);
+        Toast.makeText(this, "Database did not sync correctly, retrying", Toast.LENGTH_LONG).show();
       }
     });
   }
 
+  /**
+   * Syncs changes made on either the local or web service geodatabase with each other immediately, rather than waiting
+   * for the scheduled sync.
+   */
+  private void syncGeodatabase() {
+    mSyncScheduler.syncNow();
+  }
+
   /**
    * Create a progress dialog to show sync state
    */
@@ -260,7 +266,27 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Queries the features at the tapped point within a certain tolerance.
+   * Builds a point index over the features of a geodatabase feature layer's table.
+   *
+   * @param featureLayer whose table has loaded
+   */
+  private void buildPointIndex(FeatureLayer featureLayer) {
+    PointGridIndex.buildAsync((GeodatabaseFeatureTable) featureLayer.getFeatureTable(),
+        new PointGridIndex.BuildListener() {
+          @Override public void onBuilt(PointGridIndex index) {
+            mPointIndexes.put(featureLayer, index);
+          }
+
+          @Override public void onError(Exception e) {
+            // taps on this layer fall back to a spatial query
+            Log.e(TAG, "Error building point index: " + e.getMessage());
+          }
+        });
+  }
+
+  /**
+   * Selects the features at the tapped point within a certain tolerance. Layers with a point index are resolved with a
+   * synchronous lookup and selected by object id, other layers are selected with a spatial query.
    *
    * @param point     contains an ArcGIS map point
    * @param tolerance distance from point within which features will be selected
@@ -271,31 +297,41 @@ public class MainActivity extends AppCompatActivity {
     // create objects required to do a selection with a query
     Envelope envelope = new Envelope(point.getX() - mapTolerance, point.getY() - mapTolerance,
         point.getX() + mapTolerance, point.getY() + mapTolerance, mMapView.getSpatialReference());
-    QueryParameters query = new QueryParameters();
-    query.setGeometry(envelope);
     mSelectedFeatures = new ArrayList<>();
     // select features within the envelope for all features on the map
     for (Layer layer : mMapView.getMap().getOperationalLayers()) {
       final FeatureLayer featureLayer = (FeatureLayer) layer;
+      QueryParameters query = new QueryParameters();
+      PointGridIndex pointIndex = mPointIndexes.get(featureLayer);
+      if (pointIndex != null) {
+        long[] objectIds = pointIndex
+            .query((Envelope) GeometryEngine.project(envelope, pointIndex.getSpatialReference()));
+        if (objectIds.length == 0) {
+          featureLayer.clearSelection();
+          continue;
+        }
+        for (long objectId : objectIds) {
+          query.getObjectIds().add(objectId);
+        }
+      } else {
+        query.setGeometry(envelope);
+      }
       final ListenableFuture<FeatureQueryResult> featureQueryResultFuture = featureLayer
           .selectFeaturesAsync(query, FeatureLayer.SelectionMode.NEW);
       // add done loading listener to fire when the selection returns
       featureQueryResultFuture.addDoneListener(() -> {
-        // Get the selected features
-        final ListenableFuture<FeatureQueryResult> featureQueryResultFuture1 = featureLayer.getSelectedFeaturesAsync();
-        featureQueryResultFuture1.addDoneListener(() -> {
-          try {
-            FeatureQueryResult layerFeatures = featureQueryResultFuture1.get();
-            for (Feature feature : layerFeatures) {
-              // Only select points for editing
-              if (feature.getGeometry().getGeometryType() == GeometryType.POINT) {
-                mSelectedFeatures.add(feature);
-              }
+        try {
+          // the result of the selection contains the selected features
+          FeatureQueryResult layerFeatures = featureQueryResultFuture.get();
+          for (Feature feature : layerFeatures) {
+            // Only select points for editing
+            if (feature.getGeometry().getGeometryType() == GeometryType.POINT) {
+              mSelectedFeatures.add(feature);
             }
-          } catch (Exception e) {
-            Log.e(TAG, "Select feature failed: " + e.getMessage());
           }
-        });
+        } catch (Exception e) {
+          Log.e(TAG, "Select feature failed: " + e.getMessage());
+        }
         // set current edit state to editing
         mCurrentEditState = EditState.Editing;
       });
@@ -310,7 +346,26 @@ public class MainActivity extends AppCompatActivity {
   private void moveSelectedFeatureTo(Point point) {
     for (Feature feature : mSelectedFeatures) {
       feature.setGeometry(point);
-      feature.getFeatureTable().updateFeatureAsync(feature);
+      GeodatabaseFeatureTable featureTable = (GeodatabaseFeatureTable) feature.getFeatureTable();
+      ListenableFuture<Void> updateFuture = featureTable.updateFeatureAsync(feature);
+      // once the edit is stored in the local geodatabase, schedule a sync of the edited layer and keep the layer's
+      // point index in step with it
+      updateFuture.addDoneListener(() -> {
+        try {
+          updateFuture.get();
+          mSyncScheduler.onLocalEdit(featureTable.getServiceLayerId());
+          PointGridIndex pointIndex = mPointIndexes.get(featureTable.getFeatureLayer());
+          if (pointIndex != null) {
+            Object objectId = feature.getAttributes().get(featureTable.getObjectIdField());
+            if (objectId instanceof Number) {
+              pointIndex.update(((Number) objectId).longValue(),
+                  (Point) GeometryEngine.project(point, pointIndex.getSpatialReference()));
+            }
+          }
+        } catch (InterruptedException | ExecutionException e) {
+          Log.e(TAG, "Error updating feature: " + e.getMessage());
+        }
+      });
     }
     mSelectedFeatures.clear();
     mCurrentEditState = MainActivity.EditState.Ready;
@@ -345,6 +400,9 @@ public class MainActivity extends AppCompatActivity {
   }
 
   @Override protected void onDestroy() {
+    if (mSyncScheduler != null) {
+      mSyncScheduler.cancel();
+    }
     mMapView.dispose();
     super.onDestroy();
   }
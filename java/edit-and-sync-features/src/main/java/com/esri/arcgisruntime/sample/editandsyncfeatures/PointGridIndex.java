@@ -0,0 +1,304 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editandsyncfeatures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+/**
+ * A packed uniform grid over the point features of a {@link GeodatabaseFeatureTable}, which answers envelope queries
+ * synchronously. Object ids and coordinates are held in primitive arrays, and the rows in each grid cell are stored
+ * contiguously, indexed by an array of cell start offsets.
+ * <p>
+ * Edits don't repack the grid. A moved, added or deleted point marks its packed row as stale and is kept in a small
+ * overflow list which is scanned on every query, and the grid is repacked once the overflow grows too large.
+ */
+class PointGridIndex {
+
+  // average number of points per grid cell
+  private static final int POINTS_PER_CELL = 4;
+
+  private final GeodatabaseFeatureTable mFeatureTable;
+  private final SpatialReference mSpatialReference;
+
+  // packed grid
+  private double mMinX;
+  private double mMinY;
+  private double mCellSize;
+  private int mColumns;
+  private int mRows;
+  private int[] mCellStarts;
+  private long[] mObjectIds;
+  private double[] mXs;
+  private double[] mYs;
+  private boolean[] mStale;
+
+  // rows of the packed grid by object id, used to mark rows stale when they're edited
+  private final Map<Long, Integer> mRowsByObjectId = new HashMap<>();
+
+  // points added or moved since the grid was packed
+  private long[] mOverflowObjectIds = new long[16];
+  private double[] mOverflowXs = new double[16];
+  private double[] mOverflowYs = new double[16];
+  private int mOverflowCount;
+
+  private PointGridIndex(GeodatabaseFeatureTable featureTable) {
+    mFeatureTable = featureTable;
+    mSpatialReference = featureTable.getSpatialReference();
+  }
+
+  /**
+   * Listener for the result of {@link #buildAsync}.
+   */
+  interface BuildListener {
+    void onBuilt(PointGridIndex index);
+
+    void onError(Exception e);
+  }
+
+  /**
+   * Query the location of every point in the table and index them.
+   *
+   * @param featureTable a loaded table with point geometries
+   * @param listener     called on the UI thread once the index is built
+   */
+  static void buildAsync(GeodatabaseFeatureTable featureTable, BuildListener listener) {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause("1=1");
+    ListenableFuture<FeatureQueryResult> future = featureTable.queryFeaturesAsync(queryParameters);
+    future.addDoneListener(() -> {
+      try {
+        String objectIdField = featureTable.getObjectIdField();
+        PointGridIndex index = new PointGridIndex(featureTable);
+        for (Feature feature : future.get()) {
+          if (feature.getGeometry() instanceof Point) {
+            Point point = (Point) feature.getGeometry();
+            index.addToOverflow(((Number) feature.getAttributes().get(objectIdField)).longValue(), point.getX(),
+                point.getY());
+          }
+        }
+        index.pack();
+        listener.onBuilt(index);
+      } catch (Exception e) {
+        listener.onError(e);
+      }
+    });
+  }
+
+  /**
+   * @return the table this index was built from
+   */
+  GeodatabaseFeatureTable getFeatureTable() {
+    return mFeatureTable;
+  }
+
+  /**
+   * @return the spatial reference of the indexed coordinates
+   */
+  SpatialReference getSpatialReference() {
+    return mSpatialReference;
+  }
+
+  /**
+   * Find the object ids of the points within an envelope.
+   *
+   * @param envelope in the index's spatial reference
+   * @return object ids of the points inside the envelope
+   */
+  long[] query(Envelope envelope) {
+    double xMin = envelope.getXMin();
+    double yMin = envelope.getYMin();
+    double xMax = envelope.getXMax();
+    double yMax = envelope.getYMax();
+    long[] result = new long[8];
+    int count = 0;
+
+    if (mCellStarts != null && mObjectIds.length > 0) {
+      int firstColumn = clamp((int) Math.floor((xMin - mMinX) / mCellSize), mColumns);
+      int lastColumn = clamp((int) Math.floor((xMax - mMinX) / mCellSize), mColumns);
+      int firstRow = clamp((int) Math.floor((yMin - mMinY) / mCellSize), mRows);
+      int lastRow = clamp((int) Math.floor((yMax - mMinY) / mCellSize), mRows);
+      for (int gridRow = firstRow; gridRow <= lastRow; gridRow++) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          int cell = gridRow * mColumns + column;
+          for (int i = mCellStarts[cell]; i < mCellStarts[cell + 1]; i++) {
+            if (!mStale[i] && mXs[i] >= xMin && mXs[i] <= xMax && mYs[i] >= yMin && mYs[i] <= yMax) {
+              if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2);
+              }
+              result[count++] = mObjectIds[i];
+            }
+          }
+        }
+      }
+    }
+    for (int i = 0; i < mOverflowCount; i++) {
+      if (mOverflowXs[i] >= xMin && mOverflowXs[i] <= xMax && mOverflowYs[i] >= yMin && mOverflowYs[i] <= yMax) {
+        if (count == result.length) {
+          result = Arrays.copyOf(result, count * 2);
+        }
+        result[count++] = mOverflowObjectIds[i];
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Record that a point was added or moved.
+   *
+   * @param objectId of the feature
+   * @param point    new location, in the index's spatial reference
+   */
+  void update(long objectId, Point point) {
+    remove(objectId);
+    addToOverflow(objectId, point.getX(), point.getY());
+    // repack once scanning the overflow costs more than a few grid cells
+    if (mOverflowCount > Math.max(64, mObjectIds.length / 16)) {
+      pack();
+    }
+  }
+
+  /**
+   * Record that a point was deleted.
+   *
+   * @param objectId of the feature
+   */
+  void remove(long objectId) {
+    Integer row = mRowsByObjectId.get(objectId);
+    if (row != null) {
+      mStale[row] = true;
+    }
+    for (int i = 0; i < mOverflowCount; i++) {
+      if (mOverflowObjectIds[i] == objectId) {
+        // swap in the last overflow entry
+        mOverflowCount--;
+        mOverflowObjectIds[i] = mOverflowObjectIds[mOverflowCount];
+        mOverflowXs[i] = mOverflowXs[mOverflowCount];
+        mOverflowYs[i] = mOverflowYs[mOverflowCount];
+        break;
+      }
+    }
+  }
+
+  private void addToOverflow(long objectId, double x, double y) {
+    if (mOverflowCount == mOverflowObjectIds.length) {
+      int capacity = mOverflowCount * 2;
+      mOverflowObjectIds = Arrays.copyOf(mOverflowObjectIds, capacity);
+      mOverflowXs = Arrays.copyOf(mOverflowXs, capacity);
+      mOverflowYs = Arrays.copyOf(mOverflowYs, capacity);
+    }
+    mOverflowObjectIds[mOverflowCount] = objectId;
+    mOverflowXs[mOverflowCount] = x;
+    mOverflowYs[mOverflowCount] = y;
+    mOverflowCount++;
+  }
+
+  /**
+   * Pack the current, non-stale points and the overflow into a new grid sized for the number of points.
+   */
+  private void pack() {
+    // gather live points
+    int packedCount = mObjectIds == null ? 0 : mObjectIds.length;
+    int count = mOverflowCount;
+    for (int i = 0; i < packedCount; i++) {
+      if (!mStale[i]) {
+        count++;
+      }
+    }
+    long[] objectIds = new long[count];
+    double[] xs = new double[count];
+    double[] ys = new double[count];
+    int n = 0;
+    for (int i = 0; i < packedCount; i++) {
+      if (!mStale[i]) {
+        objectIds[n] = mObjectIds[i];
+        xs[n] = mXs[i];
+        ys[n] = mYs[i];
+        n++;
+      }
+    }
+    System.arraycopy(mOverflowObjectIds, 0, objectIds, n, mOverflowCount);
+    System.arraycopy(mOverflowXs, 0, xs, n, mOverflowCount);
+    System.arraycopy(mOverflowYs, 0, ys, n, mOverflowCount);
+    mOverflowCount = 0;
+
+    // size the grid so cells hold a few points each on average
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      minX = Math.min(minX, xs[i]);
+      minY = Math.min(minY, ys[i]);
+      maxX = Math.max(maxX, xs[i]);
+      maxY = Math.max(maxY, ys[i]);
+    }
+    double width = count > 0 ? Math.max(maxX - minX, 1e-9) : 1;
+    double height = count > 0 ? Math.max(maxY - minY, 1e-9) : 1;
+    mMinX = count > 0 ? minX : 0;
+    mMinY = count > 0 ? minY : 0;
+    mCellSize = Math.max(Math.sqrt(width * height * POINTS_PER_CELL / Math.max(count, 1)),
+        Math.max(width, height) / 1024);
+    mColumns = (int) Math.floor(width / mCellSize) + 1;
+    mRows = (int) Math.floor(height / mCellSize) + 1;
+
+    // counting sort of the points by cell
+    int cellCount = mColumns * mRows;
+    int[] cells = new int[count];
+    mCellStarts = new int[cellCount + 1];
+    for (int i = 0; i < count; i++) {
+      cells[i] = cellOf(xs[i], ys[i]);
+      mCellStarts[cells[i] + 1]++;
+    }
+    for (int cell = 0; cell < cellCount; cell++) {
+      mCellStarts[cell + 1] += mCellStarts[cell];
+    }
+    int[] next = Arrays.copyOf(mCellStarts, cellCount);
+    mObjectIds = new long[count];
+    mXs = new double[count];
+    mYs = new double[count];
+    mStale = new boolean[count];
+    mRowsByObjectId.clear();
+    for (int i = 0; i < count; i++) {
+      int row = next[cells[i]]++;
+      mObjectIds[row] = objectIds[i];
+      mXs[row] = xs[i];
+      mYs[row] = ys[i];
+      mRowsByObjectId.put(objectIds[i], row);
+    }
+  }
+
+  private int cellOf(double x, double y) {
+    int column = clamp((int) Math.floor((x - mMinX) / mCellSize), mColumns);
+    int row = clamp((int) Math.floor((y - mMinY) / mCellSize), mRows);
+    return row * mColumns + column;
+  }
+
+  private static int clamp(int value, int size) {
+    return Math.max(0, Math.min(size - 1, value));
+  }
+}
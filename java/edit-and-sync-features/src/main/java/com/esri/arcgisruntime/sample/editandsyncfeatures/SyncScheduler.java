@@ -0,0 +1,277 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editandsyncfeatures;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Schedules delta syncs of the layers which have local edits. Edits are batched over a time window, so a burst of
+ * edits results in one sync, and only the layers edited since the last successful sync are included. A failed sync
+ * is retried with exponential backoff, keeping any edits made in the meantime in the same batch.
+ * <p>
+ * The sync itself is delegated to a {@link SyncEndpoint}, and the time and delayed syncs to a {@link Timer}, so the
+ * scheduler can be driven by a local stand-in and a simulated clock instead of a feature service and the main thread.
+ * All methods must be called on the thread of the {@link Looper} the scheduler was created with, and endpoint
+ * callbacks must be delivered on that thread too.
+ */
+class SyncScheduler {
+
+  /**
+   * Performs a sync of the given layers.
+   */
+  interface SyncEndpoint {
+    void sync(List<Long> serviceLayerIds, SyncCallback callback);
+  }
+
+  /**
+   * Completion callback of a {@link SyncEndpoint}.
+   */
+  interface SyncCallback {
+    /**
+     * @param succeeded    whether the sync succeeded
+     * @param payloadBytes bytes transferred by the sync, or -1 if unknown
+     * @param error        cause of the failure, null if the sync succeeded
+     */
+    void onSyncComplete(boolean succeeded, long payloadBytes, Throwable error);
+  }
+
+  /**
+   * Tells the time and runs delayed tasks on the scheduler's thread.
+   */
+  interface Timer {
+    /**
+     * @return milliseconds since some fixed point in time
+     */
+    long now();
+
+    void postDelayed(Runnable task, long delayMillis);
+
+    void removeCallbacks(Runnable task);
+  }
+
+  /**
+   * Notified when a scheduled sync completes.
+   */
+  interface Listener {
+    void onSyncComplete(SyncRecord record);
+  }
+
+  /**
+   * Metrics of a completed sync attempt.
+   */
+  static final class SyncRecord {
+    final List<Long> serviceLayerIds;
+    final int editCount;
+    final long payloadBytes;
+    final long durationMillis;
+    final boolean succeeded;
+    final int attempt;
+    final Throwable error;
+
+    SyncRecord(List<Long> serviceLayerIds, int editCount, long payloadBytes, long durationMillis, boolean succeeded,
+        int attempt, Throwable error) {
+      this.serviceLayerIds = serviceLayerIds;
+      this.editCount = editCount;
+      this.payloadBytes = payloadBytes;
+      this.durationMillis = durationMillis;
+      this.succeeded = succeeded;
+      this.attempt = attempt;
+      this.error = error;
+    }
+
+    @Override public String toString() {
+      return "Sync of layers " + serviceLayerIds + " with " + editCount + " edits " + (succeeded ? "succeeded" :
+          "failed") + " in " + durationMillis + " ms, " + (payloadBytes >= 0 ? payloadBytes + " bytes" :
+          "unknown size") + ", attempt " + attempt;
+    }
+  }
+
+  private final SyncEndpoint mSyncEndpoint;
+  private final Listener mListener;
+  private final long mBatchWindowMillis;
+  private final long mInitialBackoffMillis;
+  private final long mMaxBackoffMillis;
+  private final Timer mTimer;
+
+  // edit counts of the layers edited since they were last synced, by service layer id
+  private final Map<Long, Integer> mPendingEdits = new LinkedHashMap<>();
+  private final List<SyncRecord> mHistory = new ArrayList<>();
+
+  private boolean mSyncInProgress;
+  private boolean mSyncScheduled;
+  private boolean mCancelled;
+  private int mFailureCount;
+
+  private final Runnable mSyncRunnable = () -> {
+    mSyncScheduled = false;
+    startSync(false);
+  };
+
+  /**
+   * @param syncEndpoint         which performs the syncs
+   * @param batchWindowMillis    time to wait after the first edit of a batch before syncing
+   * @param initialBackoffMillis delay before the first retry of a failed sync, doubled for each further failure
+   * @param maxBackoffMillis     maximum delay between retries
+   * @param listener             notified of each completed sync, may be null
+   */
+  SyncScheduler(SyncEndpoint syncEndpoint, long batchWindowMillis, long initialBackoffMillis, long maxBackoffMillis,
+      Listener listener) {
+    this(syncEndpoint, new HandlerTimer(), batchWindowMillis, initialBackoffMillis, maxBackoffMillis, listener);
+  }
+
+  /**
+   * @param timer which runs the scheduled syncs and times them
+   */
+  SyncScheduler(SyncEndpoint syncEndpoint, Timer timer, long batchWindowMillis, long initialBackoffMillis,
+      long maxBackoffMillis, Listener listener) {
+    mSyncEndpoint = syncEndpoint;
+    mTimer = timer;
+    mBatchWindowMillis = batchWindowMillis;
+    mInitialBackoffMillis = initialBackoffMillis;
+    mMaxBackoffMillis = maxBackoffMillis;
+    mListener = listener;
+  }
+
+  /**
+   * Record a local edit to a layer and schedule a sync at the end of the current batch window.
+   *
+   * @param serviceLayerId of the edited table
+   */
+  void onLocalEdit(long serviceLayerId) {
+    Integer editCount = mPendingEdits.get(serviceLayerId);
+    mPendingEdits.put(serviceLayerId, editCount == null ? 1 : editCount + 1);
+    // while backing off after a failure, the pending retry picks up the new edit
+    if (mFailureCount == 0) {
+      schedule(mBatchWindowMillis);
+    }
+  }
+
+  /**
+   * Sync immediately, without waiting for the batch window. If there are no pending edits, the endpoint is asked to
+   * sync with an empty list of layers, so changes made on the service are still pulled down.
+   */
+  void syncNow() {
+    mTimer.removeCallbacks(mSyncRunnable);
+    mSyncScheduled = false;
+    startSync(true);
+  }
+
+  /**
+   * @return whether there are edits which haven't been synced
+   */
+  boolean hasPendingEdits() {
+    return !mPendingEdits.isEmpty();
+  }
+
+  /**
+   * @return metrics of every sync attempt, oldest first
+   */
+  List<SyncRecord> getHistory() {
+    return mHistory;
+  }
+
+  /**
+   * Cancel any scheduled sync and stop scheduling further syncs. A sync already in progress completes, but isn't
+   * retried, and the listener isn't notified of it.
+   */
+  void cancel() {
+    mCancelled = true;
+    mTimer.removeCallbacks(mSyncRunnable);
+    mSyncScheduled = false;
+  }
+
+  private void schedule(long delayMillis) {
+    if (!mCancelled && !mSyncScheduled && !mSyncInProgress) {
+      mSyncScheduled = true;
+      mTimer.postDelayed(mSyncRunnable, delayMillis);
+    }
+  }
+
+  /**
+   * @param explicit whether the sync was asked for, in which case it runs even if there are no pending edits
+   */
+  private void startSync(boolean explicit) {
+    if (mCancelled || mSyncInProgress || (mPendingEdits.isEmpty() && !explicit)) {
+      return;
+    }
+    mSyncInProgress = true;
+    // take the current batch, edits made while syncing go into the next one
+    final Map<Long, Integer> batch = new LinkedHashMap<>(mPendingEdits);
+    mPendingEdits.clear();
+    final List<Long> serviceLayerIds = new ArrayList<>(batch.keySet());
+    int editCount = 0;
+    for (int count : batch.values()) {
+      editCount += count;
+    }
+    final int batchEditCount = editCount;
+    final int attempt = mFailureCount + 1;
+    final long start = mTimer.now();
+    mSyncEndpoint.sync(serviceLayerIds, (succeeded, payloadBytes, error) -> {
+      mSyncInProgress = false;
+      if (mCancelled) {
+        return;
+      }
+      SyncRecord record = new SyncRecord(serviceLayerIds, batchEditCount, payloadBytes,
+          mTimer.now() - start, succeeded, attempt, error);
+      mHistory.add(record);
+      if (succeeded) {
+        mFailureCount = 0;
+        if (!mPendingEdits.isEmpty()) {
+          schedule(mBatchWindowMillis);
+        }
+      } else {
+        // return the failed batch to the pending edits and retry after a backoff
+        for (Map.Entry<Long, Integer> entry : batch.entrySet()) {
+          Integer pending = mPendingEdits.get(entry.getKey());
+          mPendingEdits.put(entry.getKey(), pending == null ? entry.getValue() : pending + entry.getValue());
+        }
+        mFailureCount++;
+        schedule(Math.min(mMaxBackoffMillis, mInitialBackoffMillis << Math.min(mFailureCount - 1, 30)));
+      }
+      if (mListener != null) {
+        mListener.onSyncComplete(record);
+      }
+    });
+  }
+
+  /**
+   * Runs the syncs on the looper of the thread the scheduler is created on, timed by the time since boot.
+   */
+  private static final class HandlerTimer implements Timer {
+
+    private final Handler mHandler = new Handler(Looper.myLooper());
+
+    @Override public long now() {
+      return SystemClock.elapsedRealtime();
+    }
+
+    @Override public void postDelayed(Runnable task, long delayMillis) {
+      mHandler.postDelayed(task, delayMillis);
+    }
+
+    @Override public void removeCallbacks(Runnable task) {
+      mHandler.removeCallbacks(task);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editandsyncfeatures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A local stand-in for a sync endpoint. Each sync takes a fixed time on a {@link FakeTimer} and transfers a fixed
+ * payload, and succeeds or fails as scripted. Every call is recorded with the layers it was asked to sync and when.
+ */
+class FakeSyncEndpoint implements SyncScheduler.SyncEndpoint {
+
+  /**
+   * A sync the endpoint was asked to do.
+   */
+  static final class Call {
+    final List<Long> serviceLayerIds;
+    final long startMillis;
+
+    Call(List<Long> serviceLayerIds, long startMillis) {
+      this.serviceLayerIds = serviceLayerIds;
+      this.startMillis = startMillis;
+    }
+  }
+
+  private final FakeTimer mTimer;
+
+  private final long mDurationMillis;
+
+  private final long mPayloadBytes;
+
+  private final List<Boolean> mOutcomes;
+
+  private final List<Call> mCalls = new ArrayList<>();
+
+  /**
+   * @param timer          on which each sync completes
+   * @param durationMillis time each sync takes
+   * @param payloadBytes   bytes reported for each sync
+   * @param outcomes       whether each sync in turn succeeds; syncs beyond the script succeed
+   */
+  FakeSyncEndpoint(FakeTimer timer, long durationMillis, long payloadBytes, Boolean... outcomes) {
+    mTimer = timer;
+    mDurationMillis = durationMillis;
+    mPayloadBytes = payloadBytes;
+    mOutcomes = new ArrayList<>(Arrays.asList(outcomes));
+  }
+
+  @Override public void sync(List<Long> serviceLayerIds, SyncScheduler.SyncCallback callback) {
+    mCalls.add(new Call(new ArrayList<>(serviceLayerIds), mTimer.now()));
+    final boolean succeeded = mOutcomes.isEmpty() || mOutcomes.remove(0);
+    mTimer.postDelayed(() -> callback.onSyncComplete(succeeded, mPayloadBytes,
+        succeeded ? null : new Exception("Scripted sync failure")), mDurationMillis);
+  }
+
+  List<Call> getCalls() {
+    return mCalls;
+  }
+}
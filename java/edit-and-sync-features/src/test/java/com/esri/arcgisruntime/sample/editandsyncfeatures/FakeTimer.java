@@ -0,0 +1,91 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editandsyncfeatures;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A simulated clock which only moves when the test advances it, running the tasks which fall due on the way in the
+ * order of their due times.
+ */
+class FakeTimer implements SyncScheduler.Timer {
+
+  private static final class Task {
+    final long due;
+    final Runnable runnable;
+
+    Task(long due, Runnable runnable) {
+      this.due = due;
+      this.runnable = runnable;
+    }
+  }
+
+  // in the order they were posted, so tasks due at the same time run in that order
+  private final List<Task> mTasks = new ArrayList<>();
+
+  private long mNow;
+
+  @Override public long now() {
+    return mNow;
+  }
+
+  @Override public void postDelayed(Runnable task, long delayMillis) {
+    mTasks.add(new Task(mNow + delayMillis, task));
+  }
+
+  @Override public void removeCallbacks(Runnable task) {
+    Iterator<Task> iterator = mTasks.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().runnable == task) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Moves the clock forward, running every task due by then, including those posted by the tasks themselves.
+   */
+  void advance(long millis) {
+    long end = mNow + millis;
+    Task next;
+    while ((next = nextDue(end)) != null) {
+      mTasks.remove(next);
+      mNow = next.due;
+      next.runnable.run();
+    }
+    mNow = end;
+  }
+
+  /**
+   * @return number of tasks waiting to run
+   */
+  int getPendingCount() {
+    return mTasks.size();
+  }
+
+  private Task nextDue(long end) {
+    Task next = null;
+    for (Task task : mTasks) {
+      if (task.due <= end && (next == null || task.due < next.due)) {
+        next = task;
+      }
+    }
+    return next;
+  }
+}
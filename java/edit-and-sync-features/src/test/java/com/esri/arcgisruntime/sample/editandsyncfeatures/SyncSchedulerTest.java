@@ -0,0 +1,212 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editandsyncfeatures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the scheduler with a local stand-in endpoint on a simulated clock, checking which layers are synced and when.
+ */
+public class SyncSchedulerTest {
+
+  private static final long WINDOW_MILLIS = 1000;
+
+  private static final long INITIAL_BACKOFF_MILLIS = 100;
+
+  private static final long MAX_BACKOFF_MILLIS = 300;
+
+  private final FakeTimer mTimer = new FakeTimer();
+
+  private final List<SyncScheduler.SyncRecord> mNotified = new ArrayList<>();
+
+  @Test
+  public void editsWithinTheWindowAreSyncedInOneBatch() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 0, 0);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    mTimer.advance(500);
+    scheduler.onLocalEdit(2);
+    scheduler.onLocalEdit(1);
+    mTimer.advance(499);
+    assertTrue(endpoint.getCalls().isEmpty());
+
+    mTimer.advance(1);
+    assertEquals(1, endpoint.getCalls().size());
+    assertEquals(WINDOW_MILLIS, endpoint.getCalls().get(0).startMillis);
+    assertEquals(Arrays.asList(1L, 2L), endpoint.getCalls().get(0).serviceLayerIds);
+    assertEquals(3, mNotified.get(0).editCount);
+    assertFalse(scheduler.hasPendingEdits());
+  }
+
+  @Test
+  public void onlyLayersEditedSinceTheLastSyncAreSynced() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 0, 0);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(3);
+    mTimer.advance(WINDOW_MILLIS);
+    scheduler.onLocalEdit(5);
+    mTimer.advance(WINDOW_MILLIS);
+
+    assertEquals(2, endpoint.getCalls().size());
+    assertEquals(Collections.singletonList(3L), endpoint.getCalls().get(0).serviceLayerIds);
+    assertEquals(Collections.singletonList(5L), endpoint.getCalls().get(1).serviceLayerIds);
+  }
+
+  @Test
+  public void editsMadeWhileSyncingGoIntoTheNextBatch() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 100, 0);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    mTimer.advance(WINDOW_MILLIS + 50);
+    scheduler.onLocalEdit(2);
+    mTimer.advance(50);
+    assertEquals(1, endpoint.getCalls().size());
+
+    // the next window starts once the first sync completes
+    mTimer.advance(WINDOW_MILLIS);
+    assertEquals(2, endpoint.getCalls().size());
+    assertEquals(WINDOW_MILLIS + 100 + WINDOW_MILLIS, endpoint.getCalls().get(1).startMillis);
+    assertEquals(Collections.singletonList(2L), endpoint.getCalls().get(1).serviceLayerIds);
+  }
+
+  @Test
+  public void failedSyncsAreRetriedWithExponentialBackoff() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 0, 0, false, false, false, true);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    mTimer.advance(10000);
+
+    List<FakeSyncEndpoint.Call> calls = endpoint.getCalls();
+    assertEquals(4, calls.size());
+    assertEquals(WINDOW_MILLIS, calls.get(0).startMillis);
+    assertEquals(100, calls.get(1).startMillis - calls.get(0).startMillis);
+    assertEquals(200, calls.get(2).startMillis - calls.get(1).startMillis);
+    // capped at the maximum backoff
+    assertEquals(MAX_BACKOFF_MILLIS, calls.get(3).startMillis - calls.get(2).startMillis);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(Collections.singletonList(1L), calls.get(i).serviceLayerIds);
+      assertEquals(i + 1, mNotified.get(i).attempt);
+      assertEquals(i == 3, mNotified.get(i).succeeded);
+    }
+    assertNotNull(mNotified.get(0).error);
+    assertNull(mNotified.get(3).error);
+    assertFalse(scheduler.hasPendingEdits());
+  }
+
+  @Test
+  public void editsMadeWhileBackingOffJoinTheRetry() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 0, 0, false);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    mTimer.advance(WINDOW_MILLIS);
+    scheduler.onLocalEdit(2);
+    mTimer.advance(INITIAL_BACKOFF_MILLIS);
+
+    assertEquals(2, endpoint.getCalls().size());
+    assertEquals(Arrays.asList(1L, 2L), endpoint.getCalls().get(1).serviceLayerIds);
+    assertEquals(2, mNotified.get(1).editCount);
+
+    // the edit made while backing off didn't schedule a sync of its own
+    mTimer.advance(10000);
+    assertEquals(2, endpoint.getCalls().size());
+  }
+
+  @Test
+  public void payloadAndDurationAreRecorded() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 250, 4096);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    mTimer.advance(WINDOW_MILLIS + 250);
+
+    assertEquals(1, scheduler.getHistory().size());
+    SyncScheduler.SyncRecord record = scheduler.getHistory().get(0);
+    assertTrue(record.succeeded);
+    assertEquals(250, record.durationMillis);
+    assertEquals(4096, record.payloadBytes);
+    assertEquals(record, mNotified.get(0));
+  }
+
+  @Test
+  public void syncNowDoesNotWaitForTheWindow() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 0, 0);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    scheduler.syncNow();
+    assertEquals(1, endpoint.getCalls().size());
+    assertEquals(0, endpoint.getCalls().get(0).startMillis);
+
+    mTimer.advance(WINDOW_MILLIS);
+    assertEquals(1, endpoint.getCalls().size());
+
+    // without pending edits every layer is synced, so changes on the service are pulled down
+    scheduler.syncNow();
+    assertTrue(endpoint.getCalls().get(1).serviceLayerIds.isEmpty());
+  }
+
+  @Test
+  public void cancelStopsScheduledSyncs() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 0, 0);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    scheduler.cancel();
+    mTimer.advance(10000);
+
+    assertTrue(endpoint.getCalls().isEmpty());
+    assertEquals(0, mTimer.getPendingCount());
+  }
+
+  @Test
+  public void cancelDuringASyncStopsItsRetries() {
+    FakeSyncEndpoint endpoint = new FakeSyncEndpoint(mTimer, 100, 0, false);
+    SyncScheduler scheduler = createScheduler(endpoint);
+
+    scheduler.onLocalEdit(1);
+    mTimer.advance(WINDOW_MILLIS + 50);
+    scheduler.cancel();
+    scheduler.onLocalEdit(2);
+    mTimer.advance(10000);
+
+    assertEquals(1, endpoint.getCalls().size());
+    assertTrue(scheduler.getHistory().isEmpty());
+    assertTrue(mNotified.isEmpty());
+    assertEquals(0, mTimer.getPendingCount());
+  }
+
+  private SyncScheduler createScheduler(SyncScheduler.SyncEndpoint endpoint) {
+    return new SyncScheduler(endpoint, mTimer, WINDOW_MILLIS, INITIAL_BACKOFF_MILLIS, MAX_BACKOFF_MILLIS,
+        mNotified::add);
+  }
+}
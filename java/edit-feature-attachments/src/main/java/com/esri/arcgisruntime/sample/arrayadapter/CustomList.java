@@ -18,7 +18,10 @@ package com.esri.arcgisruntime.sample.arrayadapter;
 
 import java.util.ArrayList;
 import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.support.annotation.NonNull;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -31,6 +34,7 @@ public class CustomList extends ArrayAdapter<String>{
 
     private final Activity context;
     private final ArrayList<String> attachmentName;
+    private final SparseArray<Bitmap> previews = new SparseArray<>();
     public CustomList(Activity context,
                       ArrayList<String> attachmentList) {
         super(context, R.layout.attachment_entry, attachmentList);
@@ -54,10 +58,44 @@ public class CustomList extends ArrayAdapter<String>{
         }
 
         holder.textTitle.setText(attachmentName.get(position));
+        Bitmap preview = previews.get(position);
+        if (preview != null) {
+            holder.textTitle.setCompoundDrawablesRelativeWithIntrinsicBounds(
+                    new BitmapDrawable(context.getResources(), preview), null, null, null);
+        } else {
+            holder.textTitle.setCompoundDrawablesRelativeWithIntrinsicBounds(android.R.drawable.ic_menu_add, 0, 0, 0);
+        }
 
         return convertView;
     }
 
+    /**
+     * Show a decoded preview in place of the default icon for the attachment at the given position
+     */
+    public void setPreview(int position, Bitmap preview) {
+        previews.put(position, preview);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Remove the attachment at the given position, moving the previews of the attachments after it up with them
+     */
+    public void removeAttachment(int position) {
+        attachmentName.remove(position);
+        SparseArray<Bitmap> shifted = new SparseArray<>();
+        for (int i = 0; i < previews.size(); i++) {
+            int key = previews.keyAt(i);
+            if (key != position) {
+                shifted.put(key > position ? key - 1 : key, previews.valueAt(i));
+            }
+        }
+        previews.clear();
+        for (int i = 0; i < shifted.size(); i++) {
+            previews.put(shifted.keyAt(i), shifted.valueAt(i));
+        }
+        notifyDataSetChanged();
+    }
+
     private static class ViewHolder {
         public TextView textTitle;
     }
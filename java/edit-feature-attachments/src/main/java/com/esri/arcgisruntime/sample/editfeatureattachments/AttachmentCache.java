@@ -0,0 +1,204 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editfeatureattachments;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Attachment;
+
+/**
+ * Caches attachment data on disk exactly as it is served. The stream returned by
+ * {@link Attachment#fetchDataAsync()} is copied straight to a file keyed by feature id, attachment id and size, so
+ * viewing an attachment never decodes or re-encodes it and repeat views are served from the file. Previews are
+ * decoded separately from the cached file with a sample size matched to the requested preview size.
+ */
+final class AttachmentCache {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * Receives the cached file for an attachment on the main thread.
+     */
+    interface Listener {
+
+        void onAttachmentCached(File file, boolean fromCache);
+
+        void onAttachmentFailed(Exception e);
+    }
+
+    /**
+     * Receives a decoded preview on the main thread. The preview is null if the file could not be decoded as an image.
+     */
+    interface PreviewListener {
+
+        void onPreviewDecoded(Bitmap preview);
+    }
+
+    private final File mDirectory;
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    AttachmentCache(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Returns the cache file for the given attachment, whether or not it has been downloaded yet. The attachment size is
+     * part of the key so a replaced attachment that reuses an id is not served from a stale file.
+     */
+    File getFile(long featureId, Attachment attachment) {
+        return new File(mDirectory, featureId + "_" + attachment.getId() + "_" + attachment.getSize()
+                + getExtension(attachment.getName()));
+    }
+
+    boolean contains(long featureId, Attachment attachment) {
+        return getFile(featureId, attachment).isFile();
+    }
+
+    /**
+     * Serves the attachment from the cache, or streams it from the service into the cache first.
+     */
+    void fetch(final long featureId, final Attachment attachment, final Listener listener) {
+        final File file = getFile(featureId, attachment);
+        if (file.isFile()) {
+            listener.onAttachmentCached(file, true);
+            return;
+        }
+        final ListenableFuture<InputStream> dataFuture = attachment.fetchDataAsync();
+        dataFuture.addDoneListener(() -> mExecutor.execute(() -> {
+            try {
+                writeToFile(dataFuture.get(), file);
+                mMainHandler.post(() -> listener.onAttachmentCached(file, false));
+            } catch (final Exception e) {
+                mMainHandler.post(() -> listener.onAttachmentFailed(e));
+            }
+        }));
+    }
+
+    /**
+     * Decodes a preview of a cached file no smaller than the given size on the cache's worker thread.
+     */
+    void decodePreview(final File file, final int sizePx, final PreviewListener listener) {
+        mExecutor.execute(() -> {
+            final Bitmap preview = decodeSampled(file, sizePx);
+            mMainHandler.post(() -> listener.onPreviewDecoded(preview));
+        });
+    }
+
+    /**
+     * Removes the cached file for an attachment, e.g. after it has been deleted from the feature.
+     */
+    void evict(long featureId, Attachment attachment) {
+        final File file = getFile(featureId, attachment);
+        mExecutor.execute(() -> {
+            if (file.isFile() && !file.delete()) {
+                file.deleteOnExit();
+            }
+        });
+    }
+
+    void shutdown() {
+        mExecutor.shutdownNow();
+    }
+
+    private void writeToFile(InputStream in, File file) throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + mDirectory);
+        }
+        // write to a partial file and rename once complete so an interrupted download is never served
+        File partial = new File(mDirectory, file.getName() + PARTIAL_SUFFIX);
+        try {
+            OutputStream out = new FileOutputStream(partial);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete();
+            throw new IOException("Unable to move " + partial + " into the cache");
+        }
+    }
+
+    private static Bitmap decodeSampled(File file, int sizePx) {
+        // read the bounds only, then pick the largest power of two sample size that keeps both sides >= sizePx
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= sizePx && options.outHeight / (sampleSize * 2) >= sizePx) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap sampled = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (sampled == null) {
+            return null;
+        }
+        // scale the sampled bitmap down to the exact preview size, keeping the aspect ratio
+        float scale = Math.min(1f, (float) sizePx / Math.min(sampled.getWidth(), sampled.getHeight()));
+        if (scale == 1f) {
+            return sampled;
+        }
+        Bitmap preview = Bitmap.createScaledBitmap(sampled, Math.round(sampled.getWidth() * scale),
+                Math.round(sampled.getHeight() * scale), true);
+        if (preview != sampled) {
+            sampled.recycle();
+        }
+        return preview;
+    }
+
+    private static String getExtension(String name) {
+        if (name == null) {
+            return "";
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || dot == name.length() - 1) {
+            return "";
+        }
+        String extension = name.substring(dot);
+        // only keep plain extensions so the attachment name cannot reach outside the cache directory
+        return extension.matches("\\.[A-Za-z0-9]{1,8}") ? extension : "";
+    }
+}
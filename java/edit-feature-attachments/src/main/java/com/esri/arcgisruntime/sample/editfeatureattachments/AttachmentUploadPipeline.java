@@ -0,0 +1,396 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.editfeatureattachments;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.webkit.MimeTypeMap;
+
+/**
+ * Prepares picked images for upload as attachments on a worker thread. Each image is read as a stream; images larger
+ * than the configured maximum dimension are decoded with a sample size, scaled to fit and recompressed as JPEG, while
+ * smaller images are copied through unchanged. Images are prepared one at a time so only one is held decoded in
+ * memory, and the peak heap use seen while preparing each one is reported with its size.
+ * <p>
+ * Prepared data is only held until it has been handed to the feature, and no more than a fixed number of prepared
+ * attachments are waiting at once: the next image is not read until an earlier attachment is marked as uploaded,
+ * however many images were picked.
+ */
+final class AttachmentUploadPipeline {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * An image ready to be passed to {@code addAttachmentAsync}.
+     */
+    static final class PreparedAttachment {
+
+        private final String mName;
+
+        private final String mContentType;
+
+        private byte[] mData;
+
+        private final long mSourceBytes;
+
+        private final long mUploadBytes;
+
+        private final long mPeakHeapBytes;
+
+        private final boolean mDownscaled;
+
+        private final Semaphore mSlots;
+
+        private boolean mUploaded;
+
+        PreparedAttachment(String name, String contentType, byte[] data, long sourceBytes, long peakHeapBytes,
+                boolean downscaled, Semaphore slots) {
+            mName = name;
+            mContentType = contentType;
+            mData = data;
+            mSourceBytes = sourceBytes;
+            mUploadBytes = data.length;
+            mPeakHeapBytes = peakHeapBytes;
+            mDownscaled = downscaled;
+            mSlots = slots;
+        }
+
+        String getName() {
+            return mName;
+        }
+
+        String getContentType() {
+            return mContentType;
+        }
+
+        /**
+         * Returns the data to upload and releases this attachment's reference to it.
+         */
+        byte[] takeData() {
+            byte[] data = mData;
+            mData = null;
+            return data;
+        }
+
+        long getSourceBytes() {
+            return mSourceBytes;
+        }
+
+        /**
+         * Bytes handed to the feature for upload.
+         */
+        long getUploadBytes() {
+            return mUploadBytes;
+        }
+
+        long getPeakHeapBytes() {
+            return mPeakHeapBytes;
+        }
+
+        boolean isDownscaled() {
+            return mDownscaled;
+        }
+
+        /**
+         * Frees this attachment's slot once its upload has completed, so the pipeline can prepare the next image.
+         */
+        void markUploaded() {
+            if (!mUploaded) {
+                mUploaded = true;
+                mSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Receives prepared attachments on the main thread, in the order the images were given.
+     */
+    interface Listener {
+
+        /**
+         * Called for each image once it is prepared. {@link PreparedAttachment#markUploaded()} must be called once
+         * the attachment's upload has completed, or the pipeline stops preparing further images.
+         */
+        void onAttachmentPrepared(PreparedAttachment attachment);
+
+        /**
+         * Called after the last image has been prepared.
+         */
+        void onAllPrepared(int count);
+
+        /**
+         * Called if an image could not be prepared. No further images are prepared.
+         */
+        void onPrepareFailed(Exception e);
+    }
+
+    private final ContentResolver mContentResolver;
+
+    private final int mMaxDimension;
+
+    private final int mJpegQuality;
+
+    private final String mNamePrefix;
+
+    private final int mMaxInFlight;
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param maxDimension largest width or height to upload, or 0 to upload images at their original size
+     * @param jpegQuality  quality used when recompressing downscaled images
+     * @param namePrefix   prefix of the generated attachment names
+     * @param maxInFlight  most prepared attachments held at once before their uploads complete
+     */
+    AttachmentUploadPipeline(ContentResolver contentResolver, int maxDimension, int jpegQuality, String namePrefix,
+            int maxInFlight) {
+        mContentResolver = contentResolver;
+        mMaxDimension = maxDimension;
+        mJpegQuality = jpegQuality;
+        mNamePrefix = namePrefix;
+        mMaxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Prepares the images behind the given content uris in order on the worker thread, each one only once a slot is
+     * free.
+     */
+    void prepare(final List<Uri> images, final Listener listener) {
+        final Semaphore slots = new Semaphore(mMaxInFlight);
+        mExecutor.execute(() -> {
+            try {
+                for (int i = 0; i < images.size(); i++) {
+                    // wait for an earlier attachment's upload to complete before reading the next image
+                    slots.acquire();
+                    final PreparedAttachment prepared = prepare(images.get(i), i, slots);
+                    mMainHandler.post(() -> listener.onAttachmentPrepared(prepared));
+                }
+                mMainHandler.post(() -> listener.onAllPrepared(images.size()));
+            } catch (InterruptedException e) {
+                // the pipeline was shut down
+                Thread.currentThread().interrupt();
+            } catch (final Exception e) {
+                mMainHandler.post(() -> listener.onPrepareFailed(e));
+            }
+        });
+    }
+
+    void shutdown() {
+        mExecutor.shutdownNow();
+    }
+
+    private PreparedAttachment prepare(Uri image, int index, Semaphore slots) throws IOException {
+        HeapMonitor heap = new HeapMonitor();
+        String name = mNamePrefix + "_" + System.currentTimeMillis() + "_" + index;
+
+        // read only the bounds to decide whether the image needs to be downscaled
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        InputStream boundsStream = open(image);
+        try {
+            BitmapFactory.decodeStream(boundsStream, null, options);
+        } finally {
+            boundsStream.close();
+        }
+        int longestSide = Math.max(options.outWidth, options.outHeight);
+
+        if (mMaxDimension > 0 && longestSide > mMaxDimension) {
+            return downscale(image, name, options.outWidth, options.outHeight, heap, slots);
+        }
+        return copy(image, name, heap, slots);
+    }
+
+    private PreparedAttachment copy(Uri image, String name, HeapMonitor heap, Semaphore slots) throws IOException {
+        String contentType = mContentResolver.getType(image);
+        if (contentType == null) {
+            contentType = "image/jpeg";
+        }
+        String extension = MimeTypeMap.getSingleton().getExtensionFromMimeType(contentType);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = open(image);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        heap.sample();
+        byte[] data = out.toByteArray();
+        heap.sample();
+        return new PreparedAttachment(extension != null ? name + "." + extension : name, contentType, data,
+                data.length, heap.getPeakBytes(), false, slots);
+    }
+
+    private PreparedAttachment downscale(Uri image, String name, int width, int height, HeapMonitor heap,
+            Semaphore slots) throws IOException {
+        // decode at the largest power of two sample size that still covers the target size
+        int sampleSize = 1;
+        while (Math.max(width, height) / (sampleSize * 2) >= mMaxDimension) {
+            sampleSize *= 2;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        CountingInputStream in = new CountingInputStream(open(image));
+        Bitmap sampled;
+        try {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+        if (sampled == null) {
+            throw new IOException("Unable to decode " + image);
+        }
+        heap.sample();
+
+        // scale the remainder exactly so the longest side matches the maximum dimension
+        Bitmap scaled = sampled;
+        float scale = (float) mMaxDimension / Math.max(sampled.getWidth(), sampled.getHeight());
+        if (scale < 1f) {
+            scaled = Bitmap.createScaledBitmap(sampled, Math.round(sampled.getWidth() * scale),
+                    Math.round(sampled.getHeight() * scale), true);
+            heap.sample();
+            if (scaled != sampled) {
+                sampled.recycle();
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scaled.compress(Bitmap.CompressFormat.JPEG, mJpegQuality, out);
+        heap.sample();
+        scaled.recycle();
+        byte[] data = out.toByteArray();
+        heap.sample();
+        return new PreparedAttachment(name + ".jpg", "image/jpeg", data, in.getCount(), heap.getPeakBytes(), true,
+                slots);
+    }
+
+    private InputStream open(Uri image) throws FileNotFoundException {
+        InputStream in = mContentResolver.openInputStream(image);
+        if (in == null) {
+            throw new FileNotFoundException("Unable to open " + image);
+        }
+        return in;
+    }
+
+    /**
+     * Tracks the highest Java heap use sampled while preparing one attachment.
+     */
+    private static final class HeapMonitor {
+
+        private long mPeakBytes;
+
+        HeapMonitor() {
+            sample();
+        }
+
+        void sample() {
+            Runtime runtime = Runtime.getRuntime();
+            mPeakBytes = Math.max(mPeakBytes, runtime.totalMemory() - runtime.freeMemory());
+        }
+
+        long getPeakBytes() {
+            return mPeakBytes;
+        }
+    }
+
+    /**
+     * Counts the bytes read from the source so the original size is known without reading it twice. Bytes skipped over
+     * count as read, and bytes read again after {@link #reset()} are only counted once.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        // offset of the next byte in the source
+        private long mPosition;
+
+        private long mMarkPosition;
+
+        // furthest offset reached in the source
+        private long mCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                advance(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) {
+                advance(skipped);
+            }
+            return skipped;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            super.mark(readLimit);
+            mMarkPosition = mPosition;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            // throws without moving if the source can't be reset, so only rewind once it has
+            super.reset();
+            mPosition = mMarkPosition;
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        private void advance(long bytes) {
+            mPosition += bytes;
+            mCount = Math.max(mCount, mPosition);
+        }
+    }
+}
@@ -17,25 +17,21 @@
 package com.esri.arcgisruntime.sample.editfeatureattachments;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 
 import android.Manifest;
 import android.app.ProgressDialog;
+import android.content.ClipData;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.graphics.Bitmap;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Environment;
-import android.provider.MediaStore;
 import android.support.annotation.NonNull;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v4.app.ActivityCompat;
@@ -48,8 +44,6 @@ import android.widget.AdapterView;
 import android.widget.ListView;
 import android.widget.Toast;
 
-import org.apache.commons.io.FileUtils;
-
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
 import com.esri.arcgisruntime.data.Attachment;
@@ -81,6 +75,17 @@ public class EditAttachmentActivity extends AppCompatActivity {
     private boolean permissionsGranted = false;
     private int listPosition;
     private View listView;
+    private long mObjectId;
+    private AttachmentCache mAttachmentCache;
+    private int mPreviewSize;
+    private AttachmentUploadPipeline mUploadPipeline;
+    // prepared attachments waiting to be added to the feature, and the state of the current upload
+    private final Queue<AttachmentUploadPipeline.PreparedAttachment> mPreparedAttachments = new ArrayDeque<>();
+    private boolean mAddingAttachment;
+    private boolean mPreparingDone;
+    private int mAddedAttachmentCount;
+
+    private int mFailedAttachmentCount;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -113,6 +118,17 @@ public class EditAttachmentActivity extends AppCompatActivity {
 
         mServiceFeatureTable = new ServiceFeatureTable(getResources().getString(R.string.sample_service_url));
 
+        // cache downloaded attachments in /ArcGIS/Attachments in external storage
+        File root = Environment.getExternalStorageDirectory();
+        mAttachmentCache = new AttachmentCache(new File(root.getAbsolutePath() + "/ArcGIS/Attachments"));
+        mPreviewSize = getResources().getDimensionPixelSize(R.dimen.attachment_preview_size);
+
+        // downscale large images before they are uploaded
+        mUploadPipeline = new AttachmentUploadPipeline(getContentResolver(),
+                getResources().getInteger(R.integer.upload_max_dimension),
+                getResources().getInteger(R.integer.upload_jpeg_quality), getString(R.string.attachment),
+                getResources().getInteger(R.integer.upload_max_in_flight));
+
         progressDialog = new ProgressDialog(this);
 
         // display progress dialog if selected feature has attachments
@@ -177,51 +193,57 @@ public class EditAttachmentActivity extends AppCompatActivity {
 
     private void fetchAttachmentAsync(final int position) {
 
-        progressDialog.setTitle(getApplication().getString(R.string.downloading_attachments));
-        progressDialog.setMessage(getApplication().getString(R.string.wait));
-        progressDialog.show();
+        final Attachment attachment = attachments.get(position);
+        if (!mAttachmentCache.contains(mObjectId, attachment)) {
+            progressDialog.setTitle(getApplication().getString(R.string.downloading_attachments));
+            progressDialog.setMessage(getApplication().getString(R.string.wait));
+            progressDialog.show();
+        }
 
-        // create a listenableFuture to fetch the attachment asynchronously
-        final ListenableFuture<InputStream> listenableFuture = attachments.get(position).fetchDataAsync();
-        listenableFuture.addDoneListener(new Runnable() {
+        // serve the attachment from the cache, streaming it from the service into the cache on first view
+        mAttachmentCache.fetch(mObjectId, attachment, new AttachmentCache.Listener() {
             @Override
-            public void run() {
-                try {
-                    String fileName = attachmentList.get(position);
-                    // create a drawable from InputStream
-                    Drawable d = Drawable.createFromStream(listenableFuture.get(), fileName);
-                    // create a bitmap from drawable
-                    Bitmap bitmap = ((BitmapDrawable) d).getBitmap();
-                    File root = Environment.getExternalStorageDirectory();
-                    File fileDir = new File(root.getAbsolutePath() + "/ArcGIS/Attachments");
-                    // create folder /ArcGIS/Attachments in external storage
-                    boolean isDirectoryCreated = fileDir.exists();
-                    if (!isDirectoryCreated) {
-                        isDirectoryCreated = fileDir.mkdirs();
-                    }
-                    File file = null;
-                    if (isDirectoryCreated) {
-                        file = new File(fileDir, fileName);
-                        FileOutputStream fos = new FileOutputStream(file);
-                        // compress the bitmap to PNG format
-                        bitmap.compress(Bitmap.CompressFormat.PNG, 90, fos);
-                        fos.flush();
-                        fos.close();
-                    }
-
-                    if (progressDialog.isShowing()) {
-                        progressDialog.dismiss();
-                    }
-                    // open the file in gallery
-                    Intent i = new Intent();
-                    i.setAction(android.content.Intent.ACTION_VIEW);
-                    i.setDataAndType(Uri.fromFile(file), "image/png");
-                    startActivity(i);
+            public void onAttachmentCached(File file, boolean fromCache) {
+                if (progressDialog.isShowing()) {
+                    progressDialog.dismiss();
+                }
+                if (!fromCache) {
+                    loadPreview(attachment, file);
+                }
+                // open the file in gallery
+                Intent i = new Intent();
+                i.setAction(android.content.Intent.ACTION_VIEW);
+                i.setDataAndType(Uri.fromFile(file), attachment.getContentType());
+                startActivity(i);
+            }
 
-                } catch (Exception e) {
-                    Log.d(TAG, e.toString());
+            @Override
+            public void onAttachmentFailed(Exception e) {
+                if (progressDialog.isShowing()) {
+                    progressDialog.dismiss();
                 }
+                Log.d(TAG, e.toString());
+            }
+        });
+    }
 
+    /**
+     * Decode a subsampled preview of a cached attachment and show it in the list entry
+     *
+     * @param attachment attachment shown in the list view
+     * @param file       cached attachment file
+     */
+    private void loadPreview(final Attachment attachment, File file) {
+        final CustomList listAdapter = adapter;
+        mAttachmentCache.decodePreview(file, mPreviewSize, new AttachmentCache.PreviewListener() {
+            @Override
+            public void onPreviewDecoded(Bitmap preview) {
+                // find the attachment's position now, as attachments may have been deleted while decoding, and ignore
+                // previews for a list that has since been replaced
+                int position = attachments.indexOf(attachment);
+                if (preview != null && listAdapter == adapter && position >= 0) {
+                    adapter.setPreview(position, preview);
+                }
             }
         });
     }
@@ -236,13 +258,21 @@ public class EditAttachmentActivity extends AppCompatActivity {
         progressDialog.setMessage(getApplication().getString(R.string.wait));
         progressDialog.show();
 
-        ListenableFuture<Void> deleteResult = mSelectedArcGISFeature.deleteAttachmentAsync(attachments.get(pos));
-        attachmentList.remove(pos);
-        adapter.notifyDataSetChanged();
+        final Attachment attachment = attachments.get(pos);
+        final ListenableFuture<Void> deleteResult = mSelectedArcGISFeature.deleteAttachmentAsync(attachment);
+        attachments.remove(pos);
+        adapter.removeAttachment(pos);
 
         deleteResult.addDoneListener(new Runnable() {
             @Override
             public void run() {
+                try {
+                    deleteResult.get();
+                    // only drop the cached file once the attachment is gone from the feature
+                    mAttachmentCache.evict(mObjectId, attachment);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error deleting attachment: " + e.getMessage());
+                }
                 ListenableFuture<Void> tableResult = mServiceFeatureTable.updateFeatureAsync(mSelectedArcGISFeature);
                 // apply changes back to the server
                 tableResult.addDoneListener(new Runnable() {
@@ -263,6 +293,7 @@ public class EditAttachmentActivity extends AppCompatActivity {
      */
     private void fetchAttachmentsFromServer(String objectID) {
         attachmentList = new ArrayList<>();
+        mObjectId = Long.parseLong(objectID);
         // create objects required to do a selection with a query
         QueryParameters query = new QueryParameters();
         // set the where clause of the query
@@ -285,7 +316,8 @@ public class EditAttachmentActivity extends AppCompatActivity {
                         public void run() {
                             try {
 
-                                attachments = attachmentResults.get();
+                                // copied so deleted attachments can be removed, keeping positions in step with the list
+                                attachments = new ArrayList<>(attachmentResults.get());
                                 // if selected feature has attachments, display them in a list fashion
                                 if (!attachments.isEmpty()) {
                                     //
@@ -303,6 +335,13 @@ public class EditAttachmentActivity extends AppCompatActivity {
                                             adapter = new CustomList(EditAttachmentActivity.this, attachmentList);
                                             list.setAdapter(adapter);
                                             adapter.notifyDataSetChanged();
+                                            // show previews for attachments already in the cache
+                                            for (int i = 0; i < attachments.size(); i++) {
+                                                if (mAttachmentCache.contains(mObjectId, attachments.get(i))) {
+                                                    loadPreview(attachments.get(i),
+                                                            mAttachmentCache.getFile(mObjectId, attachments.get(i)));
+                                                }
+                                            }
                                         }
                                     });
 
@@ -350,69 +389,142 @@ public class EditAttachmentActivity extends AppCompatActivity {
 
     private void selectAttachment() {
 
-        Intent i = new Intent(
-                Intent.ACTION_PICK,
-                android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
+        Intent i = new Intent(Intent.ACTION_GET_CONTENT);
+        i.setType("image/*");
+        // allow several images to be picked and uploaded together
+        i.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
 
         startActivityForResult(i, RESULT_LOAD_IMAGE);
 
     }
 
     /**
-     * Upload the selected image from the gallery as an attachment to the selected feature
+     * Upload the selected images from the gallery as attachments to the selected feature
      *
      * @param requestCode RESULT_LOAD_IMAGE request code to identify the requesting activity
      * @param resultCode  activity result code
-     * @param data        Uri of the selected image
+     * @param data        Uri of the selected image, or clip data holding several
      */
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
 
         if (requestCode == RESULT_LOAD_IMAGE && resultCode == RESULT_OK && null != data) {
-            Uri selectedImage = data.getData();
-            String[] filePathColumn = {MediaStore.Images.Media.DATA};
+            List<Uri> selectedImages = new ArrayList<>();
+            ClipData clipData = data.getClipData();
+            if (clipData != null) {
+                for (int i = 0; i < clipData.getItemCount(); i++) {
+                    selectedImages.add(clipData.getItemAt(i).getUri());
+                }
+            } else if (data.getData() != null) {
+                selectedImages.add(data.getData());
+            }
+            if (selectedImages.isEmpty()) {
+                return;
+            }
 
-            Cursor cursor = getContentResolver().query(selectedImage, filePathColumn, null, null, null);
-            if (cursor != null && cursor.moveToFirst()) {
-                int columnIndex = cursor.getColumnIndex(filePathColumn[0]);
-                String picturePath = cursor.getString(columnIndex);
-                cursor.close();
+            progressDialog.setTitle(getApplication().getString(R.string.preparing_attachments));
+            progressDialog.setMessage(getApplication().getString(R.string.wait));
+            progressDialog.show();
 
-                // covert file to bytes to pass to ArcGISFeature
-                byte[] imageByte = new byte[0];
-                try {
-                    File imageFile = new File(picturePath);
-                    imageByte = FileUtils.readFileToByteArray(imageFile);
-                } catch (IOException e) {
-                    e.printStackTrace();
+            // read and downscale the images off the main thread, adding each to the feature as it is ready, then
+            // apply the edits once
+            mPreparedAttachments.clear();
+            mAddingAttachment = false;
+            mPreparingDone = false;
+            mAddedAttachmentCount = 0;
+            mFailedAttachmentCount = 0;
+            mUploadPipeline.prepare(selectedImages, new AttachmentUploadPipeline.Listener() {
+                @Override
+                public void onAttachmentPrepared(AttachmentUploadPipeline.PreparedAttachment attachment) {
+                    mPreparedAttachments.add(attachment);
+                    addNextAttachment();
                 }
 
-                final String attachmentName = getApplication().getString(R.string.attachment) + "_" + System.currentTimeMillis() + ".png";
+                @Override
+                public void onAllPrepared(int count) {
+                    mPreparingDone = true;
+                    addNextAttachment();
+                }
 
-                progressDialog.setTitle(getApplication().getString(R.string.apply_edit_message));
-                progressDialog.setMessage(getApplication().getString(R.string.wait));
+                @Override
+                public void onPrepareFailed(Exception e) {
+                    Log.e(TAG, e.toString());
+                    Toast.makeText(EditAttachmentActivity.this, getApplication().getString(R.string.prepare_failed_message),
+                            Toast.LENGTH_SHORT).show();
+                    // the images prepared before the failure are still applied
+                    mPreparingDone = true;
+                    addNextAttachment();
+                }
+            });
+        }
 
-                progressDialog.show();
 
-                ListenableFuture<Attachment> addResult = mSelectedArcGISFeature.addAttachmentAsync(imageByte, "image/png", attachmentName);
+    }
 
-                addResult.addDoneListener(new Runnable() {
-                    @Override
-                    public void run() {
-                        final ListenableFuture<Void> tableResult = mServiceFeatureTable.updateFeatureAsync(mSelectedArcGISFeature);
-                        tableResult.addDoneListener(new Runnable() {
-                            @Override
-                            public void run() {
-                                applyServerEdits();
-                            }
-                        });
-                    }
-                });
+    /**
+     * Add the next prepared attachment to the selected feature, one at a time. Once every picked image has been added,
+     * update the feature and apply the edits to the server in a single request
+     */
+    private void addNextAttachment() {
+        if (mAddingAttachment) {
+            return;
+        }
+        final AttachmentUploadPipeline.PreparedAttachment attachment = mPreparedAttachments.poll();
+        if (attachment == null) {
+            if (mPreparingDone) {
+                applyAddedAttachments();
             }
+            return;
         }
 
+        mAddingAttachment = true;
+        Log.i(TAG, getString(R.string.upload_report, attachment.getName(), attachment.getUploadBytes() / 1024,
+                attachment.getSourceBytes() / 1024, attachment.getPeakHeapBytes() / (1024 * 1024)));
+        final ListenableFuture<Attachment> addResult = mSelectedArcGISFeature.addAttachmentAsync(attachment.takeData(),
+                attachment.getContentType(), attachment.getName());
 
+        addResult.addDoneListener(new Runnable() {
+            @Override
+            public void run() {
+                // let the pipeline prepare the next image
+                attachment.markUploaded();
+                mAddingAttachment = false;
+                try {
+                    addResult.get();
+                    mAddedAttachmentCount++;
+                } catch (Exception e) {
+                    // only the attachments actually added are applied, the rest are reported once all are done
+                    Log.e(TAG, "Error adding attachment " + attachment.getName() + ": " + e.getMessage());
+                    mFailedAttachmentCount++;
+                }
+                addNextAttachment();
+            }
+        });
+    }
+
+    /**
+     * Update the feature with the added attachments and apply the edits to the server
+     */
+    private void applyAddedAttachments() {
+        if (mFailedAttachmentCount > 0) {
+            String message = getApplication().getString(R.string.add_attachment_failed_message, mFailedAttachmentCount);
+            Toast.makeText(EditAttachmentActivity.this, message, Toast.LENGTH_SHORT).show();
+        }
+        if (mAddedAttachmentCount == 0) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            return;
+        }
+        progressDialog.setTitle(getApplication().getString(R.string.apply_edit_message));
+        final ListenableFuture<Void> tableResult = mServiceFeatureTable.updateFeatureAsync(mSelectedArcGISFeature);
+        tableResult.addDoneListener(new Runnable() {
+            @Override
+            public void run() {
+                applyServerEdits();
+            }
+        });
     }
 
     /**
@@ -472,6 +584,13 @@ public class EditAttachmentActivity extends AppCompatActivity {
         super.onBackPressed();
     }
 
+    @Override
+    protected void onDestroy() {
+        mAttachmentCache.shutdown();
+        mUploadPipeline.shutdown();
+        super.onDestroy();
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         // If request is cancelled, the result arrays are empty.
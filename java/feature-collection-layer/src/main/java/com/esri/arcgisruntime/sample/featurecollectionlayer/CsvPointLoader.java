@@ -0,0 +1,681 @@
+/* Copyright 2018 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.featurecollectionlayer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.geometry.GeometryType;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Streams a CSV file of points into a new {@link FeatureCollectionTable}. A first pass over the header and a sample of
+ * rows infers the table's schema: the coordinate columns are found by name and every other column becomes an integer,
+ * double or text field. The file is then read in large chunks and features are added with addFeaturesAsync in batches,
+ * parsing the next batch while the previous one is being added, so at most two batches are held in memory.
+ * <p>
+ * Numbers are parsed straight from the characters read, so only text attributes create strings. The load methods block
+ * and must be called on a worker thread; the listener is notified on the main thread.
+ */
+class CsvPointLoader {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final String[] X_COLUMN_NAMES = { "x", "lon", "long", "lng", "longitude" };
+
+  private static final String[] Y_COLUMN_NAMES = { "y", "lat", "latitude" };
+
+  private static final int MIN_TEXT_LENGTH = 50;
+
+  // exact powers of ten, used when a number can be computed with a single correctly rounded operation
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  /**
+   * Notified on the main thread while a file loads.
+   */
+  interface Listener {
+    /**
+     * Called once the schema is inferred, before any feature is added, so the table can be added to a collection.
+     */
+    void onTableCreated(FeatureCollectionTable table);
+
+    void onProgress(long rows);
+  }
+
+  enum ColumnType {
+    INTEGER, DOUBLE, TEXT
+  }
+
+  /**
+   * Columns of a file and the fields they are loaded into.
+   */
+  static final class Schema {
+    final int xColumn;
+    final int yColumn;
+    final ColumnType[] columnTypes;
+    // field of each column, null for the coordinate columns
+    final Field[] columnFields;
+    final List<Field> fields;
+    final long inferMillis;
+
+    Schema(int xColumn, int yColumn, ColumnType[] columnTypes, Field[] columnFields, List<Field> fields,
+        long inferMillis) {
+      this.xColumn = xColumn;
+      this.yColumn = yColumn;
+      this.columnTypes = columnTypes;
+      this.columnFields = columnFields;
+      this.fields = fields;
+      this.inferMillis = inferMillis;
+    }
+  }
+
+  /**
+   * Metrics of a completed load.
+   */
+  static final class LoadReport {
+    final long rows;
+    final long rejectedRows;
+    final long rejectedValues;
+    final int batches;
+    final long inferMillis;
+    final long loadMillis;
+
+    LoadReport(long rows, long rejectedRows, long rejectedValues, int batches, long inferMillis, long loadMillis) {
+      this.rows = rows;
+      this.rejectedRows = rejectedRows;
+      this.rejectedValues = rejectedValues;
+      this.batches = batches;
+      this.inferMillis = inferMillis;
+      this.loadMillis = loadMillis;
+    }
+
+    long getRowsPerSecond() {
+      return loadMillis > 0 ? rows * 1000 / loadMillis : rows;
+    }
+  }
+
+  private final int mBatchSize;
+
+  private final int mSampleRows;
+
+  private final SpatialReference mSpatialReference;
+
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+  /**
+   * @param batchSize        number of features passed to each addFeaturesAsync call
+   * @param sampleRows       number of rows read to infer the column types
+   * @param spatialReference spatial reference of the coordinates in the file
+   */
+  CsvPointLoader(int batchSize, int sampleRows, SpatialReference spatialReference) {
+    mBatchSize = batchSize;
+    mSampleRows = sampleRows;
+    mSpatialReference = spatialReference;
+  }
+
+  /**
+   * Infers the schema from the header and the first rows of the file.
+   *
+   * @throws IOException if the file cannot be read or has no coordinate columns
+   */
+  Schema inferSchema(File csv) throws IOException {
+    long start = SystemClock.elapsedRealtime();
+    LineReader reader = new LineReader(new InputStreamReader(new FileInputStream(csv), "UTF-8"));
+    try {
+      if (!reader.nextLine()) {
+        throw new IOException("No header in " + csv);
+      }
+      int columnCount = reader.getFieldCount();
+      String[] names = new String[columnCount];
+      for (int column = 0; column < columnCount; column++) {
+        names[column] = reader.getText(column).trim();
+      }
+      int xColumn = findColumn(names, X_COLUMN_NAMES);
+      int yColumn = findColumn(names, Y_COLUMN_NAMES);
+      if (xColumn < 0 || yColumn < 0) {
+        throw new IOException("No coordinate columns in " + csv);
+      }
+
+      // every column starts as an integer and is widened by the values sampled
+      ColumnType[] types = new ColumnType[columnCount];
+      int[] textLengths = new int[columnCount];
+      for (int column = 0; column < columnCount; column++) {
+        types[column] = ColumnType.INTEGER;
+      }
+      for (int row = 0; row < mSampleRows && reader.nextLine(); row++) {
+        for (int column = 0; column < Math.min(columnCount, reader.getFieldCount()); column++) {
+          if (reader.isEmpty(column)) {
+            continue;
+          }
+          textLengths[column] = Math.max(textLengths[column], reader.getLength(column));
+          if (types[column] == ColumnType.INTEGER && !reader.isInteger(column)) {
+            types[column] = ColumnType.DOUBLE;
+          }
+          if (types[column] == ColumnType.DOUBLE && !reader.isNumber(column)) {
+            types[column] = ColumnType.TEXT;
+          }
+        }
+      }
+
+      Field[] columnFields = new Field[columnCount];
+      List<Field> fields = new ArrayList<>();
+      Set<String> fieldNames = new HashSet<>();
+      for (int column = 0; column < columnCount; column++) {
+        if (column == xColumn || column == yColumn) {
+          continue;
+        }
+        String name = toFieldName(names[column], column, fieldNames);
+        String alias = names[column].isEmpty() ? name : names[column];
+        switch (types[column]) {
+          case INTEGER:
+            columnFields[column] = Field.createInteger(name, alias);
+            break;
+          case DOUBLE:
+            columnFields[column] = Field.createDouble(name, alias);
+            break;
+          default:
+            // leave room for longer values than those sampled
+            columnFields[column] = Field.createString(name, alias, Math.max(MIN_TEXT_LENGTH, textLengths[column] * 2));
+            break;
+        }
+        fields.add(columnFields[column]);
+      }
+      return new Schema(xColumn, yColumn, types, columnFields, fields, SystemClock.elapsedRealtime() - start);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Infers the schema of the file, creates a point table for it and adds a feature for every row with valid
+   * coordinates. Rows without them are skipped, as are attribute values which do not fit the inferred type.
+   *
+   * @throws IOException          if the file cannot be read or has no coordinate columns
+   * @throws ExecutionException   if adding a batch of features fails
+   * @throws InterruptedException if the thread is interrupted while waiting for a batch to be added
+   */
+  LoadReport load(File csv, final Listener listener) throws IOException, ExecutionException, InterruptedException {
+    Schema schema = inferSchema(csv);
+    long start = SystemClock.elapsedRealtime();
+
+    final FeatureCollectionTable table = new FeatureCollectionTable(schema.fields, GeometryType.POINT,
+        mSpatialReference);
+    mMainHandler.post(() -> listener.onTableCreated(table));
+
+    long rows = 0;
+    long rejectedRows = 0;
+    long rejectedValues = 0;
+    int batches = 0;
+    int attributeCapacity = schema.fields.size() * 4 / 3 + 1;
+    List<Feature> batch = new ArrayList<>(mBatchSize);
+    ListenableFuture<Void> pendingBatch = null;
+
+    LineReader reader = new LineReader(new InputStreamReader(new FileInputStream(csv), "UTF-8"));
+    try {
+      // skip the header
+      reader.nextLine();
+      while (reader.nextLine()) {
+        int fieldCount = reader.getFieldCount();
+        if (fieldCount == 1 && reader.isEmpty(0)) {
+          // blank line
+          continue;
+        }
+        double x;
+        double y;
+        try {
+          x = reader.getDouble(schema.xColumn);
+          y = reader.getDouble(schema.yColumn);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+          rejectedRows++;
+          continue;
+        }
+
+        Map<String, Object> attributes = new HashMap<>(attributeCapacity);
+        for (int column = 0; column < Math.min(fieldCount, schema.columnFields.length); column++) {
+          Field field = schema.columnFields[column];
+          if (field == null || reader.isEmpty(column)) {
+            continue;
+          }
+          try {
+            switch (schema.columnTypes[column]) {
+              case INTEGER:
+                attributes.put(field.getName(), reader.getInteger(column));
+                break;
+              case DOUBLE:
+                attributes.put(field.getName(), reader.getDouble(column));
+                break;
+              default:
+                String text = reader.getText(column);
+                if (text.length() > field.getLength()) {
+                  text = text.substring(0, field.getLength());
+                  rejectedValues++;
+                }
+                attributes.put(field.getName(), text);
+                break;
+            }
+          } catch (NumberFormatException e) {
+            // a value which does not fit the type inferred from the sample
+            rejectedValues++;
+          }
+        }
+        batch.add(table.createFeature(attributes, new Point(x, y, mSpatialReference)));
+        rows++;
+
+        if (batch.size() == mBatchSize) {
+          pendingBatch = addBatch(table, batch, pendingBatch, rows, listener);
+          batches++;
+          batch = new ArrayList<>(mBatchSize);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    if (!batch.isEmpty()) {
+      pendingBatch = addBatch(table, batch, pendingBatch, rows, listener);
+      batches++;
+    }
+    if (pendingBatch != null) {
+      pendingBatch.get();
+    }
+    return new LoadReport(rows, rejectedRows, rejectedValues, batches, schema.inferMillis,
+        SystemClock.elapsedRealtime() - start);
+  }
+
+  /**
+   * Waits for the previous batch to be added, then starts adding the given one.
+   */
+  private ListenableFuture<Void> addBatch(FeatureCollectionTable table, List<Feature> batch,
+      ListenableFuture<Void> previousBatch, final long rows, final Listener listener)
+      throws ExecutionException, InterruptedException {
+    if (previousBatch != null) {
+      previousBatch.get();
+    }
+    mMainHandler.post(() -> listener.onProgress(rows));
+    return table.addFeaturesAsync(batch);
+  }
+
+  private static int findColumn(String[] names, String[] candidates) {
+    for (String candidate : candidates) {
+      for (int column = 0; column < names.length; column++) {
+        if (names[column].equalsIgnoreCase(candidate)) {
+          return column;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the header name reduced to the characters allowed in a field name, made unique among the names used
+   */
+  private static String toFieldName(String header, int column, Set<String> usedNames) {
+    StringBuilder name = new StringBuilder(header.length());
+    for (int i = 0; i < header.length(); i++) {
+      char c = header.charAt(i);
+      name.append(Character.isLetterOrDigit(c) && c < 128 ? c : '_');
+    }
+    if (name.length() == 0 || !Character.isLetter(name.charAt(0))) {
+      name.insert(0, "field" + column + "_");
+    }
+    String unique = name.toString();
+    for (int suffix = 1; !usedNames.add(unique.toLowerCase(Locale.US)); suffix++) {
+      unique = name + "_" + suffix;
+    }
+    return unique;
+  }
+
+  /**
+   * Parses a decimal number from a range of characters. Numbers with at most 15 significant digits and a small exponent
+   * are computed exactly without creating a string; any other is passed to {@link Double#parseDouble(String)}.
+   *
+   * @throws NumberFormatException if the range is not a number
+   */
+  static double parseDouble(char[] chars, int start, int end) {
+    while (start < end && chars[start] == ' ') {
+      start++;
+    }
+    while (end > start && chars[end - 1] == ' ') {
+      end--;
+    }
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int significantDigits = 0;
+    int exponent = 0;
+    boolean hasDigits = false;
+    for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+      hasDigits = true;
+      if (significantDigits < 18) {
+        mantissa = mantissa * 10 + (chars[i] - '0');
+        if (mantissa != 0) {
+          significantDigits++;
+        }
+      } else {
+        exponent++;
+      }
+    }
+    if (i < end && chars[i] == '.') {
+      for (i++; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+        hasDigits = true;
+        if (significantDigits < 18) {
+          mantissa = mantissa * 10 + (chars[i] - '0');
+          if (mantissa != 0) {
+            significantDigits++;
+          }
+          exponent--;
+        }
+      }
+    }
+    if (!hasDigits) {
+      throw new NumberFormatException("Not a number: " + new String(chars, start, end - start));
+    }
+    if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+        negativeExponent = chars[i] == '-';
+        i++;
+      }
+      int exponentStart = i;
+      int exponentValue = 0;
+      for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+        // values beyond this bound are out of the range of a double anyway
+        if (exponentValue < 10000) {
+          exponentValue = exponentValue * 10 + (chars[i] - '0');
+        }
+      }
+      if (i == exponentStart) {
+        throw new NumberFormatException("Not a number: " + new String(chars, start, end - start));
+      }
+      exponent += negativeExponent ? -exponentValue : exponentValue;
+    }
+    if (i != end) {
+      throw new NumberFormatException("Not a number: " + new String(chars, start, end - start));
+    }
+
+    double value;
+    if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+      // both operands are exact, so the single operation is correctly rounded
+      value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+    } else {
+      return Double.parseDouble(new String(chars, start, end - start));
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses a decimal integer in the range of an int from a range of characters.
+   *
+   * @throws NumberFormatException if the range is not such an integer
+   */
+  static int parseInteger(char[] chars, int start, int end) {
+    while (start < end && chars[start] == ' ') {
+      start++;
+    }
+    while (end > start && chars[end - 1] == ' ') {
+      end--;
+    }
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > 10) {
+      throw new NumberFormatException("Not an integer: " + new String(chars, start, end - start));
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      if (chars[i] < '0' || chars[i] > '9') {
+        throw new NumberFormatException("Not an integer: " + new String(chars, start, end - start));
+      }
+      value = value * 10 + (chars[i] - '0');
+    }
+    value = negative ? -value : value;
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new NumberFormatException("Out of range: " + new String(chars, start, end - start));
+    }
+    return (int) value;
+  }
+
+  /**
+   * Reads comma separated lines into a character buffer and records where each field of the current line starts and
+   * ends, so values can be parsed in place. Fields may be quoted, with doubled quotes inside, but may not span lines.
+   * The ranges of a line are only valid until the next line is read.
+   */
+  private static final class LineReader {
+
+    private final Reader mReader;
+
+    private char[] mBuffer = new char[BUFFER_SIZE];
+
+    private int mLength;
+
+    private int mPosition;
+
+    private boolean mEndOfInput;
+
+    private int[] mStarts = new int[16];
+
+    private int[] mEnds = new int[16];
+
+    private boolean[] mEscaped = new boolean[16];
+
+    private int mFieldCount;
+
+    LineReader(Reader reader) {
+      mReader = reader;
+    }
+
+    /**
+     * Moves to the next line.
+     *
+     * @return false at the end of the input
+     */
+    boolean nextLine() throws IOException {
+      int scanFrom = mPosition;
+      while (true) {
+        for (int i = scanFrom; i < mLength; i++) {
+          if (mBuffer[i] == '\n') {
+            split(mPosition, i);
+            mPosition = i + 1;
+            return true;
+          }
+        }
+        if (mEndOfInput) {
+          if (mPosition < mLength) {
+            split(mPosition, mLength);
+            mPosition = mLength;
+            return true;
+          }
+          return false;
+        }
+        // the line continues past the characters read, so read more after what was already scanned
+        int scanned = mLength - mPosition;
+        fill();
+        scanFrom = scanned;
+      }
+    }
+
+    private void fill() throws IOException {
+      // move the incomplete line to the start of the buffer, growing it if the line fills the whole buffer
+      int remaining = mLength - mPosition;
+      if (remaining == mBuffer.length) {
+        char[] larger = new char[mBuffer.length * 2];
+        System.arraycopy(mBuffer, mPosition, larger, 0, remaining);
+        mBuffer = larger;
+      } else if (mPosition > 0) {
+        System.arraycopy(mBuffer, mPosition, mBuffer, 0, remaining);
+      }
+      mPosition = 0;
+      mLength = remaining;
+      int read = mReader.read(mBuffer, mLength, mBuffer.length - mLength);
+      if (read < 0) {
+        mEndOfInput = true;
+      } else {
+        mLength += read;
+      }
+    }
+
+    private void split(int start, int end) {
+      if (end > start && mBuffer[end - 1] == '\r') {
+        end--;
+      }
+      mFieldCount = 0;
+      int i = start;
+      while (true) {
+        if (mFieldCount == mStarts.length) {
+          growFields();
+        }
+        boolean escaped = false;
+        int fieldStart;
+        int fieldEnd;
+        if (i < end && mBuffer[i] == '"') {
+          fieldStart = i + 1;
+          i = fieldStart;
+          while (i < end) {
+            if (mBuffer[i] == '"') {
+              if (i + 1 < end && mBuffer[i + 1] == '"') {
+                escaped = true;
+                i += 2;
+                continue;
+              }
+              break;
+            }
+            i++;
+          }
+          fieldEnd = i;
+          // skip the closing quote and anything up to the delimiter
+          while (i < end && mBuffer[i] != ',') {
+            i++;
+          }
+        } else {
+          fieldStart = i;
+          while (i < end && mBuffer[i] != ',') {
+            i++;
+          }
+          fieldEnd = i;
+        }
+        mStarts[mFieldCount] = fieldStart;
+        mEnds[mFieldCount] = fieldEnd;
+        mEscaped[mFieldCount] = escaped;
+        mFieldCount++;
+        if (i >= end) {
+          return;
+        }
+        // skip the delimiter
+        i++;
+      }
+    }
+
+    private void growFields() {
+      int capacity = mStarts.length * 2;
+      int[] starts = new int[capacity];
+      int[] ends = new int[capacity];
+      boolean[] escaped = new boolean[capacity];
+      System.arraycopy(mStarts, 0, starts, 0, mFieldCount);
+      System.arraycopy(mEnds, 0, ends, 0, mFieldCount);
+      System.arraycopy(mEscaped, 0, escaped, 0, mFieldCount);
+      mStarts = starts;
+      mEnds = ends;
+      mEscaped = escaped;
+    }
+
+    int getFieldCount() {
+      return mFieldCount;
+    }
+
+    int getLength(int field) {
+      checkField(field);
+      return mEnds[field] - mStarts[field];
+    }
+
+    boolean isEmpty(int field) {
+      return getLength(field) == 0;
+    }
+
+    boolean isInteger(int field) {
+      try {
+        getInteger(field);
+        return true;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    boolean isNumber(int field) {
+      try {
+        getDouble(field);
+        return true;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    int getInteger(int field) {
+      checkField(field);
+      return parseInteger(mBuffer, mStarts[field], mEnds[field]);
+    }
+
+    double getDouble(int field) {
+      checkField(field);
+      return parseDouble(mBuffer, mStarts[field], mEnds[field]);
+    }
+
+    String getText(int field) {
+      checkField(field);
+      String text = new String(mBuffer, mStarts[field], mEnds[field] - mStarts[field]);
+      return mEscaped[field] ? text.replace("\"\"", "\"") : text;
+    }
+
+    private void checkField(int field) {
+      if (field >= mFieldCount) {
+        throw new IndexOutOfBoundsException("Line has " + mFieldCount + " fields, no field " + field);
+      }
+    }
+
+    void close() throws IOException {
+      mReader.close();
+    }
+  }
+}
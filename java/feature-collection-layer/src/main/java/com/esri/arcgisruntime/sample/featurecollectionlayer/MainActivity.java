@@ -18,6 +18,10 @@ package com.esri.arcgisruntime.sample.featurecollectionlayer;
 
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.Toast;
 
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureCollection;
@@ -37,15 +41,35 @@ import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   private MapView mMapView;
 
+  private FeatureCollection mFeatureCollection;
+
+  // table loaded by the last bulk load benchmark
+  private FeatureCollectionTable mBulkLoadedTable;
+
+  private boolean mBulkLoadRunning;
+
+  private final ExecutorService mBulkLoadExecutor = Executors.newSingleThreadExecutor();
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -61,14 +85,114 @@ public class MainActivity extends AppCompatActivity {
     mMapView.setMap(map);
 
     // create feature collection and add to the map as a layer
-    FeatureCollection featureCollection = new FeatureCollection();
-    FeatureCollectionLayer featureCollectionLayer = new FeatureCollectionLayer(featureCollection);
+    mFeatureCollection = new FeatureCollection();
+    FeatureCollectionLayer featureCollectionLayer = new FeatureCollectionLayer(mFeatureCollection);
     map.getOperationalLayers().add(featureCollectionLayer);
 
     // add point, line, and polygon geometry to feature collection
-    createPointTable(featureCollection);
-    createPolylineTable(featureCollection);
-    createPolygonTables(featureCollection);
+    createPointTable(mFeatureCollection);
+    createPolylineTable(mFeatureCollection);
+    createPolygonTables(mFeatureCollection);
+  }
+
+  @Override
+  public boolean onCreateOptionsMenu(Menu menu) {
+    getMenuInflater().inflate(R.menu.menu_main, menu);
+    return true;
+  }
+
+  @Override
+  public boolean onOptionsItemSelected(MenuItem item) {
+    if (item.getItemId() == R.id.action_bulk_load) {
+      runBulkLoadBenchmark();
+      return true;
+    }
+    return super.onOptionsItemSelected(item);
+  }
+
+  /**
+   * Streams a generated CSV file of random points around the map's center into a new feature collection table with the
+   * bulk loader, and reports the load rate. The file is generated the first time the benchmark runs.
+   */
+  private void runBulkLoadBenchmark() {
+    if (mBulkLoadRunning) {
+      return;
+    }
+    mBulkLoadRunning = true;
+    final int pointCount = getResources().getInteger(R.integer.bulk_load_benchmark_points);
+    final File csv = new File(getCacheDir(), "benchmark_points_" + pointCount + ".csv");
+    final CsvPointLoader loader = new CsvPointLoader(getResources().getInteger(R.integer.bulk_load_batch_size),
+        getResources().getInteger(R.integer.bulk_load_schema_sample_rows), SpatialReferences.getWgs84());
+    Toast.makeText(this, getString(R.string.bulk_load_started, pointCount), Toast.LENGTH_SHORT).show();
+
+    mBulkLoadExecutor.execute(() -> {
+      try {
+        if (!csv.exists()) {
+          writeBenchmarkCsv(csv, pointCount);
+        }
+        final CsvPointLoader.LoadReport report = loader.load(csv, new CsvPointLoader.Listener() {
+          @Override
+          public void onTableCreated(FeatureCollectionTable table) {
+            // replace the table of the previous run
+            if (mBulkLoadedTable != null) {
+              mFeatureCollection.getTables().remove(mBulkLoadedTable);
+            }
+            table.setRenderer(new SimpleRenderer(new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, 0xFFFF8800, 4)));
+            mFeatureCollection.getTables().add(table);
+            mBulkLoadedTable = table;
+          }
+
+          @Override
+          public void onProgress(long rows) {
+            if (getSupportActionBar() != null) {
+              getSupportActionBar().setSubtitle(getString(R.string.bulk_load_progress, rows));
+            }
+          }
+        });
+        runOnUiThread(() -> {
+          String message = getString(R.string.bulk_load_report, report.rows, report.loadMillis,
+              report.getRowsPerSecond(), report.batches, report.inferMillis, report.rejectedRows,
+              report.rejectedValues);
+          Log.i(TAG, message);
+          Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+          if (getSupportActionBar() != null) {
+            getSupportActionBar().setSubtitle(null);
+          }
+          mBulkLoadRunning = false;
+        });
+      } catch (Exception e) {
+        Log.e(TAG, "Bulk load failed", e);
+        runOnUiThread(() -> {
+          Toast.makeText(this, getString(R.string.bulk_load_failed, e.getMessage()), Toast.LENGTH_LONG).show();
+          mBulkLoadRunning = false;
+        });
+      }
+    });
+  }
+
+  /**
+   * Writes a CSV file of random points with an integer, a double and a text attribute each.
+   */
+  private static void writeBenchmarkCsv(File csv, int pointCount) throws IOException {
+    // write to a temporary file so an interrupted run does not leave a truncated file behind
+    File partial = new File(csv.getPath() + ".part");
+    Random random = new Random(pointCount);
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(partial), "UTF-8"), 64 * 1024);
+    try {
+      writer.write("id,name,value,longitude,latitude\n");
+      StringBuilder line = new StringBuilder(64);
+      for (int i = 0; i < pointCount; i++) {
+        line.setLength(0);
+        line.append(i).append(",Point ").append(i).append(',').append(random.nextInt(100000) / 100.0).append(',')
+            .append(-80.5 + random.nextDouble() * 2).append(',').append(7.5 + random.nextDouble() * 2).append('\n');
+        writer.append(line);
+      }
+    } finally {
+      writer.close();
+    }
+    if (!partial.renameTo(csv)) {
+      throw new IOException("Unable to write " + csv);
+    }
   }
 
   /**
@@ -187,6 +311,7 @@ public class MainActivity extends AppCompatActivity {
 
   @Override
   protected void onDestroy() {
+    mBulkLoadExecutor.shutdownNow();
     mMapView.dispose();
     super.onDestroy();
   }
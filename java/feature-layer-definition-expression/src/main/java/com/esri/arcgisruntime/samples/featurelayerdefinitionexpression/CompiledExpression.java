@@ -0,0 +1,476 @@
+/* Copyright 2016 ESRI
+ *
+ * All rights reserved under the copyright laws of the United States
+ * and applicable international laws, treaties, and conventions.
+ *
+ * You may freely redistribute and use this sample code, with or
+ * without modification, provided you include the original copyright
+ * notice and use restrictions.
+ *
+ * See the Sample code usage restrictions document for further information.
+ *
+ */
+
+package com.esri.arcgisruntime.samples.featurelayerdefinitionexpression;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * A simple SQL-92 where clause compiled into a tree of primitive comparisons which can be evaluated against feature
+ * attributes on the device.
+ * <p>
+ * Supported are comparisons of a field with a string or number literal ({@code = <> != < <= > >=}), {@code IS [NOT]
+ * NULL}, {@code [NOT] IN (...)}, {@code [NOT] LIKE} with {@code %} and {@code _} wildcards, {@code [NOT] BETWEEN ...
+ * AND ...}, combined with {@code AND}, {@code OR}, {@code NOT} and parentheses. Comparisons involving a null value
+ * are unknown, as in SQL, and a feature matches only if the whole clause is true. Anything else, such as functions,
+ * date literals or field to field comparisons, fails to compile so the caller can fall back to the service.
+ * <p>
+ * Literals must match the type of their field: numbers for numeric fields, strings for text fields. A literal compared
+ * with a field of any other type, such as a date or GUID field, fails to compile too, as the service would convert it
+ * in ways which are not reproduced here. String comparisons and {@code LIKE} are case sensitive and ordered by
+ * character code, whereas the service follows the collation of its database, which is often case insensitive, so a
+ * string predicate can match fewer features on the device than on the service.
+ */
+final class CompiledExpression {
+
+  /**
+   * A node of the compiled tree. Evaluates to {@link Boolean#TRUE}, {@link Boolean#FALSE} or null for unknown.
+   */
+  private interface Node {
+    Boolean evaluate(Map<String, Object> attributes);
+  }
+
+  private final String mExpression;
+
+  private final Node mRoot;
+
+  private CompiledExpression(String expression, Node root) {
+    mExpression = expression;
+    mRoot = root;
+  }
+
+  /**
+   * Compiles a where clause against the given fields.
+   *
+   * @param expression where clause to compile
+   * @param tableFields fields of the table the clause is evaluated against
+   * @return the compiled expression
+   * @throws ParseException if the clause uses anything which is not supported, names an unknown field or compares a
+   *                        field with a literal of another type
+   */
+  static CompiledExpression compile(String expression, List<Field> tableFields) throws ParseException {
+    Map<String, Field> fields = new HashMap<>();
+    for (Field field : tableFields) {
+      fields.put(field.getName().toLowerCase(Locale.US), field);
+    }
+    Parser parser = new Parser(expression, fields);
+    Node root = parser.parseOr();
+    parser.expectEnd();
+    return new CompiledExpression(expression, root);
+  }
+
+  String getExpression() {
+    return mExpression;
+  }
+
+  /**
+   * @return whether the clause is true for the given attributes
+   */
+  boolean matches(Map<String, Object> attributes) {
+    return Boolean.TRUE.equals(mRoot.evaluate(attributes));
+  }
+
+  private enum TokenType {
+    IDENTIFIER, STRING, NUMBER, OPERATOR, LEFT_PAREN, RIGHT_PAREN, COMMA, END
+  }
+
+  private static final class Token {
+    final TokenType type;
+    final String text;
+    final Object value;
+    final int offset;
+
+    Token(TokenType type, String text, Object value, int offset) {
+      this.type = type;
+      this.text = text;
+      this.value = value;
+      this.offset = offset;
+    }
+
+    boolean isKeyword(String keyword) {
+      return type == TokenType.IDENTIFIER && text.equalsIgnoreCase(keyword);
+    }
+  }
+
+  /**
+   * Recursive descent parser building the node tree straight from the tokens.
+   */
+  private static final class Parser {
+
+    private final String mExpression;
+
+    private final Map<String, Field> mFields;
+
+    private final List<Token> mTokens;
+
+    private int mPosition;
+
+    Parser(String expression, Map<String, Field> fields) throws ParseException {
+      mExpression = expression;
+      mFields = fields;
+      mTokens = tokenize(expression);
+    }
+
+    Node parseOr() throws ParseException {
+      Node left = parseAnd();
+      while (peek().isKeyword("OR")) {
+        mPosition++;
+        final Node a = left;
+        final Node b = parseAnd();
+        left = attributes -> {
+          Boolean x = a.evaluate(attributes);
+          if (Boolean.TRUE.equals(x)) {
+            return Boolean.TRUE;
+          }
+          Boolean y = b.evaluate(attributes);
+          if (Boolean.TRUE.equals(y)) {
+            return Boolean.TRUE;
+          }
+          return x == null || y == null ? null : Boolean.FALSE;
+        };
+      }
+      return left;
+    }
+
+    private Node parseAnd() throws ParseException {
+      Node left = parseNot();
+      while (peek().isKeyword("AND")) {
+        mPosition++;
+        final Node a = left;
+        final Node b = parseNot();
+        left = attributes -> {
+          Boolean x = a.evaluate(attributes);
+          if (Boolean.FALSE.equals(x)) {
+            return Boolean.FALSE;
+          }
+          Boolean y = b.evaluate(attributes);
+          if (Boolean.FALSE.equals(y)) {
+            return Boolean.FALSE;
+          }
+          return x == null || y == null ? null : Boolean.TRUE;
+        };
+      }
+      return left;
+    }
+
+    private Node parseNot() throws ParseException {
+      if (peek().isKeyword("NOT")) {
+        mPosition++;
+        return not(parseNot());
+      }
+      if (peek().type == TokenType.LEFT_PAREN) {
+        mPosition++;
+        Node inner = parseOr();
+        expect(TokenType.RIGHT_PAREN);
+        return inner;
+      }
+      return parseComparison();
+    }
+
+    private Node parseComparison() throws ParseException {
+      Token fieldToken = next();
+      if (fieldToken.type != TokenType.IDENTIFIER) {
+        throw error("Expected a field name", fieldToken);
+      }
+      final Field fieldInfo = mFields.get(fieldToken.text.toLowerCase(Locale.US));
+      if (fieldInfo == null) {
+        throw error("Unknown field " + fieldToken.text, fieldToken);
+      }
+      final String field = fieldInfo.getName();
+
+      Token token = next();
+      if (token.type == TokenType.OPERATOR) {
+        final Object literal = parseLiteral(fieldInfo);
+        final String operator = token.text;
+        return attributes -> {
+          Integer order = compare(attributes.get(field), literal);
+          if (order == null) {
+            return null;
+          }
+          switch (operator) {
+            case "=":
+              return order == 0;
+            case "<>":
+            case "!=":
+              return order != 0;
+            case "<":
+              return order < 0;
+            case "<=":
+              return order <= 0;
+            case ">":
+              return order > 0;
+            default:
+              return order >= 0;
+          }
+        };
+      }
+      if (token.isKeyword("IS")) {
+        boolean negated = peek().isKeyword("NOT");
+        if (negated) {
+          mPosition++;
+        }
+        Token nullToken = next();
+        if (!nullToken.isKeyword("NULL")) {
+          throw error("Expected NULL", nullToken);
+        }
+        return negated ? attributes -> attributes.get(field) != null : attributes -> attributes.get(field) == null;
+      }
+
+      boolean negated = token.isKeyword("NOT");
+      if (negated) {
+        token = next();
+      }
+      Node node;
+      if (token.isKeyword("IN")) {
+        node = parseIn(fieldInfo);
+      } else if (token.isKeyword("LIKE")) {
+        node = parseLike(fieldInfo);
+      } else if (token.isKeyword("BETWEEN")) {
+        final Object low = parseLiteral(fieldInfo);
+        Token and = next();
+        if (!and.isKeyword("AND")) {
+          throw error("Expected AND", and);
+        }
+        final Object high = parseLiteral(fieldInfo);
+        node = attributes -> {
+          Integer lowOrder = compare(attributes.get(field), low);
+          Integer highOrder = compare(attributes.get(field), high);
+          return lowOrder == null || highOrder == null ? null : lowOrder >= 0 && highOrder <= 0;
+        };
+      } else {
+        throw error("Unsupported operator " + token.text, token);
+      }
+      return negated ? not(node) : node;
+    }
+
+    private Node parseIn(Field fieldInfo) throws ParseException {
+      final String field = fieldInfo.getName();
+      expect(TokenType.LEFT_PAREN);
+      final List<Object> values = new ArrayList<>();
+      values.add(parseLiteral(fieldInfo));
+      while (peek().type == TokenType.COMMA) {
+        mPosition++;
+        values.add(parseLiteral(fieldInfo));
+      }
+      expect(TokenType.RIGHT_PAREN);
+      return attributes -> {
+        Object value = attributes.get(field);
+        if (value == null) {
+          return null;
+        }
+        for (Object candidate : values) {
+          Integer order = compare(value, candidate);
+          if (order != null && order == 0) {
+            return Boolean.TRUE;
+          }
+        }
+        return Boolean.FALSE;
+      };
+    }
+
+    private Node parseLike(Field fieldInfo) throws ParseException {
+      final String field = fieldInfo.getName();
+      Token patternToken = next();
+      if (patternToken.type != TokenType.STRING) {
+        throw error("Expected a pattern", patternToken);
+      }
+      if (fieldInfo.getFieldType() != Field.Type.TEXT) {
+        throw error("LIKE on field " + field + " which is not a text field", patternToken);
+      }
+      if (peek().isKeyword("ESCAPE")) {
+        throw error("ESCAPE is not supported", peek());
+      }
+      // translate the SQL wildcards, quoting everything else
+      StringBuilder regex = new StringBuilder();
+      StringBuilder literal = new StringBuilder();
+      for (char c : ((String) patternToken.value).toCharArray()) {
+        if (c == '%' || c == '_') {
+          if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+          }
+          regex.append(c == '%' ? ".*" : ".");
+        } else {
+          literal.append(c);
+        }
+      }
+      if (literal.length() > 0) {
+        regex.append(Pattern.quote(literal.toString()));
+      }
+      final Pattern pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+      return attributes -> {
+        Object value = attributes.get(field);
+        return value == null ? null : pattern.matcher(value.toString()).matches();
+      };
+    }
+
+    /**
+     * Parses a literal compared with the given field, which must be a number for a numeric field and a string for a
+     * text field.
+     */
+    private Object parseLiteral(Field fieldInfo) throws ParseException {
+      Token token = next();
+      if (token.type != TokenType.STRING && token.type != TokenType.NUMBER) {
+        throw error("Expected a string or number", token);
+      }
+      boolean matchesType = token.type == TokenType.NUMBER ? isNumeric(fieldInfo.getFieldType()) :
+          fieldInfo.getFieldType() == Field.Type.TEXT;
+      if (!matchesType) {
+        throw error("Literal " + token.text + " does not match the " + fieldInfo.getFieldType() + " field "
+            + fieldInfo.getName(), token);
+      }
+      return token.value;
+    }
+
+    private static boolean isNumeric(Field.Type fieldType) {
+      switch (fieldType) {
+        case SHORT:
+        case INTEGER:
+        case FLOAT:
+        case DOUBLE:
+        case OID:
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    void expectEnd() throws ParseException {
+      expect(TokenType.END);
+    }
+
+    private void expect(TokenType type) throws ParseException {
+      Token token = next();
+      if (token.type != type) {
+        throw error("Unexpected " + (token.type == TokenType.END ? "end of expression" : token.text), token);
+      }
+    }
+
+    private Token peek() {
+      return mTokens.get(mPosition);
+    }
+
+    private Token next() {
+      Token token = mTokens.get(mPosition);
+      if (token.type != TokenType.END) {
+        mPosition++;
+      }
+      return token;
+    }
+
+    private ParseException error(String message, Token token) {
+      return new ParseException(message + " in \"" + mExpression + "\"", token.offset);
+    }
+
+    private static Node not(final Node node) {
+      return attributes -> {
+        Boolean value = node.evaluate(attributes);
+        return value == null ? null : !value;
+      };
+    }
+
+    private static List<Token> tokenize(String expression) throws ParseException {
+      List<Token> tokens = new ArrayList<>();
+      int i = 0;
+      int length = expression.length();
+      while (i < length) {
+        char c = expression.charAt(i);
+        int start = i;
+        if (Character.isWhitespace(c)) {
+          i++;
+        } else if (Character.isLetter(c) || c == '_') {
+          while (i < length && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '_')) {
+            i++;
+          }
+          String text = expression.substring(start, i);
+          tokens.add(new Token(TokenType.IDENTIFIER, text, null, start));
+        } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && Character.isDigit(expression.charAt(i + 1)))
+            || (c == '.' && i + 1 < length && Character.isDigit(expression.charAt(i + 1)))) {
+          i++;
+          while (i < length && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+            i++;
+          }
+          String text = expression.substring(start, i);
+          try {
+            tokens.add(new Token(TokenType.NUMBER, text, Double.parseDouble(text), start));
+          } catch (NumberFormatException e) {
+            throw new ParseException("Invalid number " + text + " in \"" + expression + "\"", start);
+          }
+        } else if (c == '\'') {
+          StringBuilder value = new StringBuilder();
+          i++;
+          while (true) {
+            if (i >= length) {
+              throw new ParseException("Unterminated string in \"" + expression + "\"", start);
+            }
+            char s = expression.charAt(i++);
+            if (s == '\'') {
+              // a doubled quote is an escaped quote
+              if (i < length && expression.charAt(i) == '\'') {
+                value.append('\'');
+                i++;
+              } else {
+                break;
+              }
+            } else {
+              value.append(s);
+            }
+          }
+          tokens.add(new Token(TokenType.STRING, expression.substring(start, i), value.toString(), start));
+        } else if (c == '(') {
+          tokens.add(new Token(TokenType.LEFT_PAREN, "(", null, i++));
+        } else if (c == ')') {
+          tokens.add(new Token(TokenType.RIGHT_PAREN, ")", null, i++));
+        } else if (c == ',') {
+          tokens.add(new Token(TokenType.COMMA, ",", null, i++));
+        } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+          i++;
+          if (i < length && (expression.charAt(i) == '=' || (c == '<' && expression.charAt(i) == '>'))) {
+            i++;
+          }
+          String text = expression.substring(start, i);
+          if (text.equals("!")) {
+            throw new ParseException("Unexpected ! in \"" + expression + "\"", start);
+          }
+          tokens.add(new Token(TokenType.OPERATOR, text, null, start));
+        } else {
+          throw new ParseException("Unexpected " + c + " in \"" + expression + "\"", start);
+        }
+      }
+      tokens.add(new Token(TokenType.END, "", null, length));
+      return tokens;
+    }
+  }
+
+  /**
+   * Compares an attribute value with a literal. Returns null if either is null or they can not be compared, e.g. a
+   * string attribute with a number literal.
+   */
+  private static Integer compare(Object value, Object literal) {
+    if (value == null || literal == null) {
+      return null;
+    }
+    if (literal instanceof Double) {
+      return value instanceof Number ? Double.compare(((Number) value).doubleValue(), (Double) literal) : null;
+    }
+    return value instanceof String ? ((String) value).compareTo((String) literal) : null;
+  }
+}
@@ -13,25 +13,53 @@
 
 package com.esri.arcgisruntime.samples.featurelayerdefinitionexpression;
 
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.util.Log;
 import android.view.MenuItem;
+import android.widget.Toast;
 
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.MapView;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   MapView mMapView;
   FeatureLayer mFeatureLayer;
+  ServiceFeatureTable mServiceFeatureTable;
 
   boolean applyActive;
+  boolean filterLocally;
+
+  // features populated into the table since its cache was last cleared, by object id
+  private final Map<Long, Feature> mLoadedFeatures = new LinkedHashMap<>();
+  private int mMaxLoadedFeatures;
+  // expression applied on the device, null when the expression is not applied locally
+  private CompiledExpression mLocalExpression;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -47,36 +75,163 @@ public class MainActivity extends AppCompatActivity {
     // create a map with the topographic basemap
     ArcGISMap map = new ArcGISMap(Basemap.createTopographic());
 
-    // create feature layer with its service feature table
-    // create the service feature table
-    ServiceFeatureTable serviceFeatureTable = new ServiceFeatureTable(
-        getResources().getString(R.string.sample_service_url));
+    // set the map to be displayed in the mapview
+    mMapView.setMap(map);
 
-    // create the feature layer using the service feature table
-    mFeatureLayer = new FeatureLayer(serviceFeatureTable);
+    mMaxLoadedFeatures = getResources().getInteger(R.integer.max_loaded_features);
 
-    // add the layer to the map
-    map.getOperationalLayers().add(mFeatureLayer);
+    // create feature layer with its service feature table, and add it to the map
+    createFeatureLayer();
 
-    // set the map to be displayed in the mapview
-    mMapView.setMap(map);
+    // when filtering on the device, load the features in view whenever the map stops moving
+    mMapView.addNavigationChangedListener(navigationChangedEvent -> {
+      if (!navigationChangedEvent.isNavigating() && filterLocally) {
+        populateVisibleArea();
+      }
+    });
 
     // zoom to a view point of the USA
     mMapView.setViewpointCenterAsync(new Point(-13630845, 4544861, SpatialReferences.getWebMercator()), 600000);
 
   }
 
+  /**
+   * Replaces the feature layer with one whose table suits the current filter: a table in manual cache mode, populated
+   * with the features in view, to filter on the device, or the default on interaction cache to apply the definition
+   * expression on the service. The feature request mode can't be changed once a table is loaded, so a new table is
+   * created each time.
+   */
+  private void createFeatureLayer() {
+    if (mFeatureLayer != null) {
+      mMapView.getMap().getOperationalLayers().remove(mFeatureLayer);
+    }
+    mLoadedFeatures.clear();
+
+    // create the service feature table
+    mServiceFeatureTable = new ServiceFeatureTable(getResources().getString(R.string.sample_service_url));
+    mServiceFeatureTable.setFeatureRequestMode(filterLocally ? ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE :
+        ServiceFeatureTable.FeatureRequestMode.ON_INTERACTION_CACHE);
+
+    // create the feature layer using the service feature table
+    mFeatureLayer = new FeatureLayer(mServiceFeatureTable);
+
+    // add the layer to the map
+    mMapView.getMap().getOperationalLayers().add(mFeatureLayer);
+
+    if (filterLocally) {
+      populateVisibleArea();
+    }
+  }
+
+  /**
+   * Adds the features in view to the table, applying the local filter to those not loaded before. Once the table
+   * holds the maximum number of features, its cache is cleared and it's populated with just those in view.
+   */
+  private void populateVisibleArea() {
+    if (mMapView.getVisibleArea() == null) {
+      return;
+    }
+    final ServiceFeatureTable table = mServiceFeatureTable;
+    boolean clearCache = mLoadedFeatures.size() >= mMaxLoadedFeatures;
+    if (clearCache) {
+      mLoadedFeatures.clear();
+    }
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setGeometry(mMapView.getVisibleArea().getExtent());
+    final ListenableFuture<FeatureQueryResult> populateFuture = table
+        .populateFromServiceAsync(queryParameters, clearCache, Collections.singletonList("*"));
+    populateFuture.addDoneListener(() -> {
+      if (table != mServiceFeatureTable) {
+        // the filter was switched to another table meanwhile
+        return;
+      }
+      try {
+        FeatureQueryResult result = populateFuture.get();
+        if (result.isTransferLimitExceeded()) {
+          // the service returns at most its max record count, so zoom in for every feature in view to be filtered
+          Toast.makeText(this, R.string.transfer_limit_exceeded, Toast.LENGTH_SHORT).show();
+        }
+        List<Feature> newFeatures = new ArrayList<>();
+        for (Feature feature : result) {
+          long objectId = ((Number) feature.getAttributes().get(mServiceFeatureTable.getObjectIdField())).longValue();
+          if (!mLoadedFeatures.containsKey(objectId)) {
+            mLoadedFeatures.put(objectId, feature);
+            newFeatures.add(feature);
+          }
+        }
+        if (mLocalExpression != null) {
+          applyLocalExpression(mLocalExpression, newFeatures);
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        Log.e(TAG, "Populating features failed: " + e.getMessage());
+      }
+    });
+  }
+
   private void applyDefinitionExpression() {
+    String expression = getString(R.string.definition_expression);
+    LoadStatus loadStatus = mServiceFeatureTable.getLoadStatus();
+    if (filterLocally && (loadStatus == LoadStatus.NOT_LOADED || loadStatus == LoadStatus.LOADING)) {
+      // the expression is compiled against the table's fields, so wait for them
+      final ServiceFeatureTable table = mServiceFeatureTable;
+      table.addDoneLoadingListener(() -> {
+        if (applyActive && table == mServiceFeatureTable) {
+          applyDefinitionExpression();
+        }
+      });
+      table.loadAsync();
+      return;
+    }
+    if (filterLocally) {
+      try {
+        // compile the expression and evaluate it against the features already loaded
+        mLocalExpression = CompiledExpression.compile(expression, getFields());
+        applyLocalExpression(mLocalExpression, mLoadedFeatures.values());
+        return;
+      } catch (ParseException e) {
+        // fall back to the definition expression for anything the local filter does not support
+        Log.w(TAG, "Expression not compiled, applying it as a definition expression: " + e.getMessage());
+        Toast.makeText(this, R.string.local_filter_fallback, Toast.LENGTH_SHORT).show();
+      }
+    }
     // apply a definition expression on the feature layer
     // if this is called before the layer is loaded, it will be applied to the loaded layer
-    mFeatureLayer.setDefinitionExpression("req_Type = 'Tree Maintenance or Damage'");
+    mFeatureLayer.setDefinitionExpression(expression);
   }
 
   private void resetDefinitionExpression() {
+    if (mLocalExpression != null) {
+      // show all the features hidden by the local filter
+      mLocalExpression = null;
+      mFeatureLayer.setFeaturesVisible(mLoadedFeatures.values(), true);
+    }
     // set the definition expression to nothing (empty string, null also works)
     mFeatureLayer.setDefinitionExpression("");
   }
 
+  /**
+   * Shows the given features which match the compiled expression and hides the others.
+   */
+  private void applyLocalExpression(CompiledExpression expression, Collection<Feature> features) {
+    long start = System.nanoTime();
+    List<Feature> visible = new ArrayList<>();
+    List<Feature> hidden = new ArrayList<>();
+    for (Feature feature : features) {
+      (expression.matches(feature.getAttributes()) ? visible : hidden).add(feature);
+    }
+    mFeatureLayer.setFeaturesVisible(visible, true);
+    mFeatureLayer.setFeaturesVisible(hidden, false);
+    Log.d(TAG, String.format(Locale.US, "Filtered %d features locally in %.2f ms, %d visible", features.size(),
+        (System.nanoTime() - start) / 1e6, visible.size()));
+  }
+
+  private List<Field> getFields() {
+    if (mServiceFeatureTable.getLoadStatus() != LoadStatus.LOADED) {
+      return Collections.emptyList();
+    }
+    return mServiceFeatureTable.getFields();
+  }
+
   private void createBottomToolbar() {
 
     Toolbar bottomToolbar = (Toolbar) findViewById(R.id.bottomToolbar);
@@ -101,6 +256,17 @@ public class MainActivity extends AppCompatActivity {
             applyActive = false;
             item.setTitle(R.string.action_def_exp);
           }
+        } else if (itemId == R.id.action_filter_locally) {
+          filterLocally = !filterLocally;
+          item.setChecked(filterLocally);
+          // switch to a table with the feature request mode of the chosen filter, and re-apply an active expression
+          if (applyActive) {
+            resetDefinitionExpression();
+          }
+          createFeatureLayer();
+          if (applyActive) {
+            applyDefinitionExpression();
+          }
         }
         return true;
       }
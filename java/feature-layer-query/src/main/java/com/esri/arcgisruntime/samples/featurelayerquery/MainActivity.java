@@ -14,6 +14,7 @@
 package com.esri.arcgisruntime.samples.featurelayerquery;
 
 import java.util.Iterator;
+import java.util.Locale;
 
 import android.app.SearchManager;
 import android.content.Context;
@@ -24,12 +25,14 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.SearchView;
 import android.util.Log;
 import android.view.Menu;
+import android.view.MenuItem;
 import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable.QueryFeatureFields;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
@@ -50,6 +53,10 @@ public class MainActivity extends AppCompatActivity {
   private ServiceFeatureTable mServiceFeatureTable;
   private FeatureLayer mFeatureLayer;
 
+  // optional local substring index over state names, null until built
+  private NGramIndex mStateNameIndex;
+  private boolean mUseLocalIndex;
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -98,8 +105,21 @@ public class MainActivity extends AppCompatActivity {
     mFeatureLayer.clearSelection();
     // create objects required to do a selection with a query
     QueryParameters query = new QueryParameters();
-    // make search case insensitive
-    query.setWhereClause("upper(STATE_NAME) LIKE '%" + searchString.toUpperCase() + "%'");
+    if (mUseLocalIndex && mStateNameIndex != null) {
+      // resolve the search locally and only fetch the geometry of the first hit from the service
+      long start = System.nanoTime();
+      int[] rows = mStateNameIndex.search(searchString);
+      Log.d(TAG, String.format(Locale.ROOT, "Local search for '%s' found %d states in %.3f ms", searchString,
+          rows.length, (System.nanoTime() - start) / 1e6));
+      if (rows.length == 0) {
+        Toast.makeText(this, "No states found with name: " + searchString, Toast.LENGTH_LONG).show();
+        return;
+      }
+      query.getObjectIds().add(mStateNameIndex.getObjectId(rows[0]));
+    } else {
+      // make search case insensitive
+      query.setWhereClause("upper(STATE_NAME) LIKE '%" + searchString.toUpperCase() + "%'");
+    }
     // call select features
     final ListenableFuture<FeatureQueryResult> future = mServiceFeatureTable.queryFeaturesAsync(query);
     // add done loading listener to fire when the selection returns
@@ -140,6 +160,45 @@ public class MainActivity extends AppCompatActivity {
     return true;
   }
 
+  @Override
+  public boolean onOptionsItemSelected(MenuItem item) {
+    if (item.getItemId() == R.id.action_local_index) {
+      mUseLocalIndex = !item.isChecked();
+      item.setChecked(mUseLocalIndex);
+      if (mUseLocalIndex && mStateNameIndex == null) {
+        buildStateNameIndex();
+      }
+      return true;
+    }
+    return super.onOptionsItemSelected(item);
+  }
+
+  /**
+   * Build a local n-gram index over the STATE_NAME field of every feature in the table. Only attributes are
+   * requested, geometries are fetched later for the chosen search hit only.
+   */
+  private void buildStateNameIndex() {
+    QueryParameters query = new QueryParameters();
+    query.setWhereClause("1=1");
+    query.setReturnGeometry(false);
+    final ListenableFuture<FeatureQueryResult> future = mServiceFeatureTable
+        .queryFeaturesAsync(query, QueryFeatureFields.LOAD_ALL);
+    future.addDoneListener(() -> {
+      try {
+        mStateNameIndex = NGramIndex
+            .build(future.get(), getString(R.string.state_name_field), mServiceFeatureTable.getObjectIdField());
+        String report = getString(R.string.index_built, mStateNameIndex.size(), mStateNameIndex.getBuildTimeMillis(),
+            mStateNameIndex.estimateSizeBytes() / 1024.0);
+        Toast.makeText(this, report, Toast.LENGTH_LONG).show();
+        Log.d(TAG, report);
+      } catch (Exception e) {
+        String error = "Failed to build local search index. Error: " + e.getMessage();
+        Toast.makeText(this, error, Toast.LENGTH_LONG).show();
+        Log.e(TAG, error);
+      }
+    });
+  }
+
   @Override
   protected void onPause() {
     mMapView.pause();
@@ -0,0 +1,242 @@
+/* Copyright 2019 ESRI
+ *
+ * All rights reserved under the copyright laws of the United States
+ * and applicable international laws, treaties, and conventions.
+ *
+ * You may freely redistribute and use this sample code, with or
+ * without modification, provided you include the original copyright
+ * notice and use restrictions.
+ *
+ * See the Sample code usage restrictions document for further information.
+ *
+ */
+
+package com.esri.arcgisruntime.samples.featurelayerquery;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.esri.arcgisruntime.data.Feature;
+
+/**
+ * An in-memory substring index over the values of one field of a feature table. Each value is normalized (upper
+ * case, without diacritics) and split into character n-grams, and every n-gram maps to a sorted array of the rows
+ * containing it. A substring search intersects the rows of the query's n-grams and verifies the few candidates left,
+ * so it resolves locally without a round trip to the service.
+ */
+class NGramIndex {
+
+  private static final int N = 3;
+
+  private final String[] mValues;
+  private final String[] mNormalizedValues;
+  private final long[] mObjectIds;
+  private final Map<String, int[]> mPostings;
+
+  private final long mBuildTimeNanos;
+
+  private NGramIndex(String[] values, String[] normalizedValues, long[] objectIds, Map<String, int[]> postings,
+      long buildTimeNanos) {
+    mValues = values;
+    mNormalizedValues = normalizedValues;
+    mObjectIds = objectIds;
+    mPostings = postings;
+    mBuildTimeNanos = buildTimeNanos;
+  }
+
+  /**
+   * Build an index over the given features.
+   *
+   * @param features      to index, which must have the field and object id attributes loaded
+   * @param fieldName     of the field to index
+   * @param objectIdField name of the table's object id field
+   * @return the index
+   */
+  static NGramIndex build(Iterable<Feature> features, String fieldName, String objectIdField) {
+    long start = System.nanoTime();
+    List<String> values = new ArrayList<>();
+    List<Long> objectIds = new ArrayList<>();
+    for (Feature feature : features) {
+      Object value = feature.getAttributes().get(fieldName);
+      Object objectId = feature.getAttributes().get(objectIdField);
+      if (value != null && objectId instanceof Number) {
+        values.add(value.toString());
+        objectIds.add(((Number) objectId).longValue());
+      }
+    }
+
+    int rowCount = values.size();
+    String[] valueArray = values.toArray(new String[rowCount]);
+    String[] normalizedValues = new String[rowCount];
+    long[] objectIdArray = new long[rowCount];
+
+    // collect the rows of each n-gram into growable int arrays, rows are visited in order so postings stay sorted
+    Map<String, IntList> rowsByNGram = new HashMap<>();
+    for (int row = 0; row < rowCount; row++) {
+      objectIdArray[row] = objectIds.get(row);
+      String normalized = normalize(valueArray[row]);
+      normalizedValues[row] = normalized;
+      for (int i = 0; i + N <= normalized.length(); i++) {
+        String nGram = normalized.substring(i, i + N);
+        IntList rows = rowsByNGram.get(nGram);
+        if (rows == null) {
+          rows = new IntList();
+          rowsByNGram.put(nGram, rows);
+        }
+        rows.addIfNotLast(row);
+      }
+    }
+    Map<String, int[]> postings = new HashMap<>(rowsByNGram.size() * 2);
+    for (Map.Entry<String, IntList> entry : rowsByNGram.entrySet()) {
+      postings.put(entry.getKey(), entry.getValue().toArray());
+    }
+    return new NGramIndex(valueArray, normalizedValues, objectIdArray, postings, System.nanoTime() - start);
+  }
+
+  /**
+   * Find the rows whose value contains the query, ignoring case and diacritics.
+   *
+   * @param query substring to search for
+   * @return the matching rows, in the order they were indexed
+   */
+  int[] search(String query) {
+    String normalized = normalize(query);
+    if (normalized.isEmpty()) {
+      return new int[0];
+    }
+    int[] candidates = null;
+    if (normalized.length() >= N) {
+      // intersect the postings of each of the query's n-grams
+      for (int i = 0; i + N <= normalized.length(); i++) {
+        int[] rows = mPostings.get(normalized.substring(i, i + N));
+        if (rows == null) {
+          return new int[0];
+        }
+        candidates = candidates == null ? rows : intersect(candidates, rows);
+        if (candidates.length == 0) {
+          return candidates;
+        }
+      }
+    }
+    // verify candidates, n-grams can match out of order, and scan every row for queries shorter than N
+    IntList matches = new IntList();
+    int candidateCount = candidates == null ? mNormalizedValues.length : candidates.length;
+    for (int i = 0; i < candidateCount; i++) {
+      int row = candidates == null ? i : candidates[i];
+      if (mNormalizedValues[row].contains(normalized)) {
+        matches.addIfNotLast(row);
+      }
+    }
+    return matches.toArray();
+  }
+
+  /**
+   * @return the original value of the field at the given row
+   */
+  String getValue(int row) {
+    return mValues[row];
+  }
+
+  /**
+   * @return the object id of the feature at the given row
+   */
+  long getObjectId(int row) {
+    return mObjectIds[row];
+  }
+
+  /**
+   * @return the number of indexed rows
+   */
+  int size() {
+    return mValues.length;
+  }
+
+  /**
+   * @return the time taken to build the index, in milliseconds
+   */
+  double getBuildTimeMillis() {
+    return mBuildTimeNanos / 1e6;
+  }
+
+  /**
+   * Estimate the heap used by the index, counting string characters, arrays and hash map entries. Object headers are
+   * approximated, so the figure is indicative only.
+   *
+   * @return the estimated size of the index in bytes
+   */
+  long estimateSizeBytes() {
+    final int objectOverhead = 16;
+    final int referenceSize = 4;
+    long bytes = 3L * (objectOverhead + 4L * mValues.length) + 8L * mObjectIds.length;
+    for (int row = 0; row < mValues.length; row++) {
+      bytes += 2L * objectOverhead + 2L * (mValues[row].length() + mNormalizedValues[row].length());
+    }
+    for (Map.Entry<String, int[]> entry : mPostings.entrySet()) {
+      // hash map entry, key string and postings array
+      bytes += 2 * objectOverhead + 4 * referenceSize + 2L * N + objectOverhead + 4L * entry.getValue().length;
+    }
+    return bytes;
+  }
+
+  static String normalize(String value) {
+    String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+    StringBuilder normalized = new StringBuilder(decomposed.length());
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        normalized.append(c);
+      }
+    }
+    return normalized.toString().toUpperCase(Locale.ROOT).trim();
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int i = 0;
+    int j = 0;
+    int count = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        result[count++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * A minimal growable list of primitive ints.
+   */
+  private static final class IntList {
+    private int[] mItems = new int[4];
+    private int mSize;
+
+    /**
+     * Append the value unless it's already the last item, so a row containing an n-gram more than once is only
+     * recorded once.
+     */
+    void addIfNotLast(int value) {
+      if (mSize > 0 && mItems[mSize - 1] == value) {
+        return;
+      }
+      if (mSize == mItems.length) {
+        mItems = Arrays.copyOf(mItems, mSize * 2);
+      }
+      mItems[mSize++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(mItems, mSize);
+    }
+  }
+}
@@ -16,8 +16,12 @@
 
 package com.esri.arcgisruntime.sample.featurelayerrenderingmodemap;
 
+import java.util.Arrays;
+
 import android.os.Bundle;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.Button;
@@ -31,16 +35,21 @@ import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.DefaultMapViewOnTouchListener;
+import com.esri.arcgisruntime.mapping.view.GeoView;
 import com.esri.arcgisruntime.mapping.view.MapView;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   private MapView mMapViewTop;
   private MapView mMapViewBottom;
   private Viewpoint mZoomedIn;
   private Viewpoint mZoomedOut;
   private Button mZoomButton;
+  private Button mBenchmarkButton;
   private TextView mNavigatingTextView;
+  private NavigationBenchmark mBenchmark;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -55,6 +64,7 @@ public class MainActivity extends AppCompatActivity {
 
     // inflate the zoom button
     mZoomButton = findViewById(R.id.zoomButton);
+    mBenchmarkButton = findViewById(R.id.benchmarkButton);
 
     // inflate MapViews from layout
     mMapViewTop = findViewById(R.id.mapViewTop);
@@ -108,6 +118,20 @@ public class MainActivity extends AppCompatActivity {
       }
     });
 
+    // replay the animated zoom on each view in turn and report how each rendering mode kept up
+    mBenchmark = new NavigationBenchmark(benchmarkStep(mZoomedOut, 0),
+        Arrays.asList(benchmarkStep(mZoomedIn, 5), benchmarkStep(mZoomedIn, 3), benchmarkStep(mZoomedOut, 5)),
+        getResources().getInteger(R.integer.benchmark_runs),
+        getResources().getInteger(R.integer.benchmark_settle_millis),
+        getResources().getInteger(R.integer.benchmark_timeout_millis));
+    mBenchmark.addTarget(getString(R.string.renderingmode_static), mMapViewTop);
+    mBenchmark.addTarget(getString(R.string.renderingmode_dynamic), mMapViewBottom);
+    mBenchmarkButton.setOnClickListener(new View.OnClickListener() {
+      @Override public void onClick(View v) {
+        runBenchmark();
+      }
+    });
+
     // disable the top map view on touch listener
     mMapViewTop.setOnTouchListener(new DefaultMapViewOnTouchListener(MainActivity.this, mMapViewTop) {
       @Override public boolean onTouch(View v, MotionEvent event) {
@@ -128,6 +152,7 @@ public class MainActivity extends AppCompatActivity {
    */
   private void animatedZoom() {
     mZoomButton.setClickable(false);
+    mBenchmarkButton.setEnabled(false);
     mNavigatingTextView.setVisibility(View.VISIBLE);
     zoomTo(mZoomedIn, 5).addDoneListener(new Runnable() {
       @Override public void run() {
@@ -138,6 +163,7 @@ public class MainActivity extends AppCompatActivity {
             zoomTo(mZoomedOut, 5).addDoneListener(new Runnable() {
               @Override public void run() {
                 mZoomButton.setClickable(true);
+                mBenchmarkButton.setEnabled(true);
                 mNavigatingTextView.setVisibility(View.INVISIBLE);
               }
             });
@@ -161,9 +187,45 @@ public class MainActivity extends AppCompatActivity {
     return setViewpointFuture;
   }
 
+  /**
+   * Runs the navigation benchmark on both MapViews, then shows and logs its report.
+   */
+  private void runBenchmark() {
+    mZoomButton.setEnabled(false);
+    mBenchmarkButton.setEnabled(false);
+    mBenchmark.start(new NavigationBenchmark.Listener() {
+      @Override public void onBenchmarkComplete(String report) {
+        mZoomButton.setEnabled(true);
+        mBenchmarkButton.setEnabled(true);
+        Log.i(TAG, report);
+        new AlertDialog.Builder(MainActivity.this)
+            .setTitle(R.string.benchmark_report)
+            .setMessage(report)
+            .setPositiveButton(android.R.string.ok, null)
+            .show();
+      }
+    });
+  }
+
+  /**
+   * Creates a benchmark step which sets a Viewpoint on a MapView over a number of seconds.
+   */
+  private static NavigationBenchmark.Step benchmarkStep(final Viewpoint viewpoint, final int seconds) {
+    return new NavigationBenchmark.Step() {
+      @Override public ListenableFuture<Boolean> navigate(GeoView geoView) {
+        return geoView.setViewpointAsync(viewpoint, seconds);
+      }
+    };
+  }
+
   @Override
   protected void onPause() {
     super.onPause();
+    if (mBenchmark.isRunning()) {
+      mBenchmark.cancel();
+      mZoomButton.setEnabled(true);
+      mBenchmarkButton.setEnabled(true);
+    }
     mMapViewTop.pause();
     mMapViewBottom.pause();
   }
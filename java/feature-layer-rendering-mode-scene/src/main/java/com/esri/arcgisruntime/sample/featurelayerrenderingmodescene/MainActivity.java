@@ -16,8 +16,12 @@
 
 package com.esri.arcgisruntime.sample.featurelayerrenderingmodescene;
 
+import java.util.Arrays;
+
 import android.os.Bundle;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.Button;
@@ -31,16 +35,21 @@ import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISScene;
 import com.esri.arcgisruntime.mapping.view.Camera;
 import com.esri.arcgisruntime.mapping.view.DefaultSceneViewOnTouchListener;
+import com.esri.arcgisruntime.mapping.view.GeoView;
 import com.esri.arcgisruntime.mapping.view.SceneView;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   private SceneView mSceneViewTop;
   private SceneView mSceneViewBottom;
   private Camera mZoomedIn;
   private Camera mZoomedOut;
   private Button mZoomButton;
+  private Button mBenchmarkButton;
   private TextView mNavigatingTextView;
+  private NavigationBenchmark mBenchmark;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -56,6 +65,7 @@ public class MainActivity extends AppCompatActivity {
 
     // inflate the zoom button
     mZoomButton = findViewById(R.id.zoomButton);
+    mBenchmarkButton = findViewById(R.id.benchmarkButton);
 
     // inflate SceneViews from layout
     mSceneViewTop = findViewById(R.id.sceneViewTop);
@@ -110,6 +120,20 @@ public class MainActivity extends AppCompatActivity {
       }
     });
 
+    // replay the animated zoom on each view in turn and report how each rendering mode kept up
+    mBenchmark = new NavigationBenchmark(benchmarkStep(mZoomedOut, 0),
+        Arrays.asList(benchmarkStep(mZoomedIn, 5), benchmarkStep(mZoomedIn, 3), benchmarkStep(mZoomedOut, 5)),
+        getResources().getInteger(R.integer.benchmark_runs),
+        getResources().getInteger(R.integer.benchmark_settle_millis),
+        getResources().getInteger(R.integer.benchmark_timeout_millis));
+    mBenchmark.addTarget(getString(R.string.renderingmode_static), mSceneViewTop);
+    mBenchmark.addTarget(getString(R.string.renderingmode_dynamic), mSceneViewBottom);
+    mBenchmarkButton.setOnClickListener(new View.OnClickListener() {
+      @Override public void onClick(View v) {
+        runBenchmark();
+      }
+    });
+
     // disable the top scene view on touch listener
     mSceneViewTop.setOnTouchListener(new DefaultSceneViewOnTouchListener(mSceneViewTop) {
       @Override public boolean onTouch(View v, MotionEvent event) {
@@ -130,6 +154,7 @@ public class MainActivity extends AppCompatActivity {
    */
   private void animatedZoom() {
     mZoomButton.setClickable(false);
+    mBenchmarkButton.setEnabled(false);
     mNavigatingTextView.setVisibility(View.VISIBLE);
     zoomTo(mZoomedIn, 5).addDoneListener(new Runnable() {
       @Override public void run() {
@@ -140,6 +165,7 @@ public class MainActivity extends AppCompatActivity {
             zoomTo(mZoomedOut, 5).addDoneListener(new Runnable() {
               @Override public void run() {
                 mZoomButton.setClickable(true);
+                mBenchmarkButton.setEnabled(true);
                 mNavigatingTextView.setVisibility(View.INVISIBLE);
               }
             });
@@ -163,9 +189,45 @@ public class MainActivity extends AppCompatActivity {
     return setViewpointFuture;
   }
 
+  /**
+   * Runs the navigation benchmark on both SceneViews, then shows and logs its report.
+   */
+  private void runBenchmark() {
+    mZoomButton.setEnabled(false);
+    mBenchmarkButton.setEnabled(false);
+    mBenchmark.start(new NavigationBenchmark.Listener() {
+      @Override public void onBenchmarkComplete(String report) {
+        mZoomButton.setEnabled(true);
+        mBenchmarkButton.setEnabled(true);
+        Log.i(TAG, report);
+        new AlertDialog.Builder(MainActivity.this)
+            .setTitle(R.string.benchmark_report)
+            .setMessage(report)
+            .setPositiveButton(android.R.string.ok, null)
+            .show();
+      }
+    });
+  }
+
+  /**
+   * Creates a benchmark step which sets a Camera on a SceneView over a number of seconds.
+   */
+  private static NavigationBenchmark.Step benchmarkStep(final Camera camera, final int seconds) {
+    return new NavigationBenchmark.Step() {
+      @Override public ListenableFuture<Boolean> navigate(GeoView geoView) {
+        return ((SceneView) geoView).setViewpointCameraAsync(camera, seconds);
+      }
+    };
+  }
+
   @Override
   protected void onPause() {
     super.onPause();
+    if (mBenchmark.isRunning()) {
+      mBenchmark.cancel();
+      mZoomButton.setEnabled(true);
+      mBenchmarkButton.setEnabled(true);
+    }
     mSceneViewTop.pause();
     mSceneViewBottom.pause();
   }
@@ -0,0 +1,417 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.featurelayerrenderingmodescene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.mapping.view.DrawStatus;
+import com.esri.arcgisruntime.mapping.view.DrawStatusChangedListener;
+import com.esri.arcgisruntime.mapping.view.GeoView;
+
+/**
+ * Replays the same navigation script on a number of views, one view at a time, and reports how each of them kept up.
+ * <p>
+ * Each step of the script is timed from the moment its navigation finishes to the moment the view's draw status last
+ * turned {@link DrawStatus#COMPLETED}, once the status has stayed unchanged for a settle period. A step whose view
+ * doesn't settle within the timeout is counted as timed out and left out of the mean draw time, rather than being timed
+ * by a completed draw from before it. Draw status changes are counted for the view running a step, from the start of
+ * its navigation until it settles, so neither the reset navigation nor the idle views add to them. While a step is
+ * navigating, the time between frames is sampled on every frame. The native heap is sampled at the draw status poll
+ * interval, both while navigating and while waiting for the view to settle, as reading it on every frame would add to
+ * the frame times being measured. Views are run in turn, several times over, so they do not compete with each other for
+ * the GPU and neither always goes first.
+ * <p>
+ * All methods must be called on the main thread, and the listener is called on it.
+ */
+class NavigationBenchmark {
+
+  /**
+   * A navigation of a view, done once its future completes.
+   */
+  interface Step {
+    ListenableFuture<Boolean> navigate(GeoView geoView);
+  }
+
+  /**
+   * Receives the report once every view has run the script the given number of times.
+   */
+  interface Listener {
+    void onBenchmarkComplete(String report);
+  }
+
+  // how often the draw status is checked while waiting for a view to settle, and the native heap is sampled
+  private static final long POLL_MILLIS = 50;
+
+  /**
+   * Called once a view has been drawn after a navigation, or the wait for it has timed out.
+   */
+  private interface DrawnCallback {
+    void onDrawn(boolean timedOut);
+  }
+
+  /**
+   * A view being benchmarked and what has been measured on it.
+   */
+  private class Target {
+
+    final String label;
+
+    final GeoView geoView;
+
+    final DrawStatusChangedListener drawStatusListener = drawStatusChangedEvent -> {
+      if (mRunning) {
+        onDrawStatusChanged(this, drawStatusChangedEvent.getDrawStatus());
+      }
+    };
+
+    DrawStatus drawStatus = DrawStatus.COMPLETED;
+
+    // when the draw status last changed, and last turned completed
+    long lastChangeNanos;
+    long lastCompletedNanos;
+
+    // time to complete draw of each step of each run, NaN for a step which timed out
+    final List<List<Double>> drawMillis = new ArrayList<>();
+
+    final List<Double> frameMillis = new ArrayList<>();
+
+    // changes while the view's steps were measured
+    int drawStatusChangeCount;
+
+    // timed out steps of each step of the script
+    final int[] stepTimeouts;
+
+    // largest growth of the native heap over its size before a run
+    long maxNativeHeapGrowth;
+
+    Target(String label, GeoView geoView, int stepCount) {
+      this.label = label;
+      this.geoView = geoView;
+      this.stepTimeouts = new int[stepCount];
+    }
+  }
+
+  private final Step mReset;
+
+  private final List<Step> mScript;
+
+  private final int mRuns;
+
+  private final long mSettleNanos;
+
+  private final long mTimeoutNanos;
+
+  private final List<Target> mTargets = new ArrayList<>();
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+  private final Choreographer mChoreographer = Choreographer.getInstance();
+
+  private final Choreographer.FrameCallback mFrameCallback = this::onFrame;
+
+  private final Runnable mHeapSampler = new Runnable() {
+    @Override public void run() {
+      if (!mRunning || !mNavigating) {
+        mHeapSamplerPosted = false;
+        return;
+      }
+      sampleNativeHeap();
+      mHandler.postDelayed(this, POLL_MILLIS);
+    }
+  };
+
+  private Listener mListener;
+
+  private boolean mRunning;
+
+  // position in the benchmark
+  private int mRun;
+  private int mTargetIndex;
+  private int mStep;
+
+  private boolean mNavigating;
+
+  // whether a step is being measured, from the start of its navigation until its view has settled
+  private boolean mMeasuring;
+
+  private boolean mFrameCallbackPosted;
+
+  private boolean mHeapSamplerPosted;
+
+  private long mLastFrameNanos;
+
+  private long mNativeHeapBaseline;
+  private long mNativeHeapPeak;
+
+  /**
+   * @param reset         navigation to the start of the script, which is not measured
+   * @param script        steps measured on each view
+   * @param runs          number of times each view runs the script
+   * @param settleMillis  time the draw status must stay unchanged for a view to count as drawn
+   * @param timeoutMillis longest time to wait for a view to be drawn after a step
+   */
+  NavigationBenchmark(Step reset, List<Step> script, int runs, long settleMillis, long timeoutMillis) {
+    mReset = reset;
+    mScript = new ArrayList<>(script);
+    mRuns = runs;
+    mSettleNanos = settleMillis * 1000000;
+    mTimeoutNanos = timeoutMillis * 1000000;
+  }
+
+  /**
+   * Adds a view to run the script on.
+   *
+   * @param label name of the view in the report
+   */
+  void addTarget(String label, GeoView geoView) {
+    mTargets.add(new Target(label, geoView, mScript.size()));
+  }
+
+  /**
+   * @return whether the benchmark is running
+   */
+  boolean isRunning() {
+    return mRunning;
+  }
+
+  /**
+   * Starts running the script on every view, clearing the results of an earlier run.
+   */
+  void start(Listener listener) {
+    if (mRunning || mTargets.isEmpty()) {
+      return;
+    }
+    mListener = listener;
+    mRunning = true;
+    mRun = 0;
+    mTargetIndex = 0;
+    for (Target target : mTargets) {
+      target.drawMillis.clear();
+      target.frameMillis.clear();
+      target.drawStatusChangeCount = 0;
+      Arrays.fill(target.stepTimeouts, 0);
+      target.maxNativeHeapGrowth = 0;
+    }
+    startRun();
+  }
+
+  /**
+   * Stops the benchmark without reporting. A navigation already started is left to finish.
+   */
+  void cancel() {
+    if (!mRunning) {
+      return;
+    }
+    mRunning = false;
+    mNavigating = false;
+    mMeasuring = false;
+    mHandler.removeCallbacksAndMessages(null);
+    mChoreographer.removeFrameCallback(mFrameCallback);
+    mFrameCallbackPosted = false;
+    mHeapSamplerPosted = false;
+    for (Target target : mTargets) {
+      target.geoView.removeDrawStatusChangedListener(target.drawStatusListener);
+    }
+  }
+
+  /**
+   * @return the view running the script now, taking the views in a different order on each run so neither always
+   * runs first
+   */
+  private Target getCurrentTarget() {
+    return mTargets.get((mTargetIndex + mRun) % mTargets.size());
+  }
+
+  private void startRun() {
+    final Target target = getCurrentTarget();
+    mStep = 0;
+    // only the view running the script is listened to, from its reset on, so the wait for it to settle knows its state
+    target.drawStatus = DrawStatus.COMPLETED;
+    target.lastChangeNanos = System.nanoTime();
+    target.lastCompletedNanos = target.lastChangeNanos;
+    target.geoView.addDrawStatusChangedListener(target.drawStatusListener);
+    mReset.navigate(target.geoView).addDoneListener(() -> awaitDrawn(target, timedOut -> {
+      mNativeHeapBaseline = Debug.getNativeHeapAllocatedSize();
+      mNativeHeapPeak = mNativeHeapBaseline;
+      target.drawMillis.add(new ArrayList<>());
+      startStep(target);
+    }));
+  }
+
+  private void startStep(final Target target) {
+    if (!mRunning) {
+      return;
+    }
+    if (mStep == mScript.size()) {
+      finishRun(target);
+      return;
+    }
+    mNavigating = true;
+    mMeasuring = true;
+    mLastFrameNanos = 0;
+    if (!mFrameCallbackPosted) {
+      mFrameCallbackPosted = true;
+      mChoreographer.postFrameCallback(mFrameCallback);
+    }
+    if (!mHeapSamplerPosted) {
+      mHeapSamplerPosted = true;
+      mHandler.post(mHeapSampler);
+    }
+    mScript.get(mStep).navigate(target.geoView).addDoneListener(() -> {
+      mNavigating = false;
+      final long stepEndNanos = System.nanoTime();
+      awaitDrawn(target, timedOut -> {
+        mMeasuring = false;
+        double drawMillis = Double.NaN;
+        if (timedOut) {
+          target.stepTimeouts[mStep]++;
+        } else {
+          drawMillis = Math.max(0, target.lastCompletedNanos - stepEndNanos) / 1e6;
+        }
+        target.drawMillis.get(target.drawMillis.size() - 1).add(drawMillis);
+        mStep++;
+        startStep(target);
+      });
+    });
+  }
+
+  private void finishRun(Target target) {
+    target.geoView.removeDrawStatusChangedListener(target.drawStatusListener);
+    sampleNativeHeap();
+    target.maxNativeHeapGrowth = Math.max(target.maxNativeHeapGrowth, mNativeHeapPeak - mNativeHeapBaseline);
+    mTargetIndex++;
+    if (mTargetIndex == mTargets.size()) {
+      mTargetIndex = 0;
+      mRun++;
+      if (mRun == mRuns) {
+        String report = buildReport();
+        cancel();
+        mListener.onBenchmarkComplete(report);
+        return;
+      }
+    }
+    startRun();
+  }
+
+  /**
+   * Waits for the view's draw status to be completed and unchanged for the settle period, or for the timeout.
+   */
+  private void awaitDrawn(final Target target, final DrawnCallback callback) {
+    final long startNanos = System.nanoTime();
+    mHandler.post(new Runnable() {
+      @Override public void run() {
+        if (!mRunning) {
+          return;
+        }
+        sampleNativeHeap();
+        long now = System.nanoTime();
+        if (target.drawStatus == DrawStatus.COMPLETED && now - target.lastChangeNanos >= mSettleNanos) {
+          callback.onDrawn(false);
+        } else if (now - startNanos >= mTimeoutNanos) {
+          callback.onDrawn(true);
+        } else {
+          mHandler.postDelayed(this, POLL_MILLIS);
+        }
+      }
+    });
+  }
+
+  private void onDrawStatusChanged(Target target, DrawStatus drawStatus) {
+    long now = System.nanoTime();
+    if (drawStatus != target.drawStatus && mMeasuring && target == getCurrentTarget()) {
+      target.drawStatusChangeCount++;
+    }
+    target.drawStatus = drawStatus;
+    target.lastChangeNanos = now;
+    if (drawStatus == DrawStatus.COMPLETED) {
+      target.lastCompletedNanos = now;
+    }
+  }
+
+  private void onFrame(long frameTimeNanos) {
+    if (!mRunning || !mNavigating) {
+      mFrameCallbackPosted = false;
+      return;
+    }
+    if (mLastFrameNanos != 0) {
+      getCurrentTarget().frameMillis.add((frameTimeNanos - mLastFrameNanos) / 1e6);
+    }
+    mLastFrameNanos = frameTimeNanos;
+    mChoreographer.postFrameCallback(mFrameCallback);
+  }
+
+  private void sampleNativeHeap() {
+    mNativeHeapPeak = Math.max(mNativeHeapPeak, Debug.getNativeHeapAllocatedSize());
+  }
+
+  private String buildReport() {
+    StringBuilder report = new StringBuilder();
+    for (Target target : mTargets) {
+      report.append(target.label).append('\n');
+      report.append("  time to complete draw per step (ms, mean of the runs which did not time out, of ")
+          .append(mRuns).append("):");
+      int timeoutCount = 0;
+      for (int step = 0; step < mScript.size(); step++) {
+        double total = 0;
+        int count = 0;
+        for (List<Double> run : target.drawMillis) {
+          if (!Double.isNaN(run.get(step))) {
+            total += run.get(step);
+            count++;
+          }
+        }
+        report.append(count > 0 ? String.format(Locale.ROOT, " %.0f", total / count) : " -");
+        if (target.stepTimeouts[step] > 0) {
+          report.append(String.format(Locale.ROOT, " (%d timed out)", target.stepTimeouts[step]));
+        }
+        timeoutCount += target.stepTimeouts[step];
+      }
+      report.append('\n');
+      List<Double> frames = new ArrayList<>(target.frameMillis);
+      Collections.sort(frames);
+      report.append(String.format(Locale.ROOT,
+          "  frame time (ms): p50 %.1f, p90 %.1f, p99 %.1f, max %.1f over %d frames%n",
+          percentile(frames, 50), percentile(frames, 90), percentile(frames, 99), percentile(frames, 100),
+          frames.size()));
+      report.append(String.format(Locale.ROOT, "  draw status changes: %d, timeouts: %d%n",
+          target.drawStatusChangeCount, timeoutCount));
+      report.append(String.format(Locale.ROOT, "  native heap growth: %d KB%n", target.maxNativeHeapGrowth / 1024));
+    }
+    return report.toString().trim();
+  }
+
+  /**
+   * @return the value below which the given percentage of the sorted values fall, by the nearest rank
+   */
+  private static double percentile(List<Double> sortedValues, int percent) {
+    if (sortedValues.isEmpty()) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percent / 100.0 * sortedValues.size());
+    return sortedValues.get(Math.max(0, rank - 1));
+  }
+}
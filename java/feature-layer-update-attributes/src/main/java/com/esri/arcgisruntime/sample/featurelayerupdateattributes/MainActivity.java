@@ -35,7 +35,6 @@ import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
@@ -67,6 +66,7 @@ public class MainActivity extends AppCompatActivity {
   private boolean mFeatureUpdated;
   private View mCoordinatorLayout;
   private ProgressDialog mProgressDialog;
+  private FeatureEditQueue mEditQueue;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -98,6 +98,10 @@ public class MainActivity extends AppCompatActivity {
     mServiceFeatureTable = new ServiceFeatureTable(getResources().getString(R.string.sample_service_url));
     mFeatureLayer = new FeatureLayer(mServiceFeatureTable);
 
+    // queue updates and apply them to the server in batches, repeated updates to a feature are sent once
+    mEditQueue = new FeatureEditQueue(mServiceFeatureTable, getResources().getInteger(R.integer.edit_batch_size),
+        getResources().getInteger(R.integer.edit_flush_window_ms), new EditQueueListener());
+
     // add the layer to the map
     map.getOperationalLayers().add(mFeatureLayer);
 
@@ -181,7 +185,7 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Applies changes to the feature, Service Feature Table, and server.
+   * Applies changes to the feature and Service Feature Table, and queues them to be applied to the server.
    */
   private boolean updateAttributes(final String typeDamage) {
 
@@ -198,49 +202,23 @@ public class MainActivity extends AppCompatActivity {
         // update the Attributes map with the new selected value for "typdamage"
         mSelectedArcGISFeature.getAttributes().put("typdamage", typeDamage);
 
-        try {
-          // update feature in the feature table
-          ListenableFuture<Void> mapViewResult = mServiceFeatureTable.updateFeatureAsync(mSelectedArcGISFeature);
-          /*mServiceFeatureTable.updateFeatureAsync(mSelectedArcGISFeature).addDoneListener(new Runnable() {*/
-          mapViewResult.addDoneListener(new Runnable() {
-            @Override
-            public void run() {
-              // apply change to the server
-              final ListenableFuture<List<FeatureEditResult>> serverResult = mServiceFeatureTable.applyEditsAsync();
-
-              serverResult.addDoneListener(new Runnable() {
-                @Override
-                public void run() {
-                  try {
-
-                    // check if server result successful
-                    List<FeatureEditResult> edits = serverResult.get();
-                    if (!edits.isEmpty()) {
-                      if (!edits.get(0).hasCompletedWithErrors()) {
-                        Log.e(TAG, "Feature successfully updated");
-                        mSnackbarSuccess.show();
-                        mFeatureUpdated = true;
-                      }
-                    } else {
-                      Log.e(TAG, "The attribute type was not changed");
-                      mSnackbarFailure.show();
-                      mFeatureUpdated = false;
-                    }
-                    if (mProgressDialog.isShowing()) {
-                      mProgressDialog.dismiss();
-                      // display the callout with the updated value
-                      showCallout((String) mSelectedArcGISFeature.getAttributes().get("typdamage"));
-                    }
-                  } catch (Exception e) {
-                    Log.e(TAG, "applying changes to the server failed: " + e.getMessage());
-                  }
-                }
-              });
+        // update feature in the feature table, the edit queue applies the change to the server
+        final ListenableFuture<Void> mapViewResult = mEditQueue.updateFeature(mSelectedArcGISFeature);
+        mapViewResult.addDoneListener(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              mapViewResult.get();
+            } catch (Exception e) {
+              Log.e(TAG, "updating feature in the feature table failed: " + e.getMessage());
             }
-          });
-        } catch (Exception e) {
-          Log.e(TAG, "updating feature in the feature table failed: " + e.getMessage());
-        }
+            if (mProgressDialog.isShowing()) {
+              mProgressDialog.dismiss();
+              // display the callout with the updated value
+              showCallout((String) mSelectedArcGISFeature.getAttributes().get("typdamage"));
+            }
+          }
+        });
       }
     });
     return mFeatureUpdated;
@@ -285,6 +263,8 @@ public class MainActivity extends AppCompatActivity {
 
   @Override
   protected void onPause() {
+    // send any queued updates before leaving the sample
+    mEditQueue.flush();
     mMapView.pause();
     super.onPause();
   }
@@ -297,6 +277,7 @@ public class MainActivity extends AppCompatActivity {
 
   @Override
   protected void onDestroy() {
+    mEditQueue.cancelTimer();
     mMapView.dispose();
     super.onDestroy();
   }
@@ -311,4 +292,30 @@ public class MainActivity extends AppCompatActivity {
       startActivityForResult(myIntent, 100);
     }
   }
+
+  /**
+   * Shows the edit queue depth and reports the result of each batch of updates applied to the server
+   */
+  private class EditQueueListener implements FeatureEditQueue.Listener {
+
+    @Override public void onQueueDepthChanged(int depth) {
+      if (getSupportActionBar() != null) {
+        getSupportActionBar().setSubtitle(getString(R.string.queue_depth, depth));
+      }
+    }
+
+    @Override public void onFlushComplete(FeatureEditQueue.FlushRecord record) {
+      Log.d(TAG, getString(R.string.flush_report, record.featureCount, record.submittedEdits, record.latencyMillis));
+      // check if server result successful
+      if (record.succeeded()) {
+        Log.d(TAG, "Feature successfully updated");
+        mSnackbarSuccess.show();
+        mFeatureUpdated = true;
+      } else {
+        Log.e(TAG, "applying changes to the server failed: " + (record.error != null ? record.error.getMessage() : ""));
+        mSnackbarFailure.show();
+        mFeatureUpdated = false;
+      }
+    }
+  }
 }
@@ -0,0 +1,263 @@
+/* Copyright 2026 ESRI
+ *
+ * All rights reserved under the copyright laws of the United States
+ * and applicable international laws, treaties, and conventions.
+ *
+ * You may freely redistribute and use this sample code, with or
+ * without modification, provided you include the original copyright
+ * notice and use restrictions.
+ *
+ * See the Sample code usage restrictions document for further information.
+ *
+ */
+package com.esri.arcgisruntime.samples.featurelayerupdategeometry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureEditResult;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+
+/**
+ * Queues edits to a {@link ServiceFeatureTable} and applies them to the service in batches. Each edit is made to the
+ * table straight away so it shows on the map, but the call to applyEditsAsync is deferred until a batch's worth of
+ * features is pending or the oldest pending edit has waited for the flush window. Repeated updates to a feature count
+ * as one pending edit, and a feature that is added and then deleted before a flush is dropped from the queue.
+ * <p>
+ * All methods must be called on the main thread, which is also where the table's done listeners are delivered.
+ */
+class FeatureEditQueue {
+
+  enum EditType {
+    ADD, UPDATE, DELETE
+  }
+
+  /**
+   * Notified of changes to the queue depth and of completed flushes.
+   */
+  interface Listener {
+    void onQueueDepthChanged(int depth);
+
+    void onFlushComplete(FlushRecord record);
+  }
+
+  /**
+   * Metrics of a completed flush.
+   */
+  static final class FlushRecord {
+    final int featureCount;
+    final int submittedEdits;
+    final List<FeatureEditResult> results;
+    final long latencyMillis;
+    final Throwable error;
+
+    FlushRecord(int featureCount, int submittedEdits, List<FeatureEditResult> results, long latencyMillis,
+        Throwable error) {
+      this.featureCount = featureCount;
+      this.submittedEdits = submittedEdits;
+      this.results = results;
+      this.latencyMillis = latencyMillis;
+      this.error = error;
+    }
+
+    /**
+     * @return whether the service applied every edit in the batch
+     */
+    boolean succeeded() {
+      if (error != null) {
+        return false;
+      }
+      for (FeatureEditResult result : results) {
+        if (result.hasCompletedWithErrors()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private final ServiceFeatureTable mFeatureTable;
+
+  private final int mBatchSize;
+
+  private final long mFlushWindowMillis;
+
+  private final Listener mListener;
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+  private final Runnable mFlushRunnable = this::flush;
+
+  // pending edit per object id, in the order the features were first edited
+  private Map<Long, EditType> mPending = new LinkedHashMap<>();
+
+  private int mSubmittedEdits;
+
+  private boolean mFlushing;
+
+  private boolean mFlushRequested;
+
+  /**
+   * @param featureTable      table to edit and apply edits to
+   * @param batchSize         number of pending features which triggers a flush
+   * @param flushWindowMillis longest time an edit waits before it is flushed
+   * @param listener          notified of queue depth changes and completed flushes
+   */
+  FeatureEditQueue(ServiceFeatureTable featureTable, int batchSize, long flushWindowMillis, Listener listener) {
+    mFeatureTable = featureTable;
+    mBatchSize = batchSize;
+    mFlushWindowMillis = flushWindowMillis;
+    mListener = listener;
+  }
+
+  /**
+   * Adds the feature to the table and queues the add.
+   *
+   * @return future of the local add
+   */
+  ListenableFuture<Void> addFeature(Feature feature) {
+    ListenableFuture<Void> future = mFeatureTable.addFeatureAsync(feature);
+    // the object id is assigned by the table when the feature is added
+    future.addDoneListener(() -> recordIfDone(future, feature, EditType.ADD));
+    return future;
+  }
+
+  /**
+   * Updates the feature in the table and queues the update.
+   *
+   * @return future of the local update
+   */
+  ListenableFuture<Void> updateFeature(Feature feature) {
+    ListenableFuture<Void> future = mFeatureTable.updateFeatureAsync(feature);
+    future.addDoneListener(() -> recordIfDone(future, feature, EditType.UPDATE));
+    return future;
+  }
+
+  /**
+   * Deletes the feature from the table and queues the delete.
+   *
+   * @return future of the local delete
+   */
+  ListenableFuture<Void> deleteFeature(Feature feature) {
+    ListenableFuture<Void> future = mFeatureTable.deleteFeatureAsync(feature);
+    future.addDoneListener(() -> recordIfDone(future, feature, EditType.DELETE));
+    return future;
+  }
+
+  /**
+   * @return number of features with edits waiting to be applied
+   */
+  int getDepth() {
+    return mPending.size();
+  }
+
+  /**
+   * Applies the pending edits now. If a flush is already in progress, another one follows as soon as it completes.
+   */
+  void flush() {
+    mHandler.removeCallbacks(mFlushRunnable);
+    if (mFlushing) {
+      mFlushRequested = true;
+      return;
+    }
+    if (mPending.isEmpty()) {
+      return;
+    }
+    final int featureCount = mPending.size();
+    final int submittedEdits = mSubmittedEdits;
+    mPending = new LinkedHashMap<>();
+    mSubmittedEdits = 0;
+    mListener.onQueueDepthChanged(0);
+
+    mFlushing = true;
+    final long start = SystemClock.elapsedRealtime();
+    final ListenableFuture<List<FeatureEditResult>> editResults = mFeatureTable.applyEditsAsync();
+    editResults.addDoneListener(() -> {
+      mFlushing = false;
+      List<FeatureEditResult> results = Collections.emptyList();
+      Throwable error = null;
+      try {
+        results = editResults.get();
+      } catch (ExecutionException e) {
+        error = e.getCause();
+      } catch (InterruptedException e) {
+        error = e;
+      }
+      mListener.onFlushComplete(
+          new FlushRecord(featureCount, submittedEdits, results, SystemClock.elapsedRealtime() - start, error));
+      // edits queued while the flush was in flight are flushed now if they already fill a batch or their window ran out
+      if (mFlushRequested || mPending.size() >= mBatchSize) {
+        mFlushRequested = false;
+        flush();
+      }
+    });
+  }
+
+  /**
+   * Stops the flush timer without applying the pending edits.
+   */
+  void cancelTimer() {
+    mHandler.removeCallbacks(mFlushRunnable);
+  }
+
+  private void recordIfDone(ListenableFuture<Void> future, Feature feature, EditType editType) {
+    try {
+      future.get();
+    } catch (InterruptedException | ExecutionException e) {
+      // the local edit failed, so there is nothing to apply
+      return;
+    }
+    Object objectId = feature.getAttributes().get(mFeatureTable.getObjectIdField());
+    if (objectId instanceof Number) {
+      record(((Number) objectId).longValue(), editType);
+    }
+  }
+
+  private void record(long objectId, EditType editType) {
+    boolean wasEmpty = mPending.isEmpty();
+    EditType merged = merge(mPending.get(objectId), editType);
+    if (merged == null) {
+      mPending.remove(objectId);
+    } else {
+      mPending.put(objectId, merged);
+    }
+    mSubmittedEdits++;
+
+    if (mPending.isEmpty()) {
+      // every pending edit cancelled out
+      mSubmittedEdits = 0;
+      mHandler.removeCallbacks(mFlushRunnable);
+    } else if (wasEmpty) {
+      mHandler.postDelayed(mFlushRunnable, mFlushWindowMillis);
+    }
+    mListener.onQueueDepthChanged(mPending.size());
+
+    if (mPending.size() >= mBatchSize) {
+      flush();
+    }
+  }
+
+  /**
+   * @return the edit which has the effect of the pending edit followed by the new one, or null if they cancel out
+   */
+  static EditType merge(EditType pending, EditType edit) {
+    if (pending == null) {
+      return edit;
+    }
+    if (pending == EditType.ADD) {
+      // the service has not seen the feature yet, so it is still an add, or nothing at all once deleted
+      return edit == EditType.DELETE ? null : EditType.ADD;
+    }
+    // a later update or delete supersedes a pending update
+    return edit;
+  }
+}
@@ -23,7 +23,6 @@ import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.Point;
@@ -45,6 +44,7 @@ public class MainActivity extends AppCompatActivity {
   private FeatureLayer mFeatureLayer;
   private boolean mFeatureSelected = true;
   private ArcGISFeature mIdentifiedFeature;
+  private FeatureEditQueue mEditQueue;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -67,6 +67,9 @@ public class MainActivity extends AppCompatActivity {
     final ServiceFeatureTable serviceFeatureTable = new ServiceFeatureTable(getString(R.string.sample_service_url));
     mFeatureLayer = new FeatureLayer(serviceFeatureTable);
 
+    // queue geometry updates and apply them to the server in batches, repeated moves of a feature are sent once
+    mEditQueue = createEditQueue(serviceFeatureTable);
+
     // add the layer to the map
     map.getOperationalLayers().add(mFeatureLayer);
 
@@ -113,14 +116,13 @@ public class MainActivity extends AppCompatActivity {
           final Point normalizedPoint = (Point) GeometryEngine.normalizeCentralMeridian(movedPoint);
           mIdentifiedFeature.addDoneLoadingListener(() -> {
             mIdentifiedFeature.setGeometry(normalizedPoint);
-            final ListenableFuture<Void> updateFuture = mFeatureLayer.getFeatureTable().updateFeatureAsync(mIdentifiedFeature);
+            // the edit queue applies the update to the server with the next batch of edits
+            final ListenableFuture<Void> updateFuture = mEditQueue.updateFeature(mIdentifiedFeature);
             updateFuture.addDoneListener(() -> {
               try {
                 // track the update
                 updateFuture.get();
-                // apply edits once the update has completed
                 if (updateFuture.isDone()) {
-                  applyEditsToServer();
                   mFeatureLayer.clearSelection();
                   mFeatureSelected = true;
                 } else {
@@ -139,28 +141,34 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Applies edits to the FeatureService
+   * Creates an edit queue which applies geometry updates to the FeatureService in batches
    */
-  private void applyEditsToServer() {
-    final ListenableFuture<List<FeatureEditResult>> applyEditsFuture = ((ServiceFeatureTable) mFeatureLayer
-        .getFeatureTable()).applyEditsAsync();
-    applyEditsFuture.addDoneListener(() -> {
-      try {
-        // get results of edit
-        List<FeatureEditResult> featureEditResultsList = applyEditsFuture.get();
-        if (!featureEditResultsList.get(0).hasCompletedWithErrors()) {
-          Toast.makeText(this,
-              "Applied Geometry Edits to Server. ObjectID: " + featureEditResultsList.get(0).getObjectId(),
+  private FeatureEditQueue createEditQueue(ServiceFeatureTable featureTable) {
+    return new FeatureEditQueue(featureTable, getResources().getInteger(R.integer.edit_batch_size),
+        getResources().getInteger(R.integer.edit_flush_window_ms), new FeatureEditQueue.Listener() {
+      @Override public void onQueueDepthChanged(int depth) {
+        if (getSupportActionBar() != null) {
+          getSupportActionBar().setSubtitle(getString(R.string.queue_depth, depth));
+        }
+      }
+
+      @Override public void onFlushComplete(FeatureEditQueue.FlushRecord record) {
+        Log.d(TAG, getString(R.string.flush_report, record.featureCount, record.submittedEdits,
+            record.latencyMillis));
+        if (record.succeeded()) {
+          Toast.makeText(MainActivity.this, "Applied Geometry Edits to Server. Features: " + record.featureCount,
               Toast.LENGTH_SHORT).show();
+        } else {
+          Log.e(TAG, "Update feature failed: " + (record.error != null ? record.error.getMessage() : ""));
         }
-      } catch (InterruptedException | ExecutionException e) {
-        Log.e(TAG, "Update feature failed: " + e.getMessage());
       }
     });
   }
 
   @Override
   protected void onPause() {
+    // send any queued updates before leaving the sample
+    mEditQueue.flush();
     mMapView.pause();
     super.onPause();
   }
@@ -172,6 +180,7 @@ public class MainActivity extends AppCompatActivity {
   }
 
   @Override protected void onDestroy() {
+    mEditQueue.cancelTimer();
     mMapView.dispose();
     super.onDestroy();
   }
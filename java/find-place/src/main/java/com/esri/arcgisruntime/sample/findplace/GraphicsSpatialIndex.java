@@ -0,0 +1,415 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.findplace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+import com.esri.arcgisruntime.mapping.view.IdentifyGraphicsOverlayResult;
+import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.arcgisruntime.symbology.MarkerSymbol;
+import com.esri.arcgisruntime.symbology.PictureMarkerSymbol;
+import com.esri.arcgisruntime.symbology.Renderer;
+import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
+import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
+import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
+import com.esri.arcgisruntime.symbology.SimpleRenderer;
+import com.esri.arcgisruntime.symbology.Symbol;
+import com.esri.arcgisruntime.util.ListChangedEvent;
+
+/**
+ * Identifies the graphics of an overlay at a screen point without a round trip to the map view, using a
+ * {@link HilbertRTree} over the extents of the graphics in the map's spatial reference.
+ * <p>
+ * The index follows the overlay's graphics list: graphics added since it was built are checked one by one and removed
+ * graphics are skipped, until enough have changed that the tree is rebuilt on the next identify. Graphics drawn with
+ * simple marker, picture marker, simple line or simple fill symbols, either their own or those of a simple renderer,
+ * are hit tested against their geometry and the size of their symbol straight away. When a graphic near the point has
+ * any other symbol, the identify falls back to {@link MapView#identifyGraphicsOverlayAsync}, as it does before the
+ * map view has a spatial reference. Symbol rotation is not taken into account.
+ * <p>
+ * A graphic whose geometry or symbol is changed in place must be passed to {@link #update(Graphic)}. All methods must
+ * be called on the main thread.
+ */
+class GraphicsSpatialIndex {
+
+  /**
+   * Receives the graphics identified, straight away when the index can answer and later when it falls back to the map
+   * view.
+   */
+  interface IdentifyListener {
+    /**
+     * @param graphics  the graphics identified, top most first
+     * @param fromIndex whether the graphics were found by the index rather than by the map view
+     */
+    void onGraphicsIdentified(List<Graphic> graphics, boolean fromIndex);
+
+    void onIdentifyFailed(Exception e);
+  }
+
+  private static final int NODE_SIZE = 16;
+
+  // fewest changes which trigger a rebuild, more for larger overlays
+  private static final int MIN_CHANGES_BEFORE_REBUILD = 64;
+
+  // reach of a symbol which can not be hit tested by the index
+  private static final float UNSUPPORTED_SYMBOL = -1;
+
+  private final MapView mMapView;
+
+  private final GraphicsOverlay mGraphicsOverlay;
+
+  private final float mDensity;
+
+  // order in which the graphics in the overlay were added, later ones are drawn on top
+  private final Map<Graphic, Long> mOrder = new IdentityHashMap<>();
+
+  private long mNextOrder;
+
+  private HilbertRTree mTree;
+
+  private Graphic[] mIndexedGraphics;
+
+  private SpatialReference mIndexSpatialReference;
+
+  // largest distance a symbol of an indexed graphic reaches beyond its geometry, in dp
+  private float mIndexedReach;
+
+  private boolean mIndexedUnsupportedSymbols;
+
+  // graphics added and removed since the tree was built; an updated graphic is in both
+  private final Set<Graphic> mAdded = Collections.newSetFromMap(new IdentityHashMap<Graphic, Boolean>());
+
+  private final Set<Graphic> mRemoved = Collections.newSetFromMap(new IdentityHashMap<Graphic, Boolean>());
+
+  private int mIndexIdentifyCount;
+
+  private int mFallbackIdentifyCount;
+
+  /**
+   * @param mapView         view the overlay is shown in
+   * @param graphicsOverlay overlay to index
+   */
+  GraphicsSpatialIndex(MapView mapView, GraphicsOverlay graphicsOverlay) {
+    mMapView = mapView;
+    mGraphicsOverlay = graphicsOverlay;
+    mDensity = mapView.getResources().getDisplayMetrics().density;
+    for (Graphic graphic : graphicsOverlay.getGraphics()) {
+      mOrder.put(graphic, mNextOrder++);
+      mAdded.add(graphic);
+    }
+    graphicsOverlay.getGraphics().addListChangedListener(listChangedEvent -> {
+      for (Graphic graphic : listChangedEvent.getItems()) {
+        if (listChangedEvent.getAction() == ListChangedEvent.Action.ADDED) {
+          mOrder.put(graphic, mNextOrder++);
+          mAdded.add(graphic);
+        } else {
+          mOrder.remove(graphic);
+          // a graphic added since the build is not in the tree, so there is nothing to skip
+          if (!mAdded.remove(graphic)) {
+            mRemoved.add(graphic);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Tells the index that the geometry or symbol of a graphic in the overlay has changed.
+   */
+  void update(Graphic graphic) {
+    if (mOrder.containsKey(graphic) && !mAdded.contains(graphic)) {
+      mRemoved.add(graphic);
+      mAdded.add(graphic);
+    }
+  }
+
+  /**
+   * @return number of identifies answered by the index
+   */
+  int getIndexIdentifyCount() {
+    return mIndexIdentifyCount;
+  }
+
+  /**
+   * @return number of identifies passed on to the map view
+   */
+  int getFallbackIdentifyCount() {
+    return mFallbackIdentifyCount;
+  }
+
+  /**
+   * Identifies the visible graphics at a screen point, like {@link MapView#identifyGraphicsOverlayAsync}.
+   *
+   * @param screenPoint point to identify at
+   * @param toleranceDp tolerance around the point in dp
+   * @param maxResults  most graphics returned, or 0 for all of them
+   */
+  void identify(android.graphics.Point screenPoint, double toleranceDp, int maxResults, IdentifyListener listener) {
+    SpatialReference spatialReference = mMapView.getSpatialReference();
+    if (spatialReference == null || !mGraphicsOverlay.isVisible()) {
+      fallBack(screenPoint, toleranceDp, maxResults, listener);
+      return;
+    }
+    ensureTree(spatialReference);
+
+    // graphics added since the build are checked like indexed ones
+    float reach = mIndexedReach;
+    boolean unsupportedSymbols = mIndexedUnsupportedSymbols;
+    for (Graphic graphic : mAdded) {
+      float graphicReach = getReach(graphic);
+      unsupportedSymbols |= graphicReach == UNSUPPORTED_SYMBOL;
+      reach = Math.max(reach, graphicReach);
+    }
+    if (unsupportedSymbols) {
+      // a symbol of unknown size may cover the point from anywhere
+      fallBack(screenPoint, toleranceDp, maxResults, listener);
+      return;
+    }
+    Envelope searchArea = getSearchArea(screenPoint, toleranceDp + reach);
+    if (searchArea == null) {
+      fallBack(screenPoint, toleranceDp, maxResults, listener);
+      return;
+    }
+
+    List<Graphic> candidates = new ArrayList<>();
+    for (int item : mTree.search(searchArea.getXMin(), searchArea.getYMin(), searchArea.getXMax(),
+        searchArea.getYMax())) {
+      Graphic graphic = mIndexedGraphics[item];
+      if (!mRemoved.contains(graphic)) {
+        candidates.add(graphic);
+      }
+    }
+    for (Graphic graphic : mAdded) {
+      Geometry geometry = project(graphic.getGeometry(), spatialReference);
+      if (geometry != null && GeometryEngine.intersects(geometry.getExtent(), searchArea)) {
+        candidates.add(graphic);
+      }
+    }
+
+    List<Graphic> hits = new ArrayList<>();
+    for (Graphic graphic : candidates) {
+      if (graphic.isVisible() && isHit(graphic, screenPoint, toleranceDp, spatialReference)) {
+        hits.add(graphic);
+      }
+    }
+    Collections.sort(hits, (first, second) -> Long.compare(getOrder(second), getOrder(first)));
+    if (maxResults > 0 && hits.size() > maxResults) {
+      hits = new ArrayList<>(hits.subList(0, maxResults));
+    }
+    mIndexIdentifyCount++;
+    listener.onGraphicsIdentified(hits, true);
+  }
+
+  private void fallBack(android.graphics.Point screenPoint, double toleranceDp, int maxResults,
+      final IdentifyListener listener) {
+    mFallbackIdentifyCount++;
+    final ListenableFuture<IdentifyGraphicsOverlayResult> identifyFuture = maxResults > 0 ?
+        mMapView.identifyGraphicsOverlayAsync(mGraphicsOverlay, screenPoint, toleranceDp, false, maxResults) :
+        mMapView.identifyGraphicsOverlayAsync(mGraphicsOverlay, screenPoint, toleranceDp, false);
+    identifyFuture.addDoneListener(() -> {
+      try {
+        listener.onGraphicsIdentified(identifyFuture.get().getGraphics(), false);
+      } catch (InterruptedException | ExecutionException e) {
+        listener.onIdentifyFailed(e);
+      }
+    });
+  }
+
+  /**
+   * Rebuilds the tree if it is missing, in another spatial reference, or enough graphics have changed since it was
+   * built.
+   */
+  private void ensureTree(SpatialReference spatialReference) {
+    int changes = mAdded.size() + mRemoved.size();
+    int indexedCount = mTree != null ? mTree.getItemCount() : 0;
+    if (mTree != null && spatialReference.equals(mIndexSpatialReference)
+        && changes < Math.max(MIN_CHANGES_BEFORE_REBUILD, indexedCount / 8)) {
+      return;
+    }
+
+    List<Graphic> graphics = new ArrayList<>(mGraphicsOverlay.getGraphics());
+    Graphic[] indexed = new Graphic[graphics.size()];
+    double[] boxes = new double[graphics.size() * 4];
+    int count = 0;
+    float reach = 0;
+    boolean unsupportedSymbols = false;
+    for (Graphic graphic : graphics) {
+      Geometry geometry = project(graphic.getGeometry(), spatialReference);
+      if (geometry == null) {
+        continue;
+      }
+      Envelope extent = geometry.getExtent();
+      boxes[count * 4] = extent.getXMin();
+      boxes[count * 4 + 1] = extent.getYMin();
+      boxes[count * 4 + 2] = extent.getXMax();
+      boxes[count * 4 + 3] = extent.getYMax();
+      indexed[count++] = graphic;
+      float graphicReach = getReach(graphic);
+      unsupportedSymbols |= graphicReach == UNSUPPORTED_SYMBOL;
+      reach = Math.max(reach, graphicReach);
+    }
+    mTree = new HilbertRTree(boxes, count, NODE_SIZE);
+    mIndexedGraphics = indexed;
+    mIndexSpatialReference = spatialReference;
+    mIndexedReach = reach;
+    mIndexedUnsupportedSymbols = unsupportedSymbols;
+    mAdded.clear();
+    mRemoved.clear();
+  }
+
+  /**
+   * Tests whether a graphic near the point is drawn within the tolerance of it.
+   */
+  private boolean isHit(Graphic graphic, android.graphics.Point screenPoint, double toleranceDp,
+      SpatialReference spatialReference) {
+    Symbol symbol = getSymbol(graphic);
+    Geometry geometry = project(graphic.getGeometry(), spatialReference);
+    if (symbol == null || geometry == null) {
+      // nothing is drawn
+      return false;
+    }
+    if (geometry instanceof Point && symbol instanceof MarkerSymbol) {
+      // compare the marker's box on the screen with the point
+      android.graphics.Point location = mMapView.locationToScreen((Point) geometry);
+      if (location == null) {
+        return false;
+      }
+      MarkerSymbol markerSymbol = (MarkerSymbol) symbol;
+      float halfWidth;
+      float halfHeight;
+      if (symbol instanceof PictureMarkerSymbol) {
+        halfWidth = ((PictureMarkerSymbol) symbol).getWidth() / 2;
+        halfHeight = ((PictureMarkerSymbol) symbol).getHeight() / 2;
+      } else {
+        halfWidth = ((SimpleMarkerSymbol) symbol).getSize() / 2;
+        halfHeight = halfWidth;
+      }
+      // offsets are in dp with y up, screen coordinates are in pixels with y down
+      double centerX = location.x + markerSymbol.getOffsetX() * mDensity;
+      double centerY = location.y - markerSymbol.getOffsetY() * mDensity;
+      return Math.abs(screenPoint.x - centerX) <= (halfWidth + toleranceDp) * mDensity
+          && Math.abs(screenPoint.y - centerY) <= (halfHeight + toleranceDp) * mDensity;
+    }
+    // lines and polygons are hit within the tolerance plus half the width of their line
+    Envelope area = getSearchArea(screenPoint, toleranceDp + getReach(symbol));
+    return area != null && GeometryEngine.intersects(geometry, area);
+  }
+
+  /**
+   * @return the area of the map within the given distance of the screen point, or null if it is outside the map
+   */
+  private Envelope getSearchArea(android.graphics.Point screenPoint, double distanceDp) {
+    int distance = (int) Math.ceil(distanceDp * mDensity);
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    // take all four corners, since the map may be rotated
+    int[][] corners = { { -1, -1 }, { 1, -1 }, { 1, 1 }, { -1, 1 } };
+    for (int[] corner : corners) {
+      Point location = mMapView.screenToLocation(new android.graphics.Point(screenPoint.x + corner[0] * distance,
+          screenPoint.y + corner[1] * distance));
+      if (location == null) {
+        return null;
+      }
+      minX = Math.min(minX, location.getX());
+      minY = Math.min(minY, location.getY());
+      maxX = Math.max(maxX, location.getX());
+      maxY = Math.max(maxY, location.getY());
+    }
+    return new Envelope(minX, minY, maxX, maxY, mMapView.getSpatialReference());
+  }
+
+  private long getOrder(Graphic graphic) {
+    Long order = mOrder.get(graphic);
+    return order != null ? order : -1;
+  }
+
+  /**
+   * @return the symbol the graphic is drawn with, or null if it is not drawn or drawn by another kind of renderer
+   */
+  private Symbol getSymbol(Graphic graphic) {
+    if (graphic.getSymbol() != null) {
+      return graphic.getSymbol();
+    }
+    Renderer renderer = mGraphicsOverlay.getRenderer();
+    return renderer instanceof SimpleRenderer ? ((SimpleRenderer) renderer).getSymbol() : null;
+  }
+
+  /**
+   * @return how far in dp the symbol of the graphic reaches beyond its geometry, or {@link #UNSUPPORTED_SYMBOL}
+   */
+  private float getReach(Graphic graphic) {
+    Renderer renderer = mGraphicsOverlay.getRenderer();
+    if (graphic.getSymbol() == null && renderer != null && !(renderer instanceof SimpleRenderer)) {
+      // the symbol depends on the attributes of the graphic
+      return UNSUPPORTED_SYMBOL;
+    }
+    return getReach(getSymbol(graphic));
+  }
+
+  /**
+   * @return how far in dp the symbol reaches beyond the geometry it draws, or {@link #UNSUPPORTED_SYMBOL}
+   */
+  private static float getReach(Symbol symbol) {
+    if (symbol == null) {
+      return 0;
+    }
+    if (symbol instanceof SimpleMarkerSymbol || symbol instanceof PictureMarkerSymbol) {
+      MarkerSymbol markerSymbol = (MarkerSymbol) symbol;
+      float size = symbol instanceof SimpleMarkerSymbol ? ((SimpleMarkerSymbol) symbol).getSize() :
+          Math.max(((PictureMarkerSymbol) symbol).getWidth(), ((PictureMarkerSymbol) symbol).getHeight());
+      return size / 2 + Math.max(Math.abs(markerSymbol.getOffsetX()), Math.abs(markerSymbol.getOffsetY()));
+    }
+    if (symbol instanceof SimpleLineSymbol) {
+      return ((SimpleLineSymbol) symbol).getWidth() / 2;
+    }
+    if (symbol instanceof SimpleFillSymbol) {
+      SimpleFillSymbol fillSymbol = (SimpleFillSymbol) symbol;
+      return fillSymbol.getOutline() instanceof SimpleLineSymbol ?
+          ((SimpleLineSymbol) fillSymbol.getOutline()).getWidth() / 2 : 0;
+    }
+    return UNSUPPORTED_SYMBOL;
+  }
+
+  /**
+   * @return the geometry in the given spatial reference, or null if it is empty
+   */
+  private static Geometry project(Geometry geometry, SpatialReference spatialReference) {
+    if (geometry == null || geometry.isEmpty()) {
+      return null;
+    }
+    if (geometry.getSpatialReference() == null || geometry.getSpatialReference().equals(spatialReference)) {
+      return geometry;
+    }
+    return GeometryEngine.project(geometry, spatialReference);
+  }
+}
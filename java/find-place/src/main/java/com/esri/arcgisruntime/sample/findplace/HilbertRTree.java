@@ -0,0 +1,237 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.findplace;
+
+import java.util.Arrays;
+
+/**
+ * A static R-tree over bounding boxes, packed bottom up in the order of the Hilbert curve through the centers of the
+ * boxes. Items which are close together share nodes, every node but the last of a level is full, and the whole tree
+ * is held in two flat arrays, so it is quick to build and to search but can not be changed once built.
+ */
+final class HilbertRTree {
+
+  private static final int HILBERT_MAX = (1 << 16) - 1;
+
+  private final int mNodeSize;
+
+  private final int mItemCount;
+
+  // min x, min y, max x and max y of every node, the leaves first and the root last
+  private final double[] mBoxes;
+
+  // item of each leaf, or position in mBoxes of the first child of each other node
+  private final int[] mIndices;
+
+  // end of each level in mBoxes
+  private final int[] mLevelBounds;
+
+  /**
+   * @param boxes     min x, min y, max x and max y of each item, in item order
+   * @param itemCount number of items
+   * @param nodeSize  most children of a node
+   */
+  HilbertRTree(double[] boxes, int itemCount, int nodeSize) {
+    mNodeSize = Math.max(2, nodeSize);
+    mItemCount = itemCount;
+
+    // count the nodes of each level up to the root
+    int count = itemCount;
+    int nodeCount = count;
+    int[] levelBounds = new int[32];
+    int levels = 0;
+    levelBounds[levels++] = nodeCount * 4;
+    do {
+      count = (count + mNodeSize - 1) / mNodeSize;
+      nodeCount += count;
+      levelBounds[levels++] = nodeCount * 4;
+    } while (count > 1);
+    mLevelBounds = Arrays.copyOf(levelBounds, levels);
+    mBoxes = new double[nodeCount * 4];
+    mIndices = new int[nodeCount];
+    if (itemCount == 0) {
+      return;
+    }
+
+    // order the items along the Hilbert curve through the extent of all of them
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < itemCount; i++) {
+      minX = Math.min(minX, boxes[i * 4]);
+      minY = Math.min(minY, boxes[i * 4 + 1]);
+      maxX = Math.max(maxX, boxes[i * 4 + 2]);
+      maxY = Math.max(maxY, boxes[i * 4 + 3]);
+    }
+    double width = maxX - minX;
+    double height = maxY - minY;
+    long[] keys = new long[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      int x = width > 0 ? (int) (HILBERT_MAX * ((boxes[i * 4] + boxes[i * 4 + 2]) / 2 - minX) / width) : 0;
+      int y = height > 0 ? (int) (HILBERT_MAX * ((boxes[i * 4 + 1] + boxes[i * 4 + 3]) / 2 - minY) / height) : 0;
+      // the Hilbert value is unsigned, so flip the sign bit to sort it as a signed long
+      keys[i] = ((hilbert(x, y) << 32) | i) ^ Long.MIN_VALUE;
+    }
+    Arrays.sort(keys);
+    for (int position = 0; position < itemCount; position++) {
+      int item = (int) (keys[position] & 0xFFFFFFFFL);
+      System.arraycopy(boxes, item * 4, mBoxes, position * 4, 4);
+      mIndices[position] = item;
+    }
+
+    // each node of a level covers the next nodeSize nodes of the level below
+    int next = itemCount * 4;
+    int position = 0;
+    for (int level = 0; level < mLevelBounds.length - 1; level++) {
+      int end = mLevelBounds[level];
+      while (position < end) {
+        int firstChild = position;
+        double nodeMinX = Double.POSITIVE_INFINITY;
+        double nodeMinY = Double.POSITIVE_INFINITY;
+        double nodeMaxX = Double.NEGATIVE_INFINITY;
+        double nodeMaxY = Double.NEGATIVE_INFINITY;
+        for (int child = 0; child < mNodeSize && position < end; child++, position += 4) {
+          nodeMinX = Math.min(nodeMinX, mBoxes[position]);
+          nodeMinY = Math.min(nodeMinY, mBoxes[position + 1]);
+          nodeMaxX = Math.max(nodeMaxX, mBoxes[position + 2]);
+          nodeMaxY = Math.max(nodeMaxY, mBoxes[position + 3]);
+        }
+        mIndices[next / 4] = firstChild;
+        mBoxes[next++] = nodeMinX;
+        mBoxes[next++] = nodeMinY;
+        mBoxes[next++] = nodeMaxX;
+        mBoxes[next++] = nodeMaxY;
+      }
+    }
+  }
+
+  int getItemCount() {
+    return mItemCount;
+  }
+
+  /**
+   * @return the items whose boxes intersect the given box, in no particular order
+   */
+  int[] search(double minX, double minY, double maxX, double maxY) {
+    int[] results = new int[16];
+    int resultCount = 0;
+    if (mItemCount == 0) {
+      return new int[0];
+    }
+    int[] stack = new int[64];
+    int stackSize = 0;
+    int node = mBoxes.length - 4;
+    while (true) {
+      int end = Math.min(node + mNodeSize * 4, upperLevelBound(node));
+      for (int position = node; position < end; position += 4) {
+        if (maxX < mBoxes[position] || maxY < mBoxes[position + 1] || minX > mBoxes[position + 2]
+            || minY > mBoxes[position + 3]) {
+          continue;
+        }
+        int index = mIndices[position / 4];
+        if (node >= mItemCount * 4) {
+          // a child node to search
+          if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+          }
+          stack[stackSize++] = index;
+        } else {
+          if (resultCount == results.length) {
+            results = Arrays.copyOf(results, resultCount * 2);
+          }
+          results[resultCount++] = index;
+        }
+      }
+      if (stackSize == 0) {
+        return Arrays.copyOf(results, resultCount);
+      }
+      node = stack[--stackSize];
+    }
+  }
+
+  /**
+   * @return end of the level the node at the given position is in
+   */
+  private int upperLevelBound(int position) {
+    for (int bound : mLevelBounds) {
+      if (bound > position) {
+        return bound;
+      }
+    }
+    return mLevelBounds[mLevelBounds.length - 1];
+  }
+
+  /**
+   * @return position of a point of a 2^16 by 2^16 grid along the Hilbert curve through it
+   */
+  static long hilbert(int x, int y) {
+    int a = x ^ y;
+    int b = 0xFFFF ^ a;
+    int c = 0xFFFF ^ (x | y);
+    int d = x & (y ^ 0xFFFF);
+
+    int aa = a | (b >> 1);
+    int bb = (a >> 1) ^ a;
+    int cc = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+    int dd = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+    a = aa;
+    b = bb;
+    c = cc;
+    d = dd;
+    aa = (a & (a >> 2)) ^ (b & (b >> 2));
+    bb = (a & (b >> 2)) ^ (b & ((a ^ b) >> 2));
+    cc ^= (a & (c >> 2)) ^ (b & (d >> 2));
+    dd ^= (b & (c >> 2)) ^ ((a ^ b) & (d >> 2));
+
+    a = aa;
+    b = bb;
+    c = cc;
+    d = dd;
+    aa = (a & (a >> 4)) ^ (b & (b >> 4));
+    bb = (a & (b >> 4)) ^ (b & ((a ^ b) >> 4));
+    cc ^= (a & (c >> 4)) ^ (b & (d >> 4));
+    dd ^= (b & (c >> 4)) ^ ((a ^ b) & (d >> 4));
+
+    a = aa;
+    b = bb;
+    c = cc;
+    d = dd;
+    cc ^= (a & (c >> 8)) ^ (b & (d >> 8));
+    dd ^= (b & (c >> 8)) ^ ((a ^ b) & (d >> 8));
+
+    a = cc ^ (cc >> 1);
+    b = dd ^ (dd >> 1);
+
+    int i0 = x ^ y;
+    int i1 = b | (0xFFFF ^ (i0 | a));
+    i0 = interleave(i0);
+    i1 = interleave(i1);
+    return ((i1 << 1) | i0) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * @return the 16 low bits of the value spread out to the even bits
+   */
+  private static int interleave(int value) {
+    value = (value | (value << 8)) & 0x00FF00FF;
+    value = (value | (value << 4)) & 0x0F0F0F0F;
+    value = (value | (value << 2)) & 0x33333333;
+    return (value | (value << 1)) & 0x55555555;
+  }
+}
@@ -24,7 +24,6 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.database.MatrixCursor;
 import android.graphics.Color;
-import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
 import android.provider.BaseColumns;
 import android.support.annotation.NonNull;
@@ -53,7 +52,6 @@ import com.esri.arcgisruntime.mapping.view.Callout;
 import com.esri.arcgisruntime.mapping.view.DefaultMapViewOnTouchListener;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
-import com.esri.arcgisruntime.mapping.view.IdentifyGraphicsOverlayResult;
 import com.esri.arcgisruntime.mapping.view.LocationDisplay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.mapping.view.ViewpointChangedEvent;
@@ -103,12 +101,18 @@ public class MainActivity extends AppCompatActivity {
 
   private GeocodeParameters mProximityGeocodeParameters;
 
-  private PictureMarkerSymbol mPinSourceSymbol;
+  private PictureSymbolCache mPictureSymbolCache;
+
+  // number of searches whose results have been asked to be displayed, so the results of a search replaced while its
+  // symbol was being created are dropped
+  private int mSearchCount;
 
   private Geometry mCurrentExtentGeometry;
 
   private Callout mCallout;
 
+  private GraphicsSpatialIndex mGraphicsIndex;
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -140,18 +144,19 @@ public class MainActivity extends AppCompatActivity {
       }
     });
 
-    // define pin drawable
-    BitmapDrawable pinDrawable = (BitmapDrawable) ContextCompat.getDrawable(this, R.drawable.pin);
-    try {
-      mPinSourceSymbol = PictureMarkerSymbol.createAsync(pinDrawable).get();
-    } catch (InterruptedException | ExecutionException e) {
-      String error = "Error creating PictureMarkerSymbol: " + e.getMessage();
-      Log.e(TAG, error);
-      Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
-    }
-    // set pin to half of native size
-    mPinSourceSymbol.setWidth(19f);
-    mPinSourceSymbol.setHeight(72f);
+    // start creating the pin symbol in the background, so it is ready by the time the first results come back
+    mPictureSymbolCache = PictureSymbolCache.getInstance(this);
+    getPinSymbol(new PictureSymbolCache.Callback() {
+      @Override public void onSymbolReady(PictureMarkerSymbol symbol) {
+        // the symbol is now cached for displaySearchResult
+      }
+
+      @Override public void onSymbolFailed(Exception e) {
+        String error = "Error creating PictureMarkerSymbol: " + e.getMessage();
+        Log.e(TAG, error);
+        Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
+      }
+    });
 
     // instantiate flag proximity search view flag
     mProximitySearchViewEmpty = true;
@@ -199,6 +204,8 @@ public class MainActivity extends AppCompatActivity {
     });
     // define the graphics overlay
     mGraphicsOverlay = new GraphicsOverlay();
+    // answer taps on the result pins without a round trip to the map view
+    mGraphicsIndex = new GraphicsSpatialIndex(mMapView, mGraphicsOverlay);
 
     setupPoi();
     setupProximity();
@@ -429,37 +436,33 @@ public class MainActivity extends AppCompatActivity {
     // convert to map point
     final Point mapPoint = mMapView.screenToLocation(screenPoint);
     // from the graphics overlay, get graphics near the tapped location
-    final ListenableFuture<IdentifyGraphicsOverlayResult> identifyResultsFuture = mMapView
-        .identifyGraphicsOverlayAsync(mGraphicsOverlay, screenPoint, 10, false);
-    identifyResultsFuture.addDoneListener(new Runnable() {
-      @Override public void run() {
-        try {
-          IdentifyGraphicsOverlayResult identifyGraphicsOverlayResult = identifyResultsFuture.get();
-          List<Graphic> graphics = identifyGraphicsOverlayResult.getGraphics();
-          // if a graphic has been identified
-          if (graphics.size() > 0) {
-            //get the first graphic identified
-            Graphic identifiedGraphic = graphics.get(0);
-            // create a TextView for the Callout
-            TextView calloutContent = new TextView(getApplicationContext());
-            calloutContent.setTextColor(Color.BLACK);
-            // set the text of the Callout to graphic's attributes
-            calloutContent.setText(identifiedGraphic.getAttributes().get("PlaceName").toString() + "\n"
-                + identifiedGraphic.getAttributes().get("StAddr").toString());
-            // get Callout and set its options: animateCallout: true, recenterMap: false, animateRecenter: false
-            mCallout = mMapView.getCallout();
-            mCallout.setShowOptions(new Callout.ShowOptions(true, false, false));
-            // set the leader position and show the callout
-            mCallout.setLocation(identifiedGraphic.computeCalloutLocation(mapPoint, mMapView));
-            mCallout.setContent(calloutContent);
-            mCallout.show();
-          } else {
-            mCallout.dismiss();
-          }
-        } catch (Exception e) {
-          Log.e(TAG, "Identify error: " + e.getMessage());
+    mGraphicsIndex.identify(screenPoint, 10, 0, new GraphicsSpatialIndex.IdentifyListener() {
+      @Override public void onGraphicsIdentified(List<Graphic> graphics, boolean fromIndex) {
+        // if a graphic has been identified
+        if (graphics.size() > 0) {
+          //get the first graphic identified
+          Graphic identifiedGraphic = graphics.get(0);
+          // create a TextView for the Callout
+          TextView calloutContent = new TextView(getApplicationContext());
+          calloutContent.setTextColor(Color.BLACK);
+          // set the text of the Callout to graphic's attributes
+          calloutContent.setText(identifiedGraphic.getAttributes().get("PlaceName").toString() + "\n"
+              + identifiedGraphic.getAttributes().get("StAddr").toString());
+          // get Callout and set its options: animateCallout: true, recenterMap: false, animateRecenter: false
+          mCallout = mMapView.getCallout();
+          mCallout.setShowOptions(new Callout.ShowOptions(true, false, false));
+          // set the leader position and show the callout
+          mCallout.setLocation(identifiedGraphic.computeCalloutLocation(mapPoint, mMapView));
+          mCallout.setContent(calloutContent);
+          mCallout.show();
+        } else {
+          mCallout.dismiss();
         }
       }
+
+      @Override public void onIdentifyFailed(Exception e) {
+        Log.e(TAG, "Identify error: " + e.getMessage());
+      }
     });
   }
 
@@ -517,34 +520,65 @@ public class MainActivity extends AppCompatActivity {
    *
    * @param geocodeResults as a list
    */
-  private void displaySearchResult(List<GeocodeResult> geocodeResults) {
+  private void displaySearchResult(final List<GeocodeResult> geocodeResults) {
     // dismiss any callout
     if (mMapView.getCallout() != null && mMapView.getCallout().isShowing()) {
       mMapView.getCallout().dismiss();
     }
-    // clear map of existing graphics
-    mMapView.getGraphicsOverlays().clear();
-    mGraphicsOverlay.getGraphics().clear();
-    // create a list of points from the geocode results
-    List<Point> resultPoints = new ArrayList<>();
-    for (GeocodeResult result : geocodeResults) {
-      // create graphic object for resulting location
-      Point resultPoint = result.getDisplayLocation();
-      Graphic resultLocGraphic = new Graphic(resultPoint, result.getAttributes(), mPinSourceSymbol);
-      // add graphic to location layer
-      mGraphicsOverlay.getGraphics().add(resultLocGraphic);
-      resultPoints.add(resultPoint);
-    }
-    // add result points to a Multipoint and get an envelope surrounding it
-    Multipoint resultsMultipoint = new Multipoint(resultPoints);
-    Envelope resultsEnvelope = resultsMultipoint.getExtent();
-    // add a 25% buffer to the extent Envelope of result points
-    Envelope resultsEnvelopeWithBuffer = new Envelope(resultsEnvelope.getCenter(), resultsEnvelope.getWidth() * 1.25,
-        resultsEnvelope.getHeight() * 1.25);
-    // zoom map to result over 3 seconds
-    mMapView.setViewpointAsync(new Viewpoint(resultsEnvelopeWithBuffer), 3);
-    // set the graphics overlay to the map
-    mMapView.getGraphicsOverlays().add(mGraphicsOverlay);
+    final int search = ++mSearchCount;
+    getPinSymbol(new PictureSymbolCache.Callback() {
+      @Override public void onSymbolReady(PictureMarkerSymbol pinSymbol) {
+        if (search != mSearchCount) {
+          // a later search has replaced these results
+          return;
+        }
+        // clear map of existing graphics, in the same callback as the new results are added so they never mix
+        mMapView.getGraphicsOverlays().clear();
+        mGraphicsOverlay.getGraphics().clear();
+        // create a list of points from the geocode results
+        List<Point> resultPoints = new ArrayList<>();
+        for (GeocodeResult result : geocodeResults) {
+          // create graphic object for resulting location
+          Point resultPoint = result.getDisplayLocation();
+          Graphic resultLocGraphic = new Graphic(resultPoint, result.getAttributes(), pinSymbol);
+          // add graphic to location layer
+          mGraphicsOverlay.getGraphics().add(resultLocGraphic);
+          resultPoints.add(resultPoint);
+        }
+        // add result points to a Multipoint and get an envelope surrounding it
+        Multipoint resultsMultipoint = new Multipoint(resultPoints);
+        Envelope resultsEnvelope = resultsMultipoint.getExtent();
+        // add a 25% buffer to the extent Envelope of result points
+        Envelope resultsEnvelopeWithBuffer = new Envelope(resultsEnvelope.getCenter(),
+            resultsEnvelope.getWidth() * 1.25, resultsEnvelope.getHeight() * 1.25);
+        // zoom map to result over 3 seconds
+        mMapView.setViewpointAsync(new Viewpoint(resultsEnvelopeWithBuffer), 3);
+        // set the graphics overlay to the map
+        mMapView.getGraphicsOverlays().add(mGraphicsOverlay);
+      }
+
+      @Override public void onSymbolFailed(Exception e) {
+        String error = "Error creating PictureMarkerSymbol: " + e.getMessage();
+        Log.e(TAG, error);
+        Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
+      }
+    });
+  }
+
+  /**
+   * Gets the pin symbol from the picture symbol cache, at half of the pin image's native size.
+   *
+   * @param callback called with the symbol once it has been created, straight away after the first time
+   */
+  private void getPinSymbol(PictureSymbolCache.Callback callback) {
+    mPictureSymbolCache.getFromResource(R.drawable.pin, 19f, 72f, pinDrawable -> {
+      PictureMarkerSymbol pinSymbol = new PictureMarkerSymbol(pinDrawable);
+      // set pin to half of native size
+      pinSymbol.setWidth(19f);
+      pinSymbol.setHeight(72f);
+      pinSymbol.loadAsync();
+      return pinSymbol;
+    }, callback);
   }
 
   @Override
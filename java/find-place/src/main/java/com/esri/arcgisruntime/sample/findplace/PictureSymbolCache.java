@@ -0,0 +1,271 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.findplace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.symbology.PictureMarkerSymbol;
+
+/**
+ * Creates picture marker symbols without blocking the main thread and keeps the most recently used ones.
+ * <p>
+ * Images from resources and files are decoded once, on a background thread, at the size the symbol is drawn at on
+ * this display, rather than at the full size of the image. The symbol itself is created and configured by a factory
+ * given by the caller, and the cache waits for it to load. Symbols are kept in a least recently used cache keyed by
+ * image source, drawn size and display density, and requests for a symbol which is still being created wait for the
+ * same symbol. The symbols are shared by everyone who asks for them and must not be changed, so an image must always
+ * be given the same size and offset by its factory.
+ * <p>
+ * All methods must be called on the main thread, and callbacks are made on it.
+ */
+class PictureSymbolCache {
+
+  /**
+   * Receives a symbol once it has been created, straight away if it is in the cache.
+   */
+  interface Callback {
+    void onSymbolReady(PictureMarkerSymbol symbol);
+
+    void onSymbolFailed(Exception e);
+  }
+
+  /**
+   * Creates and configures a symbol which isn't in the cache yet.
+   */
+  interface SymbolFactory {
+    PictureMarkerSymbol create();
+  }
+
+  /**
+   * Creates and configures a symbol from an image decoded by the cache at the size the symbol is drawn at.
+   */
+  interface DrawableSymbolFactory {
+    PictureMarkerSymbol create(BitmapDrawable drawable);
+  }
+
+  private static PictureSymbolCache sInstance;
+
+  private final Resources mResources;
+
+  private final LruCache<String, PictureMarkerSymbol> mSymbols;
+
+  // callbacks waiting for each symbol being created
+  private final Map<String, List<Callback>> mPending = new HashMap<>();
+
+  private final ExecutorService mDecodeExecutor = Executors.newSingleThreadExecutor();
+
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+  /**
+   * @return the cache shared by every activity of the app
+   */
+  static PictureSymbolCache getInstance(Context context) {
+    if (sInstance == null) {
+      Resources resources = context.getApplicationContext().getResources();
+      sInstance = new PictureSymbolCache(resources, resources.getInteger(R.integer.picture_symbol_cache_size));
+    }
+    return sInstance;
+  }
+
+  private PictureSymbolCache(Resources resources, int maxSymbols) {
+    mResources = resources;
+    mSymbols = new LruCache<>(maxSymbols);
+  }
+
+  /**
+   * Gets a symbol showing an image resource.
+   *
+   * @param resourceId drawable resource of a bitmap image
+   * @param widthDp    width the symbol is drawn at
+   * @param heightDp   height the symbol is drawn at
+   * @param factory    creates the symbol from the decoded image
+   */
+  void getFromResource(final int resourceId, float widthDp, float heightDp, DrawableSymbolFactory factory,
+      Callback callback) {
+    request("resource:" + resourceId, widthDp, heightDp, factory, callback, new Decoder() {
+      @Override
+      public Bitmap decode(BitmapFactory.Options options) {
+        return BitmapFactory.decodeResource(mResources, resourceId, options);
+      }
+    });
+  }
+
+  /**
+   * Gets a symbol showing an image file.
+   *
+   * @param path     path of a bitmap image file
+   * @param widthDp  width the symbol is drawn at
+   * @param heightDp height the symbol is drawn at
+   * @param factory  creates the symbol from the decoded image
+   */
+  void getFromFile(final String path, float widthDp, float heightDp, DrawableSymbolFactory factory,
+      Callback callback) {
+    request("file:" + path, widthDp, heightDp, factory, callback, new Decoder() {
+      @Override
+      public Bitmap decode(BitmapFactory.Options options) {
+        return BitmapFactory.decodeFile(path, options);
+      }
+    });
+  }
+
+  /**
+   * Gets a symbol showing an image at a URL, which is fetched by the symbol itself when it loads.
+   *
+   * @param url     URL of the image
+   * @param factory creates the symbol from the URL
+   */
+  void getFromUrl(String url, final SymbolFactory factory, Callback callback) {
+    final String key = "url:" + url;
+    if (!startRequest(key, callback)) {
+      return;
+    }
+    awaitLoaded(key, factory.create());
+  }
+
+  /**
+   * Decodes an image with the given options.
+   */
+  private interface Decoder {
+    Bitmap decode(BitmapFactory.Options options);
+  }
+
+  private void request(String source, float widthDp, float heightDp, final DrawableSymbolFactory factory,
+      Callback callback, final Decoder decoder) {
+    final float density = mResources.getDisplayMetrics().density;
+    final String key = source + "@" + widthDp + "x" + heightDp + "@" + density;
+    if (!startRequest(key, callback)) {
+      return;
+    }
+    final int width = Math.round(widthDp * density);
+    final int height = Math.round(heightDp * density);
+    mDecodeExecutor.execute(() -> {
+      try {
+        final Bitmap bitmap = decode(decoder, width, height);
+        mMainHandler.post(() -> {
+          try {
+            awaitLoaded(key, factory.create(new BitmapDrawable(mResources, bitmap)));
+          } catch (RuntimeException e) {
+            complete(key, null, e);
+          }
+        });
+      } catch (final Exception e) {
+        mMainHandler.post(() -> complete(key, null, e));
+      }
+    });
+  }
+
+  /**
+   * Gives the callback the cached symbol, or adds it to those waiting for the symbol.
+   *
+   * @return whether the symbol has to be created
+   */
+  private boolean startRequest(String key, Callback callback) {
+    PictureMarkerSymbol cached = mSymbols.get(key);
+    if (cached != null) {
+      callback.onSymbolReady(cached);
+      return false;
+    }
+    List<Callback> waiting = mPending.get(key);
+    if (waiting != null) {
+      waiting.add(callback);
+      return false;
+    }
+    waiting = new ArrayList<>();
+    waiting.add(callback);
+    mPending.put(key, waiting);
+    return true;
+  }
+
+  /**
+   * Decodes an image to a bitmap of the given size, skipping rows and columns while decoding where the image is at
+   * least twice as large, and scaling the rest of the way. A width or height of 0 keeps the image at its own size.
+   */
+  private static Bitmap decode(Decoder decoder, int width, int height) {
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    // work in the image's own pixels rather than scaling resources to the display density on decode
+    options.inScaled = false;
+    options.inJustDecodeBounds = true;
+    decoder.decode(options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      throw new IllegalArgumentException("Image could not be decoded");
+    }
+    int sampleSize = 1;
+    while (width > 0 && height > 0 && options.outWidth / (sampleSize * 2) >= width
+        && options.outHeight / (sampleSize * 2) >= height) {
+      sampleSize *= 2;
+    }
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = sampleSize;
+    Bitmap bitmap = decoder.decode(options);
+    if (bitmap == null) {
+      throw new IllegalArgumentException("Image could not be decoded");
+    }
+    // images smaller than the symbol are left as they are, since scaling them up adds no detail
+    if (width > 0 && height > 0 && bitmap.getWidth() > width && bitmap.getHeight() > height) {
+      Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+      if (scaled != bitmap) {
+        bitmap.recycle();
+      }
+      bitmap = scaled;
+    }
+    return bitmap;
+  }
+
+  private void awaitLoaded(final String key, final PictureMarkerSymbol symbol) {
+    symbol.addDoneLoadingListener(() -> {
+      if (symbol.getLoadStatus() == LoadStatus.LOADED) {
+        complete(key, symbol, null);
+      } else {
+        complete(key, null, symbol.getLoadError());
+      }
+    });
+    // does nothing if the factory has already started loading the symbol
+    symbol.loadAsync();
+  }
+
+  private void complete(String key, PictureMarkerSymbol symbol, Exception error) {
+    if (symbol != null) {
+      mSymbols.put(key, symbol);
+    }
+    List<Callback> waiting = mPending.remove(key);
+    if (waiting == null) {
+      return;
+    }
+    for (Callback callback : waiting) {
+      if (symbol != null) {
+        callback.onSymbolReady(symbol);
+      } else {
+        callback.onSymbolFailed(error != null ? error : new IllegalStateException("Symbol could not be created"));
+      }
+    }
+  }
+}
@@ -16,8 +16,7 @@
 
 package com.esri.arcgisruntime.sample.generategeodatabase;
 
-import java.io.File;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
@@ -34,23 +33,20 @@ import android.widget.ProgressBar;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 import android.widget.Toast;
-import com.esri.arcgisruntime.concurrent.Job;
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.FeatureCollection;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
 import com.esri.arcgisruntime.data.Geodatabase;
 import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
 import com.esri.arcgisruntime.data.TileCache;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.layers.ArcGISTiledLayer;
-import com.esri.arcgisruntime.layers.FeatureLayer;
-import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.layers.FeatureCollectionLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
-import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseJob;
-import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseParameters;
 import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
 
 public class MainActivity extends AppCompatActivity {
@@ -62,6 +58,8 @@ public class MainActivity extends AppCompatActivity {
   private TextView mProgressTextView;
   private RelativeLayout mProgressLayout;
 
+  private TiledGeodatabaseGenerator mGenerator;
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -120,78 +118,64 @@ public class MainActivity extends AppCompatActivity {
             Graphic boundary = new Graphic(extent, boundarySymbol);
             graphicsOverlay.getGraphics().add(boundary);
 
-            // create generate geodatabase parameters for the current extent
-            final ListenableFuture<GenerateGeodatabaseParameters> defaultParameters = geodatabaseSyncTask
-                .createDefaultGenerateGeodatabaseParametersAsync(extent);
-            defaultParameters.addDoneListener(new Runnable() {
-              @Override public void run() {
-                try {
-                  // set parameters and don't include attachments
-                  GenerateGeodatabaseParameters parameters = defaultParameters.get();
-                  parameters.setReturnAttachments(false);
-
-                  // define the local path where the geodatabase will be stored
-                  final String localGeodatabasePath =
-                      getCacheDir().toString() + File.separator + getString(R.string.wildfire_geodatabase);
-
-                  // create and start the job
-                  final GenerateGeodatabaseJob generateGeodatabaseJob = geodatabaseSyncTask
-                      .generateGeodatabaseAsync(parameters, localGeodatabasePath);
-                  generateGeodatabaseJob.start();
-                  mProgressTextView.setText(getString(R.string.progress_started));
-
-                  // update progress
-                  generateGeodatabaseJob.addProgressChangedListener(new Runnable() {
-                    @Override public void run() {
-                      progressBar.setProgress(generateGeodatabaseJob.getProgress());
-                      mProgressTextView.setText(getString(R.string.progress_fetching));
+            // generate the geodatabase as a set of smaller replicas, which are generated in parallel and retried
+            // independently if they fail
+            if (mGenerator != null) {
+              mGenerator.cancel();
+            }
+            mGenerator = new TiledGeodatabaseGenerator(geodatabaseSyncTask, getCacheDir(),
+                getResources().getInteger(R.integer.tile_rows), getResources().getInteger(R.integer.tile_columns),
+                true, getResources().getInteger(R.integer.max_concurrent_jobs),
+                getResources().getInteger(R.integer.max_attempts));
+            mProgressTextView.setText(getString(R.string.progress_started));
+            mGenerator.generate(extent, new TiledGeodatabaseGenerator.Listener() {
+              @Override public void onProgress(int completedParts, int totalParts) {
+                progressBar.setProgress(100 * completedParts / totalParts);
+                mProgressTextView.setText(getString(R.string.progress_parts, completedParts, totalParts));
+              }
+
+              @Override public void onComplete(TiledGeodatabaseGenerator.TiledGeodatabaseSet result,
+                  List<Throwable> failures) {
+                mProgressLayout.setVisibility(View.INVISIBLE);
+                for (Throwable failure : failures) {
+                  Log.e(TAG, "Error generating geodatabase: " + failure.getMessage());
+                }
+                if (result.getGeodatabases().isEmpty()) {
+                  Toast.makeText(MainActivity.this, "Error generating geodatabase", Toast.LENGTH_LONG).show();
+                  return;
+                }
+                mProgressTextView.setText(getString(R.string.progress_done));
+                if (failures.isEmpty()) {
+                  genGeodatabaseButton.setVisibility(View.GONE);
+                } else {
+                  // features in the tiles which failed are missing, so keep the button to generate again
+                  Toast.makeText(MainActivity.this, getString(R.string.error_parts_failed, failures.size(),
+                      failures.size() + result.getGeodatabases().size()), Toast.LENGTH_LONG).show();
+                }
+                // add a single layer for each service layer, merging the tables of every tile so features crossing
+                // the edge of a tile are only shown once
+                for (List<GeodatabaseFeatureTable> layerTables : result.getFeatureTablesByLayer().values()) {
+                  final FeatureCollection featureCollection = new FeatureCollection();
+                  map.getOperationalLayers().add(new FeatureCollectionLayer(featureCollection));
+                  TileTableMerger.merge(layerTables, new TileTableMerger.Callback() {
+                    @Override public void onMerged(FeatureCollectionTable table) {
+                      featureCollection.getTables().add(table);
                     }
-                  });
 
-                  // get geodatabase when done
-                  generateGeodatabaseJob.addJobDoneListener(new Runnable() {
-                    @Override public void run() {
-                      mProgressLayout.setVisibility(View.INVISIBLE);
-                      if (generateGeodatabaseJob.getStatus() == Job.Status.SUCCEEDED) {
-                        final Geodatabase geodatabase = generateGeodatabaseJob.getResult();
-                        geodatabase.loadAsync();
-                        geodatabase.addDoneLoadingListener(new Runnable() {
-                          @Override public void run() {
-                            if (geodatabase.getLoadStatus() == LoadStatus.LOADED) {
-                              mProgressTextView.setText(getString(R.string.progress_done));
-                              for (GeodatabaseFeatureTable geodatabaseFeatureTable : geodatabase
-                                  .getGeodatabaseFeatureTables()) {
-                                geodatabaseFeatureTable.loadAsync();
-                                map.getOperationalLayers().add(new FeatureLayer(geodatabaseFeatureTable));
-                              }
-                              genGeodatabaseButton.setVisibility(View.GONE);
-                              Log.i(TAG, "Local geodatabase stored at: " + localGeodatabasePath);
-                            } else {
-                              Log.e(TAG, "Error loading geodatabase: " + geodatabase.getLoadError().getMessage());
-                            }
-                          }
-                        });
-                        // unregister since we're not syncing
-                        ListenableFuture unregisterGeodatabase = geodatabaseSyncTask
-                            .unregisterGeodatabaseAsync(geodatabase);
-                        unregisterGeodatabase.addDoneListener(new Runnable() {
-                          @Override public void run() {
-                            Log.i(TAG, "Geodatabase unregistered since we wont be editing it in this sample.");
-                            Toast.makeText(MainActivity.this,
-                                "Geodatabase unregistered since we wont be editing it in this sample.",
-                                Toast.LENGTH_LONG).show();
-                          }
-                        });
-                      } else if (generateGeodatabaseJob.getError() != null) {
-                        Log.e(TAG, "Error generating geodatabase: " + generateGeodatabaseJob.getError().getMessage());
-                      } else {
-                        Log.e(TAG, "Unknown Error generating geodatabase");
-                      }
+                    @Override public void onFailed(Throwable error) {
+                      Log.e(TAG, "Error merging tables: " + error.getMessage());
+                      Toast.makeText(MainActivity.this, "Error merging tables", Toast.LENGTH_LONG).show();
                     }
                   });
-                } catch (InterruptedException | ExecutionException e) {
-                  Log.e(TAG, "Error generating geodatabase parameters : " + e.getMessage());
                 }
+                for (Geodatabase geodatabase : result.getGeodatabases()) {
+                  Log.i(TAG, "Local geodatabase stored at: " + geodatabase.getPath());
+                  // unregister since we're not syncing
+                  geodatabaseSyncTask.unregisterGeodatabaseAsync(geodatabase);
+                }
+                Toast.makeText(MainActivity.this,
+                    "Geodatabases unregistered since we wont be editing them in this sample.",
+                    Toast.LENGTH_LONG).show();
               }
             });
           }
@@ -215,6 +199,9 @@ public class MainActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (mGenerator != null) {
+      mGenerator.cancel();
+    }
     mMapView.dispose();
   }
 }
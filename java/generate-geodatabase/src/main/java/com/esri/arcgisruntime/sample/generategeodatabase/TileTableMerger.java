@@ -0,0 +1,149 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.generategeodatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.esri.arcgisruntime.arcgisservices.ArcGISFeatureLayerInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+/**
+ * Merges the tables generated for each tile of a single service layer into one {@link FeatureCollectionTable}.
+ * <p>
+ * A feature crossing the edge of a tile is in the replica of every tile it touches, so features are kept once by their
+ * global id, in the order of the tables. The object and global id fields are not copied, as the merged table assigns
+ * its own object ids. The merged table draws with the renderer of the service layer.
+ * <p>
+ * Must be used from the UI thread, on which the callback is called.
+ */
+class TileTableMerger {
+
+  /**
+   * Receives the merged table, or the error which stopped it being created.
+   */
+  interface Callback {
+    void onMerged(FeatureCollectionTable table);
+
+    void onFailed(Throwable error);
+  }
+
+  private final List<GeodatabaseFeatureTable> mTables;
+  private final Callback mCallback;
+
+  // first feature found with each global id, and the features without one, which can't be told apart
+  private final Map<Object, Feature> mFeaturesByGlobalId = new LinkedHashMap<>();
+  private final List<Feature> mFeaturesWithoutGlobalId = new ArrayList<>();
+
+  private TileTableMerger(List<GeodatabaseFeatureTable> tables, Callback callback) {
+    mTables = tables;
+    mCallback = callback;
+  }
+
+  /**
+   * Merge the tables of a service layer.
+   *
+   * @param tables   replicas of the same service layer, one per tile
+   * @param callback called once the merged table has been created
+   */
+  static void merge(List<GeodatabaseFeatureTable> tables, Callback callback) {
+    new TileTableMerger(tables, callback).readTable(0);
+  }
+
+  private void readTable(final int index) {
+    if (index == mTables.size()) {
+      createMergedTable();
+      return;
+    }
+    final GeodatabaseFeatureTable table = mTables.get(index);
+    table.loadAsync();
+    table.addDoneLoadingListener(() -> {
+      if (table.getLoadStatus() != LoadStatus.LOADED) {
+        mCallback.onFailed(table.getLoadError());
+        return;
+      }
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause("1=1");
+      final ListenableFuture<FeatureQueryResult> queryFuture = table.queryFeaturesAsync(queryParameters);
+      queryFuture.addDoneListener(() -> {
+        try {
+          String globalIdField = table.getGlobalIdField();
+          for (Feature feature : queryFuture.get()) {
+            Object globalId = globalIdField == null || globalIdField.isEmpty() ? null :
+                feature.getAttributes().get(globalIdField);
+            if (globalId == null) {
+              mFeaturesWithoutGlobalId.add(feature);
+            } else if (!mFeaturesByGlobalId.containsKey(globalId)) {
+              mFeaturesByGlobalId.put(globalId, feature);
+            }
+          }
+          readTable(index + 1);
+        } catch (InterruptedException | ExecutionException e) {
+          mCallback.onFailed(e);
+        }
+      });
+    });
+  }
+
+  private void createMergedTable() {
+    GeodatabaseFeatureTable firstTable = mTables.get(0);
+    List<Field> fields = new ArrayList<>();
+    for (Field field : firstTable.getFields()) {
+      if (field.getFieldType() != Field.Type.OID && field.getFieldType() != Field.Type.GLOBALID) {
+        fields.add(field);
+      }
+    }
+    final FeatureCollectionTable mergedTable = new FeatureCollectionTable(fields, firstTable.getGeometryType(),
+        firstTable.getSpatialReference());
+    mergedTable.setTitle(firstTable.getTableName());
+    ArcGISFeatureLayerInfo layerInfo = firstTable.getLayerInfo();
+    if (layerInfo != null && layerInfo.getDrawingInfo() != null) {
+      mergedTable.setRenderer(layerInfo.getDrawingInfo().getRenderer());
+    }
+
+    List<Feature> features = new ArrayList<>(mFeaturesByGlobalId.values());
+    features.addAll(mFeaturesWithoutGlobalId);
+    List<Feature> mergedFeatures = new ArrayList<>(features.size());
+    for (Feature feature : features) {
+      Map<String, Object> attributes = new HashMap<>();
+      for (Field field : fields) {
+        attributes.put(field.getName(), feature.getAttributes().get(field.getName()));
+      }
+      mergedFeatures.add(mergedTable.createFeature(attributes, feature.getGeometry()));
+    }
+    final ListenableFuture<Void> addFuture = mergedTable.addFeaturesAsync(mergedFeatures);
+    addFuture.addDoneListener(() -> {
+      try {
+        addFuture.get();
+        mCallback.onMerged(mergedTable);
+      } catch (InterruptedException | ExecutionException e) {
+        mCallback.onFailed(e);
+      }
+    });
+  }
+}
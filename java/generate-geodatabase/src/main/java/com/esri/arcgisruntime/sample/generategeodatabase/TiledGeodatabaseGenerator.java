@@ -0,0 +1,315 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.generategeodatabase;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import com.esri.arcgisruntime.arcgisservices.IdInfo;
+import com.esri.arcgisruntime.concurrent.Job;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Geodatabase;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseJob;
+import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseParameters;
+import com.esri.arcgisruntime.tasks.geodatabase.GenerateLayerOption;
+import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
+
+/**
+ * Generates geodatabases for a large extent as a set of smaller replicas. The extent is split into a grid of tiles,
+ * optionally with a separate replica per layer in each tile, and a {@link GenerateGeodatabaseJob} is run for each
+ * part with at most a fixed number of jobs running at once. A part which fails is retried on its own, without
+ * affecting the parts which have already succeeded.
+ * <p>
+ * Geodatabases which won't be handed to the listener, because they failed to load or the generator was cancelled
+ * before it completed, are unregistered from the service and closed, so their replicas aren't left on the service.
+ * <p>
+ * Must be used from the UI thread, on which the job and loadable listeners are called.
+ */
+class TiledGeodatabaseGenerator {
+
+  /**
+   * Notified of the progress and result of {@link #generate}.
+   */
+  interface Listener {
+    void onProgress(int completedParts, int totalParts);
+
+    /**
+     * @param result   geodatabases of the parts which succeeded
+     * @param failures errors of the parts which still failed after every attempt
+     */
+    void onComplete(TiledGeodatabaseSet result, List<Throwable> failures);
+  }
+
+  private final GeodatabaseSyncTask mGeodatabaseSyncTask;
+  private final File mDirectory;
+  private final int mTileRows;
+  private final int mTileColumns;
+  private final boolean mSplitByLayer;
+  private final int mMaxConcurrentJobs;
+  private final int mMaxAttempts;
+
+  private final Queue<Part> mQueue = new ArrayDeque<>();
+  private final List<Job> mRunningJobs = new ArrayList<>();
+  private final List<Geodatabase> mGeodatabases = new ArrayList<>();
+  private final List<Throwable> mFailures = new ArrayList<>();
+  private int mRunningCount;
+  private int mCompletedCount;
+  private int mTotalCount;
+  private boolean mCancelled;
+  private boolean mComplete;
+  private Listener mListener;
+
+  /**
+   * @param geodatabaseSyncTask a loaded sync task
+   * @param directory           where the geodatabase files are written
+   * @param tileRows            number of rows the extent is split into
+   * @param tileColumns         number of columns the extent is split into
+   * @param splitByLayer        whether to generate a separate geodatabase for each layer of each tile
+   * @param maxConcurrentJobs   maximum number of generate jobs running at once
+   * @param maxAttempts         number of times a part is attempted before it's reported as failed
+   */
+  TiledGeodatabaseGenerator(GeodatabaseSyncTask geodatabaseSyncTask, File directory, int tileRows, int tileColumns,
+      boolean splitByLayer, int maxConcurrentJobs, int maxAttempts) {
+    mGeodatabaseSyncTask = geodatabaseSyncTask;
+    mDirectory = directory;
+    mTileRows = tileRows;
+    mTileColumns = tileColumns;
+    mSplitByLayer = splitByLayer;
+    mMaxConcurrentJobs = maxConcurrentJobs;
+    mMaxAttempts = maxAttempts;
+  }
+
+  /**
+   * Generate geodatabases covering the extent.
+   *
+   * @param extent   to take offline
+   * @param listener notified of progress and once every part has succeeded or failed
+   */
+  void generate(Envelope extent, Listener listener) {
+    mListener = listener;
+    double tileWidth = extent.getWidth() / mTileColumns;
+    double tileHeight = extent.getHeight() / mTileRows;
+    for (int row = 0; row < mTileRows; row++) {
+      for (int column = 0; column < mTileColumns; column++) {
+        Envelope tile = new Envelope(extent.getXMin() + column * tileWidth, extent.getYMin() + row * tileHeight,
+            extent.getXMin() + (column + 1) * tileWidth, extent.getYMin() + (row + 1) * tileHeight,
+            extent.getSpatialReference());
+        String name = "tile_" + row + "_" + column;
+        if (mSplitByLayer) {
+          for (long layerId : getLayerIds()) {
+            mQueue.add(new Part(tile, layerId, name + "_layer_" + layerId));
+          }
+        } else {
+          mQueue.add(new Part(tile, -1, name));
+        }
+      }
+    }
+    mTotalCount = mQueue.size();
+    startNextParts();
+  }
+
+  /**
+   * Cancel the running jobs and don't start any more. The listener is not called again, so unless it has already
+   * been given the result, the geodatabases generated so far are unregistered and closed.
+   */
+  void cancel() {
+    if (mCancelled) {
+      return;
+    }
+    mCancelled = true;
+    mQueue.clear();
+    for (Job job : new ArrayList<>(mRunningJobs)) {
+      job.cancel();
+    }
+    if (!mComplete) {
+      for (Geodatabase geodatabase : mGeodatabases) {
+        abandon(geodatabase);
+      }
+      mGeodatabases.clear();
+    }
+  }
+
+  private long[] getLayerIds() {
+    List<IdInfo> layerInfos = mGeodatabaseSyncTask.getFeatureServiceInfo().getLayerInfos();
+    long[] layerIds = new long[layerInfos.size()];
+    for (int i = 0; i < layerIds.length; i++) {
+      layerIds[i] = layerInfos.get(i).getId();
+    }
+    return layerIds;
+  }
+
+  private void startNextParts() {
+    while (!mCancelled && mRunningCount < mMaxConcurrentJobs && !mQueue.isEmpty()) {
+      startPart(mQueue.remove());
+    }
+    if (!mCancelled && mRunningCount == 0 && mQueue.isEmpty()) {
+      mComplete = true;
+      mListener.onComplete(new TiledGeodatabaseSet(new ArrayList<>(mGeodatabases)), mFailures);
+    }
+  }
+
+  private void startPart(Part part) {
+    mRunningCount++;
+    part.mAttempts++;
+    final ListenableFuture<GenerateGeodatabaseParameters> parametersFuture = mGeodatabaseSyncTask
+        .createDefaultGenerateGeodatabaseParametersAsync(part.mExtent);
+    parametersFuture.addDoneListener(() -> {
+      if (mCancelled) {
+        // don't start a server job for a generator which has been cancelled meanwhile
+        mRunningCount--;
+        return;
+      }
+      try {
+        GenerateGeodatabaseParameters parameters = parametersFuture.get();
+        parameters.setReturnAttachments(false);
+        if (part.mLayerId >= 0) {
+          // keep only this part's layer
+          for (Iterator<GenerateLayerOption> options = parameters.getLayerOptions().iterator(); options.hasNext(); ) {
+            if (options.next().getLayerId() != part.mLayerId) {
+              options.remove();
+            }
+          }
+        }
+        // a job fails if its geodatabase file already exists, e.g. from a failed attempt
+        File file = new File(mDirectory, part.mName + ".geodatabase");
+        if (file.exists() && !file.delete()) {
+          throw new IllegalStateException("Unable to delete " + file);
+        }
+        final GenerateGeodatabaseJob job = mGeodatabaseSyncTask.generateGeodatabase(parameters, file.getPath());
+        mRunningJobs.add(job);
+        job.addJobDoneListener(() -> {
+          mRunningJobs.remove(job);
+          if (job.getStatus() == Job.Status.SUCCEEDED) {
+            Geodatabase geodatabase = job.getResult();
+            geodatabase.loadAsync();
+            geodatabase.addDoneLoadingListener(() -> {
+              if (mCancelled) {
+                abandon(geodatabase);
+                onPartDone();
+              } else if (geodatabase.getLoadStatus() == LoadStatus.LOADED) {
+                mGeodatabases.add(geodatabase);
+                onPartDone();
+              } else {
+                // the replica was created on the service even though it can't be used, and the retry replaces it
+                abandon(geodatabase);
+                onPartFailed(part, geodatabase.getLoadError());
+              }
+            });
+          } else {
+            onPartFailed(part, job.getError());
+          }
+        });
+        job.start();
+      } catch (Exception e) {
+        onPartFailed(part, e);
+      }
+    });
+  }
+
+  private void onPartDone() {
+    mRunningCount--;
+    if (mCancelled) {
+      return;
+    }
+    mCompletedCount++;
+    mListener.onProgress(mCompletedCount, mTotalCount);
+    startNextParts();
+  }
+
+  private void onPartFailed(Part part, Throwable error) {
+    if (!mCancelled && part.mAttempts < mMaxAttempts) {
+      // retry this part after the others already queued
+      mRunningCount--;
+      mQueue.add(part);
+      startNextParts();
+    } else {
+      mFailures.add(error != null ? error : new IllegalStateException("Failed to generate " + part.mName));
+      onPartDone();
+    }
+  }
+
+  /**
+   * Unregisters the replica of a geodatabase which won't be used from the service, so it isn't kept there, then
+   * closes it, releasing the file. Unregistering fails if the geodatabase couldn't be read, which leaves nothing else
+   * to do than close it.
+   */
+  private void abandon(final Geodatabase geodatabase) {
+    mGeodatabaseSyncTask.unregisterGeodatabaseAsync(geodatabase).addDoneListener(geodatabase::close);
+  }
+
+  /**
+   * A tile of the extent, and optionally a single layer, to generate a geodatabase for.
+   */
+  private static final class Part {
+    private final Envelope mExtent;
+    private final long mLayerId;
+    private final String mName;
+    private int mAttempts;
+
+    Part(Envelope extent, long layerId, String name) {
+      mExtent = extent;
+      mLayerId = layerId;
+      mName = name;
+    }
+  }
+
+  /**
+   * The geodatabases generated for an extent, with their feature tables grouped by the service layer they're a
+   * replica of.
+   */
+  static final class TiledGeodatabaseSet {
+    private final List<Geodatabase> mGeodatabases;
+
+    TiledGeodatabaseSet(List<Geodatabase> geodatabases) {
+      mGeodatabases = geodatabases;
+    }
+
+    /**
+     * @return every generated geodatabase
+     */
+    List<Geodatabase> getGeodatabases() {
+      return mGeodatabases;
+    }
+
+    /**
+     * @return the tables of every tile, by service layer id
+     */
+    Map<Long, List<GeodatabaseFeatureTable>> getFeatureTablesByLayer() {
+      Map<Long, List<GeodatabaseFeatureTable>> tablesByLayer = new LinkedHashMap<>();
+      for (Geodatabase geodatabase : mGeodatabases) {
+        for (GeodatabaseFeatureTable table : geodatabase.getGeodatabaseFeatureTables()) {
+          List<GeodatabaseFeatureTable> tables = tablesByLayer.get(table.getServiceLayerId());
+          if (tables == null) {
+            tables = new ArrayList<>();
+            tablesByLayer.put(table.getServiceLayerId(), tables);
+          }
+          tables.add(table);
+        }
+      }
+      return tablesByLayer;
+    }
+  }
+}
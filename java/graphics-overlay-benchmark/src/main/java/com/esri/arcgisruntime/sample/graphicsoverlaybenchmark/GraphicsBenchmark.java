@@ -0,0 +1,402 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.graphicsoverlaybenchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.mapping.view.DrawStatus;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+import com.esri.arcgisruntime.mapping.view.IdentifyGraphicsOverlayResult;
+import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
+import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
+import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
+import com.esri.arcgisruntime.symbology.SimpleRenderer;
+import com.esri.arcgisruntime.symbology.Symbol;
+
+/**
+ * Runs graphics overlay scenarios one after another in a map view. Each scenario generates synthetic graphics of one
+ * geometry type, adds them to a new overlay in one rendering mode and measures:
+ * <ul>
+ * <li>the time to add them all at once, as graphics per second,</li>
+ * <li>the growth of the Java and native heaps per graphic once they are added and drawn,</li>
+ * <li>the time from the add until the map view's draw status next becomes {@link DrawStatus#COMPLETED},</li>
+ * <li>the latency of identifying the overlay at random points of the view.</li>
+ * </ul>
+ * The graphics are generated on a background thread so the main thread stays free to draw, and the heaps are sampled
+ * once the first draw of the graphics completes, when ArcGIS Runtime holds everything it needs to draw them. Only the
+ * scenario's overlay is in the map view while it runs. All methods must be called on the main thread.
+ */
+class GraphicsBenchmark {
+
+  /**
+   * Notified on the main thread as scenarios run.
+   */
+  interface Listener {
+    void onScenarioStarted(Scenario scenario, int index, int count);
+
+    void onScenarioComplete(Result result);
+
+    void onBenchmarkComplete(List<Result> results);
+  }
+
+  /**
+   * A number of graphics of one geometry type in an overlay of one rendering mode.
+   */
+  static final class Scenario {
+    final SyntheticGraphics.GeometryKind kind;
+    final GraphicsOverlay.RenderingMode renderingMode;
+    final int size;
+
+    Scenario(SyntheticGraphics.GeometryKind kind, GraphicsOverlay.RenderingMode renderingMode, int size) {
+      this.kind = kind;
+      this.renderingMode = renderingMode;
+      this.size = size;
+    }
+
+    @Override public String toString() {
+      return size + " " + kind + " graphics, " + renderingMode;
+    }
+  }
+
+  /**
+   * Measurements of one scenario.
+   */
+  static final class Result {
+    final Scenario scenario;
+    final long generateMillis;
+    final long addMillis;
+    final long javaHeapBytes;
+    final long nativeHeapBytes;
+    // -1 if the view did not complete a draw within the timeout
+    final long firstDrawMillis;
+    final List<Long> identifyMillis;
+    final int identifyHits;
+
+    Result(Scenario scenario, long generateMillis, long addMillis, long javaHeapBytes, long nativeHeapBytes,
+        long firstDrawMillis, List<Long> identifyMillis, int identifyHits) {
+      this.scenario = scenario;
+      this.generateMillis = generateMillis;
+      this.addMillis = addMillis;
+      this.javaHeapBytes = javaHeapBytes;
+      this.nativeHeapBytes = nativeHeapBytes;
+      this.firstDrawMillis = firstDrawMillis;
+      this.identifyMillis = identifyMillis;
+      this.identifyHits = identifyHits;
+    }
+
+    long getAddGraphicsPerSecond() {
+      return addMillis > 0 ? scenario.size * 1000L / addMillis : scenario.size * 1000L;
+    }
+
+    double getJavaHeapBytesPerGraphic() {
+      return (double) javaHeapBytes / Math.max(1, scenario.size);
+    }
+
+    double getNativeHeapBytesPerGraphic() {
+      return (double) nativeHeapBytes / Math.max(1, scenario.size);
+    }
+
+    /**
+     * @return the identify latency below which the given fraction of the samples fall
+     */
+    long getIdentifyPercentile(double fraction) {
+      if (identifyMillis.isEmpty()) {
+        return -1;
+      }
+      List<Long> sorted = new ArrayList<>(identifyMillis);
+      Collections.sort(sorted);
+      int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+      return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    JSONObject toJson() throws JSONException {
+      JSONObject json = new JSONObject();
+      json.put("geometryType", scenario.kind.name());
+      json.put("renderingMode", scenario.renderingMode.name());
+      json.put("graphicCount", scenario.size);
+      json.put("generateMillis", generateMillis);
+      json.put("addMillis", addMillis);
+      json.put("addGraphicsPerSecond", getAddGraphicsPerSecond());
+      json.put("javaHeapBytesPerGraphic", getJavaHeapBytesPerGraphic());
+      json.put("nativeHeapBytesPerGraphic", getNativeHeapBytesPerGraphic());
+      json.put("firstDrawMillis", firstDrawMillis);
+      json.put("identifySamples", identifyMillis.size());
+      json.put("identifyHits", identifyHits);
+      json.put("identifyMedianMillis", getIdentifyPercentile(0.5));
+      json.put("identifyP95Millis", getIdentifyPercentile(0.95));
+      json.put("identifyMaxMillis", getIdentifyPercentile(1));
+      return json;
+    }
+  }
+
+  private final MapView mMapView;
+
+  private final Envelope mExtent;
+
+  private final int mIdentifySamples;
+
+  private final double mIdentifyTolerance;
+
+  private final long mDrawTimeoutMillis;
+
+  private final Listener mListener;
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+  private final Runnable mDrawTimeout = () -> onDrawn(-1);
+
+  private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+  private List<Scenario> mScenarios;
+
+  private final List<Result> mResults = new ArrayList<>();
+
+  private int mScenarioIndex;
+
+  // changed on every run and cancel, so graphics generated for a run that has since stopped are dropped
+  private int mRunId;
+
+  private boolean mRunning;
+
+  // state of the scenario running
+  private GraphicsOverlay mOverlay;
+  private long mGenerateMillis;
+  private long mAddMillis;
+  private long mJavaHeapBefore;
+  private long mNativeHeapBefore;
+  private long mJavaHeapBytes;
+  private long mNativeHeapBytes;
+  private long mDrawStart;
+  private boolean mWaitingForDraw;
+  private boolean mDrawStarted;
+  private long mFirstDrawMillis;
+
+  /**
+   * @param mapView           view the overlays are drawn in, showing the extent
+   * @param extent            extent the graphics are spread over
+   * @param identifySamples   number of identify calls made per scenario
+   * @param identifyTolerance identify tolerance in density-independent pixels
+   * @param drawTimeoutMillis longest wait for the first draw of a scenario
+   * @param listener          notified as scenarios run
+   */
+  GraphicsBenchmark(MapView mapView, Envelope extent, int identifySamples, double identifyTolerance,
+      long drawTimeoutMillis, Listener listener) {
+    mMapView = mapView;
+    mExtent = extent;
+    mIdentifySamples = identifySamples;
+    mIdentifyTolerance = identifyTolerance;
+    mDrawTimeoutMillis = drawTimeoutMillis;
+    mListener = listener;
+    mMapView.addDrawStatusChangedListener(drawStatusChangedEvent -> {
+      if (!mWaitingForDraw) {
+        return;
+      }
+      if (drawStatusChangedEvent.getDrawStatus() == DrawStatus.IN_PROGRESS) {
+        mDrawStarted = true;
+      } else if (drawStatusChangedEvent.getDrawStatus() == DrawStatus.COMPLETED && mDrawStarted) {
+        onDrawn(SystemClock.elapsedRealtime() - mDrawStart);
+      }
+    });
+  }
+
+  /**
+   * Runs the scenarios in order.
+   */
+  void run(List<Scenario> scenarios) {
+    if (mRunning) {
+      return;
+    }
+    mRunning = true;
+    mRunId++;
+    mScenarios = scenarios;
+    mResults.clear();
+    mScenarioIndex = 0;
+    runScenario();
+  }
+
+  boolean isRunning() {
+    return mRunning;
+  }
+
+  /**
+   * Stops after the current step and removes the scenario's overlay.
+   */
+  void cancel() {
+    mRunning = false;
+    mRunId++;
+    mWaitingForDraw = false;
+    mHandler.removeCallbacks(mDrawTimeout);
+    removeOverlay();
+  }
+
+  /**
+   * Cancels the benchmark and stops the thread the graphics are generated on. The benchmark can't be run again.
+   */
+  void shutdown() {
+    cancel();
+    mExecutor.shutdownNow();
+  }
+
+  private void runScenario() {
+    if (!mRunning) {
+      return;
+    }
+    removeOverlay();
+    if (mScenarioIndex == mScenarios.size()) {
+      mRunning = false;
+      mListener.onBenchmarkComplete(new ArrayList<>(mResults));
+      return;
+    }
+    Scenario scenario = mScenarios.get(mScenarioIndex);
+    mListener.onScenarioStarted(scenario, mScenarioIndex, mScenarios.size());
+
+    // let the listener's changes to the screen draw before the measurements start
+    final int runId = mRunId;
+    mHandler.post(() -> {
+      if (!mRunning || runId != mRunId) {
+        return;
+      }
+      mJavaHeapBefore = getUsedJavaHeap();
+      mNativeHeapBefore = Debug.getNativeHeapAllocatedSize();
+      final int seed = mScenarioIndex;
+      mExecutor.execute(() -> {
+        long start = SystemClock.elapsedRealtime();
+        List<Graphic> graphics = SyntheticGraphics.create(scenario.kind, scenario.size, mExtent, seed);
+        long generateMillis = SystemClock.elapsedRealtime() - start;
+        mHandler.post(() -> addGraphics(scenario, graphics, generateMillis, runId));
+      });
+    });
+  }
+
+  /**
+   * Adds the generated graphics to a new overlay at once, and waits for them to be drawn.
+   */
+  private void addGraphics(Scenario scenario, List<Graphic> graphics, long generateMillis, int runId) {
+    if (!mRunning || runId != mRunId) {
+      return;
+    }
+    mGenerateMillis = generateMillis;
+    mOverlay = new GraphicsOverlay(scenario.renderingMode);
+    mOverlay.setRenderer(new SimpleRenderer(createSymbol(scenario.kind)));
+    mMapView.getGraphicsOverlays().add(mOverlay);
+
+    // the first draw is timed from the start of the add, which is when the overlay has something new to draw
+    mDrawStarted = false;
+    mWaitingForDraw = true;
+    mDrawStart = SystemClock.elapsedRealtime();
+    mOverlay.getGraphics().addAll(graphics);
+    mAddMillis = SystemClock.elapsedRealtime() - mDrawStart;
+    mHandler.postDelayed(mDrawTimeout, mDrawTimeoutMillis);
+  }
+
+  private void onDrawn(long firstDrawMillis) {
+    if (!mWaitingForDraw) {
+      return;
+    }
+    mWaitingForDraw = false;
+    mHandler.removeCallbacks(mDrawTimeout);
+    mFirstDrawMillis = firstDrawMillis;
+    // the overlay holds the only references to the graphics by now, and the first draw has allocated what Runtime
+    // needs to draw them
+    mJavaHeapBytes = getUsedJavaHeap() - mJavaHeapBefore;
+    mNativeHeapBytes = Debug.getNativeHeapAllocatedSize() - mNativeHeapBefore;
+    identify(new Random(mScenarioIndex), new ArrayList<>(mIdentifySamples), 0);
+  }
+
+  /**
+   * Identifies the overlay at random points one at a time, then completes the scenario.
+   */
+  private void identify(final Random random, final List<Long> latencies, final int hits) {
+    if (!mRunning) {
+      return;
+    }
+    if (latencies.size() == mIdentifySamples || mMapView.getWidth() == 0 || mMapView.getHeight() == 0) {
+      Result result = new Result(mScenarios.get(mScenarioIndex), mGenerateMillis, mAddMillis, mJavaHeapBytes,
+          mNativeHeapBytes, mFirstDrawMillis, latencies, hits);
+      mResults.add(result);
+      mListener.onScenarioComplete(result);
+      mScenarioIndex++;
+      runScenario();
+      return;
+    }
+    android.graphics.Point screenPoint = new android.graphics.Point(random.nextInt(mMapView.getWidth()),
+        random.nextInt(mMapView.getHeight()));
+    final long start = SystemClock.elapsedRealtime();
+    final ListenableFuture<IdentifyGraphicsOverlayResult> identifyFuture = mMapView
+        .identifyGraphicsOverlayAsync(mOverlay, screenPoint, mIdentifyTolerance, false, 1);
+    identifyFuture.addDoneListener(() -> {
+      latencies.add(SystemClock.elapsedRealtime() - start);
+      int newHits = hits;
+      try {
+        if (!identifyFuture.get().getGraphics().isEmpty()) {
+          newHits++;
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        // a failed identify still counts towards the latency samples
+      }
+      identify(random, latencies, newHits);
+    });
+  }
+
+  private void removeOverlay() {
+    if (mOverlay != null) {
+      mMapView.getGraphicsOverlays().remove(mOverlay);
+      mOverlay.getGraphics().clear();
+      mOverlay = null;
+    }
+  }
+
+  /**
+   * @return Java heap in use after collecting garbage, so measurements before and after an allocation are comparable
+   */
+  private static long getUsedJavaHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    runtime.gc();
+    runtime.runFinalization();
+    runtime.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static Symbol createSymbol(SyntheticGraphics.GeometryKind kind) {
+    switch (kind) {
+      case POLYLINE:
+        return new SimpleLineSymbol(SimpleLineSymbol.Style.SOLID, 0xFF0000FF, 1);
+      case POLYGON:
+        return new SimpleFillSymbol(SimpleFillSymbol.Style.SOLID, 0x8800FF00,
+            new SimpleLineSymbol(SimpleLineSymbol.Style.SOLID, 0xFF008800, 1));
+      default:
+        return new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, 0xFFFF0000, 4);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.graphicsoverlaybenchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.widget.Button;
+import android.widget.TextView;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.arcgisruntime.mapping.ArcGISMap;
+import com.esri.arcgisruntime.mapping.Viewpoint;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+import com.esri.arcgisruntime.mapping.view.MapView;
+
+public class MainActivity extends AppCompatActivity {
+
+  private static final String TAG = MainActivity.class.getSimpleName();
+
+  // intent extras which override the configured scenarios, e.g. adb shell am start --eia sizes 100000,1000000
+  private static final String EXTRA_SIZES = "sizes";
+  private static final String EXTRA_AUTO_RUN = "autorun";
+
+  private MapView mMapView;
+  private TextView mStatusTextView;
+  private Button mRunButton;
+  private GraphicsBenchmark mBenchmark;
+
+  @Override
+  protected void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+    setContentView(R.layout.activity_main);
+
+    // inflate views from layout
+    mMapView = findViewById(R.id.mapView);
+    mStatusTextView = findViewById(R.id.statusTextView);
+    mRunButton = findViewById(R.id.runButton);
+
+    // a map without a basemap, so only the graphics are drawn
+    ArcGISMap map = new ArcGISMap(SpatialReferences.getWebMercator());
+    Envelope extent = new Envelope(-13100000, 3900000, -12900000, 4100000, SpatialReferences.getWebMercator());
+    map.setInitialViewpoint(new Viewpoint(extent));
+    mMapView.setMap(map);
+
+    mBenchmark = new GraphicsBenchmark(mMapView, extent, getResources().getInteger(R.integer.identify_samples),
+        getResources().getInteger(R.integer.identify_tolerance_dp),
+        getResources().getInteger(R.integer.draw_timeout_seconds) * 1000L, new GraphicsBenchmark.Listener() {
+      @Override
+      public void onScenarioStarted(GraphicsBenchmark.Scenario scenario, int index, int count) {
+        mStatusTextView.setText(getString(R.string.scenario_started, index + 1, count, scenario.toString()));
+      }
+
+      @Override
+      public void onScenarioComplete(GraphicsBenchmark.Result result) {
+        Log.i(TAG, String.format(Locale.US,
+            "%s: added in %d ms (%d graphics/s), %.1f Java and %.1f native heap bytes per graphic, first draw %d ms, "
+                + "identify median %d ms, p95 %d ms", result.scenario, result.addMillis,
+            result.getAddGraphicsPerSecond(), result.getJavaHeapBytesPerGraphic(),
+            result.getNativeHeapBytesPerGraphic(), result.firstDrawMillis, result.getIdentifyPercentile(0.5),
+            result.getIdentifyPercentile(0.95)));
+      }
+
+      @Override
+      public void onBenchmarkComplete(List<GraphicsBenchmark.Result> results) {
+        mRunButton.setEnabled(true);
+        try {
+          File file = writeResults(results);
+          mStatusTextView.setText(getString(R.string.results_written, results.size(), file.getPath()));
+          Log.i(TAG, "Results written to " + file.getPath());
+        } catch (IOException | JSONException e) {
+          mStatusTextView.setText(getString(R.string.results_failed, e.getMessage()));
+          Log.e(TAG, "Writing results failed", e);
+        }
+      }
+    });
+
+    mRunButton.setOnClickListener(v -> runBenchmark());
+    if (getIntent().getBooleanExtra(EXTRA_AUTO_RUN, false)) {
+      runBenchmark();
+    }
+  }
+
+  /**
+   * Runs every geometry type at every size in both rendering modes.
+   */
+  private void runBenchmark() {
+    if (mBenchmark.isRunning()) {
+      return;
+    }
+    int[] sizes = getIntent().getIntArrayExtra(EXTRA_SIZES);
+    if (sizes == null) {
+      sizes = getResources().getIntArray(R.array.benchmark_sizes);
+    }
+    List<GraphicsBenchmark.Scenario> scenarios = new ArrayList<>();
+    for (GraphicsOverlay.RenderingMode renderingMode : new GraphicsOverlay.RenderingMode[] {
+        GraphicsOverlay.RenderingMode.STATIC, GraphicsOverlay.RenderingMode.DYNAMIC }) {
+      for (SyntheticGraphics.GeometryKind kind : SyntheticGraphics.GeometryKind.values()) {
+        for (int size : sizes) {
+          scenarios.add(new GraphicsBenchmark.Scenario(kind, renderingMode, size));
+        }
+      }
+    }
+    mRunButton.setEnabled(false);
+    mBenchmark.run(scenarios);
+  }
+
+  /**
+   * Writes the results as JSON to the app's external files directory, where they can be pulled with adb.
+   */
+  private File writeResults(List<GraphicsBenchmark.Result> results) throws IOException, JSONException {
+    JSONObject json = new JSONObject();
+    json.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+    json.put("sdkInt", Build.VERSION.SDK_INT);
+    json.put("timestamp", System.currentTimeMillis());
+    JSONArray scenarios = new JSONArray();
+    for (GraphicsBenchmark.Result result : results) {
+      scenarios.put(result.toJson());
+    }
+    json.put("scenarios", scenarios);
+
+    File directory = getExternalFilesDir(null);
+    if (directory == null) {
+      directory = getFilesDir();
+    }
+    File file = new File(directory, "graphics-benchmark-" + System.currentTimeMillis() + ".json");
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      writer.write(json.toString(2));
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  @Override
+  protected void onPause() {
+    super.onPause();
+    mMapView.pause();
+  }
+
+  @Override
+  protected void onResume() {
+    super.onResume();
+    mMapView.resume();
+  }
+
+  @Override
+  protected void onDestroy() {
+    super.onDestroy();
+    mBenchmark.shutdown();
+    mMapView.dispose();
+  }
+}
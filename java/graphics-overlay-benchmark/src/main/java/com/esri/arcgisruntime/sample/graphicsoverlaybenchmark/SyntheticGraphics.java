@@ -0,0 +1,101 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.graphicsoverlaybenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+
+/**
+ * Generates graphics with random geometries spread evenly over an extent. The same seed always gives the same
+ * graphics, so runs of a benchmark scenario are comparable. Lines and polygons are sized to the space each graphic
+ * would get if the extent was divided between them, so they overlap about as much at every count.
+ */
+final class SyntheticGraphics {
+
+  enum GeometryKind {
+    POINT, POLYLINE, POLYGON
+  }
+
+  private static final int POLYLINE_VERTICES = 4;
+
+  private static final int POLYGON_VERTICES = 5;
+
+  private SyntheticGraphics() {
+  }
+
+  /**
+   * Creates graphics without symbols, to be drawn by the renderer of their overlay.
+   *
+   * @param kind   geometry type of the graphics
+   * @param count  number of graphics to create
+   * @param extent extent the graphics are spread over
+   * @param seed   seed of the random positions
+   */
+  static List<Graphic> create(GeometryKind kind, int count, Envelope extent, long seed) {
+    Random random = new Random(seed);
+    SpatialReference spatialReference = extent.getSpatialReference();
+    // side of the square each graphic would get if the extent was divided evenly
+    double cellSize = Math.sqrt(extent.getWidth() * extent.getHeight() / Math.max(1, count));
+    List<Graphic> graphics = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      double x = extent.getXMin() + random.nextDouble() * extent.getWidth();
+      double y = extent.getYMin() + random.nextDouble() * extent.getHeight();
+      graphics.add(new Graphic(createGeometry(kind, x, y, cellSize, random, spatialReference)));
+    }
+    return graphics;
+  }
+
+  private static Geometry createGeometry(GeometryKind kind, double x, double y, double cellSize, Random random,
+      SpatialReference spatialReference) {
+    switch (kind) {
+      case POLYLINE: {
+        // a random walk of steps about a cell long
+        PointCollection points = new PointCollection(spatialReference);
+        points.add(x, y);
+        for (int i = 1; i < POLYLINE_VERTICES; i++) {
+          x += (random.nextDouble() - 0.5) * 2 * cellSize;
+          y += (random.nextDouble() - 0.5) * 2 * cellSize;
+          points.add(x, y);
+        }
+        return new Polyline(points);
+      }
+      case POLYGON: {
+        // a regular polygon filling about half a cell, at a random rotation
+        PointCollection points = new PointCollection(spatialReference);
+        double radius = cellSize / 2;
+        double rotation = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < POLYGON_VERTICES; i++) {
+          double angle = rotation + i * 2 * Math.PI / POLYGON_VERTICES;
+          points.add(x + radius * Math.cos(angle), y + radius * Math.sin(angle));
+        }
+        return new Polygon(points);
+      }
+      default:
+        return new Point(x, y, spatialReference);
+    }
+  }
+}
@@ -17,7 +17,6 @@
 package com.esri.arcgisruntime.sample.identifygraphicoverlay;
 
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 import android.content.Context;
 import android.graphics.Color;
 import android.os.Bundle;
@@ -25,7 +24,6 @@ import android.support.v7.app.AppCompatActivity;
 import android.view.MotionEvent;
 import android.widget.Toast;
 
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.geometry.PolygonBuilder;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
@@ -33,7 +31,6 @@ import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.DefaultMapViewOnTouchListener;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
-import com.esri.arcgisruntime.mapping.view.IdentifyGraphicsOverlayResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.util.ListenableList;
@@ -42,6 +39,7 @@ public class MainActivity extends AppCompatActivity {
 
     private MapView mMapView;
     private GraphicsOverlay grOverlay;
+    private GraphicsSpatialIndex mGraphicsIndex;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -96,6 +94,8 @@ public class MainActivity extends AppCompatActivity {
 
         // create graphics overlay
         grOverlay = new GraphicsOverlay();
+        // index the graphics so taps can be identified without a round trip to the map view
+        mGraphicsIndex = new GraphicsSpatialIndex(mMapView, grOverlay);
         // create list of graphics
         ListenableList<Graphic> graphics = grOverlay.getGraphics();
         // add graphic to graphics overlay
@@ -131,25 +131,20 @@ public class MainActivity extends AppCompatActivity {
             android.graphics.Point screenPoint = new android.graphics.Point((int)e.getX(), (int)e.getY());
 
             // identify graphics on the graphics overlay
-            final ListenableFuture<IdentifyGraphicsOverlayResult> identifyGraphic = mMapView.identifyGraphicsOverlayAsync(grOverlay, screenPoint, 10.0, false, 2);
-
-            identifyGraphic.addDoneListener(new Runnable() {
+            mGraphicsIndex.identify(screenPoint, 10.0, 2, new GraphicsSpatialIndex.IdentifyListener() {
                 @Override
-                public void run() {
-                    try {
-                        IdentifyGraphicsOverlayResult grOverlayResult = identifyGraphic.get();
-                        // get the list of graphics returned by identify graphic overlay
-                        List<Graphic> graphic = grOverlayResult.getGraphics();
-                        // get size of list in results
-                        int identifyResultSize = graphic.size();
-                        if(!graphic.isEmpty()){
-                            // show a toast message if graphic was returned
-                            Toast.makeText(getApplicationContext(), "Tapped on " + identifyResultSize + " Graphic", Toast.LENGTH_SHORT).show();
-                        }
-                    }catch(InterruptedException | ExecutionException ie){
-                        ie.printStackTrace();
+                public void onGraphicsIdentified(List<Graphic> graphic, boolean fromIndex) {
+                    // get size of list in results
+                    int identifyResultSize = graphic.size();
+                    if(!graphic.isEmpty()){
+                        // show a toast message if graphic was returned
+                        Toast.makeText(getApplicationContext(), "Tapped on " + identifyResultSize + " Graphic", Toast.LENGTH_SHORT).show();
                     }
+                }
 
+                @Override
+                public void onIdentifyFailed(Exception ex) {
+                    ex.printStackTrace();
                 }
             });
 
@@ -36,11 +36,11 @@ import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.ArcGISFeatureTable;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.FeatureTable;
 import com.esri.arcgisruntime.data.QueryParameters;
-import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.layers.FeatureLayer;
@@ -61,6 +61,7 @@ public class MainActivity extends AppCompatActivity {
   private ArcGISMap mArcGISMap;
   private BottomSheetBehavior mBottomSheetBehavior = null;
   private ArrayAdapter<String> mArrayAdapter;
+  private RelatedRecordCache mRelatedRecordCache;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -168,22 +169,21 @@ public class MainActivity extends AppCompatActivity {
           // iterate over features returned
           for (Feature feature : result) {
             ArcGISFeature arcGISFeature = (ArcGISFeature) feature;
-            ArcGISFeatureTable selectedTable = (ArcGISFeatureTable) feature.getFeatureTable();
-            final ListenableFuture<List<RelatedFeatureQueryResult>> relatedFeatureQueryResultFuture = selectedTable
-                .queryRelatedFeaturesAsync(arcGISFeature);
-            relatedFeatureQueryResultFuture.addDoneListener(() -> {
-              try {
-                List<RelatedFeatureQueryResult> relatedFeatureQueryResultList = relatedFeatureQueryResultFuture
-                    .get();
-                // iterate over returned RelatedFeatureQueryResults
-                for (RelatedFeatureQueryResult relatedQueryResult : relatedFeatureQueryResultList) {
+            // related records come from the cache when the feature's area has been prefetched
+            mRelatedRecordCache.getRelatedRecords(arcGISFeature, new RelatedRecordCache.Listener() {
+              @Override
+              public void onRelatedRecords(List<RelatedRecordCache.RelatedRecords> relatedRecordsList,
+                  boolean fromCache) {
+                Log.d(TAG, "Related records " + (fromCache ? "served from cache" : "queried") + ", cache hits: "
+                    + mRelatedRecordCache.getHitCount() + ", misses: " + mRelatedRecordCache.getMissCount());
+                // iterate over the related records of each relationship
+                for (RelatedRecordCache.RelatedRecords relatedRecords : relatedRecordsList) {
                   // add Table Name to List
-                  String relatedTableName = relatedQueryResult.getRelatedTable().getTableName();
+                  String relatedTableName = relatedRecords.relatedTable.getTableName();
                   mRelatedValues.add(relatedTableName);
                   // iterate over Features returned
-                  for (Feature relatedFeature : relatedQueryResult) {
+                  for (ArcGISFeature agsFeature : relatedRecords.features) {
                     // get the Display field to use as filter on related attributes
-                    ArcGISFeature agsFeature = (ArcGISFeature) relatedFeature;
                     String displayFieldName = agsFeature.getFeatureTable().getLayerInfo().getDisplayFieldName();
                     String displayFieldValue = agsFeature.getAttributes().get(displayFieldName).toString();
                     mRelatedValues.add(displayFieldValue);
@@ -191,9 +191,12 @@ public class MainActivity extends AppCompatActivity {
                     mArrayAdapter.notifyDataSetChanged();
                   }
                 }
-              } catch (InterruptedException | ExecutionException e) {
+              }
+
+              @Override
+              public void onRelatedRecordsFailed(Exception e) {
                 String error = "Error getting related feature query result: " + e.getMessage();
-                Toast.makeText(this, error, Toast.LENGTH_LONG).show();
+                Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
                 Log.e(TAG, error);
               }
             });
@@ -215,19 +218,49 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Create Features from Layers in the Map
+   * Create Features from Layers in the Map and a cache of their related records
    *
    * @param map ArcGISMap to get Layers and Tables
    */
   private void createFeatures(ArcGISMap map) {
     LayerList layers = map.getOperationalLayers();
+    // tables which may hold related records
+    List<ServiceFeatureTable> tables = new ArrayList<>();
     // add the National Parks Feature layer to LayerList
     for (Layer layer : layers) {
       FeatureLayer fLayer = (FeatureLayer) layer;
       if (fLayer.getName().contains("Alaska National Parks")) {
         mOperationalLayers.add(fLayer);
       }
+      if (fLayer.getFeatureTable() instanceof ServiceFeatureTable) {
+        tables.add((ServiceFeatureTable) fLayer.getFeatureTable());
+      }
+    }
+    for (FeatureTable table : map.getTables()) {
+      if (table instanceof ServiceFeatureTable) {
+        tables.add((ServiceFeatureTable) table);
+      }
+    }
+    // related tables which are not shown on the map have to be loaded before their relationships can be resolved
+    for (ServiceFeatureTable table : tables) {
+      table.loadAsync();
     }
+
+    ServiceFeatureTable parksTable = (ServiceFeatureTable) mOperationalLayers.get(0).getFeatureTable();
+    mRelatedRecordCache = new RelatedRecordCache(parksTable, tables,
+        getResources().getInteger(R.integer.related_prefetch_max_features),
+        getResources().getInteger(R.integer.related_cache_capacity));
+    // prefetch related records for the parks in view whenever the map stops moving
+    mMapView.addNavigationChangedListener(navigationChangedEvent -> {
+      if (!navigationChangedEvent.isNavigating() && mMapView.getVisibleArea() != null) {
+        mRelatedRecordCache.prefetch(mMapView.getVisibleArea());
+      }
+    });
+    parksTable.addDoneLoadingListener(() -> {
+      if (parksTable.getLoadStatus() == LoadStatus.LOADED && mMapView.getVisibleArea() != null) {
+        mRelatedRecordCache.prefetch(mMapView.getVisibleArea());
+      }
+    });
   }
 
   @Override
@@ -0,0 +1,323 @@
+/* Copyright 2018 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.mapimagelayertables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import com.esri.arcgisruntime.arcgisservices.RelationshipInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.ArcGISFeature;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+/**
+ * Loads the comments of a map service table together with the service requests they are related to, fetching only
+ * the fields needed to show them.
+ * <p>
+ * Comments are populated into a table in manual cache mode with just their object id, key and display fields, and
+ * service requests with just their object id, key field and geometry; {@link ArcGISFeature#loadAsync()} fetches the
+ * rest of a feature's attributes when they are needed. Instead of querying the related features of each comment,
+ * {@link #prefetch(List)} resolves the service requests of any number of comments with one query matching their key
+ * values. Resolved service requests are cached, including comments without one, so looking a comment up again makes
+ * no request.
+ * <p>
+ * All methods must be called on the main thread, which is also where the done listeners of the tables' futures are
+ * delivered.
+ */
+class CommentRecordLoader {
+
+  /**
+   * Receives the loaded comments.
+   */
+  interface CommentsListener {
+    void onCommentsLoaded(List<ArcGISFeature> comments);
+
+    void onCommentsFailed(Exception e);
+  }
+
+  /**
+   * Receives the service request related to a comment.
+   */
+  interface ServiceRequestListener {
+    /**
+     * @param serviceRequest the related service request, or null if the comment has none with a geometry
+     */
+    void onServiceRequest(ArcGISFeature serviceRequest, boolean fromCache);
+
+    void onServiceRequestFailed(Exception e);
+  }
+
+  private final ServiceFeatureTable mCommentsTable;
+
+  private final ServiceFeatureTable mRequestsTable;
+
+  private final RelationshipInfo mRelationshipInfo;
+
+  private final String mDisplayField;
+
+  // resolved service request per key value, null for keys without one
+  private final Map<Object, ArcGISFeature> mServiceRequests = new HashMap<>();
+
+  // listeners waiting for keys being resolved
+  private final Map<Object, List<ServiceRequestListener>> mPending = new HashMap<>();
+
+  private int mRequestCount;
+
+  private int mHitCount;
+
+  /**
+   * @param commentsTable loaded comments table of a map image layer
+   * @param displayField  field of the comments shown in the list
+   */
+  CommentRecordLoader(ServiceFeatureTable commentsTable, String displayField) {
+    mDisplayField = displayField;
+    // the table relating the comments to their service requests
+    mRelationshipInfo = commentsTable.getLayerInfo().getRelationshipInfos().get(0);
+
+    // separate tables in manual cache mode, so the fields fetched can be chosen
+    mCommentsTable = new ServiceFeatureTable(commentsTable.getUri());
+    mCommentsTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+    mRequestsTable = new ServiceFeatureTable(getServiceUrl(commentsTable) + mRelationshipInfo.getRelatedTableId());
+    mRequestsTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+  }
+
+  /**
+   * Loads the id, key and display fields of the comments matching the where clause.
+   */
+  void loadComments(String whereClause, final CommentsListener listener) {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause(whereClause);
+    mRequestCount++;
+    mCommentsTable.loadAsync();
+    mCommentsTable.addDoneLoadingListener(() -> {
+      if (mCommentsTable.getLoadStatus() != LoadStatus.LOADED) {
+        listener.onCommentsFailed(mCommentsTable.getLoadError());
+        return;
+      }
+      List<String> outFields = Arrays.asList(mCommentsTable.getObjectIdField(), mRelationshipInfo.getKeyField(),
+          mDisplayField);
+      final ListenableFuture<FeatureQueryResult> commentsFuture = mCommentsTable
+          .populateFromServiceAsync(queryParameters, true, outFields);
+      commentsFuture.addDoneListener(() -> {
+        try {
+          List<ArcGISFeature> comments = new ArrayList<>();
+          for (Feature feature : commentsFuture.get()) {
+            comments.add((ArcGISFeature) feature);
+          }
+          listener.onCommentsLoaded(comments);
+        } catch (InterruptedException | ExecutionException e) {
+          listener.onCommentsFailed(e);
+        }
+      });
+    });
+  }
+
+  /**
+   * @return text of the comment's display field
+   */
+  String getDisplayText(ArcGISFeature comment) {
+    Object text = comment.getAttributes().get(mDisplayField);
+    return text != null ? text.toString() : "";
+  }
+
+  /**
+   * Resolves the service requests of the given comments which are neither cached nor being resolved, with one query.
+   */
+  void prefetch(List<ArcGISFeature> comments) {
+    Set<Object> keys = new LinkedHashSet<>();
+    for (ArcGISFeature comment : comments) {
+      Object key = getKey(comment);
+      if (key != null && !mServiceRequests.containsKey(key) && !mPending.containsKey(key)) {
+        keys.add(key);
+      }
+    }
+    if (!keys.isEmpty()) {
+      resolve(keys);
+    }
+  }
+
+  /**
+   * Gets the service request related to a comment, from the cache if it was resolved before.
+   */
+  void getServiceRequest(ArcGISFeature comment, ServiceRequestListener listener) {
+    Object key = getKey(comment);
+    if (key == null) {
+      listener.onServiceRequest(null, false);
+      return;
+    }
+    if (mServiceRequests.containsKey(key)) {
+      mHitCount++;
+      listener.onServiceRequest(mServiceRequests.get(key), true);
+      return;
+    }
+    List<ServiceRequestListener> waiting = mPending.get(key);
+    if (waiting != null) {
+      waiting.add(listener);
+      return;
+    }
+    // the listener is registered before resolving, as resolve can complete before it returns, e.g. when the table
+    // failed to load earlier
+    waiting = new ArrayList<>();
+    waiting.add(listener);
+    mPending.put(key, waiting);
+    resolve(new LinkedHashSet<>(Arrays.asList(key)));
+  }
+
+  /**
+   * @return number of requests made to the service
+   */
+  int getRequestCount() {
+    return mRequestCount;
+  }
+
+  /**
+   * @return number of service requests returned from the cache
+   */
+  int getHitCount() {
+    return mHitCount;
+  }
+
+  private void resolve(final Set<Object> keys) {
+    for (Object key : keys) {
+      if (!mPending.containsKey(key)) {
+        mPending.put(key, new ArrayList<>());
+      }
+    }
+    mRequestCount++;
+    mRequestsTable.loadAsync();
+    mRequestsTable.addDoneLoadingListener(() -> {
+      if (mRequestsTable.getLoadStatus() != LoadStatus.LOADED) {
+        fail(keys, mRequestsTable.getLoadError());
+        return;
+      }
+      final String keyField = getRelatedKeyField();
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause(buildInClause(keyField, keys));
+      queryParameters.setReturnGeometry(true);
+      // keep the service requests resolved before in the table's cache
+      final ListenableFuture<FeatureQueryResult> requestsFuture = mRequestsTable.populateFromServiceAsync(
+          queryParameters, false, Arrays.asList(mRequestsTable.getObjectIdField(), keyField));
+      requestsFuture.addDoneListener(() -> {
+        Map<Object, ArcGISFeature> resolved = new HashMap<>();
+        try {
+          for (Feature feature : requestsFuture.get()) {
+            Object key = normalizeKey(feature.getAttributes().get(keyField));
+            // the first related feature with a geometry is the one shown
+            if (key != null && !resolved.containsKey(key) && feature.getGeometry() != null
+                && !feature.getGeometry().isEmpty()) {
+              resolved.put(key, (ArcGISFeature) feature);
+            }
+          }
+        } catch (InterruptedException | ExecutionException e) {
+          fail(keys, e);
+          return;
+        }
+        // keys without a service request are cached too, so they are not looked up again
+        for (Object key : keys) {
+          ArcGISFeature serviceRequest = resolved.get(key);
+          mServiceRequests.put(key, serviceRequest);
+          List<ServiceRequestListener> waiting = mPending.remove(key);
+          if (waiting != null) {
+            for (ServiceRequestListener listener : waiting) {
+              listener.onServiceRequest(serviceRequest, false);
+            }
+          }
+        }
+      });
+    });
+  }
+
+  private void fail(Set<Object> keys, Throwable error) {
+    Exception exception = error instanceof Exception ? (Exception) error : new Exception(error);
+    for (Object key : keys) {
+      List<ServiceRequestListener> waiting = mPending.remove(key);
+      if (waiting != null) {
+        for (ServiceRequestListener listener : waiting) {
+          listener.onServiceRequestFailed(exception);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the key field of the service requests, as named in their side of the relationship
+   */
+  private String getRelatedKeyField() {
+    for (RelationshipInfo relationshipInfo : mRequestsTable.getLayerInfo().getRelationshipInfos()) {
+      if (relationshipInfo.getId() == mRelationshipInfo.getId()) {
+        return relationshipInfo.getKeyField();
+      }
+    }
+    return mRelationshipInfo.getKeyField();
+  }
+
+  private Object getKey(ArcGISFeature comment) {
+    return normalizeKey(comment.getAttributes().get(mRelationshipInfo.getKeyField()));
+  }
+
+  /**
+   * @return url of the map service a table belongs to, ending with a slash
+   */
+  private static String getServiceUrl(ServiceFeatureTable table) {
+    String uri = table.getUri().trim();
+    while (uri.endsWith("/")) {
+      uri = uri.substring(0, uri.length() - 1);
+    }
+    return uri.substring(0, uri.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Makes key values of the two sides of the relationship comparable, e.g. a short key field matching an integer one.
+   * Returns null for values which can not be matched in a where clause.
+   */
+  private static Object normalizeKey(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof String && !((String) value).isEmpty()) {
+      return value;
+    }
+    return null;
+  }
+
+  private static String buildInClause(String field, Iterable<Object> keys) {
+    StringBuilder clause = new StringBuilder(field).append(" IN (");
+    boolean first = true;
+    for (Object key : keys) {
+      if (!first) {
+        clause.append(',');
+      }
+      first = false;
+      if (key instanceof String) {
+        clause.append('\'').append(((String) key).replace("'", "''")).append('\'');
+      } else {
+        clause.append(key);
+      }
+    }
+    return clause.append(')').toString();
+  }
+}
@@ -18,24 +18,17 @@ package com.esri.arcgisruntime.sample.mapimagelayertables;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 
 import android.graphics.Color;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.util.Log;
+import android.widget.AbsListView;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 import android.widget.Toast;
 
-import com.esri.arcgisruntime.arcgisservices.RelationshipInfo;
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.Feature;
-import com.esri.arcgisruntime.data.FeatureQueryResult;
-import com.esri.arcgisruntime.data.QueryParameters;
-import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
-import com.esri.arcgisruntime.data.RelatedQueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
@@ -57,6 +50,7 @@ public class MainActivity extends AppCompatActivity {
   private MapView mMapView;
   private ListView mCommentListView;
   private ArcGISFeature mServiceRequestFeature;
+  private CommentRecordLoader mCommentRecordLoader;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -70,7 +64,7 @@ public class MainActivity extends AppCompatActivity {
     // initialize list that will hold the comments
     List<String> commentList = new ArrayList<>();
     // initialize a feature list that will hold the corresponding features for each comment
-    List<Feature> featureList = new ArrayList<>();
+    List<ArcGISFeature> featureList = new ArrayList<>();
     // create a map with a topographic basemap
     ArcGISMap map = new ArcGISMap(Basemap.createStreets());
 
@@ -89,75 +83,72 @@ public class MainActivity extends AppCompatActivity {
 
         // get the service request comments table from the map image layer
         ServiceFeatureTable commentsTable = serviceRequestMapImageLayer.getTables().get(0);
-        // create query parameters to get all non-null service request comment records (features) from tables.
-        QueryParameters queryParameters = new QueryParameters();
-        queryParameters.setWhereClause("requestid <> '' AND comments <> ''");
-        // query the table to get non-null records
-        ListenableFuture<FeatureQueryResult> commentQueryResultFuture = commentsTable
-            .queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
-
-        // get the feature query result when it is done
-        commentQueryResultFuture.addDoneListener(() -> {
-          try {
-            FeatureQueryResult commentQueryResult = commentQueryResultFuture.get();
-            // loop through the results to add the comments and features to the corresponding list
-            for (Feature feature : commentQueryResult) {
-              featureList.add(feature);
-              commentList.add(feature.getAttributes().get("comments").toString());
-            }
-            // create array adapter with the queried comments
-            ArrayAdapter<String> adapter = new ArrayAdapter<>(MainActivity.this,
-                android.R.layout.simple_list_item_1,
-                commentList);
-            // add the adapter to the List View
-            mCommentListView.setAdapter(adapter);
-          } catch (InterruptedException | ExecutionException e) {
-            Log.e(TAG, "Error getting  feature query result: " + e.getMessage());
-          }
-        });
+        // load only the fields shown in the list, and the related service requests of the comments in view in batches
+        mCommentRecordLoader = new CommentRecordLoader(commentsTable, getString(R.string.comments_field));
+        // get all non-null service request comment records (features) from the table
+        mCommentRecordLoader.loadComments("requestid <> '' AND comments <> ''",
+            new CommentRecordLoader.CommentsListener() {
+              @Override
+              public void onCommentsLoaded(List<ArcGISFeature> comments) {
+                // loop through the results to add the comments and features to the corresponding list
+                for (ArcGISFeature comment : comments) {
+                  featureList.add(comment);
+                  commentList.add(mCommentRecordLoader.getDisplayText(comment));
+                }
+                // create array adapter with the queried comments
+                ArrayAdapter<String> adapter = new ArrayAdapter<>(MainActivity.this,
+                    android.R.layout.simple_list_item_1,
+                    commentList);
+                // add the adapter to the List View
+                mCommentListView.setAdapter(adapter);
+              }
+
+              @Override
+              public void onCommentsFailed(Exception e) {
+                Log.e(TAG, "Error getting  feature query result: " + e.getMessage());
+              }
+            });
       } else {
         Log.e(TAG, "Service request failed to load");
         Toast.makeText(MainActivity.this, "Service request failed to load", Toast.LENGTH_LONG).show();
       }
     });
 
+    // resolve the service requests of the comments in view with one query, before any of them is selected
+    mCommentListView.setOnScrollListener(new AbsListView.OnScrollListener() {
+      @Override
+      public void onScrollStateChanged(AbsListView view, int scrollState) {
+      }
+
+      @Override
+      public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (mCommentRecordLoader != null && visibleItemCount > 0 && totalItemCount == featureList.size()) {
+          mCommentRecordLoader.prefetch(featureList.subList(firstVisibleItem, firstVisibleItem + visibleItemCount));
+        }
+      }
+    });
+
     mCommentListView.setOnItemClickListener((parent, view, position, id) -> {
       // clear previous selections
       graphicsOverlay.getGraphics().clear();
       // get the comment clicked
-      Feature selectedComment = featureList.get(position);
-
-      // create a service feature table of the comments
-      ServiceFeatureTable commentsTable = serviceRequestMapImageLayer.getTables().get(0);
-
-      // get the relationship that defines related service request for features in the comments table
-      RelationshipInfo commentsRelationshipInfo = commentsTable.getLayerInfo().getRelationshipInfos().get(0);
-      // create query parameters to get the service request for features in the comments table
-      RelatedQueryParameters relatedQueryParameters = new RelatedQueryParameters(commentsRelationshipInfo);
-      relatedQueryParameters.setReturnGeometry(true);
-
-      // query the comments table for related features
-      ListenableFuture<List<RelatedFeatureQueryResult>> relatedRequestResult = commentsTable
-          .queryRelatedFeaturesAsync((ArcGISFeature) selectedComment, relatedQueryParameters);
-      relatedRequestResult.addDoneListener(() -> {
-        try {
-          // get the first result
-          RelatedFeatureQueryResult result = relatedRequestResult.get().get(0);
-          // get the first feature from the result and make sure it has a valid geometry
-          mServiceRequestFeature = null;
-          for (Feature relatedFeature : result) {
-            if (!relatedFeature.getGeometry().isEmpty()) {
-              mServiceRequestFeature = (ArcGISFeature) relatedFeature;
-              break;
-            }
-          }
+      ArcGISFeature selectedComment = featureList.get(position);
+
+      // get the service request of the comment, resolved when the comment came into view
+      mCommentRecordLoader.getServiceRequest(selectedComment, new CommentRecordLoader.ServiceRequestListener() {
+        @Override
+        public void onServiceRequest(ArcGISFeature serviceRequest, boolean fromCache) {
+          Log.d(TAG, String.format("Service request %s, %d requests made, %d cache hits",
+              fromCache ? "from cache" : "fetched", mCommentRecordLoader.getRequestCount(),
+              mCommentRecordLoader.getHitCount()));
+          mServiceRequestFeature = serviceRequest;
           // if a valid related feature is not found, warn the user and return
           if (mServiceRequestFeature == null) {
             Toast.makeText(MainActivity.this, "Related Feature not found", Toast.LENGTH_SHORT).show();
             return;
           }
 
-          // load the related service feature request (so geometry is available)
+          // load the rest of the related service request's attributes, which completes straight away once loaded
           mServiceRequestFeature.loadAsync();
           mServiceRequestFeature.addDoneLoadingListener(() -> {
             if (mServiceRequestFeature.getLoadStatus() == LoadStatus.LOADED) {
@@ -174,7 +165,10 @@ public class MainActivity extends AppCompatActivity {
               mMapView.setViewpointCenterAsync(serviceRequestPoint, 150000);
             }
           });
-        } catch (InterruptedException | ExecutionException e) {
+        }
+
+        @Override
+        public void onServiceRequestFailed(Exception e) {
           Log.e(TAG, "Related Request Failure: " + e.getMessage());
         }
       });
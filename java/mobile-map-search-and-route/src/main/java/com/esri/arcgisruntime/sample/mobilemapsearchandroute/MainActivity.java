@@ -18,7 +18,6 @@ package com.esri.arcgisruntime.sample.mobilemapsearchandroute;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -90,6 +89,7 @@ public class MainActivity extends AppCompatActivity {
   private LocatorTask mLocatorTask;
   private Callout mCallout;
   private ReverseGeocodeParameters mReverseGeocodeParameters;
+  private final SymbolRegistry mSymbolRegistry = new SymbolRegistry();
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -106,6 +106,11 @@ public class MainActivity extends AppCompatActivity {
     mRouteGraphicsOverlay = new GraphicsOverlay();
     mMapView.getGraphicsOverlays().add(mRouteGraphicsOverlay);
     mMapView.getGraphicsOverlays().add(mMarkerGraphicsOverlay);
+    //build the symbols of the first stops up front, later stops get theirs when first tapped
+    int prebuiltStopSymbols = getResources().getInteger(R.integer.prebuilt_stop_symbols);
+    for (int index = 1; index <= prebuiltStopSymbols; index++) {
+      compositeSymbolForStopGraphic(simpleSymbolForStopGraphic(), index);
+    }
     // build the file path to access the mobile map package
     String filePathMMPk = buildMMPkPath();
     // add the map from the mobile map package to the MapView
@@ -315,20 +320,18 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Defines a graphic symbol which represents geocoded locations
+   * Defines a graphic symbol which represents geocoded locations. The symbol is shared by all
+   * stop graphics.
    *
    * @return the stop graphic
    */
   private SimpleMarkerSymbol simpleSymbolForStopGraphic() {
-    SimpleMarkerSymbol simpleMarkerSymbol = new SimpleMarkerSymbol(
-        SimpleMarkerSymbol.Style.CIRCLE, Color.RED, 12);
-    simpleMarkerSymbol.setLeaderOffsetY(5);
-    return simpleMarkerSymbol;
+    return mSymbolRegistry.marker(SimpleMarkerSymbol.Style.CIRCLE, Color.RED, 12, 5);
   }
 
   /**
    * Defines a composite symbol consisting of the SimpleMarkerSymbol and a text symbol
-   * representing the index of a stop in a route
+   * representing the index of a stop in a route. Stops with the same index share the symbol.
    *
    * @param simpleMarkerSymbol a SimpleMarkerSymbol which represents the background of the
    *                           composite symbol
@@ -337,11 +340,9 @@ public class MainActivity extends AppCompatActivity {
    */
   private CompositeSymbol compositeSymbolForStopGraphic(
       SimpleMarkerSymbol simpleMarkerSymbol, Integer index) {
-    TextSymbol textSymbol = new TextSymbol(12, index.toString(), Color.BLACK,
+    TextSymbol textSymbol = mSymbolRegistry.text(12, index.toString(), Color.BLACK,
         TextSymbol.HorizontalAlignment.CENTER, TextSymbol.VerticalAlignment.MIDDLE);
-    List<Symbol> compositeSymbolList = new ArrayList<>();
-    compositeSymbolList.addAll(Arrays.asList(simpleMarkerSymbol, textSymbol));
-    return new CompositeSymbol(compositeSymbolList);
+    return mSymbolRegistry.composite(simpleMarkerSymbol, textSymbol);
   }
 
   /**
@@ -406,6 +407,8 @@ public class MainActivity extends AppCompatActivity {
                 graphic = graphicForPoint(mapPoint, false, null);
               }
               mMarkerGraphicsOverlay.getGraphics().add(graphic);
+              Log.d(TAG, "Symbol usage: "
+                  + mSymbolRegistry.getUsage(mMarkerGraphicsOverlay, mRouteGraphicsOverlay));
               reverseGeocode(mapPoint, graphic);
               route();
             } else if (result.isDone()) {
@@ -501,8 +504,7 @@ public class MainActivity extends AppCompatActivity {
           try {
             Route route = routeResult.get().getRoutes().get(0);
             Graphic routeGraphic = new Graphic(route.getRouteGeometry(),
-                new SimpleLineSymbol(
-                    SimpleLineSymbol.Style.SOLID, Color.BLUE, 5.0f));
+                mSymbolRegistry.line(SimpleLineSymbol.Style.SOLID, Color.BLUE, 5.0f));
             mRouteGraphicsOverlay.getGraphics().add(routeGraphic);
           } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
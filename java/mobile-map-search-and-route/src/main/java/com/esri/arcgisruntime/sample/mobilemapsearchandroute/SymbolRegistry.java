@@ -0,0 +1,170 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.mobilemapsearchandroute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+import com.esri.arcgisruntime.symbology.CompositeSymbol;
+import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
+import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
+import com.esri.arcgisruntime.symbology.Symbol;
+import com.esri.arcgisruntime.symbology.TextSymbol;
+
+/**
+ * Hands out one shared symbol for each distinct symbol definition, so graphics which look the same share a single
+ * symbol instead of each holding its own copy.
+ * <p>
+ * Symbols are keyed by the values they are created from. A symbol returned by the registry is shared by every graphic
+ * it is given to and must not be changed; a graphic which needs a different look gets a different symbol from the
+ * registry instead.
+ */
+class SymbolRegistry {
+
+  /**
+   * Numbers of graphics and symbols at one point in time.
+   */
+  static class Usage {
+
+    // graphics in the overlays counted
+    final int graphicCount;
+
+    // distinct symbol instances used by those graphics
+    final int symbolCount;
+
+    // symbols held by the registry, including those no graphic uses at the moment
+    final int registeredSymbolCount;
+
+    Usage(int graphicCount, int symbolCount, int registeredSymbolCount) {
+      this.graphicCount = graphicCount;
+      this.symbolCount = symbolCount;
+      this.registeredSymbolCount = registeredSymbolCount;
+    }
+
+    @Override
+    public String toString() {
+      return graphicCount + " graphics share " + symbolCount + " symbols (" + registeredSymbolCount + " registered)";
+    }
+  }
+
+  private final Map<String, Symbol> mSymbols = new HashMap<>();
+
+  // key of each registered symbol, so composites can be keyed by their parts
+  private final Map<Symbol, String> mKeys = new IdentityHashMap<>();
+
+  /**
+   * @return the shared simple marker symbol with the given style, color, size and leader offset
+   */
+  SimpleMarkerSymbol marker(SimpleMarkerSymbol.Style style, int color, float size, float leaderOffsetY) {
+    String key = "marker/" + style + "/" + Integer.toHexString(color) + "/" + size + "/" + leaderOffsetY;
+    SimpleMarkerSymbol symbol = (SimpleMarkerSymbol) mSymbols.get(key);
+    if (symbol == null) {
+      symbol = new SimpleMarkerSymbol(style, color, size);
+      symbol.setLeaderOffsetY(leaderOffsetY);
+      register(key, symbol);
+    }
+    return symbol;
+  }
+
+  /**
+   * @return the shared text symbol with the given size, text, color and alignment
+   */
+  TextSymbol text(float size, String text, int color, TextSymbol.HorizontalAlignment horizontalAlignment,
+      TextSymbol.VerticalAlignment verticalAlignment) {
+    String key = "text/" + size + "/" + Integer.toHexString(color) + "/" + horizontalAlignment + "/"
+        + verticalAlignment + "/" + text;
+    TextSymbol symbol = (TextSymbol) mSymbols.get(key);
+    if (symbol == null) {
+      symbol = new TextSymbol(size, text, color, horizontalAlignment, verticalAlignment);
+      register(key, symbol);
+    }
+    return symbol;
+  }
+
+  /**
+   * @return the shared simple line symbol with the given style, color and width
+   */
+  SimpleLineSymbol line(SimpleLineSymbol.Style style, int color, float width) {
+    String key = "line/" + style + "/" + Integer.toHexString(color) + "/" + width;
+    SimpleLineSymbol symbol = (SimpleLineSymbol) mSymbols.get(key);
+    if (symbol == null) {
+      symbol = new SimpleLineSymbol(style, color, width);
+      register(key, symbol);
+    }
+    return symbol;
+  }
+
+  /**
+   * @param parts symbols from this registry, drawn in order
+   * @return the shared composite symbol made of the given symbols
+   */
+  CompositeSymbol composite(Symbol... parts) {
+    StringBuilder key = new StringBuilder("composite");
+    for (Symbol part : parts) {
+      String partKey = mKeys.get(part);
+      if (partKey == null) {
+        throw new IllegalArgumentException("Parts of a composite symbol must come from the registry");
+      }
+      // part keys may contain any text, so prefix each with its length
+      key.append('/').append(partKey.length()).append(':').append(partKey);
+    }
+    CompositeSymbol symbol = (CompositeSymbol) mSymbols.get(key.toString());
+    if (symbol == null) {
+      List<Symbol> symbols = new ArrayList<>(parts.length);
+      Collections.addAll(symbols, parts);
+      symbol = new CompositeSymbol(symbols);
+      register(key.toString(), symbol);
+    }
+    return symbol;
+  }
+
+  /**
+   * @return number of symbols held by the registry
+   */
+  int size() {
+    return mSymbols.size();
+  }
+
+  /**
+   * Counts the graphics in the given overlays and the distinct symbols they are drawn with.
+   */
+  Usage getUsage(GraphicsOverlay... graphicsOverlays) {
+    int graphicCount = 0;
+    Set<Symbol> symbols = Collections.newSetFromMap(new IdentityHashMap<Symbol, Boolean>());
+    for (GraphicsOverlay graphicsOverlay : graphicsOverlays) {
+      for (Graphic graphic : graphicsOverlay.getGraphics()) {
+        graphicCount++;
+        if (graphic.getSymbol() != null) {
+          symbols.add(graphic.getSymbol());
+        }
+      }
+    }
+    return new Usage(graphicCount, symbols.size(), mSymbols.size());
+  }
+
+  private void register(String key, Symbol symbol) {
+    mSymbols.put(key, symbol);
+    mKeys.put(symbol, key);
+  }
+}
@@ -52,7 +52,6 @@ import com.esri.arcgisruntime.mapping.view.Callout;
 import com.esri.arcgisruntime.mapping.view.DefaultMapViewOnTouchListener;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
-import com.esri.arcgisruntime.mapping.view.IdentifyGraphicsOverlayResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeParameters;
@@ -65,6 +64,7 @@ public class MainActivity extends AppCompatActivity {
   private static final String TAG = MainActivity.class.getSimpleName();
 
   private GraphicsOverlay mGraphicsOverlay;
+  private GraphicsSpatialIndex mGraphicsIndex;
   private GeocodeParameters mGeocodeParameters;
   private MapView mMapView;
   private LocatorTask mLocatorTask;
@@ -86,6 +86,8 @@ public class MainActivity extends AppCompatActivity {
     // add a graphics overlay to the map view
     mGraphicsOverlay = new GraphicsOverlay();
     mMapView.getGraphicsOverlays().add(mGraphicsOverlay);
+    // index the graphics so taps can be identified without a round trip to the map view
+    mGraphicsIndex = new GraphicsSpatialIndex(mMapView, mGraphicsOverlay);
     // create a point symbol for showing the address location
     mPointSymbol = new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, Color.RED, 20.0f);
     // add a touch listener to the map view
@@ -389,20 +391,19 @@ public class MainActivity extends AppCompatActivity {
       final android.graphics.Point screenPoint = new android.graphics.Point((int) event.getX(),
           (int) event.getY());
       // identify graphics on the graphics overlay
-      final ListenableFuture<IdentifyGraphicsOverlayResult> identifyGraphic = mMapView
-          .identifyGraphicsOverlayAsync(mGraphicsOverlay, screenPoint, 10.0, false, 1);
-      identifyGraphic.addDoneListener(() -> {
-        try {
-          IdentifyGraphicsOverlayResult grOverlayResult = identifyGraphic.get();
-          // get the list of graphics returned by identify
-          List<Graphic> graphic = grOverlayResult.getGraphics();
+      mGraphicsIndex.identify(screenPoint, 10.0, 1, new GraphicsSpatialIndex.IdentifyListener() {
+        @Override
+        public void onGraphicsIdentified(List<Graphic> graphic, boolean fromIndex) {
           // if identified graphic is not empty, start DragTouchListener
           if (!graphic.isEmpty()) {
             graphic.get(0).setSelected(true);
             Toast.makeText(MainActivity.this, getString(R.string.reverse_geocode_message), Toast.LENGTH_SHORT).show();
             mMapView.setOnTouchListener(new DragTouchListener(getApplicationContext(), mMapView));
           }
-        } catch (InterruptedException | ExecutionException e) {
+        }
+
+        @Override
+        public void onIdentifyFailed(Exception e) {
           String error = "Error identifying graphic: " + e.getMessage();
           Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
           Log.e(TAG, error);
@@ -25,7 +25,6 @@ import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Environment;
 import android.support.annotation.NonNull;
@@ -53,6 +52,7 @@ public class MainActivity extends AppCompatActivity {
   GraphicsOverlay mGraphicsOverlay;
   String mArcGISTempFolderPath;
   String mPinBlankOrangeFilePath;
+  PictureSymbolCache mPictureSymbolCache;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -78,31 +78,46 @@ public class MainActivity extends AppCompatActivity {
     mGraphicsOverlay = new GraphicsOverlay();
     mMapView.getGraphicsOverlays().add(mGraphicsOverlay);
 
+    // symbols are created in the background and cached, so the activity never waits on them
+    mPictureSymbolCache = PictureSymbolCache.getInstance(this);
+    mPictureSymbolCache.getFromUrl(getString(R.string.campsite_image_url), this::createCampsiteSymbol,
+        new SymbolCallback(new Point(-223560, 6552021, SpatialReferences.getWebMercator())));
+    // the image is decoded at the size the symbol is drawn at before the symbol is created from it
+    mPictureSymbolCache.getFromResource(R.drawable.pin_star_blue, 40, 40, this::createPinStarBlueSymbol,
+        new SymbolCallback(new Point(-226773, 6550477, SpatialReferences.getWebMercator())));
+
+    //see createPictureMarkerSymbolFromFile() method for implementation
+    //first run checks for external storage and permissions,
+    checkSaveResourceToExternalStorage();
+
+  }
+
+  /**
+   * Creates the campsite symbol, called by the symbol cache the first time the symbol is asked for.
+   */
+  private PictureMarkerSymbol createCampsiteSymbol() {
+
     //[DocRef: Name=Picture Marker Symbol URL, Category=Fundamentals, Topic=Symbols and Renderers]
     //Create a picture marker symbol from a URL resource
     //When using a URL, you need to call load to fetch the remote resource
-    final PictureMarkerSymbol campsiteSymbol = new PictureMarkerSymbol(
-        "http://sampleserver6.arcgisonline"
-            + ".com/arcgis/rest/services/Recreation/FeatureServer/0/images/e82f744ebb069bb35b234b3fea46deae");
+    final PictureMarkerSymbol campsiteSymbol = new PictureMarkerSymbol(getString(R.string.campsite_image_url));
     //Optionally set the size, if not set the image will be auto sized based on its size in pixels,
     //its appearance would then differ across devices with different resolutions.
     campsiteSymbol.setHeight(18);
     campsiteSymbol.setWidth(18);
     campsiteSymbol.loadAsync();
     //[DocRef: END]
-    campsiteSymbol.addDoneLoadingListener(new Runnable() {
-      @Override
-      public void run() {
-        //Once the symbol has loaded, add a new graphic to the graphic overlay
-        Point campsitePoint = new Point(-223560, 6552021, SpatialReferences.getWebMercator());
-        Graphic campsiteGraphic = new Graphic(campsitePoint, campsiteSymbol);
-        mGraphicsOverlay.getGraphics().add(campsiteGraphic);
-      }
-    });
+
+    return campsiteSymbol;
+  }
+
+  /**
+   * Creates the blue star symbol from the image decoded by the symbol cache.
+   */
+  private PictureMarkerSymbol createPinStarBlueSymbol(BitmapDrawable pinStarBlueDrawable) {
 
     //[DocRef: Name=Picture Marker Symbol Drawable-android, Category=Fundamentals, Topic=Symbols and Renderers]
     //Create a picture marker symbol from an app resource
-    BitmapDrawable pinStarBlueDrawable = (BitmapDrawable) ContextCompat.getDrawable(this, R.drawable.pin_star_blue);
     final PictureMarkerSymbol pinStarBlueSymbol = new PictureMarkerSymbol(pinStarBlueDrawable);
     //Optionally set the size, if not set the image will be auto sized based on its size in pixels,
     //its appearance would then differ across devices with different resolutions.
@@ -113,20 +128,8 @@ public class MainActivity extends AppCompatActivity {
         11); //The image used for the symbol has a transparent buffer around it, so the offset is not simply height/2
     pinStarBlueSymbol.loadAsync();
     //[DocRef: END]
-    pinStarBlueSymbol.addDoneLoadingListener(new Runnable() {
-      @Override
-      public void run() {
-        //add a new graphic with the same location as the initial viewpoint
-        Point pinStarBluePoint = new Point(-226773, 6550477, SpatialReferences.getWebMercator());
-        Graphic pinStarBlueGraphic = new Graphic(pinStarBluePoint, pinStarBlueSymbol);
-        mGraphicsOverlay.getGraphics().add(pinStarBlueGraphic);
-      }
-    });
-
-    //see createPictureMarkerSymbolFromFile() method for implementation
-    //first run checks for external storage and permissions,
-    checkSaveResourceToExternalStorage();
 
+    return pinStarBlueSymbol;
   }
 
   /**
@@ -135,28 +138,48 @@ public class MainActivity extends AppCompatActivity {
    */
   private void createPictureMarkerSymbolFromFile() {
 
-    //[DocRef: Name=Picture Marker Symbol File-android, Category=Fundamentals, Topic=Symbols and Renderers]
-    //Create a picture marker symbol from a file on disk
-    BitmapDrawable pinBlankOrangeDrawable = (BitmapDrawable) Drawable.createFromPath(mPinBlankOrangeFilePath);
-    final PictureMarkerSymbol pinBlankOrangeSymbol = new PictureMarkerSymbol(pinBlankOrangeDrawable);
-    //Optionally set the size, if not set the image will be auto sized based on its size in pixels,
-    //its appearance would then differ across devices with different resolutions.
-    pinBlankOrangeSymbol.setHeight(20);
-    pinBlankOrangeSymbol.setWidth(20);
-    //Optionally set the offset, to align the base of the symbol aligns with the point geometry
-    pinBlankOrangeSymbol.setOffsetY(10); //The image used has not buffer and therefore the Y offset is height/2
-    pinBlankOrangeSymbol.loadAsync();
-    //[DocRef: END]
-    pinBlankOrangeSymbol.addDoneLoadingListener(new Runnable() {
-      @Override
-      public void run() {
-        //add a new graphic with the same location as the initial viewpoint
-        Point pinBlankOrangePoint = new Point(-228835, 6550763, SpatialReferences.getWebMercator());
-        Graphic pinBlankOrangeGraphic = new Graphic(pinBlankOrangePoint, pinBlankOrangeSymbol);
-        mGraphicsOverlay.getGraphics().add(pinBlankOrangeGraphic);
-      }
-    });
+    // the image is decoded at the size the symbol is drawn at before the symbol is created from it
+    mPictureSymbolCache.getFromFile(mPinBlankOrangeFilePath, 20, 20, pinBlankOrangeDrawable -> {
+
+      //[DocRef: Name=Picture Marker Symbol File-android, Category=Fundamentals, Topic=Symbols and Renderers]
+      //Create a picture marker symbol from a file on disk
+      final PictureMarkerSymbol pinBlankOrangeSymbol = new PictureMarkerSymbol(pinBlankOrangeDrawable);
+      //Optionally set the size, if not set the image will be auto sized based on its size in pixels,
+      //its appearance would then differ across devices with different resolutions.
+      pinBlankOrangeSymbol.setHeight(20);
+      pinBlankOrangeSymbol.setWidth(20);
+      //Optionally set the offset, to align the base of the symbol aligns with the point geometry
+      pinBlankOrangeSymbol.setOffsetY(10); //The image used has not buffer and therefore the Y offset is height/2
+      pinBlankOrangeSymbol.loadAsync();
+      //[DocRef: END]
+
+      return pinBlankOrangeSymbol;
+    }, new SymbolCallback(new Point(-228835, 6550763, SpatialReferences.getWebMercator())));
+
+  }
 
+  /**
+   * Adds a graphic at a point once its symbol is ready.
+   */
+  private class SymbolCallback implements PictureSymbolCache.Callback {
+
+    private final Point mPoint;
+
+    SymbolCallback(Point point) {
+      mPoint = point;
+    }
+
+    @Override
+    public void onSymbolReady(PictureMarkerSymbol symbol) {
+      mGraphicsOverlay.getGraphics().add(new Graphic(mPoint, symbol));
+    }
+
+    @Override
+    public void onSymbolFailed(Exception e) {
+      String error = "Error creating picture marker symbol: " + e.getMessage();
+      Log.e(TAG, error);
+      Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
+    }
   }
 
   /**
@@ -16,19 +16,17 @@
 
 package com.esri.arcgisruntime.sample.querymapimagesublayer;
 
-import java.util.concurrent.ExecutionException;
+import java.util.Arrays;
+import java.util.List;
 
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.Toast;
 
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
-import com.esri.arcgisruntime.data.Feature;
-import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.QueryParameters;
-import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.layers.ArcGISMapImageLayer;
@@ -37,19 +35,20 @@ import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
-import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
-import com.esri.arcgisruntime.symbology.Symbol;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   private MapView mMapView;
   private Button mQueryButton;
   private EditText mQueryInputBox;
+  private SublayerQueryOrchestrator mQueryOrchestrator;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -78,6 +77,35 @@ public class MainActivity extends AppCompatActivity {
     GraphicsOverlay graphicsOverlay = new GraphicsOverlay();
     mMapView.getGraphicsOverlays().add(graphicsOverlay);
 
+    // query the sublayers together, streaming their results into the graphics overlay
+    mQueryOrchestrator = new SublayerQueryOrchestrator(graphicsOverlay,
+        getResources().getInteger(R.integer.graphics_batch_size),
+        getResources().getInteger(R.integer.graphics_conversion_threads), new SublayerQueryOrchestrator.Listener() {
+      @Override
+      public void onSublayerComplete(SublayerQueryOrchestrator.SublayerReport report) {
+        if (report.error != null) {
+          Log.e(TAG, report.name + " query failed: " + report.error.getMessage());
+        } else {
+          Log.i(TAG, getReportText(report));
+        }
+      }
+
+      @Override
+      public void onAllComplete(List<SublayerQueryOrchestrator.SublayerReport> reports) {
+        StringBuilder summary = new StringBuilder();
+        for (SublayerQueryOrchestrator.SublayerReport report : reports) {
+          if (summary.length() > 0) {
+            summary.append('\n');
+          }
+          summary.append(report.error != null ? getString(R.string.sublayer_failed, report.name) :
+              getReportText(report));
+        }
+        if (summary.length() > 0) {
+          Toast.makeText(MainActivity.this, summary, Toast.LENGTH_LONG).show();
+        }
+      }
+    });
+
     // create symbols for showing the results of each sublayer
     SimpleMarkerSymbol citySymbol = new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, 0xFFFF0000, 16);
     SimpleLineSymbol stateSymbol = new SimpleLineSymbol(SimpleLineSymbol.Style.SOLID, 0xFF0000FF, 6);
@@ -100,22 +128,22 @@ public class MainActivity extends AppCompatActivity {
         citiesSublayer.loadAsync();
         statesSublayer.loadAsync();
         countiesSublayer.loadAsync();
+        List<SublayerQueryOrchestrator.SublayerQuery> sublayerQueries = Arrays.asList(
+            new SublayerQueryOrchestrator.SublayerQuery(getString(R.string.cities), citiesSublayer, citySymbol),
+            new SublayerQueryOrchestrator.SublayerQuery(getString(R.string.states), statesSublayer, stateSymbol),
+            new SublayerQueryOrchestrator.SublayerQuery(getString(R.string.counties), countiesSublayer, countySymbol));
 
         // query the sublayers when the button is clicked
         mQueryButton.setOnClickListener(v -> {
 
-          // clear previous results
-          graphicsOverlay.getGraphics().clear();
-
           // create query parameters filtering based on population and the map view's current viewpoint
           QueryParameters populationQuery = new QueryParameters();
           populationQuery.setWhereClause("POP2000 > " + mQueryInputBox.getText());
           populationQuery
               .setGeometry(mMapView.getCurrentViewpoint(Viewpoint.Type.BOUNDING_GEOMETRY).getTargetGeometry());
 
-          QueryAndDisplayGraphics(citiesSublayer, citySymbol, populationQuery, graphicsOverlay);
-          QueryAndDisplayGraphics(statesSublayer, stateSymbol, populationQuery, graphicsOverlay);
-          QueryAndDisplayGraphics(countiesSublayer, countySymbol, populationQuery, graphicsOverlay);
+          // cancel any queries still running, clear previous results and query all the sublayers at once
+          mQueryOrchestrator.query(sublayerQueries, populationQuery);
 
         });
       }
@@ -123,30 +151,14 @@ public class MainActivity extends AppCompatActivity {
   }
 
   /**
-   * Queries the sublayer's feature table with the query parameters and displays the result features as graphics
-   *
-   * @param sublayer        - type of sublayer to query from
-   * @param sublayerSymbol  - symbol to display on map
-   * @param query           - filters based on the population and the current view point
-   * @param graphicsOverlay - manages the graphics that will be added to the map view
+   * @return the timings of a sublayer's query, without a time to the first graphic if it returned none
    */
-  private static void QueryAndDisplayGraphics(ArcGISMapImageSublayer sublayer, Symbol sublayerSymbol, QueryParameters query,
-      GraphicsOverlay graphicsOverlay) {
-    if (sublayer.getLoadStatus() == LoadStatus.LOADED) {
-      ServiceFeatureTable sublayerTable = sublayer.getTable();
-      ListenableFuture<FeatureQueryResult> sublayerQuery = sublayerTable.queryFeaturesAsync(query);
-      sublayerQuery.addDoneListener(() -> {
-        try {
-          FeatureQueryResult result = sublayerQuery.get();
-          for (Feature feature : result) {
-            Graphic sublayerGraphic = new Graphic(feature.getGeometry(), sublayerSymbol);
-            graphicsOverlay.getGraphics().add(sublayerGraphic);
-          }
-        } catch (InterruptedException | ExecutionException e) {
-          Log.e(MainActivity.class.getSimpleName(), e.toString());
-        }
-      });
+  private String getReportText(SublayerQueryOrchestrator.SublayerReport report) {
+    if (report.firstGraphicMillis < 0) {
+      return getString(R.string.sublayer_report_empty, report.name, report.totalMillis);
     }
+    return getString(R.string.sublayer_report, report.name, report.graphicCount, report.firstGraphicMillis,
+        report.totalMillis);
   }
 
   @Override
@@ -164,6 +176,7 @@ public class MainActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    mQueryOrchestrator.shutdown();
     mMapView.dispose();
   }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+/* Copyright 2018 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.querymapimagesublayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.layers.ArcGISMapImageSublayer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+import com.esri.arcgisruntime.symbology.Symbol;
+
+/**
+ * Queries the tables of several map image sublayers at the same time and streams the results into a graphics overlay.
+ * All sublayer queries are started together; as each completes, its features are turned into graphics on a worker
+ * thread and handed to the main thread in batches, so the first graphics show before the whole result is converted.
+ * <p>
+ * Each call to {@link #query} cancels the queries of the previous call through the token they share, including any of
+ * their batches not yet added. Query and cancel must be called on the main thread, where the listener is notified.
+ */
+class SublayerQueryOrchestrator {
+
+  /**
+   * Notified on the main thread as sublayer queries complete.
+   */
+  interface Listener {
+    void onSublayerComplete(SublayerReport report);
+
+    void onAllComplete(List<SublayerReport> reports);
+  }
+
+  /**
+   * A sublayer to query and the symbol its results are shown with.
+   */
+  static final class SublayerQuery {
+    final String name;
+    final ArcGISMapImageSublayer sublayer;
+    final Symbol symbol;
+
+    SublayerQuery(String name, ArcGISMapImageSublayer sublayer, Symbol symbol) {
+      this.name = name;
+      this.sublayer = sublayer;
+      this.symbol = symbol;
+    }
+  }
+
+  /**
+   * Timings of one sublayer's query, measured from the start of the fan-out.
+   */
+  static final class SublayerReport {
+    final String name;
+    final int graphicCount;
+    // -1 if the query returned no graphics
+    final long firstGraphicMillis;
+    final long totalMillis;
+    final Throwable error;
+
+    SublayerReport(String name, int graphicCount, long firstGraphicMillis, long totalMillis, Throwable error) {
+      this.name = name;
+      this.graphicCount = graphicCount;
+      this.firstGraphicMillis = firstGraphicMillis;
+      this.totalMillis = totalMillis;
+      this.error = error;
+    }
+  }
+
+  /**
+   * Shared by the queries of one fan-out, which stop adding graphics once it is cancelled.
+   */
+  private static final class CancellationToken {
+    private volatile boolean mCancelled;
+    private final List<ListenableFuture<?>> mFutures = new ArrayList<>();
+
+    boolean isCancelled() {
+      return mCancelled;
+    }
+
+    void register(ListenableFuture<?> future) {
+      mFutures.add(future);
+    }
+
+    void cancel() {
+      mCancelled = true;
+      for (ListenableFuture<?> future : mFutures) {
+        future.cancel(true);
+      }
+      mFutures.clear();
+    }
+  }
+
+  private final GraphicsOverlay mGraphicsOverlay;
+
+  private final int mBatchSize;
+
+  private final Listener mListener;
+
+  private final ExecutorService mExecutor;
+
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+  private CancellationToken mToken;
+
+  /**
+   * @param graphicsOverlay overlay the result graphics are added to
+   * @param batchSize       number of graphics added to the overlay at a time
+   * @param threadCount     number of results converted to graphics at the same time
+   * @param listener        notified as sublayer queries complete
+   */
+  SublayerQueryOrchestrator(GraphicsOverlay graphicsOverlay, int batchSize, int threadCount, Listener listener) {
+    mGraphicsOverlay = graphicsOverlay;
+    mBatchSize = batchSize;
+    mExecutor = Executors.newFixedThreadPool(threadCount);
+    mListener = listener;
+  }
+
+  /**
+   * Cancels the previous queries, clears the overlay and queries the loaded sublayers with the given parameters.
+   */
+  void query(List<SublayerQuery> queries, QueryParameters queryParameters) {
+    cancel();
+    mGraphicsOverlay.getGraphics().clear();
+    final CancellationToken token = new CancellationToken();
+    mToken = token;
+    final long start = SystemClock.elapsedRealtime();
+    final List<SublayerReport> reports = new ArrayList<>();
+    final List<SublayerQuery> loadedQueries = new ArrayList<>();
+    for (SublayerQuery query : queries) {
+      if (query.sublayer.getLoadStatus() == LoadStatus.LOADED) {
+        loadedQueries.add(query);
+      }
+    }
+    if (loadedQueries.isEmpty()) {
+      mListener.onAllComplete(reports);
+      return;
+    }
+
+    for (final SublayerQuery query : loadedQueries) {
+      final ListenableFuture<FeatureQueryResult> future = query.sublayer.getTable().queryFeaturesAsync(queryParameters);
+      token.register(future);
+      future.addDoneListener(() -> {
+        if (token.isCancelled()) {
+          return;
+        }
+        mExecutor.execute(() -> {
+          // only read and written on the main thread, where the batches are added
+          final long[] firstGraphicMillis = { -1 };
+          int graphicCount = 0;
+          Throwable error = null;
+          try {
+            graphicCount = convert(query, future.get(), token, firstGraphicMillis, start);
+          } catch (ExecutionException e) {
+            error = e.getCause();
+          } catch (InterruptedException | CancellationException e) {
+            // a query cancelled other than through the token is reported as failed rather than killing the worker
+            error = e;
+          }
+          // posted after the sublayer's batches, so it runs once they have all been added
+          final int count = graphicCount;
+          final Throwable finalError = error;
+          mMainHandler.post(() -> {
+            if (token.isCancelled()) {
+              return;
+            }
+            SublayerReport report = new SublayerReport(query.name, count, firstGraphicMillis[0],
+                SystemClock.elapsedRealtime() - start, finalError);
+            reports.add(report);
+            mListener.onSublayerComplete(report);
+            if (reports.size() == loadedQueries.size()) {
+              mListener.onAllComplete(reports);
+            }
+          });
+        });
+      });
+    }
+  }
+
+  /**
+   * Cancels the queries in progress. Graphics already added stay in the overlay.
+   */
+  void cancel() {
+    if (mToken != null) {
+      mToken.cancel();
+      mToken = null;
+    }
+  }
+
+  void shutdown() {
+    cancel();
+    mExecutor.shutdownNow();
+  }
+
+  /**
+   * Turns the result features into graphics on the calling worker thread, posting each batch to the main thread.
+   *
+   * @return number of graphics created
+   */
+  private int convert(SublayerQuery query, FeatureQueryResult result, CancellationToken token,
+      long[] firstGraphicMillis, long start) {
+    int graphicCount = 0;
+    List<Graphic> batch = new ArrayList<>(mBatchSize);
+    for (Feature feature : result) {
+      if (token.isCancelled()) {
+        break;
+      }
+      batch.add(new Graphic(feature.getGeometry(), query.symbol));
+      graphicCount++;
+      if (batch.size() == mBatchSize) {
+        post(batch, token, firstGraphicMillis, start);
+        batch = new ArrayList<>(mBatchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      post(batch, token, firstGraphicMillis, start);
+    }
+    return graphicCount;
+  }
+
+  private void post(final List<Graphic> batch, final CancellationToken token, final long[] firstGraphicMillis,
+      final long start) {
+    mMainHandler.post(() -> {
+      if (token.isCancelled()) {
+        return;
+      }
+      mGraphicsOverlay.getGraphics().addAll(batch);
+      if (firstGraphicMillis[0] < 0) {
+        firstGraphicMillis[0] = SystemClock.elapsedRealtime() - start;
+      }
+    });
+  }
+}
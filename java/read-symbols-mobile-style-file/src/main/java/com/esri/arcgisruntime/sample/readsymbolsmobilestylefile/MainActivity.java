@@ -16,17 +16,19 @@
 
 package com.esri.arcgisruntime.sample.readsymbolsmobilestylefile;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.os.Environment;
@@ -60,7 +62,6 @@ import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.MultilayerPointSymbol;
 import com.esri.arcgisruntime.symbology.Symbol;
-import com.esri.arcgisruntime.symbology.SymbolLayer;
 import com.esri.arcgisruntime.symbology.SymbolStyle;
 import com.esri.arcgisruntime.symbology.SymbolStyleSearchParameters;
 import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
@@ -80,9 +81,9 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
   private SymbolAdapter mMouthAdapter;
   private SymbolAdapter mHatAdapter;
 
-  private final Map<String, SymbolStyleSearchResult> mSelectedSymbols = new HashMap<>();
+  private final Map<String, SymbolCatalog.Entry> mSelectedSymbols = new HashMap<>();
   private String mFaceSymbolKey;
-  private ArrayList<String> mKeys = new ArrayList<>();
+  private List<String> mKeys = new ArrayList<>();
   private int mColor = -1;
   private int mSize = 25;
 
@@ -90,6 +91,18 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
   private GraphicsOverlay mGraphicsOverlay;
   private SymbolStyle mEmojiStyle;
   private MultilayerPointSymbol mCurrentMultilayerSymbol;
+  private SwatchCache mSwatchCache;
+  // reads and writes the symbol catalog index
+  private final ExecutorService mCatalogExecutor = Executors.newSingleThreadExecutor();
+  // the style and its catalog index are loaded side by side, and the symbols shown once both are done
+  private boolean mStyleLoaded;
+  private boolean mCatalogRead;
+  private SymbolCatalog mIndexedCatalog;
+  private SymbolCatalog.StyleVersion mStyleVersion;
+  private String mStyleHash;
+  private File mCatalogIndexFile;
+  // incremented for each swatch asked for, so only the latest one is shown
+  private int mSwatchRequest;
   private SeekBar mSizeSeekBar;
 
   @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -127,7 +140,7 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
       }
 
       @Override public void onStopTrackingTouch(SeekBar seekBar) {
-
+        prerenderVisibleSwatches();
       }
     });
 
@@ -175,7 +188,7 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
   }
 
   /**
-   * Loads the stylx file and searches for all symbols contained within. Put the resulting symbols into recycler views
+   * Loads the stylx file and the catalog of all symbols contained within. Put the resulting symbols into recycler views
    * based on their category (eyes, mouth, hat, face).
    */
   private void loadSymbolsFromStyleFile() {
@@ -185,120 +198,236 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
     createMapViewOnTouchListener();
 
     // create a SymbolStyle by passing the location of the .stylx file in the constructor
-    mEmojiStyle = new SymbolStyle(
+    File styleFile = new File(
         Environment.getExternalStorageDirectory() + getString(R.string.mobile_style_file_path));
+    mEmojiStyle = new SymbolStyle(styleFile.getPath());
     // add a listener to run when the SymbolStyle has loaded
     mEmojiStyle.addDoneLoadingListener(() -> {
       if (mEmojiStyle.getLoadStatus() == LoadStatus.FAILED_TO_LOAD) {
         logErrorToUser(this, getString(R.string.error_mobile_style_file_failed_load, mEmojiStyle.getLoadError()));
         return;
       }
-      // get future to load default search parameters
-      ListenableFuture<SymbolStyleSearchParameters> defaultSearchParametersFuture = mEmojiStyle
-          .getDefaultSearchParametersAsync();
-      defaultSearchParametersFuture.addDoneListener(() -> {
-        try {
-          SymbolStyleSearchParameters defaultSearchParameters = defaultSearchParametersFuture.get();
-          // get future search symbols using the default search parameters
-          ListenableFuture<List<SymbolStyleSearchResult>> symbolStyleSearchResultFuture = mEmojiStyle
-              .searchSymbolsAsync(defaultSearchParameters);
-          symbolStyleSearchResultFuture.addDoneListener(() -> {
-            try {
-              List<SymbolStyleSearchResult> symbolStyleSearchResults = symbolStyleSearchResultFuture.get();
-              for (SymbolStyleSearchResult symbolStyleSearchResult : symbolStyleSearchResults) {
-                // these categories are specific to this SymbolStyle
-                switch (symbolStyleSearchResult.getCategory().toLowerCase(Locale.ROOT)) {
-                  case "eyes":
-                    mEyesAdapter.addSymbol(symbolStyleSearchResult);
-                    break;
-                  case "mouth":
-                    mMouthAdapter.addSymbol(symbolStyleSearchResult);
-                    break;
-                  case "hat":
-                    mHatAdapter.addSymbol(symbolStyleSearchResult);
-                    break;
-                  case "face":
-                    mFaceSymbolKey = symbolStyleSearchResult.getKey();
-                    break;
-                }
-                animateRecyclerViews();
-              }
-            } catch (InterruptedException | ExecutionException e) {
-              logErrorToUser(this, getString(R.string.error_searching_for_symbols_failed, e.getMessage()));
-            }
-          });
-        } catch (InterruptedException | ExecutionException e) {
-          logErrorToUser(this, getString(R.string.error_default_search_parameters_load_failed, e.getMessage()));
-        }
-      });
+      mSwatchCache = new SwatchCache(this, mEmojiStyle, getResources().getInteger(R.integer.swatch_cache_size_kb));
+      mStyleLoaded = true;
+      showSymbolsWhenReady();
     });
-    // load the SymbolStyle
+    // load the SymbolStyle, reading the catalog index at the same time
     mEmojiStyle.loadAsync();
+    loadSymbolCatalog(styleFile);
   }
 
   /**
-   * Create a new multilayer point symbol based on selected symbol keys, size, and color.
+   * Reads the catalog of the symbols in the style file from its index in the background, while the style loads.
+   *
+   * @param styleFile the .stylx file mEmojiStyle is loaded from
    */
-  private void createSwatchAsync() {
-    // get the Future to perform the generation of the multi layer symbol
-    ListenableFuture<Symbol> symbolFuture = mEmojiStyle.getSymbolAsync(mKeys);
-    symbolFuture.addDoneListener(() -> {
+  private void loadSymbolCatalog(File styleFile) {
+    File indexFile = new File(getCacheDir(), styleFile.getName() + ".catalog");
+    mCatalogExecutor.execute(() -> {
+      SymbolCatalog.StyleVersion styleVersion = new SymbolCatalog.StyleVersion(styleFile);
+      SymbolCatalog catalog = null;
+      String styleHash = null;
       try {
-        // wait for the Future to complete and get the result
-        MultilayerPointSymbol faceSymbol = (MultilayerPointSymbol) symbolFuture.get();
-        if (faceSymbol == null) {
-          return;
+        // the style file is only hashed if its size or modification time has changed
+        catalog = SymbolCatalog.read(indexFile, styleVersion);
+        if (catalog == null) {
+          styleHash = styleVersion.getHash();
         }
-        // set size to current size as defined by seek bar
-        faceSymbol.setSize(mSize);
-        // lock the color on all symbol layers
-        for (SymbolLayer symbolLayer : faceSymbol.getSymbolLayers()) {
-          symbolLayer.setColorLocked(true);
-        }
-        // if the user has chosen a color other than "Select color..." (index 0) or "Default" (index 1)
-        if (mColorSpinner.getSelectedItemPosition() > 1) {
-          // unlock the first layer and set it to the selected color
-          faceSymbol.getSymbolLayers().get(0).setColorLocked(false);
-          faceSymbol.setColor(mColor);
+      } catch (IOException e) {
+        Log.w(TAG, "Symbol catalog index could not be read, searching the style instead", e);
+      }
+      if (catalog != null && !catalog.isIndexCurrent()) {
+        // record the new modification time, so the unchanged file isn't hashed again next time
+        try {
+          catalog.write(indexFile);
+        } catch (IOException e) {
+          Log.w(TAG, "Symbol catalog index could not be written", e);
         }
-        // get the future to create the swatch of the multi layer symbol
-        ListenableFuture<Bitmap> bitmapFuture = faceSymbol.createSwatchAsync(this, Color.TRANSPARENT);
-        bitmapFuture.addDoneListener(() -> {
+      }
+      String finalStyleHash = styleHash;
+      SymbolCatalog indexedCatalog = catalog;
+      runOnUiThread(() -> {
+        mStyleVersion = styleVersion;
+        mStyleHash = finalStyleHash;
+        mCatalogIndexFile = indexFile;
+        mIndexedCatalog = indexedCatalog;
+        mCatalogRead = true;
+        showSymbolsWhenReady();
+      });
+    });
+  }
+
+  /**
+   * Once both the style has loaded and its catalog index has been read, shows the symbols of the catalog, or searches
+   * the style for them if the file has no index yet or has changed since it was indexed.
+   */
+  private void showSymbolsWhenReady() {
+    if (!mStyleLoaded || !mCatalogRead) {
+      return;
+    }
+    if (mIndexedCatalog != null) {
+      showSymbolCatalog(mIndexedCatalog);
+    } else {
+      searchSymbolStyle(mStyleVersion, mStyleHash, mCatalogIndexFile);
+    }
+  }
+
+  /**
+   * Searches the style for all symbols contained within, shows them and writes them to the catalog index.
+   *
+   * @param styleVersion the style file as it was when the style was searched
+   * @param styleHash    hash of the style file, or null if it could not be read and the catalog should not be indexed
+   * @param indexFile    to write the catalog to
+   */
+  private void searchSymbolStyle(SymbolCatalog.StyleVersion styleVersion, String styleHash, File indexFile) {
+    // get future to load default search parameters
+    ListenableFuture<SymbolStyleSearchParameters> defaultSearchParametersFuture = mEmojiStyle
+        .getDefaultSearchParametersAsync();
+    defaultSearchParametersFuture.addDoneListener(() -> {
+      try {
+        SymbolStyleSearchParameters defaultSearchParameters = defaultSearchParametersFuture.get();
+        // get future search symbols using the default search parameters
+        ListenableFuture<List<SymbolStyleSearchResult>> symbolStyleSearchResultFuture = mEmojiStyle
+            .searchSymbolsAsync(defaultSearchParameters);
+        symbolStyleSearchResultFuture.addDoneListener(() -> {
           try {
-            Bitmap bitmap = bitmapFuture.get();
-            mPreviewView.setImageBitmap(bitmap);
-            // set this field to enable us to add this symbol to the graphics overlay
-            mCurrentMultilayerSymbol = faceSymbol;
+            List<SymbolStyleSearchResult> symbolStyleSearchResults = symbolStyleSearchResultFuture.get();
+            List<SymbolCatalog.Entry> entries = new ArrayList<>(symbolStyleSearchResults.size());
+            for (SymbolStyleSearchResult symbolStyleSearchResult : symbolStyleSearchResults) {
+              entries.add(new SymbolCatalog.Entry(symbolStyleSearchResult.getKey(), symbolStyleSearchResult.getName(),
+                  symbolStyleSearchResult.getCategory(), new ArrayList<>(symbolStyleSearchResult.getTags())));
+            }
+            SymbolCatalog catalog = new SymbolCatalog(styleVersion.size, styleVersion.lastModified, styleHash,
+                entries);
+            showSymbolCatalog(catalog);
+            if (styleHash != null) {
+              mCatalogExecutor.execute(() -> {
+                try {
+                  catalog.write(indexFile);
+                } catch (IOException e) {
+                  Log.w(TAG, "Symbol catalog index could not be written", e);
+                }
+              });
+            }
           } catch (InterruptedException | ExecutionException e) {
-            logErrorToUser(this, getString(R.string.error_loading_multilayer_bitmap_failed, e.getMessage()));
+            logErrorToUser(this, getString(R.string.error_searching_for_symbols_failed, e.getMessage()));
           }
         });
       } catch (InterruptedException | ExecutionException e) {
-        logErrorToUser(this, getString(R.string.error_loading_multilayer_symbol_failed, e.getMessage()));
+        logErrorToUser(this, getString(R.string.error_default_search_parameters_load_failed, e.getMessage()));
       }
     });
   }
 
+  /**
+   * Puts the symbols of the catalog into recycler views based on their category (eyes, mouth, hat, face), each in a
+   * single update.
+   */
+  private void showSymbolCatalog(SymbolCatalog catalog) {
+    // these categories are specific to this SymbolStyle
+    List<SymbolCatalog.Entry> faces = catalog.getByCategory("face");
+    if (!faces.isEmpty()) {
+      mFaceSymbolKey = faces.get(faces.size() - 1).key;
+    }
+    mEyesAdapter.setSymbols(mEmojiStyle, catalog.getByCategory("eyes"));
+    mMouthAdapter.setSymbols(mEmojiStyle, catalog.getByCategory("mouth"));
+    mHatAdapter.setSymbols(mEmojiStyle, catalog.getByCategory("hat"));
+    animateRecyclerViews();
+  }
+
+  /**
+   * Show the swatch of the multilayer point symbol for the selected symbol keys, size, and color. Combinations which
+   * have been shown or rendered ahead of time before come from the swatch cache without calling the SDK.
+   */
+  private void createSwatchAsync() {
+    if (mSwatchCache == null || mKeys.isEmpty()) {
+      return;
+    }
+    final int swatchRequest = ++mSwatchRequest;
+    mSwatchCache.get(mKeys, getSelectedColor(), mSize, new SwatchCache.Callback() {
+      @Override public void onSwatchReady(SwatchCache.Swatch swatch) {
+        if (swatchRequest != mSwatchRequest) {
+          // the selection has changed since
+          return;
+        }
+        mPreviewView.setImageBitmap(swatch.bitmap);
+        // set this field to enable us to add this symbol to the graphics overlay
+        mCurrentMultilayerSymbol = swatch.symbol;
+      }
+
+      @Override public void onSwatchFailed(Exception e) {
+        logErrorToUser(MainActivity.this, getString(R.string.error_loading_multilayer_symbol_failed, e.getMessage()));
+      }
+    });
+  }
+
+  /**
+   * @return the color chosen for the face symbol, or null if the user has not chosen a color other than "Select
+   * color..." (index 0) or "Default" (index 1)
+   */
+  private Integer getSelectedColor() {
+    return mColorSpinner.getSelectedItemPosition() > 1 ? mColor : null;
+  }
+
+  /**
+   * Renders the swatches of the combinations the user can pick next with one tap in the background: the current
+   * selection with each of the symbols showing in the recycler views swapped in.
+   */
+  private void prerenderVisibleSwatches() {
+    if (mSwatchCache == null || mFaceSymbolKey == null) {
+      return;
+    }
+    List<List<String>> combinations = new ArrayList<>();
+    addVisibleCombinations(mEyesRecyclerView, mEyesAdapter, combinations);
+    addVisibleCombinations(mMouthRecyclerView, mMouthAdapter, combinations);
+    addVisibleCombinations(mHatRecyclerView, mHatAdapter, combinations);
+    mSwatchCache.prerender(combinations, getSelectedColor(), mSize);
+  }
+
+  private void addVisibleCombinations(RecyclerView recyclerView, SymbolAdapter adapter,
+      List<List<String>> combinations) {
+    LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+    int first = layoutManager.findFirstVisibleItemPosition();
+    int last = layoutManager.findLastVisibleItemPosition();
+    if (first == RecyclerView.NO_POSITION) {
+      return;
+    }
+    for (int position = first; position <= last; position++) {
+      SymbolCatalog.Entry symbol = adapter.getSymbol(position);
+      Map<String, SymbolCatalog.Entry> selectedSymbols = new HashMap<>(mSelectedSymbols);
+      selectedSymbols.put(symbol.category, symbol);
+      combinations.add(keysFor(selectedSymbols));
+    }
+  }
+
+  /**
+   * @return keys of the face symbol and the given symbols, the face first as it should appear on the bottom of the
+   * multi layer symbol
+   */
+  private List<String> keysFor(Map<String, SymbolCatalog.Entry> selectedSymbols) {
+    List<String> keys = new ArrayList<>();
+    keys.add(mFaceSymbolKey);
+    for (SymbolCatalog.Entry selectedSymbol : selectedSymbols.values()) {
+      keys.add(selectedSymbol.key);
+    }
+    return keys;
+  }
+
   /**
    * Performed when a user taps on a symbol shown by a {@link SymbolAdapter}. Adds the tapped symbol to a hash map and
    * uses the hash map to set a list of currently selected symbol keys for each category (eyes, mouth, hat, face).
    *
    * @param symbol the user tapped on
    */
-  @Override public void onSymbolPreviewTap(SymbolStyleSearchResult symbol) {
+  @Override public void onSymbolPreviewTap(SymbolCatalog.Entry symbol) {
     // add the symbol that was tapped on to the map of selected symbols, replacing an old value if the category has
     // already been selected
-    mSelectedSymbols.put(symbol.getCategory(), symbol);
+    mSelectedSymbols.put(symbol.category, symbol);
     // create a list of Strings to provide to the method that retrieves a multi layer symbol
-    mKeys = new ArrayList<>();
-    // add the face symbol first as it should appear on the bottom of the multi layer symbol
-    mKeys.add(mFaceSymbolKey);
-    // loop through the selected symbols map's values to obtain the symbol keys
-    for (SymbolStyleSearchResult symbolStyleSearchResult : mSelectedSymbols.values()) {
-      // add the symbol key to the map
-      mKeys.add(symbolStyleSearchResult.getKey());
-    }
+    mKeys = keysFor(mSelectedSymbols);
     createSwatchAsync();
+    // the combinations one more tap away depend on the new selection
+    prerenderVisibleSwatches();
   }
 
   /**
@@ -325,6 +454,7 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
         break;
     }
     createSwatchAsync();
+    prerenderVisibleSwatches();
   }
 
   /**
@@ -389,6 +519,18 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
     mHatRecyclerView.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
     mHatAdapter = new SymbolAdapter(this);
     mHatRecyclerView.setAdapter(mHatAdapter);
+
+    // render the swatches of the symbols scrolled into view once scrolling stops
+    RecyclerView.OnScrollListener prerenderOnScrollListener = new RecyclerView.OnScrollListener() {
+      @Override public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+          prerenderVisibleSwatches();
+        }
+      }
+    };
+    mEyesRecyclerView.addOnScrollListener(prerenderOnScrollListener);
+    mMouthRecyclerView.addOnScrollListener(prerenderOnScrollListener);
+    mHatRecyclerView.addOnScrollListener(prerenderOnScrollListener);
   }
 
   /**
@@ -454,6 +596,7 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
 
   @Override
   protected void onDestroy() {
+    mCatalogExecutor.shutdown();
     mMapView.dispose();
     super.onDestroy();
   }
@@ -465,5 +608,5 @@ public class MainActivity extends AppCompatActivity implements OnSymbolPreviewTa
 }
 
 interface OnSymbolPreviewTapListener {
-  void onSymbolPreviewTap(SymbolStyleSearchResult symbol);
+  void onSymbolPreviewTap(SymbolCatalog.Entry symbol);
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.esri.arcgisruntime.sample.readsymbolsmobilestylefile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.LruCache;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.symbology.MultilayerPointSymbol;
+import com.esri.arcgisruntime.symbology.Symbol;
+import com.esri.arcgisruntime.symbology.SymbolLayer;
+import com.esri.arcgisruntime.symbology.SymbolStyle;
+
+/**
+ * Keeps the multilayer symbols built from a {@link SymbolStyle} and their swatches, so a combination of symbol keys,
+ * color and size is only built and drawn once.
+ * <p>
+ * Swatches are kept in a least recently used cache bounded by the size of their bitmaps. Combinations the user is
+ * likely to pick next can be rendered ahead of time, one at a time so they do not hold up the combination the user has
+ * actually picked. The symbols handed out are shared and must not be changed.
+ * <p>
+ * All methods must be called on the main thread, and callbacks are made on it.
+ */
+class SwatchCache {
+
+  /**
+   * A multilayer symbol and its swatch.
+   */
+  static class Swatch {
+
+    final MultilayerPointSymbol symbol;
+
+    final Bitmap bitmap;
+
+    Swatch(MultilayerPointSymbol symbol, Bitmap bitmap) {
+      this.symbol = symbol;
+      this.bitmap = bitmap;
+    }
+  }
+
+  /**
+   * Receives a swatch once it has been rendered, straight away if it is in the cache.
+   */
+  interface Callback {
+    void onSwatchReady(Swatch swatch);
+
+    void onSwatchFailed(Exception e);
+  }
+
+  /**
+   * A combination of symbol keys, color and size to render.
+   */
+  private static class Request {
+
+    final String cacheKey;
+
+    final List<String> symbolKeys;
+
+    final Integer color;
+
+    final int size;
+
+    Request(List<String> symbolKeys, Integer color, int size) {
+      // the bottom layer stays first and the layers above it are sorted, so each combination has one key
+      List<String> sortedKeys = new ArrayList<>(symbolKeys);
+      Collections.sort(sortedKeys.subList(1, sortedKeys.size()));
+      this.symbolKeys = sortedKeys;
+      this.color = color;
+      this.size = size;
+      StringBuilder key = new StringBuilder();
+      for (String symbolKey : sortedKeys) {
+        key.append(symbolKey).append('|');
+      }
+      key.append(color != null ? Integer.toHexString(color) : "default").append('|').append(size);
+      cacheKey = key.toString();
+    }
+  }
+
+  private final Context mContext;
+
+  private final SymbolStyle mSymbolStyle;
+
+  private final LruCache<String, Swatch> mSwatches;
+
+  // callbacks waiting for each swatch being rendered
+  private final Map<String, List<Callback>> mPending = new HashMap<>();
+
+  // combinations to render ahead of time, the oldest first
+  private final Queue<Request> mPrerenderQueue = new ArrayDeque<>();
+
+  private boolean mPrerendering;
+
+  private int mRenderCount;
+
+  /**
+   * @param context     used to draw the swatches
+   * @param symbolStyle loaded style the symbols come from
+   * @param maxKilobytes most memory the cached swatch bitmaps may take
+   */
+  SwatchCache(Context context, SymbolStyle symbolStyle, int maxKilobytes) {
+    mContext = context.getApplicationContext();
+    mSymbolStyle = symbolStyle;
+    mSwatches = new LruCache<String, Swatch>(maxKilobytes) {
+      @Override protected int sizeOf(String key, Swatch swatch) {
+        return Math.max(1, swatch.bitmap.getByteCount() / 1024);
+      }
+    };
+  }
+
+  /**
+   * Gets the swatch of a multilayer symbol.
+   *
+   * @param symbolKeys keys of the symbols making up the layers, the bottom layer first and the others in any order
+   * @param color      color of the bottom layer, or null to keep the colors of the style
+   * @param size       size of the symbol
+   */
+  void get(List<String> symbolKeys, Integer color, int size, Callback callback) {
+    Request request = new Request(symbolKeys, color, size);
+    Swatch swatch = mSwatches.get(request.cacheKey);
+    if (swatch != null) {
+      callback.onSwatchReady(swatch);
+      return;
+    }
+    List<Callback> waiting = mPending.get(request.cacheKey);
+    if (waiting != null) {
+      // already being rendered, maybe ahead of time
+      waiting.add(callback);
+      return;
+    }
+    waiting = new ArrayList<>();
+    waiting.add(callback);
+    mPending.put(request.cacheKey, waiting);
+    render(request, false);
+  }
+
+  /**
+   * Renders the swatches of the given combinations in the background, replacing any combinations still waiting from
+   * an earlier call.
+   *
+   * @param combinations keys of the symbols of each combination, the bottom layer first
+   * @param color        color of the bottom layer, or null to keep the colors of the style
+   * @param size         size of the symbols
+   */
+  void prerender(List<List<String>> combinations, Integer color, int size) {
+    mPrerenderQueue.clear();
+    for (List<String> symbolKeys : combinations) {
+      mPrerenderQueue.add(new Request(symbolKeys, color, size));
+    }
+    prerenderNext();
+  }
+
+  /**
+   * @return number of swatches rendered with the SDK since the cache was created
+   */
+  int getRenderCount() {
+    return mRenderCount;
+  }
+
+  private void prerenderNext() {
+    while (!mPrerendering && !mPrerenderQueue.isEmpty()) {
+      Request request = mPrerenderQueue.remove();
+      if (mSwatches.get(request.cacheKey) == null && !mPending.containsKey(request.cacheKey)) {
+        mPending.put(request.cacheKey, new ArrayList<>());
+        mPrerendering = true;
+        render(request, true);
+      }
+    }
+  }
+
+  private void render(Request request, boolean prerender) {
+    mRenderCount++;
+    // get the Future to perform the generation of the multi layer symbol
+    ListenableFuture<Symbol> symbolFuture = mSymbolStyle.getSymbolAsync(request.symbolKeys);
+    symbolFuture.addDoneListener(() -> {
+      try {
+        MultilayerPointSymbol symbol = (MultilayerPointSymbol) symbolFuture.get();
+        if (symbol == null) {
+          complete(request, null, new IllegalStateException("No symbol for " + request.symbolKeys), prerender);
+          return;
+        }
+        symbol.setSize(request.size);
+        // lock the color on all symbol layers
+        for (SymbolLayer symbolLayer : symbol.getSymbolLayers()) {
+          symbolLayer.setColorLocked(true);
+        }
+        if (request.color != null) {
+          // unlock the first layer and set it to the color
+          symbol.getSymbolLayers().get(0).setColorLocked(false);
+          symbol.setColor(request.color);
+        }
+        // get the future to create the swatch of the multi layer symbol
+        ListenableFuture<Bitmap> bitmapFuture = symbol.createSwatchAsync(mContext, Color.TRANSPARENT);
+        bitmapFuture.addDoneListener(() -> {
+          try {
+            complete(request, new Swatch(symbol, bitmapFuture.get()), null, prerender);
+          } catch (InterruptedException | ExecutionException e) {
+            complete(request, null, e, prerender);
+          }
+        });
+      } catch (InterruptedException | ExecutionException e) {
+        complete(request, null, e, prerender);
+      }
+    });
+  }
+
+  private void complete(Request request, Swatch swatch, Exception error, boolean prerender) {
+    if (swatch != null) {
+      mSwatches.put(request.cacheKey, swatch);
+    }
+    List<Callback> waiting = mPending.remove(request.cacheKey);
+    if (waiting != null) {
+      for (Callback callback : waiting) {
+        if (swatch != null) {
+          callback.onSwatchReady(swatch);
+        } else {
+          callback.onSwatchFailed(error);
+        }
+      }
+    }
+    if (prerender) {
+      mPrerendering = false;
+      prerenderNext();
+    }
+  }
+}
@@ -17,6 +17,8 @@
 package com.esri.arcgisruntime.sample.readsymbolsmobilestylefile;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import android.graphics.Bitmap;
@@ -24,6 +26,7 @@ import android.graphics.Color;
 import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -31,7 +34,8 @@ import android.widget.ImageView;
 import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
-import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
+import com.esri.arcgisruntime.symbology.Symbol;
+import com.esri.arcgisruntime.symbology.SymbolStyle;
 
 /**
  * {@link RecyclerView.Adapter} subclass that displays symbols
@@ -40,7 +44,13 @@ class SymbolAdapter extends RecyclerView.Adapter<SymbolAdapter.ViewHolder> {
 
   private static final String TAG = SymbolAdapter.class.getSimpleName();
 
-  private final ArrayList<SymbolStyleSearchResult> mSymbols = new ArrayList<>();
+  // most swatches of list items kept, enough for several screens of items
+  private static final int MAX_SWATCHES = 256;
+
+  private final ArrayList<SymbolCatalog.Entry> mSymbols = new ArrayList<>();
+  // swatch of each recently shown symbol by key, so rebinding a view as the list scrolls does not draw it again
+  private final LruCache<String, Bitmap> mSwatches = new LruCache<>(MAX_SWATCHES);
+  private SymbolStyle mSymbolStyle;
   private final OnSymbolPreviewTapListener mOnSymbolPreviewTapListener;
 
   public SymbolAdapter(OnSymbolPreviewTapListener onSymbolPreviewTapListener) {
@@ -53,44 +63,85 @@ class SymbolAdapter extends RecyclerView.Adapter<SymbolAdapter.ViewHolder> {
   }
 
   @Override public void onBindViewHolder(@NonNull ViewHolder viewHolder, int i) {
-    viewHolder.bind(mSymbols.get(i), mOnSymbolPreviewTapListener);
+    viewHolder.bind(mSymbols.get(i), mSymbolStyle, mSwatches, mOnSymbolPreviewTapListener);
   }
 
   @Override public int getItemCount() {
     return mSymbols.size();
   }
 
-  void addSymbol(SymbolStyleSearchResult symbol) {
-    mSymbols.add(symbol);
-    notifyItemInserted(mSymbols.size() - 1);
+  SymbolCatalog.Entry getSymbol(int position) {
+    return mSymbols.get(position);
+  }
+
+  /**
+   * Replaces the symbols shown in one update.
+   *
+   * @param symbolStyle loaded style the symbols come from
+   * @param symbols     symbols to show
+   */
+  void setSymbols(SymbolStyle symbolStyle, List<SymbolCatalog.Entry> symbols) {
+    mSymbolStyle = symbolStyle;
+    mSymbols.clear();
+    mSymbols.addAll(symbols);
+    mSwatches.evictAll();
+    notifyDataSetChanged();
   }
 
   static class ViewHolder extends RecyclerView.ViewHolder {
 
     private final ImageView mImageView;
 
+    // key of the symbol the view shows, so swatches arriving after the view has been rebound are not shown in it
+    private String mBoundKey;
+
     ViewHolder(@NonNull View itemView) {
       super(itemView);
       mImageView = itemView.findViewById(R.id.imageView);
     }
 
-    private void bind(SymbolStyleSearchResult symbol, OnSymbolPreviewTapListener onSymbolPreviewTapListener) {
-      // get the Future to create the swatch of the multi layer symbol
-      ListenableFuture<Bitmap> bitmapFuture = symbol.getSymbol()
-          .createSwatchAsync(itemView.getContext(), Color.TRANSPARENT);
-      bitmapFuture.addDoneListener(() -> {
+    private void bind(SymbolCatalog.Entry symbol, SymbolStyle symbolStyle, LruCache<String, Bitmap> swatches,
+        OnSymbolPreviewTapListener onSymbolPreviewTapListener) {
+      mBoundKey = symbol.key;
+      itemView.setOnClickListener(v -> onSymbolPreviewTapListener.onSymbolPreviewTap(symbol));
+      Bitmap swatch = swatches.get(symbol.key);
+      if (swatch != null) {
+        mImageView.setImageBitmap(swatch);
+        return;
+      }
+      // clear the swatch of the symbol this view showed before
+      mImageView.setImageDrawable(null);
+      // get the Future to get the symbol from the style, only the symbols shown are ever fetched
+      ListenableFuture<Symbol> symbolFuture = symbolStyle.getSymbolAsync(Collections.singletonList(symbol.key));
+      symbolFuture.addDoneListener(() -> {
         try {
-          // wait for the Future to complete and get the result
-          Bitmap bitmap = bitmapFuture.get();
-          mImageView.setImageBitmap(bitmap);
+          // get the Future to create the swatch of the symbol
+          ListenableFuture<Bitmap> bitmapFuture = symbolFuture.get()
+              .createSwatchAsync(itemView.getContext(), Color.TRANSPARENT);
+          bitmapFuture.addDoneListener(() -> {
+            try {
+              // wait for the Future to complete and get the result
+              Bitmap bitmap = bitmapFuture.get();
+              swatches.put(symbol.key, bitmap);
+              // the view may have been rebound to another symbol while the swatch was drawn
+              if (symbol.key.equals(mBoundKey)) {
+                mImageView.setImageBitmap(bitmap);
+              }
+            } catch (InterruptedException | ExecutionException e) {
+              showError(e);
+            }
+          });
         } catch (InterruptedException | ExecutionException e) {
-          Log.e(TAG, itemView.getContext().getString(R.string.error_loading_symbol_bitmap_failed, e.getMessage()));
-          Toast.makeText(itemView.getContext(),
-              itemView.getContext().getString(R.string.error_loading_symbol_bitmap_failed, e.getMessage()),
-              Toast.LENGTH_LONG).show();
+          showError(e);
         }
-        itemView.setOnClickListener(v -> onSymbolPreviewTapListener.onSymbolPreviewTap(symbol));
       });
     }
+
+    private void showError(Exception e) {
+      Log.e(TAG, itemView.getContext().getString(R.string.error_loading_symbol_bitmap_failed, e.getMessage()));
+      Toast.makeText(itemView.getContext(),
+          itemView.getContext().getString(R.string.error_loading_symbol_bitmap_failed, e.getMessage()),
+          Toast.LENGTH_LONG).show();
+    }
   }
 }
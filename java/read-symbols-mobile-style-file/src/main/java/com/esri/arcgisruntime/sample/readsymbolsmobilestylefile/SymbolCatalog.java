@@ -0,0 +1,362 @@
+/*
+ * Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.esri.arcgisruntime.sample.readsymbolsmobilestylefile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The keys, names, categories and tags of the symbols in a style file, kept in a compact index file in the app's
+ * cache directory so the style only has to be searched again when the file changes.
+ * <p>
+ * The index file records the size, modification time and SHA-256 hash of the style file it was built from. It is read
+ * back straight away for a file with the same size and modification time; otherwise the file is hashed, and the index
+ * is only used if the hash is unchanged. Categories and tags are stored once each and referred to by number, so the
+ * index stays small for styles with tens of thousands of symbols. Once loaded, symbols can be looked up by category,
+ * by tag and by the start of their name.
+ */
+final class SymbolCatalog {
+
+  /**
+   * The size and modification time of a style file, and its hash, which is only computed when asked for.
+   */
+  static final class StyleVersion {
+
+    final File file;
+
+    final long size;
+
+    final long lastModified;
+
+    private String mHash;
+
+    StyleVersion(File file) {
+      this.file = file;
+      size = file.length();
+      lastModified = file.lastModified();
+    }
+
+    /**
+     * @return the SHA-256 hash of the file, computed on the first call
+     */
+    String getHash() throws IOException {
+      if (mHash == null) {
+        mHash = hash(file);
+      }
+      return mHash;
+    }
+  }
+
+  /**
+   * A symbol in the style.
+   */
+  static final class Entry {
+
+    final String key;
+
+    final String name;
+
+    final String category;
+
+    final List<String> tags;
+
+    Entry(String key, String name, String category, List<String> tags) {
+      this.key = key;
+      this.name = name;
+      this.category = category;
+      this.tags = tags;
+    }
+  }
+
+  // "SYMC", followed by the version of the format
+  private static final int MAGIC = 0x53594d43;
+  private static final int VERSION = 2;
+
+  private final long mStyleSize;
+
+  private final long mStyleLastModified;
+
+  private final String mStyleHash;
+
+  // whether the index file this catalog was read from records the style file's current size and modification time
+  private boolean mIndexCurrent = true;
+
+  // entries in the order the style returned them
+  private final List<Entry> mEntries;
+
+  private final Map<String, List<Entry>> mEntriesByCategory = new LinkedHashMap<>();
+
+  private final Map<String, List<Entry>> mEntriesByTag = new HashMap<>();
+
+  // entries and their lower case names, sorted by name, for prefix lookups
+  private final Entry[] mEntriesByName;
+  private final String[] mSortedNames;
+
+  /**
+   * @param styleSize         size of the style file
+   * @param styleLastModified modification time of the style file
+   * @param styleHash         hash of the style file, from {@link #hash(File)}
+   * @param entries           symbols of the style
+   */
+  SymbolCatalog(long styleSize, long styleLastModified, String styleHash, List<Entry> entries) {
+    mStyleSize = styleSize;
+    mStyleLastModified = styleLastModified;
+    mStyleHash = styleHash;
+    mEntries = Collections.unmodifiableList(new ArrayList<>(entries));
+    for (Entry entry : mEntries) {
+      addTo(mEntriesByCategory, entry.category.toLowerCase(Locale.ROOT), entry);
+      for (String tag : entry.tags) {
+        addTo(mEntriesByTag, tag.toLowerCase(Locale.ROOT), entry);
+      }
+    }
+    // lower case each name once rather than in every comparison
+    final String[] names = new String[mEntries.size()];
+    Integer[] order = new Integer[names.length];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = mEntries.get(i).name.toLowerCase(Locale.ROOT);
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare(Integer first, Integer second) {
+        return names[first].compareTo(names[second]);
+      }
+    });
+    mEntriesByName = new Entry[names.length];
+    mSortedNames = new String[names.length];
+    for (int i = 0; i < names.length; i++) {
+      mEntriesByName[i] = mEntries.get(order[i]);
+      mSortedNames[i] = names[order[i]];
+    }
+  }
+
+  private static void addTo(Map<String, List<Entry>> index, String value, Entry entry) {
+    List<Entry> entries = index.get(value);
+    if (entries == null) {
+      entries = new ArrayList<>();
+      index.put(value, entries);
+    }
+    entries.add(entry);
+  }
+
+  /**
+   * @return hash of the style file the catalog was built from
+   */
+  String getStyleHash() {
+    return mStyleHash;
+  }
+
+  /**
+   * @return false if the catalog was read from an index file recording an older modification time or size of an
+   * unchanged style file, in which case the index should be written again so the file isn't hashed on every read
+   */
+  boolean isIndexCurrent() {
+    return mIndexCurrent;
+  }
+
+  /**
+   * @return every symbol in the style, in the order the style returned them
+   */
+  List<Entry> getEntries() {
+    return mEntries;
+  }
+
+  /**
+   * @return the symbols in the given category, ignoring case, in the order the style returned them
+   */
+  List<Entry> getByCategory(String category) {
+    List<Entry> entries = mEntriesByCategory.get(category.toLowerCase(Locale.ROOT));
+    return entries != null ? Collections.unmodifiableList(entries) : Collections.<Entry>emptyList();
+  }
+
+  /**
+   * @return the symbols with the given tag, ignoring case, in the order the style returned them
+   */
+  List<Entry> getByTag(String tag) {
+    List<Entry> entries = mEntriesByTag.get(tag.toLowerCase(Locale.ROOT));
+    return entries != null ? Collections.unmodifiableList(entries) : Collections.<Entry>emptyList();
+  }
+
+  /**
+   * @return the symbols whose names start with the given text, ignoring case, sorted by name
+   */
+  List<Entry> findByNamePrefix(String prefix) {
+    String lowerCasePrefix = prefix.toLowerCase(Locale.ROOT);
+    // find the first name not before the prefix
+    int low = 0;
+    int high = mSortedNames.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mSortedNames[middle].compareTo(lowerCasePrefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    List<Entry> entries = new ArrayList<>();
+    for (int i = low; i < mSortedNames.length && mSortedNames[i].startsWith(lowerCasePrefix); i++) {
+      entries.add(mEntriesByName[i]);
+    }
+    return entries;
+  }
+
+  /**
+   * Writes the catalog to an index file, replacing it only once the whole catalog has been written.
+   */
+  void write(File indexFile) throws IOException {
+    // number the distinct categories and tags
+    Map<String, Integer> stringIds = new LinkedHashMap<>();
+    for (Entry entry : mEntries) {
+      idOf(stringIds, entry.category);
+      for (String tag : entry.tags) {
+        idOf(stringIds, tag);
+      }
+    }
+
+    File tempFile = new File(indexFile.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(mStyleSize);
+      out.writeLong(mStyleLastModified);
+      out.writeUTF(mStyleHash);
+      out.writeInt(stringIds.size());
+      for (String value : stringIds.keySet()) {
+        out.writeUTF(value);
+      }
+      out.writeInt(mEntries.size());
+      for (Entry entry : mEntries) {
+        out.writeUTF(entry.key);
+        out.writeUTF(entry.name);
+        out.writeInt(stringIds.get(entry.category));
+        out.writeShort(entry.tags.size());
+        for (String tag : entry.tags) {
+          out.writeInt(stringIds.get(tag));
+        }
+      }
+    } finally {
+      out.close();
+    }
+    if (!tempFile.renameTo(indexFile)) {
+      tempFile.delete();
+      throw new IOException("Could not replace " + indexFile);
+    }
+  }
+
+  private static int idOf(Map<String, Integer> stringIds, String value) {
+    Integer id = stringIds.get(value);
+    if (id == null) {
+      id = stringIds.size();
+      stringIds.put(value, id);
+    }
+    return id;
+  }
+
+  /**
+   * Reads a catalog from an index file, hashing the style file only if its size or modification time has changed
+   * since it was indexed.
+   *
+   * @param indexFile    index file written by {@link #write(File)}
+   * @param styleVersion the style file as it is now
+   * @return the catalog, or null if there is no index file or it was built from a different style file
+   */
+  static SymbolCatalog read(File indexFile, StyleVersion styleVersion) throws IOException {
+    if (!indexFile.isFile()) {
+      return null;
+    }
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      long indexedSize = in.readLong();
+      long indexedLastModified = in.readLong();
+      String indexedHash = in.readUTF();
+      boolean indexCurrent = indexedSize == styleVersion.size && indexedLastModified == styleVersion.lastModified;
+      // a file touched or copied without being changed still matches by its contents
+      if (!indexCurrent && !indexedHash.equals(styleVersion.getHash())) {
+        return null;
+      }
+      String[] strings = new String[in.readInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = in.readUTF();
+      }
+      int entryCount = in.readInt();
+      List<Entry> entries = new ArrayList<>(entryCount);
+      for (int i = 0; i < entryCount; i++) {
+        String key = in.readUTF();
+        String name = in.readUTF();
+        String category = strings[in.readInt()];
+        String[] tags = new String[in.readUnsignedShort()];
+        for (int tag = 0; tag < tags.length; tag++) {
+          tags[tag] = strings[in.readInt()];
+        }
+        entries.add(new Entry(key, name, category, Collections.unmodifiableList(Arrays.asList(tags))));
+      }
+      SymbolCatalog catalog = new SymbolCatalog(styleVersion.size, styleVersion.lastModified, indexedHash, entries);
+      catalog.mIndexCurrent = indexCurrent;
+      return catalog;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @return the SHA-256 hash of the file's contents, in hexadecimal
+   */
+  static String hash(File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(String.format(Locale.ROOT, "%02x", b));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,164 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquerygroupandsort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticRecord;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+import com.esri.arcgisruntime.data.StatisticsQueryResult;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the statistics computed on the device with those returned by
+ * {@link ServiceFeatureTable#queryStatisticsAsync} for the counties used by the sample, grouped and sorted by state.
+ * Needs a network connection.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalStatisticsEngineTest {
+
+  private static final long TIMEOUT_SECONDS = 60;
+
+  // the where clause used by the sample, which counties are cached with
+  private static final String WHERE_CLAUSE = "\"State\" IS NOT NULL";
+
+  private static ServiceFeatureTable sCountiesTable;
+
+  private static LocalStatisticsEngine sEngine;
+
+  @BeforeClass
+  public static void cacheCounties() throws Exception {
+    sCountiesTable = new ServiceFeatureTable(InstrumentationRegistry.getTargetContext()
+        .getString(R.string.obesity_inactivity_diabetes_feature_service));
+    CountDownLatch tableLoaded = new CountDownLatch(1);
+    sCountiesTable.addDoneLoadingListener(tableLoaded::countDown);
+    sCountiesTable.loadAsync();
+    assertTrue(tableLoaded.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(LoadStatus.LOADED, sCountiesTable.getLoadStatus());
+
+    CountDownLatch engineLoaded = new CountDownLatch(1);
+    AtomicReference<Exception> error = new AtomicReference<>();
+    LocalStatisticsEngine.loadAsync(sCountiesTable, WHERE_CLAUSE, new LocalStatisticsEngine.LoadListener() {
+      @Override public void onLoaded(LocalStatisticsEngine engine) {
+        sEngine = engine;
+        engineLoaded.countDown();
+      }
+
+      @Override public void onError(Exception e) {
+        error.set(e);
+        engineLoaded.countDown();
+      }
+    });
+    assertTrue(engineLoaded.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    if (error.get() != null) {
+      throw error.get();
+    }
+  }
+
+  @AfterClass
+  public static void shutdown() {
+    if (sEngine != null) {
+      sEngine.shutdown();
+    }
+  }
+
+  @Test
+  public void ungroupedStatisticsMatchTheService() throws Exception {
+    assertSameStatistics(Collections.emptyList(), Collections.emptyList());
+  }
+
+  @Test
+  public void statisticsByStateMatchTheService() throws Exception {
+    assertSameStatistics(Collections.singletonList("State"),
+        Collections.singletonList(new QueryParameters.OrderBy("State", QueryParameters.SortOrder.DESCENDING)));
+  }
+
+  private static void assertSameStatistics(List<String> groupByFieldNames, List<QueryParameters.OrderBy> orderByFields)
+      throws Exception {
+    List<StatisticDefinition> definitions = new ArrayList<>();
+    for (StatisticType statisticType : StatisticType.values()) {
+      definitions.add(new StatisticDefinition("Diabetes_Percent", statisticType, ""));
+    }
+    StatisticsQueryParameters statQueryParams = new StatisticsQueryParameters(definitions);
+    statQueryParams.setWhereClause(WHERE_CLAUSE);
+    statQueryParams.getGroupByFieldNames().addAll(groupByFieldNames);
+    statQueryParams.getOrderByFields().addAll(orderByFields);
+    StatisticsQueryResult serviceResult = sCountiesTable.queryStatisticsAsync(statQueryParams)
+        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    List<Map<String, Object>> serviceGroups = new ArrayList<>();
+    Map<Map<String, Object>, Map<String, Object>> serviceStatistics = new HashMap<>();
+    for (Iterator<StatisticRecord> records = serviceResult.iterator(); records.hasNext(); ) {
+      StatisticRecord record = records.next();
+      serviceGroups.add(new HashMap<>(record.getGroup()));
+      serviceStatistics.put(new HashMap<>(record.getGroup()), record.getStatistics());
+    }
+
+    List<LocalStatisticsEngine.Record> localRecords = sEngine
+        .computeStatistics(definitions, groupByFieldNames, orderByFields, null);
+
+    // the same groups, in the same order
+    assertEquals(serviceGroups.size(), localRecords.size());
+    for (int i = 0; i < localRecords.size(); i++) {
+      assertEquals(serviceGroups.get(i), new HashMap<>(localRecords.get(i).getGroup()));
+    }
+    for (LocalStatisticsEngine.Record localRecord : localRecords) {
+      Map<String, Object> expected = serviceStatistics.get(new HashMap<>(localRecord.getGroup()));
+      assertNotNull(localRecord.getGroup() + " returned by the service", expected);
+      for (StatisticDefinition definition : definitions) {
+        String name = LocalStatisticsEngine.getOutputName(definition);
+        assertTrue(name + " returned by the service", expected.containsKey(name));
+        assertClose(localRecord.getGroup() + " " + name, (Number) expected.get(name),
+            (Number) localRecord.getStatistics().get(name));
+      }
+    }
+  }
+
+  private static void assertClose(String name, Number expected, Number actual) {
+    if (expected == null) {
+      // undefined, e.g. the average of a group without values
+      assertNull(name, actual);
+      return;
+    }
+    assertNotNull(name, actual);
+    double tolerance = 1e-6 * Math.max(1, Math.abs(expected.doubleValue()));
+    assertEquals(name, expected.doubleValue(), actual.doubleValue(), tolerance);
+  }
+}
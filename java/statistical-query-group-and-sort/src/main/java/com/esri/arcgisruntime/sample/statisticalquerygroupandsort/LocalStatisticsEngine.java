@@ -0,0 +1,479 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquerygroupandsort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.geometry.Point;
+
+/**
+ * Computes statistics equivalent to {@link ServiceFeatureTable#queryStatisticsAsync} over features cached on the
+ * device, so statistics can be recalculated with different definitions, groupings and sort orders without a round
+ * trip to the service.
+ * <p>
+ * Attributes are cached once in columns, with numeric fields held in primitive double arrays. A statistics query
+ * splits the rows into chunks which are reduced in parallel into primitive accumulators per group, and the partial
+ * accumulators are then merged. The chunks are reduced on threads owned by the engine, which are stopped by
+ * {@link #shutdown()}.
+ */
+class LocalStatisticsEngine {
+
+  private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Listener for the result of {@link #loadAsync}.
+   */
+  interface LoadListener {
+    void onLoaded(LocalStatisticsEngine engine);
+
+    void onError(Exception e);
+  }
+
+  /**
+   * Filters the cached rows a statistics query is computed over.
+   */
+  interface RowFilter {
+    boolean accept(LocalStatisticsEngine engine, int row);
+  }
+
+  private final int mRowCount;
+  private final Map<String, Object[]> mValues;
+  private final Map<String, double[]> mNumbers;
+  private final double[] mX;
+  private final double[] mY;
+
+  private final ExecutorService mExecutor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+  private LocalStatisticsEngine(List<Map<String, Object>> rows, List<Point> points, List<Field> fields) {
+    mRowCount = rows.size();
+    mValues = new HashMap<>();
+    mNumbers = new HashMap<>();
+    for (Field field : fields) {
+      String name = field.getName();
+      Object[] values = new Object[mRowCount];
+      double[] numbers = isNumeric(field.getFieldType()) ? new double[mRowCount] : null;
+      for (int row = 0; row < mRowCount; row++) {
+        Object value = rows.get(row).get(name);
+        values[row] = value;
+        if (numbers != null) {
+          numbers[row] = value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+        }
+      }
+      mValues.put(name, values);
+      if (numbers != null) {
+        mNumbers.put(name, numbers);
+      }
+    }
+    mX = new double[mRowCount];
+    mY = new double[mRowCount];
+    for (int row = 0; row < mRowCount; row++) {
+      Point point = points.get(row);
+      mX[row] = point != null ? point.getX() : Double.NaN;
+      mY[row] = point != null ? point.getY() : Double.NaN;
+    }
+  }
+
+  /**
+   * Cache the attributes, and the location of point features, of every feature in the table matching the where
+   * clause. Features are requested a page at a time, in object id order, for as long as the service reports that its
+   * transfer limit was exceeded, so tables larger than the service's maximum record count are cached completely.
+   *
+   * @param table       to cache, which must be loaded
+   * @param whereClause limiting the features to cache
+   * @param listener    called on the UI thread once all pages have been cached
+   */
+  static void loadAsync(ServiceFeatureTable table, String whereClause, LoadListener listener) {
+    loadPage(table, whereClause, 0, new ArrayList<>(), new ArrayList<>(), listener);
+  }
+
+  private static void loadPage(ServiceFeatureTable table, String whereClause, int offset,
+      List<Map<String, Object>> rows, List<Point> points, LoadListener listener) {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause(whereClause);
+    queryParameters.setResultOffset(offset);
+    // a stable order, so pages neither overlap nor skip features
+    queryParameters.getOrderByFields()
+        .add(new QueryParameters.OrderBy(table.getObjectIdField(), QueryParameters.SortOrder.ASCENDING));
+    ListenableFuture<FeatureQueryResult> future = table
+        .queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
+    future.addDoneListener(() -> {
+      try {
+        FeatureQueryResult result = future.get();
+        int pageCount = 0;
+        for (Feature feature : result) {
+          rows.add(new HashMap<>(feature.getAttributes()));
+          points.add(feature.getGeometry() instanceof Point ? (Point) feature.getGeometry() : null);
+          pageCount++;
+        }
+        // the page is only complete if the service didn't stop at its maximum record count
+        if (result.isTransferLimitExceeded() && pageCount > 0) {
+          loadPage(table, whereClause, offset + pageCount, rows, points, listener);
+        } else {
+          listener.onLoaded(new LocalStatisticsEngine(rows, points, table.getFields()));
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        listener.onError(e);
+      }
+    });
+  }
+
+  /**
+   * @return the number of cached rows
+   */
+  int getRowCount() {
+    return mRowCount;
+  }
+
+  /**
+   * @return the value of a field in the given row
+   */
+  Object getValue(String fieldName, int row) {
+    Object[] values = mValues.get(fieldName);
+    return values != null ? values[row] : null;
+  }
+
+  /**
+   * @return the x coordinate of the row's point, or NaN if the feature isn't a point
+   */
+  double getX(int row) {
+    return mX[row];
+  }
+
+  /**
+   * @return the y coordinate of the row's point, or NaN if the feature isn't a point
+   */
+  double getY(int row) {
+    return mY[row];
+  }
+
+  /**
+   * Stops the threads computing statistics. Statistics can't be computed once the engine has been shut down.
+   */
+  void shutdown() {
+    mExecutor.shutdownNow();
+  }
+
+  /**
+   * Compute statistics over the cached rows. This blocks until the parallel reduction completes, so it should be
+   * called from a worker thread.
+   *
+   * @param statisticDefinitions statistics to compute
+   * @param groupByFieldNames    fields to group the statistics by, may be empty
+   * @param orderByFields        group by fields to sort the groups by, may be empty
+   * @param rowFilter            rows to include, or null to include every row
+   * @return one record per group, or a single record if there are no group by fields
+   * @throws InterruptedException if interrupted while waiting for the reduction
+   * @throws ExecutionException   if computing a chunk fails
+   * @throws RejectedExecutionException if the engine has been shut down
+   */
+  List<Record> computeStatistics(List<StatisticDefinition> statisticDefinitions, List<String> groupByFieldNames,
+      List<QueryParameters.OrderBy> orderByFields, RowFilter rowFilter)
+      throws InterruptedException, ExecutionException {
+    // fail before any chunk is submitted, rather than when the last one is
+    if (mExecutor.isShutdown()) {
+      throw new RejectedExecutionException("The statistics engine has been shut down");
+    }
+    int definitionCount = statisticDefinitions.size();
+    double[][] columns = new double[definitionCount][];
+    Object[][] valueColumns = new Object[definitionCount][];
+    for (int i = 0; i < definitionCount; i++) {
+      String fieldName = statisticDefinitions.get(i).getFieldName();
+      columns[i] = mNumbers.get(fieldName);
+      valueColumns[i] = mValues.get(fieldName);
+    }
+    Object[][] groupColumns = new Object[groupByFieldNames.size()][];
+    for (int i = 0; i < groupColumns.length; i++) {
+      groupColumns[i] = mValues.get(groupByFieldNames.get(i));
+      if (groupColumns[i] == null) {
+        throw new IllegalArgumentException("Unknown group by field: " + groupByFieldNames.get(i));
+      }
+    }
+
+    // reduce chunks of rows in parallel, each into its own map of group to accumulators
+    int chunkCount = Math.max(1, Math.min(THREAD_COUNT * 4, mRowCount / 256));
+    int chunkSize = (mRowCount + chunkCount - 1) / chunkCount;
+    List<Future<Map<GroupKey, StatisticAccumulator[]>>> partials = new ArrayList<>(chunkCount);
+    for (int start = 0; start < mRowCount || partials.isEmpty(); start += chunkSize) {
+      final int chunkStart = start;
+      final int chunkEnd = Math.min(mRowCount, start + chunkSize);
+      partials.add(mExecutor.submit((Callable<Map<GroupKey, StatisticAccumulator[]>>) () ->
+          reduce(chunkStart, chunkEnd, columns, valueColumns, groupColumns, rowFilter)));
+    }
+
+    // merge the partial results in chunk order, so groups keep the order in which they first appear
+    Map<GroupKey, StatisticAccumulator[]> merged = new LinkedHashMap<>();
+    for (Future<Map<GroupKey, StatisticAccumulator[]>> partial : partials) {
+      for (Map.Entry<GroupKey, StatisticAccumulator[]> entry : partial.get().entrySet()) {
+        StatisticAccumulator[] accumulators = merged.get(entry.getKey());
+        if (accumulators == null) {
+          merged.put(entry.getKey(), entry.getValue());
+        } else {
+          for (int i = 0; i < definitionCount; i++) {
+            accumulators[i].merge(entry.getValue()[i]);
+          }
+        }
+      }
+    }
+    // without grouping a single record is returned, even if no rows matched
+    if (groupColumns.length == 0 && merged.isEmpty()) {
+      merged.put(new GroupKey(new Object[0]), newAccumulators(definitionCount));
+    }
+
+    List<Record> records = new ArrayList<>(merged.size());
+    for (Map.Entry<GroupKey, StatisticAccumulator[]> entry : merged.entrySet()) {
+      Map<String, Object> group = new LinkedHashMap<>();
+      for (int i = 0; i < groupColumns.length; i++) {
+        group.put(groupByFieldNames.get(i), entry.getKey().mValues[i]);
+      }
+      Map<String, Object> statistics = new LinkedHashMap<>();
+      for (int i = 0; i < definitionCount; i++) {
+        StatisticDefinition definition = statisticDefinitions.get(i);
+        statistics.put(getOutputName(definition), getResult(entry.getValue()[i], definition));
+      }
+      records.add(new Record(group, statistics));
+    }
+    sortRecords(records, orderByFields);
+    return records;
+  }
+
+  private Map<GroupKey, StatisticAccumulator[]> reduce(int start, int end, double[][] columns, Object[][] valueColumns,
+      Object[][] groupColumns, RowFilter rowFilter) {
+    Map<GroupKey, StatisticAccumulator[]> groups = new LinkedHashMap<>();
+    // reuse the accumulators of the previous row's group, rows of the same group are often adjacent
+    GroupKey previousKey = null;
+    StatisticAccumulator[] accumulators = null;
+    for (int row = start; row < end; row++) {
+      if (rowFilter != null && !rowFilter.accept(this, row)) {
+        continue;
+      }
+      Object[] groupValues = new Object[groupColumns.length];
+      for (int i = 0; i < groupColumns.length; i++) {
+        groupValues[i] = groupColumns[i][row];
+      }
+      GroupKey key = new GroupKey(groupValues);
+      if (!key.equals(previousKey)) {
+        accumulators = groups.get(key);
+        if (accumulators == null) {
+          accumulators = newAccumulators(columns.length);
+          groups.put(key, accumulators);
+        }
+        previousKey = key;
+      }
+      for (int i = 0; i < columns.length; i++) {
+        if (columns[i] != null) {
+          accumulators[i].add(columns[i][row]);
+        } else if (valueColumns[i] != null && valueColumns[i][row] != null) {
+          // non-numeric fields only support COUNT
+          accumulators[i].addNonNumeric();
+        }
+      }
+    }
+    return groups;
+  }
+
+  private static StatisticAccumulator[] newAccumulators(int count) {
+    StatisticAccumulator[] accumulators = new StatisticAccumulator[count];
+    for (int i = 0; i < count; i++) {
+      accumulators[i] = new StatisticAccumulator();
+    }
+    return accumulators;
+  }
+
+  /**
+   * @return the statistic as a Double, or null if it's undefined for the values accumulated
+   */
+  private static Double getResult(StatisticAccumulator accumulator, StatisticDefinition definition) {
+    if (definition.getStatisticType() == StatisticType.COUNT) {
+      return (double) accumulator.getCount();
+    }
+    if (!accumulator.hasNumericValues()) {
+      // no numeric values, including non-numeric fields which only accumulate a count
+      return null;
+    }
+    switch (definition.getStatisticType()) {
+      case AVERAGE:
+        return accumulator.getMean();
+      case MAXIMUM:
+        return accumulator.getMaximum();
+      case MINIMUM:
+        return accumulator.getMinimum();
+      case SUM:
+        return accumulator.getSum();
+      case STANDARD_DEVIATION:
+        return accumulator.getStandardDeviation();
+      case VARIANCE:
+        return accumulator.getVariance();
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Sort records in place by their group values.
+   *
+   * @param records       to sort
+   * @param orderByFields group by fields to sort by, in order of precedence
+   */
+  static void sortRecords(List<Record> records, List<QueryParameters.OrderBy> orderByFields) {
+    if (orderByFields.isEmpty()) {
+      return;
+    }
+    Collections.sort(records, (a, b) -> {
+      for (QueryParameters.OrderBy orderBy : orderByFields) {
+        int comparison = compareValues(a.mGroup.get(orderBy.getFieldName()), b.mGroup.get(orderBy.getFieldName()));
+        if (comparison != 0) {
+          return orderBy.getSortOrder() == QueryParameters.SortOrder.DESCENDING ? -comparison : comparison;
+        }
+      }
+      return 0;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareValues(Object a, Object b) {
+    if (a == null || b == null) {
+      // nulls sort first
+      return a == null ? (b == null ? 0 : -1) : 1;
+    }
+    if (a instanceof Number && b instanceof Number) {
+      return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+    }
+    if (a instanceof Comparable && a.getClass() == b.getClass()) {
+      return ((Comparable<Object>) a).compareTo(b);
+    }
+    return a.toString().compareTo(b.toString());
+  }
+
+  /**
+   * @return the name of the statistic in a {@link Record}, either the definition's output alias or the statistic type
+   * and field name, e.g. AVG_POP
+   */
+  static String getOutputName(StatisticDefinition definition) {
+    if (definition.getOutputAlias() != null && !definition.getOutputAlias().isEmpty()) {
+      return definition.getOutputAlias();
+    }
+    String prefix;
+    switch (definition.getStatisticType()) {
+      case AVERAGE:
+        prefix = "AVG";
+        break;
+      case COUNT:
+        prefix = "COUNT";
+        break;
+      case MAXIMUM:
+        prefix = "MAX";
+        break;
+      case MINIMUM:
+        prefix = "MIN";
+        break;
+      case STANDARD_DEVIATION:
+        prefix = "STDDEV";
+        break;
+      case SUM:
+        prefix = "SUM";
+        break;
+      case VARIANCE:
+        prefix = "VAR";
+        break;
+      default:
+        prefix = definition.getStatisticType().name();
+    }
+    return prefix + "_" + definition.getFieldName();
+  }
+
+  private static boolean isNumeric(Field.Type fieldType) {
+    switch (fieldType) {
+      case SHORT:
+      case INTEGER:
+      case FLOAT:
+      case DOUBLE:
+      case OID:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Statistics for one group, equivalent to a {@link com.esri.arcgisruntime.data.StatisticRecord}.
+   */
+  static final class Record {
+    private final Map<String, Object> mGroup;
+    private final Map<String, Object> mStatistics;
+
+    Record(Map<String, Object> group, Map<String, Object> statistics) {
+      mGroup = group;
+      mStatistics = statistics;
+    }
+
+    /**
+     * @return the group by field values of this record, empty if the statistics weren't grouped
+     */
+    Map<String, Object> getGroup() {
+      return mGroup;
+    }
+
+    /**
+     * @return the computed statistics, keyed by {@link #getOutputName}
+     */
+    Map<String, Object> getStatistics() {
+      return mStatistics;
+    }
+  }
+
+  /**
+   * The group by field values of a row, usable as a hash map key.
+   */
+  private static final class GroupKey {
+    private final Object[] mValues;
+    private final int mHashCode;
+
+    GroupKey(Object[] values) {
+      mValues = values;
+      mHashCode = Arrays.hashCode(values);
+    }
+
+    @Override public boolean equals(Object o) {
+      return this == o || (o instanceof GroupKey && mHashCode == ((GroupKey) o).mHashCode && Arrays
+          .equals(mValues, ((GroupKey) o).mValues));
+    }
+
+    @Override public int hashCode() {
+      return mHashCode;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import android.content.Intent;
 import android.graphics.Color;
@@ -35,6 +36,7 @@ import android.util.Log;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.Spinner;
 import android.widget.Toast;
 
@@ -46,7 +48,6 @@ import com.esri.arcgisruntime.data.StatisticRecord;
 import com.esri.arcgisruntime.data.StatisticType;
 import com.esri.arcgisruntime.data.StatisticsQueryParameters;
 import com.esri.arcgisruntime.data.StatisticsQueryResult;
-import com.google.gson.Gson;
 
 /**
  * This class demonstrates querying statistics from a service feature table. To make the query relevant,
@@ -68,6 +69,18 @@ public class MainActivity extends AppCompatActivity {
   private RecyclerViewAdapter mGroupAdapter;
   private RecyclerViewAdapter mOrderByAdapter;
   private AlertDialog mQueryExecutingAlert;
+  private CheckBox mComputeLocallyCheckBox;
+
+  // attributes of all counties with a state, cached the first time statistics are computed locally
+  private LocalStatisticsEngine mLocalStatisticsEngine;
+
+  // whether the counties are being cached, and the latest query requested while they are
+  private boolean mLocalStatisticsLoading;
+  private StatisticsQueryParameters mPendingLocalQueryParams;
+  private String mPendingLocalCacheKey;
+
+  // results of previous queries, re-sorted locally when only the order by fields change
+  private final StatisticsResultCache mStatisticsResultCache = new StatisticsResultCache();
 
   private List<StatisticDefinition> mStatisticDefinitionList;
   private List<String> mStatisticDefinitionsAsStringsList;
@@ -187,56 +200,143 @@ public class MainActivity extends AppCompatActivity {
       }
     }
 
-    // execute the statistical query with these parameters and await the results
-    ListenableFuture<StatisticsQueryResult> statisticsQueryResultFuture = mUsStatesFeatureTable
-        .queryStatisticsAsync(statQueryParams);
+    // if only the sort order has changed since a previous query, re-sort its records instead of querying again
+    String cacheKey = StatisticsResultCache
+        .createKey(mStatisticDefinitionList, groupList, statQueryParams.getWhereClause(),
+            mComputeLocallyCheckBox.isChecked());
+    List<LocalStatisticsEngine.Record> cachedRecords = mStatisticsResultCache.get(cacheKey);
+    if (cachedRecords != null) {
+      LocalStatisticsEngine.sortRecords(cachedRecords, statQueryParams.getOrderByFields());
+      displayResults(cachedRecords);
+      return;
+    }
 
     // show a loading dialog on execution of query
     mQueryExecutingAlert.show();
 
+    if (mComputeLocallyCheckBox.isChecked()) {
+      executeStatisticsQueryLocally(statQueryParams, cacheKey);
+      return;
+    }
+
+    // execute the statistical query with these parameters and await the results
+    ListenableFuture<StatisticsQueryResult> statisticsQueryResultFuture = mUsStatesFeatureTable
+        .queryStatisticsAsync(statQueryParams);
+
     statisticsQueryResultFuture.addDoneListener(() -> {
       try {
         // get the StatisticsQueryResult
         StatisticsQueryResult statisticsQueryResult = statisticsQueryResultFuture.get();
 
-        // create a LinkedHashMap (preserves ordering) and populate it with the statistics query result
-        Map<String, List<String>> groupedStatistics = new LinkedHashMap<>();
-        // get each statistic record
+        // copy each statistic record, which are already sorted by the service
+        List<LocalStatisticsEngine.Record> records = new ArrayList<>();
         for (Iterator<StatisticRecord> results = statisticsQueryResult.iterator(); results.hasNext(); ) {
           StatisticRecord statisticRecord = results.next();
-          // if statistic record contains no grouping
-          if (statisticRecord.getGroup().isEmpty()) {
-            List<String> statsWithoutGroup = new ArrayList<>();
-            for (Map.Entry<String, Object> stat : statisticRecord.getStatistics().entrySet()) {
-              statsWithoutGroup.add(stat.getKey() + ": " + stat.getValue());
-            }
-            // add statistics to an expandable list view category called ungrouped statistics
-            groupedStatistics.put("Ungrouped statistics", statsWithoutGroup);
-          } else {
-            // get group for each statistic record
-            for (Map.Entry<String, Object> group : statisticRecord.getGroup().entrySet()) {
-              // add all stats for each group to a new list
-              List<String> statsForGroup = new ArrayList<>();
-              for (Map.Entry<String, Object> stat : statisticRecord.getStatistics().entrySet()) {
-                statsForGroup.add(stat.getKey() + ": " + stat.getValue());
-              }
-              // add group and associated stats for that group to linked hash map
-              groupedStatistics.put(group.getValue().toString(), statsForGroup);
-            }
-          }
+          records.add(new LocalStatisticsEngine.Record(new LinkedHashMap<>(statisticRecord.getGroup()),
+              new LinkedHashMap<>(statisticRecord.getStatistics())));
         }
-
-        // write the linked hash map out to json
-        Gson gson = new Gson();
-        String groupedStatisticsJson = gson.toJson(groupedStatistics, LinkedHashMap.class);
+        mStatisticsResultCache.put(cacheKey, records);
         // pass the results to displayResults
-        displayResults(groupedStatisticsJson);
+        displayResults(records);
       } catch (InterruptedException | ExecutionException e) {
+        mQueryExecutingAlert.dismiss();
+        Toast.makeText(MainActivity.this, "Error getting statistics: " + e.getMessage(), Toast.LENGTH_LONG).show();
         Log.e(TAG, "Invalid statistics definition: " + e.getMessage());
       }
     });
   }
 
+  /**
+   * Computes the statistics query over counties cached on the device instead of querying the service. The counties
+   * are cached the first time this is called, using the same where clause as the service query.
+   */
+  private void executeStatisticsQueryLocally(StatisticsQueryParameters statQueryParams, String cacheKey) {
+    if (mLocalStatisticsEngine == null) {
+      // queries while the counties are being cached only replace the query computed once they are
+      mPendingLocalQueryParams = statQueryParams;
+      mPendingLocalCacheKey = cacheKey;
+      if (mLocalStatisticsLoading) {
+        return;
+      }
+      mLocalStatisticsLoading = true;
+      LocalStatisticsEngine.loadAsync(mUsStatesFeatureTable, statQueryParams.getWhereClause(),
+          new LocalStatisticsEngine.LoadListener() {
+            @Override public void onLoaded(LocalStatisticsEngine engine) {
+              mLocalStatisticsLoading = false;
+              if (isDestroyed()) {
+                engine.shutdown();
+                return;
+              }
+              mLocalStatisticsEngine = engine;
+              Log.d(TAG, "Cached " + engine.getRowCount() + " counties for local statistics");
+              executeStatisticsQueryLocally(mPendingLocalQueryParams, mPendingLocalCacheKey);
+            }
+
+            @Override public void onError(Exception e) {
+              mLocalStatisticsLoading = false;
+              mQueryExecutingAlert.dismiss();
+              Toast.makeText(MainActivity.this, "Error caching counties: " + e.getMessage(), Toast.LENGTH_LONG).show();
+              Log.e(TAG, "Error caching counties: " + e.getMessage());
+            }
+          });
+      return;
+    }
+
+    // compute on a worker thread and display the results on the UI thread
+    new Thread(() -> {
+      try {
+        List<LocalStatisticsEngine.Record> records = mLocalStatisticsEngine
+            .computeStatistics(statQueryParams.getStatisticDefinitions(), statQueryParams.getGroupByFieldNames(),
+                statQueryParams.getOrderByFields(), null);
+        runOnUiThread(() -> {
+          mStatisticsResultCache.put(cacheKey, records);
+          displayResults(records);
+        });
+      } catch (InterruptedException | ExecutionException | IllegalArgumentException e) {
+        runOnUiThread(() -> {
+          mQueryExecutingAlert.dismiss();
+          Toast.makeText(MainActivity.this, "Error computing statistics: " + e.getMessage(), Toast.LENGTH_LONG)
+              .show();
+        });
+        Log.e(TAG, "Invalid statistics definition: " + e.getMessage());
+      } catch (RejectedExecutionException e) {
+        // the activity has been destroyed
+        Log.d(TAG, "Statistics not computed: " + e.getMessage());
+      }
+    }).start();
+  }
+
+  /**
+   * Adds the statistics of a record to the grouped statistics shown in the results activity.
+   *
+   * @param groupedStatistics map of group name to statistics for that group
+   * @param group             group field values of the record, empty if the statistics are not grouped
+   * @param statistics        statistic names and values of the record
+   */
+  private static void addToGroupedStatistics(Map<String, List<String>> groupedStatistics, Map<String, Object> group,
+      Map<String, Object> statistics) {
+    // if statistic record contains no grouping
+    if (group.isEmpty()) {
+      List<String> statsWithoutGroup = new ArrayList<>();
+      for (Map.Entry<String, Object> stat : statistics.entrySet()) {
+        statsWithoutGroup.add(stat.getKey() + ": " + stat.getValue());
+      }
+      // add statistics to an expandable list view category called ungrouped statistics
+      groupedStatistics.put("Ungrouped statistics", statsWithoutGroup);
+    } else {
+      // get group for each statistic record
+      for (Map.Entry<String, Object> groupEntry : group.entrySet()) {
+        // add all stats for each group to a new list
+        List<String> statsForGroup = new ArrayList<>();
+        for (Map.Entry<String, Object> stat : statistics.entrySet()) {
+          statsForGroup.add(stat.getKey() + ": " + stat.getValue());
+        }
+        // add group and associated stats for that group to linked hash map
+        groupedStatistics.put(String.valueOf(groupEntry.getValue()), statsForGroup);
+      }
+    }
+  }
+
   /**
    * Adds a statistic, consisting of a field and StatisticType to a list of StatisticDefinitions and to the recycler
    * view.
@@ -336,12 +436,16 @@ public class MainActivity extends AppCompatActivity {
   /**
    * Creates a new activity to display results.
    *
-   * @param groupedStatisticsJson Json of LinkedHashMap containing grouped result from statisticsQueryResult
+   * @param records statistic records, in display order
    */
-  private void displayResults(String groupedStatisticsJson) {
-    Intent intent = new Intent(this, ResultsActivity.class);
-    ResultsActivity.results = groupedStatisticsJson;
-    startActivity(intent);
+  private void displayResults(List<LocalStatisticsEngine.Record> records) {
+    // create a LinkedHashMap (preserves ordering) and populate it with the statistic records
+    LinkedHashMap<String, List<String>> groupedStatistics = new LinkedHashMap<>();
+    for (LocalStatisticsEngine.Record record : records) {
+      addToGroupedStatistics(groupedStatistics, record.getGroup(), record.getStatistics());
+    }
+    StatisticsResultsStore.setGroupedStatistics(groupedStatistics);
+    startActivity(new Intent(this, ResultsActivity.class));
   }
 
   /**
@@ -351,6 +455,7 @@ public class MainActivity extends AppCompatActivity {
     mStatisticsDefinitionRecyclerView = findViewById(R.id.fieldTypeRecyclerView);
     mGroupRecyclerView = findViewById(R.id.groupFieldRecyclerView);
     mOrderByRecyclerView = findViewById(R.id.orderFieldRecyclerView);
+    mComputeLocallyCheckBox = findViewById(R.id.computeLocallyCheckBox);
   }
 
   /**
@@ -398,6 +503,13 @@ public class MainActivity extends AppCompatActivity {
     mQueryExecutingAlert.dismiss();
   }
 
+  @Override protected void onDestroy() {
+    super.onDestroy();
+    if (mLocalStatisticsEngine != null) {
+      mLocalStatisticsEngine.shutdown();
+    }
+  }
+
   /**
    * Helper method to get the sort order from a string containing a field and sort order.
    *
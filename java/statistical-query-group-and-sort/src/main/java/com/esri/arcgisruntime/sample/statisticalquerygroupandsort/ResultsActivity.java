@@ -25,25 +25,17 @@ import android.support.v7.app.AppCompatActivity;
 import android.widget.ExpandableListAdapter;
 import android.widget.ExpandableListView;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
 /**
- * Gets results from the main activity through an Intent extra, converts the results to a LinkedHashMap, and creates an
- * ExpandableListView to display the results.
+ * Gets results from the main activity through the {@link StatisticsResultsStore} and creates an ExpandableListView to
+ * display the results.
  */
 public class ResultsActivity extends AppCompatActivity {
 
-  public static String results = "";
-
   @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.results_expandablelistview);
 
-    Gson gson = new Gson();
-
-    LinkedHashMap<String, List<String>> groupedStatistics = gson
-        .fromJson(results, new ResultsActivity.LinkedHashMapTypeToken().getType());
+    LinkedHashMap<String, List<String>> groupedStatistics = StatisticsResultsStore.getGroupedStatistics();
 
     // create expandable list view
     ExpandableListView expandableListView = findViewById(R.id.expandableListView);
@@ -52,7 +44,4 @@ public class ResultsActivity extends AppCompatActivity {
     // expand the first group by default
     expandableListView.expandGroup(0);
   }
-
-  private static class LinkedHashMapTypeToken extends TypeToken<LinkedHashMap<String, List<String>>> {
-  }
 }
@@ -0,0 +1,77 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquerygroupandsort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.esri.arcgisruntime.data.StatisticDefinition;
+
+/**
+ * Memoizes statistics query results. Results are keyed by everything which changes the set of records returned, the
+ * statistic definitions, group by fields and where clause, but not by the order by fields, since re-sorting cached
+ * records locally gives the same result as querying again.
+ */
+class StatisticsResultCache {
+
+  private static final int MAX_ENTRIES = 16;
+
+  private final Map<String, List<LocalStatisticsEngine.Record>> mResults =
+      new LinkedHashMap<String, List<LocalStatisticsEngine.Record>>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, List<LocalStatisticsEngine.Record>> eldest) {
+          return size() > MAX_ENTRIES;
+        }
+      };
+
+  /**
+   * Create a canonical key for a statistics query. Definitions and group by fields are sorted, so the order in which
+   * they were added doesn't matter.
+   *
+   * @param statisticDefinitions statistics in the query
+   * @param groupByFieldNames    fields the statistics are grouped by
+   * @param whereClause          attribute filter of the query
+   * @param local                whether the statistics were computed on the device rather than by the service
+   * @return the key
+   */
+  static String createKey(List<StatisticDefinition> statisticDefinitions, List<String> groupByFieldNames,
+      String whereClause, boolean local) {
+    List<String> definitions = new ArrayList<>(statisticDefinitions.size());
+    for (StatisticDefinition definition : statisticDefinitions) {
+      definitions.add(definition.getFieldName() + '|' + definition.getStatisticType() + '|' + definition
+          .getOutputAlias());
+    }
+    Collections.sort(definitions);
+    List<String> groups = new ArrayList<>(groupByFieldNames);
+    Collections.sort(groups);
+    return definitions + "/" + groups + "/" + whereClause + "/" + (local ? "local" : "service");
+  }
+
+  /**
+   * @return a copy of the cached records for the key, which may be sorted freely, or null if there are none
+   */
+  List<LocalStatisticsEngine.Record> get(String key) {
+    List<LocalStatisticsEngine.Record> records = mResults.get(key);
+    return records != null ? new ArrayList<>(records) : null;
+  }
+
+  void put(String key, List<LocalStatisticsEngine.Record> records) {
+    mResults.put(key, new ArrayList<>(records));
+  }
+}
@@ -0,0 +1,40 @@
+/* Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquerygroupandsort;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Hands grouped statistics from the main activity to the results activity within the process, without serializing
+ * them.
+ */
+final class StatisticsResultsStore {
+
+  private static LinkedHashMap<String, List<String>> sGroupedStatistics = new LinkedHashMap<>();
+
+  private StatisticsResultsStore() {
+  }
+
+  static synchronized void setGroupedStatistics(LinkedHashMap<String, List<String>> groupedStatistics) {
+    sGroupedStatistics = groupedStatistics;
+  }
+
+  static synchronized LinkedHashMap<String, List<String>> getGroupedStatistics() {
+    return sGroupedStatistics;
+  }
+}
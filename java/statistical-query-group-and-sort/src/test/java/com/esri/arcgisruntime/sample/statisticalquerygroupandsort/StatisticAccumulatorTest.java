@@ -0,0 +1,150 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquerygroupandsort;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the accumulated statistics against a straightforward two pass calculation, and that merging the partial
+ * accumulators of any split of the values gives the same statistics as accumulating them in one pass.
+ */
+public class StatisticAccumulatorTest {
+
+  private static final double[] VALUES = { 12.5, 7.0, 3.25, 19.0, 7.0, 0.0, -4.5, 11.75, 8.0, 2.0 };
+
+  @Test
+  public void singlePassMatchesTwoPass() {
+    assertMatchesTwoPass(VALUES, accumulate(VALUES, 0, VALUES.length));
+  }
+
+  @Test
+  public void largeValuesKeepTheirVariance() {
+    // a large offset makes a sum of squares lose the variance to rounding
+    double[] values = new double[VALUES.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1e9 + VALUES[i];
+    }
+    assertMatchesTwoPass(values, accumulate(values, 0, values.length));
+  }
+
+  @Test
+  public void mergedChunksMatchSinglePass() {
+    double[] values = new double[1000];
+    Random random = new Random(42);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextGaussian() * 100 + 50;
+    }
+    StatisticAccumulator singlePass = accumulate(values, 0, values.length);
+    for (int chunkSize : new int[] { 1, 7, 256, 999, 1000 }) {
+      StatisticAccumulator merged = new StatisticAccumulator();
+      for (int start = 0; start < values.length; start += chunkSize) {
+        merged.merge(accumulate(values, start, Math.min(values.length, start + chunkSize)));
+      }
+      assertEquals(singlePass.getCount(), merged.getCount());
+      assertEquals(singlePass.getSum(), merged.getSum(), 1e-6);
+      assertEquals(singlePass.getMean(), merged.getMean(), 1e-9);
+      assertEquals(singlePass.getVariance(), merged.getVariance(), 1e-6);
+      assertEquals(singlePass.getMinimum(), merged.getMinimum(), 0);
+      assertEquals(singlePass.getMaximum(), merged.getMaximum(), 0);
+    }
+  }
+
+  @Test
+  public void mergingAnEmptyAccumulatorChangesNothing() {
+    StatisticAccumulator accumulator = accumulate(VALUES, 0, VALUES.length);
+    accumulator.merge(new StatisticAccumulator());
+    assertMatchesTwoPass(VALUES, accumulator);
+
+    StatisticAccumulator empty = new StatisticAccumulator();
+    empty.merge(accumulate(VALUES, 0, VALUES.length));
+    assertMatchesTwoPass(VALUES, empty);
+  }
+
+  @Test
+  public void nullValuesAreIgnored() {
+    StatisticAccumulator accumulator = new StatisticAccumulator();
+    accumulator.add(Double.NaN);
+    for (double value : VALUES) {
+      accumulator.add(value);
+      accumulator.add(Double.NaN);
+    }
+    assertMatchesTwoPass(VALUES, accumulator);
+  }
+
+  @Test
+  public void singleValueHasNoVariance() {
+    StatisticAccumulator accumulator = new StatisticAccumulator();
+    accumulator.add(5);
+    assertEquals(1, accumulator.getCount());
+    assertEquals(0, accumulator.getVariance(), 0);
+    assertEquals(0, accumulator.getStandardDeviation(), 0);
+  }
+
+  @Test
+  public void nonNumericValuesOnlyCount() {
+    StatisticAccumulator accumulator = new StatisticAccumulator();
+    assertFalse(accumulator.hasNumericValues());
+    accumulator.addNonNumeric();
+    accumulator.addNonNumeric();
+    assertEquals(2, accumulator.getCount());
+    assertFalse(accumulator.hasNumericValues());
+    accumulator.add(1);
+    assertTrue(accumulator.hasNumericValues());
+  }
+
+  private static StatisticAccumulator accumulate(double[] values, int start, int end) {
+    StatisticAccumulator accumulator = new StatisticAccumulator();
+    for (int i = start; i < end; i++) {
+      accumulator.add(values[i]);
+    }
+    return accumulator;
+  }
+
+  private static void assertMatchesTwoPass(double[] values, StatisticAccumulator accumulator) {
+    double sum = 0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (double value : values) {
+      sum += value;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    double mean = sum / values.length;
+    double squares = 0;
+    for (double value : values) {
+      squares += (value - mean) * (value - mean);
+    }
+    // sample variance, as calculated by the service
+    double variance = squares / (values.length - 1);
+
+    double tolerance = 1e-9 * Math.max(1, Math.abs(mean));
+    assertEquals(values.length, accumulator.getCount());
+    assertTrue(accumulator.hasNumericValues());
+    assertEquals(sum, accumulator.getSum(), tolerance * values.length);
+    assertEquals(mean, accumulator.getMean(), tolerance);
+    assertEquals(min, accumulator.getMinimum(), 0);
+    assertEquals(max, accumulator.getMaximum(), 0);
+    assertEquals(variance, accumulator.getVariance(), 1e-6 * Math.max(1, variance));
+    assertEquals(Math.sqrt(variance), accumulator.getStandardDeviation(), 1e-6 * Math.max(1, Math.sqrt(variance)));
+  }
+}
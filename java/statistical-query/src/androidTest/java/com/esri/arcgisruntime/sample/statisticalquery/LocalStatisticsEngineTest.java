@@ -0,0 +1,146 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquery;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticRecord;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+import com.esri.arcgisruntime.data.StatisticsQueryResult;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the statistics computed on the device with those returned by
+ * {@link ServiceFeatureTable#queryStatisticsAsync} for the world cities used by the sample. Needs a network connection.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalStatisticsEngineTest {
+
+  private static final long TIMEOUT_SECONDS = 60;
+
+  private static ServiceFeatureTable sWorldCitiesTable;
+
+  private static LocalStatisticsEngine sEngine;
+
+  @BeforeClass
+  public static void cacheWorldCities() throws Exception {
+    sWorldCitiesTable = new ServiceFeatureTable(
+        InstrumentationRegistry.getTargetContext().getString(R.string.world_cities_service_0));
+    CountDownLatch tableLoaded = new CountDownLatch(1);
+    sWorldCitiesTable.addDoneLoadingListener(tableLoaded::countDown);
+    sWorldCitiesTable.loadAsync();
+    assertTrue(tableLoaded.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(LoadStatus.LOADED, sWorldCitiesTable.getLoadStatus());
+
+    CountDownLatch engineLoaded = new CountDownLatch(1);
+    AtomicReference<Exception> error = new AtomicReference<>();
+    LocalStatisticsEngine.loadAsync(sWorldCitiesTable, "1=1", new LocalStatisticsEngine.LoadListener() {
+      @Override public void onLoaded(LocalStatisticsEngine engine) {
+        sEngine = engine;
+        engineLoaded.countDown();
+      }
+
+      @Override public void onError(Exception e) {
+        error.set(e);
+        engineLoaded.countDown();
+      }
+    });
+    assertTrue(engineLoaded.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    if (error.get() != null) {
+      throw error.get();
+    }
+  }
+
+  @AfterClass
+  public static void shutdown() {
+    if (sEngine != null) {
+      sEngine.shutdown();
+    }
+  }
+
+  @Test
+  public void statisticsOfAllCitiesMatchTheService() throws Exception {
+    assertSameStatistics(null, null);
+  }
+
+  @Test
+  public void statisticsOfLargeCitiesMatchTheService() throws Exception {
+    assertSameStatistics("POP_CLASS = '5,000,000 and greater'",
+        (engine, row) -> "5,000,000 and greater".equals(engine.getValue("POP_CLASS", row)));
+  }
+
+  private static void assertSameStatistics(String whereClause, LocalStatisticsEngine.RowFilter rowFilter)
+      throws Exception {
+    List<StatisticDefinition> definitions = new ArrayList<>();
+    for (StatisticType statisticType : StatisticType.values()) {
+      definitions.add(new StatisticDefinition("POP", statisticType, ""));
+    }
+    StatisticsQueryParameters statQueryParams = new StatisticsQueryParameters(definitions);
+    if (whereClause != null) {
+      statQueryParams.setWhereClause(whereClause);
+    }
+    StatisticsQueryResult serviceResult = sWorldCitiesTable.queryStatisticsAsync(statQueryParams)
+        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    Iterator<StatisticRecord> serviceRecords = serviceResult.iterator();
+    assertTrue(serviceRecords.hasNext());
+    Map<String, Object> serviceStatistics = serviceRecords.next().getStatistics();
+
+    List<LocalStatisticsEngine.Record> localRecords = sEngine
+        .computeStatistics(definitions, statQueryParams.getGroupByFieldNames(), statQueryParams.getOrderByFields(),
+            rowFilter);
+    assertEquals(1, localRecords.size());
+    Map<String, Object> localStatistics = localRecords.get(0).getStatistics();
+
+    for (StatisticDefinition definition : definitions) {
+      String name = LocalStatisticsEngine.getOutputName(definition);
+      assertTrue(name + " returned by the service", serviceStatistics.containsKey(name));
+      assertClose(name, (Number) serviceStatistics.get(name), (Number) localStatistics.get(name));
+    }
+  }
+
+  private static void assertClose(String name, Number expected, Number actual) {
+    if (expected == null) {
+      // undefined, e.g. the average of a group without values
+      assertNull(name, actual);
+      return;
+    }
+    assertNotNull(name, actual);
+    double tolerance = 1e-6 * Math.max(1, Math.abs(expected.doubleValue()));
+    assertEquals(name, expected.doubleValue(), actual.doubleValue(), tolerance);
+  }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import android.os.Bundle;
 import android.support.design.widget.Snackbar;
@@ -33,7 +34,6 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
-import com.esri.arcgisruntime.data.FeatureTable;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.data.StatisticDefinition;
@@ -42,6 +42,7 @@ import com.esri.arcgisruntime.data.StatisticType;
 import com.esri.arcgisruntime.data.StatisticsQueryParameters;
 import com.esri.arcgisruntime.data.StatisticsQueryResult;
 import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
@@ -54,8 +55,16 @@ public class MainActivity extends AppCompatActivity {
 
   private CheckBox mCurrentExtentCheckbox;
   private CheckBox mGreater5mCheckbox;
+  private CheckBox mComputeLocallyCheckbox;
   private MapView mMapView;
-  private FeatureTable mWorldCitiesTable;
+  private ServiceFeatureTable mWorldCitiesTable;
+
+  // attributes and locations of all world cities, cached the first time statistics are computed locally
+  private LocalStatisticsEngine mLocalStatisticsEngine;
+
+  // whether the world cities are being cached, and the latest statistics requested while they are
+  private boolean mLocalStatisticsLoading;
+  private StatisticsQueryParameters mPendingLocalQueryParams;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -66,6 +75,7 @@ public class MainActivity extends AppCompatActivity {
     mMapView = findViewById(R.id.mapView);
     mCurrentExtentCheckbox = findViewById(R.id.currentExtentCheckBox);
     mGreater5mCheckbox = findViewById(R.id.greater5mCheckBox);
+    mComputeLocallyCheckbox = findViewById(R.id.computeLocallyCheckBox);
     Button getStatisticsButton = findViewById(R.id.getStatisticsButton);
 
     // create a new Map with the world streets vector basemap
@@ -98,7 +108,11 @@ public class MainActivity extends AppCompatActivity {
     getStatisticsButton.setOnClickListener(view -> {
       // create the statistics query parameters, pass in the list of definitions
       StatisticsQueryParameters statQueryParams = new StatisticsQueryParameters(statDefinitions);
-      getStatistics(statQueryParams);
+      if (mComputeLocallyCheckbox.isChecked()) {
+        getStatisticsLocally(statQueryParams);
+      } else {
+        getStatistics(statQueryParams);
+      }
     });
   }
 
@@ -131,26 +145,13 @@ public class MainActivity extends AppCompatActivity {
         // get the result
         StatisticsQueryResult statQueryResult = statQueryResultFuture.get();
 
-        // get iterator from the result
+        // get the statistics of each record in the result
+        List<Map<String, Object>> statistics = new ArrayList<>();
         Iterator<StatisticRecord> statisticRecordIterator = statQueryResult.iterator();
-
-        // build a result string for display
-        StringBuilder result = new StringBuilder();
         while (statisticRecordIterator.hasNext()) {
-          Map<String, Object> statisticsMap = statisticRecordIterator.next().getStatistics();
-          for (Map.Entry<String, Object> stat : statisticsMap.entrySet()) {
-            result.append(stat.getKey()).append(": ")
-                .append(String.format(Locale.US, "%,.0f", (Double) stat.getValue())).append("\n");
-          }
+          statistics.add(statisticRecordIterator.next().getStatistics());
         }
-
-        // show the results in a snackbar
-        Snackbar reportSnackbar = Snackbar.make(findViewById(R.id.activityMain), result, Snackbar.LENGTH_INDEFINITE);
-        reportSnackbar.setAction("New Query", view -> reportSnackbar.dismiss());
-        TextView snackbarTextView = reportSnackbar.getView().findViewById(android.support.design.R.id.snackbar_text);
-        snackbarTextView.setSingleLine(false);
-        reportSnackbar.show();
-
+        showStatistics(statistics);
       } catch (InterruptedException | ExecutionException e) {
         Toast.makeText(MainActivity.this, "Error getting Statistical Query Results: " + e.getMessage(),
             Toast.LENGTH_LONG).show();
@@ -160,6 +161,103 @@ public class MainActivity extends AppCompatActivity {
     });
   }
 
+  /**
+   * Compute the same statistics as {@link #getStatistics(StatisticsQueryParameters)} over world cities cached on the
+   * device, caching them first if necessary. The extent and population filters are applied to the cached rows.
+   */
+  private void getStatisticsLocally(StatisticsQueryParameters statQueryParams) {
+    if (mLocalStatisticsEngine == null) {
+      // taps while the cities are being cached only replace the statistics computed once they are
+      mPendingLocalQueryParams = statQueryParams;
+      if (mLocalStatisticsLoading) {
+        return;
+      }
+      mLocalStatisticsLoading = true;
+      mWorldCitiesTable.loadAsync();
+      mWorldCitiesTable.addDoneLoadingListener(() -> LocalStatisticsEngine
+          .loadAsync(mWorldCitiesTable, "1=1", new LocalStatisticsEngine.LoadListener() {
+            @Override public void onLoaded(LocalStatisticsEngine engine) {
+              mLocalStatisticsLoading = false;
+              if (isDestroyed()) {
+                engine.shutdown();
+                return;
+              }
+              mLocalStatisticsEngine = engine;
+              Log.d(TAG, "Cached " + engine.getRowCount() + " world cities for local statistics");
+              getStatisticsLocally(mPendingLocalQueryParams);
+            }
+
+            @Override public void onError(Exception e) {
+              mLocalStatisticsLoading = false;
+              Toast.makeText(MainActivity.this, "Error caching world cities: " + e.getMessage(), Toast.LENGTH_LONG)
+                  .show();
+              Log.e(TAG, "Error caching world cities: " + e.getMessage());
+            }
+          }));
+      return;
+    }
+
+    // the cached city locations are in the table's spatial reference, so project the current extent to match
+    Envelope extent = mCurrentExtentCheckbox.isChecked() ? (Envelope) GeometryEngine
+        .project(mMapView.getCurrentViewpoint(Viewpoint.Type.BOUNDING_GEOMETRY).getTargetGeometry().getExtent(),
+            mWorldCitiesTable.getSpatialReference()) : null;
+    boolean greater5m = mGreater5mCheckbox.isChecked();
+    LocalStatisticsEngine.RowFilter rowFilter = (engine, row) -> {
+      if (greater5m && !"5,000,000 and greater".equals(engine.getValue("POP_CLASS", row))) {
+        return false;
+      }
+      return extent == null || (engine.getX(row) >= extent.getXMin() && engine.getX(row) <= extent.getXMax()
+          && engine.getY(row) >= extent.getYMin() && engine.getY(row) <= extent.getYMax());
+    };
+
+    // compute on a worker thread and show the result on the UI thread
+    new Thread(() -> {
+      try {
+        long start = System.nanoTime();
+        List<LocalStatisticsEngine.Record> records = mLocalStatisticsEngine
+            .computeStatistics(statQueryParams.getStatisticDefinitions(), statQueryParams.getGroupByFieldNames(),
+                statQueryParams.getOrderByFields(), rowFilter);
+        Log.d(TAG,
+            String.format(Locale.US, "Computed statistics locally in %.2f ms", (System.nanoTime() - start) / 1e6));
+        List<Map<String, Object>> statistics = new ArrayList<>();
+        for (LocalStatisticsEngine.Record record : records) {
+          statistics.add(record.getStatistics());
+        }
+        runOnUiThread(() -> showStatistics(statistics));
+      } catch (InterruptedException | ExecutionException e) {
+        runOnUiThread(() -> Toast.makeText(MainActivity.this,
+            "Error computing statistics locally: " + e.getMessage(), Toast.LENGTH_LONG).show());
+        Log.e(TAG, "Error computing statistics locally: " + e.getMessage());
+      } catch (RejectedExecutionException e) {
+        // the activity has been destroyed
+        Log.d(TAG, "Statistics not computed: " + e.getMessage());
+      }
+    }).start();
+  }
+
+  /**
+   * Show the statistics of each record in a snackbar.
+   *
+   * @param statistics maps of statistic name to value, one for each record
+   */
+  private void showStatistics(List<Map<String, Object>> statistics) {
+    // build a result string for display
+    StringBuilder result = new StringBuilder();
+    for (Map<String, Object> statisticsMap : statistics) {
+      for (Map.Entry<String, Object> stat : statisticsMap.entrySet()) {
+        result.append(stat.getKey()).append(": ")
+            .append(String.format(Locale.US, "%,.0f", (Double) stat.getValue())).append("\n");
+      }
+    }
+
+    // show the results in a snackbar
+    Snackbar reportSnackbar = Snackbar.make(findViewById(R.id.activityMain), result, Snackbar.LENGTH_INDEFINITE);
+    reportSnackbar.setAction("New Query", view -> reportSnackbar.dismiss());
+    TextView snackbarTextView = reportSnackbar.getView().findViewById(android.support.design.R.id.snackbar_text);
+    snackbarTextView.setSingleLine(false);
+    reportSnackbar.show();
+  }
+
   @Override
   protected void onPause() {
     mMapView.pause();
@@ -175,6 +273,9 @@ public class MainActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (mLocalStatisticsEngine != null) {
+      mLocalStatisticsEngine.shutdown();
+    }
     mMapView.dispose();
   }
 }
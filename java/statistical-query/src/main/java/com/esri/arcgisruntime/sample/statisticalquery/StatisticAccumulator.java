@@ -0,0 +1,118 @@
+/* Copyright 2026 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.statisticalquery;
+
+/**
+ * Running count, mean, sum of squared differences from the mean, minimum and maximum of the non-null values of a
+ * field. Partial accumulators from different chunks of rows are combined with the parallel variance algorithm, so
+ * the result doesn't depend on how the rows were split.
+ * <p>
+ * Variance and standard deviation are of a sample, as calculated by the service.
+ */
+final class StatisticAccumulator {
+
+  private long mCount;
+  private double mSum;
+  private double mMean;
+  private double mM2;
+  private double mMin = Double.POSITIVE_INFINITY;
+  private double mMax = Double.NEGATIVE_INFINITY;
+
+  /**
+   * Adds a value of a numeric field. NaN stands for a null value and is ignored.
+   */
+  void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    mCount++;
+    mSum += value;
+    double delta = value - mMean;
+    mMean += delta / mCount;
+    mM2 += delta * (value - mMean);
+    mMin = Math.min(mMin, value);
+    mMax = Math.max(mMax, value);
+  }
+
+  /**
+   * Counts a non-null value of a non-numeric field, which only supports COUNT.
+   */
+  void addNonNumeric() {
+    mCount++;
+  }
+
+  /**
+   * Adds the values accumulated by another accumulator.
+   */
+  void merge(StatisticAccumulator other) {
+    if (other.mCount == 0) {
+      return;
+    }
+    long count = mCount + other.mCount;
+    double delta = other.mMean - mMean;
+    mM2 += other.mM2 + delta * delta * mCount * other.mCount / count;
+    mMean += delta * other.mCount / count;
+    mSum += other.mSum;
+    mCount = count;
+    mMin = Math.min(mMin, other.mMin);
+    mMax = Math.max(mMax, other.mMax);
+  }
+
+  /**
+   * @return the number of non-null values
+   */
+  long getCount() {
+    return mCount;
+  }
+
+  /**
+   * @return whether any numeric value has been added, without which only the count is defined
+   */
+  boolean hasNumericValues() {
+    return mCount > 0 && mMin <= mMax;
+  }
+
+  double getSum() {
+    return mSum;
+  }
+
+  double getMean() {
+    return mMean;
+  }
+
+  double getMinimum() {
+    return mMin;
+  }
+
+  double getMaximum() {
+    return mMax;
+  }
+
+  /**
+   * @return the sample variance, or 0 for a single value
+   */
+  double getVariance() {
+    return mCount > 1 ? mM2 / (mCount - 1) : 0.0;
+  }
+
+  /**
+   * @return the sample standard deviation, or 0 for a single value
+   */
+  double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+}
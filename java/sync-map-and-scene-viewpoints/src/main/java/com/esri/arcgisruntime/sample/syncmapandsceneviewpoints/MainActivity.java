@@ -18,20 +18,23 @@ package com.esri.arcgisruntime.sample.syncmapandsceneviewpoints;
 
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.ArcGISScene;
 import com.esri.arcgisruntime.mapping.Basemap;
-import com.esri.arcgisruntime.mapping.Viewpoint;
-import com.esri.arcgisruntime.mapping.view.GeoView;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.mapping.view.SceneView;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   private MapView mMapView;
   private SceneView mSceneView;
 
+  private final ViewpointSync mViewpointSync = new ViewpointSync();
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -47,23 +50,14 @@ public class MainActivity extends AppCompatActivity {
     ArcGISScene scene = new ArcGISScene(Basemap.createImagery());
     mSceneView.setScene(scene);
 
-    // on viewpoint change synchronize viewpoints
-    mMapView.addViewpointChangedListener(viewpointChangedEvent -> synchronizeViewpoints(mMapView, mSceneView));
-    mSceneView.addViewpointChangedListener(viewpointChangedEvent -> synchronizeViewpoints(mSceneView, mMapView));
-  }
-
-  /**
-   * Synchronizes the viewpoint across GeoViews when the user is navigating.
-   */
-  private static void synchronizeViewpoints(GeoView navigatingGeoView, GeoView geoViewToSync) {
-    if (navigatingGeoView.isNavigating()) {
-      Viewpoint navigatingViewpoint = navigatingGeoView.getCurrentViewpoint(Viewpoint.Type.CENTER_AND_SCALE);
-      geoViewToSync.setViewpoint(navigatingViewpoint);
-    }
+    // synchronize the viewpoints of the views once per frame while either is navigated
+    mViewpointSync.link(mMapView);
+    mViewpointSync.link(mSceneView);
   }
 
   @Override
   protected void onPause() {
+    Log.d(TAG, "Viewpoint sync: " + mViewpointSync.getMetrics());
     mMapView.pause();
     mSceneView.pause();
     super.onPause();
@@ -78,6 +72,7 @@ public class MainActivity extends AppCompatActivity {
 
   @Override
   protected void onDestroy() {
+    mViewpointSync.unlinkAll();
     mMapView.dispose();
     mSceneView.dispose();
     super.onDestroy();
@@ -0,0 +1,197 @@
+/* Copyright 2018 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.syncmapandsceneviewpoints;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import android.view.Choreographer;
+
+import com.esri.arcgisruntime.mapping.Viewpoint;
+import com.esri.arcgisruntime.mapping.view.GeoView;
+import com.esri.arcgisruntime.mapping.view.ViewpointChangedListener;
+
+/**
+ * Keeps the viewpoints of any number of linked map and scene views in sync.
+ * <p>
+ * The view the user is navigating leads, and every other view follows it. Viewpoint changes can be reported many
+ * times between two frames, so rather than copying the viewpoint on each change, the leading view's viewpoint is read
+ * at most once per frame and set on the followers then. Changes reported by a follower which is not being navigated
+ * are the echo of a viewpoint set by this class, or a viewpoint set from code, and are ignored, so the views never
+ * bounce viewpoints back and forth.
+ * <p>
+ * All methods must be called on the main thread.
+ */
+class ViewpointSync {
+
+  /**
+   * Counts of the viewpoint changes seen and the time taken to pass them on, since the views were linked or the
+   * counts were last reset.
+   */
+  static class Metrics {
+
+    // viewpoint changes reported by the leading view
+    final int changeCount;
+
+    // frames in which the leading viewpoint was set on the followers
+    final int syncCount;
+
+    // changes reported by followers which were not passed on
+    final int suppressedEchoCount;
+
+    // mean and longest time from the first change waiting for a frame to the followers being updated
+    final double meanLatencyMillis;
+    final double maxLatencyMillis;
+
+    Metrics(int changeCount, int syncCount, int suppressedEchoCount, double meanLatencyMillis,
+        double maxLatencyMillis) {
+      this.changeCount = changeCount;
+      this.syncCount = syncCount;
+      this.suppressedEchoCount = suppressedEchoCount;
+      this.meanLatencyMillis = meanLatencyMillis;
+      this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "%d changes synced in %d frames, %d echoes suppressed, latency mean %.1f ms, max %.1f ms",
+          changeCount, syncCount, suppressedEchoCount, meanLatencyMillis, maxLatencyMillis);
+    }
+  }
+
+  private final List<GeoView> mGeoViews = new ArrayList<>();
+
+  private final List<ViewpointChangedListener> mListeners = new ArrayList<>();
+
+  private final Choreographer mChoreographer = Choreographer.getInstance();
+
+  private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> syncFollowers();
+
+  // view navigated most recently, which keeps the lead until another view is navigated, so the changes it reports
+  // as it comes to rest are still passed on
+  private GeoView mLeader;
+
+  private boolean mFrameScheduled;
+
+  // when the oldest change not yet passed on was reported
+  private long mPendingSinceNanos;
+
+  private int mChangeCount;
+  private int mSyncCount;
+  private int mSuppressedEchoCount;
+  private long mTotalLatencyNanos;
+  private long mMaxLatencyNanos;
+
+  /**
+   * Links a view, so it follows the other linked views and they follow it.
+   */
+  void link(final GeoView geoView) {
+    if (mGeoViews.contains(geoView)) {
+      return;
+    }
+    ViewpointChangedListener listener = viewpointChangedEvent -> onViewpointChanged(geoView);
+    geoView.addViewpointChangedListener(listener);
+    mGeoViews.add(geoView);
+    mListeners.add(listener);
+  }
+
+  /**
+   * Unlinks a view, leaving its viewpoint as it is.
+   */
+  void unlink(GeoView geoView) {
+    int index = mGeoViews.indexOf(geoView);
+    if (index < 0) {
+      return;
+    }
+    geoView.removeViewpointChangedListener(mListeners.remove(index));
+    mGeoViews.remove(index);
+    if (mLeader == geoView) {
+      mLeader = null;
+    }
+  }
+
+  /**
+   * Unlinks every view and stops waiting for the next frame.
+   */
+  void unlinkAll() {
+    while (!mGeoViews.isEmpty()) {
+      unlink(mGeoViews.get(mGeoViews.size() - 1));
+    }
+    if (mFrameScheduled) {
+      mChoreographer.removeFrameCallback(mFrameCallback);
+      mFrameScheduled = false;
+    }
+  }
+
+  /**
+   * @return the counts since the views were linked or the counts were last reset
+   */
+  Metrics getMetrics() {
+    double meanLatencyMillis = mSyncCount > 0 ? mTotalLatencyNanos / 1e6 / mSyncCount : 0;
+    return new Metrics(mChangeCount, mSyncCount, mSuppressedEchoCount, meanLatencyMillis, mMaxLatencyNanos / 1e6);
+  }
+
+  /**
+   * Sets the counts back to zero.
+   */
+  void resetMetrics() {
+    mChangeCount = 0;
+    mSyncCount = 0;
+    mSuppressedEchoCount = 0;
+    mTotalLatencyNanos = 0;
+    mMaxLatencyNanos = 0;
+  }
+
+  private void onViewpointChanged(GeoView geoView) {
+    if (geoView != mLeader) {
+      // a view the user has started navigating takes the lead once the current leader has come to rest, and any
+      // other change is the echo of a viewpoint set on a follower
+      if (!geoView.isNavigating() || (mLeader != null && mLeader.isNavigating())) {
+        mSuppressedEchoCount++;
+        return;
+      }
+      mLeader = geoView;
+    }
+    mChangeCount++;
+    if (!mFrameScheduled) {
+      mPendingSinceNanos = System.nanoTime();
+      mFrameScheduled = true;
+      mChoreographer.postFrameCallback(mFrameCallback);
+    }
+  }
+
+  private void syncFollowers() {
+    mFrameScheduled = false;
+    if (mLeader == null) {
+      return;
+    }
+    Viewpoint viewpoint = mLeader.getCurrentViewpoint(Viewpoint.Type.CENTER_AND_SCALE);
+    if (viewpoint != null) {
+      for (GeoView geoView : mGeoViews) {
+        if (geoView != mLeader) {
+          geoView.setViewpoint(viewpoint);
+        }
+      }
+      long latencyNanos = System.nanoTime() - mPendingSinceNanos;
+      mSyncCount++;
+      mTotalLatencyNanos += latencyNanos;
+      mMaxLatencyNanos = Math.max(mMaxLatencyNanos, latencyNanos);
+    }
+  }
+}
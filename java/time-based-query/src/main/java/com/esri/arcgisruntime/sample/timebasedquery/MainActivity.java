@@ -16,16 +16,15 @@
 
 package com.esri.arcgisruntime.sample.timebasedquery;
 
-import java.util.ArrayList;
-import java.util.GregorianCalendar;
-import java.util.List;
+import java.text.DateFormat;
 
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.widget.SeekBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
-import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
@@ -38,15 +37,28 @@ public class MainActivity extends AppCompatActivity {
 
   private static final String TAG = MainActivity.class.getSimpleName();
 
+  private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
   private MapView mMapView;
 
+  private TextView mWindowTextView;
+
+  private TextView mCacheTextView;
+
+  private SeekBar mTimelineSeekBar;
+
+  private TimeSliceCache mTimeSliceCache;
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_main);
 
-    // inflate MapView from layout
+    // inflate MapView and timeline controls from layout
     mMapView = findViewById(R.id.mapView);
+    mWindowTextView = findViewById(R.id.windowTextView);
+    mCacheTextView = findViewById(R.id.cacheTextView);
+    mTimelineSeekBar = findViewById(R.id.timelineSeekBar);
 
     // create a new map with oceans basemap
     ArcGISMap map = new ArcGISMap(Basemap.createOceans());
@@ -57,39 +69,89 @@ public class MainActivity extends AppCompatActivity {
     // define the request mode
     serviceFeatureTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
 
-    // when feature table is loaded, populate data
-    serviceFeatureTable.addDoneLoadingListener(() -> {
-      if (serviceFeatureTable.getLoadStatus() == LoadStatus.FAILED_TO_LOAD) {
-        String error = "Service feature table failed to load: " + serviceFeatureTable.getLoadError().getCause();
+    // create a feature layer from the service feature table
+    FeatureLayer featureLayer = new FeatureLayer(serviceFeatureTable);
+
+    // when feature layer is loaded, set up the timeline over the layer's time extent
+    featureLayer.addDoneLoadingListener(() -> {
+      if (featureLayer.getLoadStatus() == LoadStatus.FAILED_TO_LOAD) {
+        String error = "Feature layer failed to load: " + featureLayer.getLoadError().getCause();
         Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
         Log.e(TAG, error);
         return;
       }
+      TimeExtent fullTimeExtent = featureLayer.getFullTimeExtent();
+      if (fullTimeExtent == null) {
+        Toast.makeText(MainActivity.this, getString(R.string.no_time_extent), Toast.LENGTH_LONG).show();
+        return;
+      }
+      createTimeline(serviceFeatureTable, fullTimeExtent);
+    });
 
-      // create new query object that contains a basic 'include everything' clause
-      QueryParameters queryParameters = new QueryParameters();
-      queryParameters.setWhereClause("1=1");
+    // add created layer to the map and add the map to the map view
+    map.getOperationalLayers().add(featureLayer);
+    mMapView.setMap(map);
+  }
 
-      // create a new time extent that covers the desired interval (beginning of time to September 16th, 2000)
-      TimeExtent timeExtent = new TimeExtent(TimeExtent.MIN_CALENDAR, new GregorianCalendar(2000, 9, 16));
+  /**
+   * Splits the time extent into buckets which are populated from the service as the timeline is scrubbed.
+   *
+   * @param featureTable   table in manual cache mode to populate
+   * @param fullTimeExtent time extent covered by the timeline
+   */
+  private void createTimeline(ServiceFeatureTable featureTable, TimeExtent fullTimeExtent) {
+    final int windowBuckets = getResources().getInteger(R.integer.time_window_buckets);
+    mTimeSliceCache = new TimeSliceCache(featureTable, fullTimeExtent,
+        getResources().getInteger(R.integer.time_bucket_days) * DAY_MILLIS,
+        getResources().getInteger(R.integer.time_prefetch_buckets),
+        getResources().getInteger(R.integer.time_bucket_max_attempts), new TimeSliceCache.Listener() {
+      @Override public void onWindowReady(TimeExtent window) {
+        updateCacheStatus();
+      }
 
-      // apply the time extent to the query parameters
-      queryParameters.setTimeExtent(timeExtent);
+      @Override public void onBucketFetched(int bucket, long featureCount, long fetchMillis) {
+        Log.d(TAG, getString(R.string.bucket_fetched, bucket, featureCount, fetchMillis));
+        updateCacheStatus();
+      }
+    });
 
-      // create list of the fields that are returned from the service
-      List<String> outFields = new ArrayList<>();
-      outFields.add("*");
+    // each position of the timeline is the first bucket of the window
+    mTimelineSeekBar.setMax(Math.max(0, mTimeSliceCache.getBucketCount() - windowBuckets));
+    mTimelineSeekBar.setEnabled(true);
+    mTimelineSeekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+      @Override public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+        showWindow(progress, windowBuckets);
+      }
 
-      // populate feature table with the data based on query
-      serviceFeatureTable.populateFromServiceAsync(queryParameters, true, outFields);
+      @Override public void onStartTrackingTouch(SeekBar seekBar) {
+      }
+
+      @Override public void onStopTrackingTouch(SeekBar seekBar) {
+      }
     });
+    showWindow(0, windowBuckets);
+  }
 
-    // create a feature layer from the service feature table
-    FeatureLayer featureLayer = new FeatureLayer(serviceFeatureTable);
+  /**
+   * Shows the features of a window of buckets. The map view filters the features in the table's cache by time, so
+   * buckets which are already cached are shown without a request.
+   *
+   * @param firstBucket   first bucket of the window
+   * @param windowBuckets number of buckets in the window
+   */
+  private void showWindow(int firstBucket, int windowBuckets) {
+    int lastBucket = Math.min(firstBucket + windowBuckets, mTimeSliceCache.getBucketCount()) - 1;
+    TimeExtent window = mTimeSliceCache.getExtent(firstBucket, lastBucket);
+    mMapView.setTimeExtent(window);
+    DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM);
+    mWindowTextView.setText(getString(R.string.time_window, dateFormat.format(window.getStartTime().getTime()),
+        dateFormat.format(window.getEndTime().getTime())));
+    mTimeSliceCache.setWindow(firstBucket, lastBucket);
+  }
 
-    // add created layer to the map and add the map to the map view
-    map.getOperationalLayers().add(featureLayer);
-    mMapView.setMap(map);
+  private void updateCacheStatus() {
+    mCacheTextView.setText(getString(R.string.cache_status, mTimeSliceCache.getFetchCount(),
+        mTimeSliceCache.getBucketCount(), mTimeSliceCache.getWindowHits()));
   }
 
   @Override
@@ -107,6 +169,9 @@ public class MainActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (mTimeSliceCache != null) {
+      mTimeSliceCache.cancel();
+    }
     mMapView.dispose();
   }
 }
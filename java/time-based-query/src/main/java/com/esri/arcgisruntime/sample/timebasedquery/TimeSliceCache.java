@@ -0,0 +1,313 @@
+/* Copyright 2018 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.timebasedquery;
+
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.mapping.TimeExtent;
+
+/**
+ * Splits a time axis into buckets of equal length and populates a {@link ServiceFeatureTable} in manual cache mode one
+ * bucket at a time. Each bucket is fetched from the service once and its features stay in the table's cache, so a time
+ * window made of fetched buckets is shown by filtering the cached features by time, without another request.
+ * <p>
+ * A bucket with more features than the service returns at once is fetched in pages ordered by object id, and is only
+ * cached once its last page has been added. Moving the window fetches the buckets it is missing first, then prefetches
+ * buckets beyond its edge in the direction it moved. Buckets are fetched one at a time; prefetches queued for an
+ * earlier window are dropped when the window moves. A bucket of the window which fails is retried straight away, up
+ * to a maximum number of attempts, after which it waits for the window to move again.
+ * <p>
+ * All methods must be called on the main thread, which is also where the table's done listeners are delivered.
+ */
+class TimeSliceCache {
+
+  /**
+   * Notified when all buckets of the current window are cached, and after every fetch.
+   */
+  interface Listener {
+    void onWindowReady(TimeExtent window);
+
+    void onBucketFetched(int bucket, long featureCount, long fetchMillis);
+  }
+
+  private enum BucketState {
+    EMPTY, QUEUED, FETCHING, CACHED
+  }
+
+  private final ServiceFeatureTable mFeatureTable;
+
+  private final List<String> mOutFields;
+
+  private final long mStartMillis;
+
+  private final long mBucketMillis;
+
+  private final int mPrefetchBuckets;
+
+  private final int mMaxAttempts;
+
+  private final Listener mListener;
+
+  private final BucketState[] mStates;
+
+  // failed fetches of each bucket since it was last asked for by a window
+  private final int[] mAttempts;
+
+  // buckets waiting to be fetched, those of the current window first
+  private final Deque<Integer> mQueue = new ArrayDeque<>();
+
+  private boolean mFetching;
+
+  private boolean mCancelled;
+
+  private ListenableFuture<FeatureQueryResult> mPopulateFuture;
+
+  private int mWindowFirst = -1;
+
+  private int mWindowLast = -1;
+
+  private int mFetchCount;
+
+  private int mWindowHits;
+
+  /**
+   * @param featureTable    loaded table in manual cache mode to populate
+   * @param fullExtent      time extent covered by the buckets
+   * @param bucketMillis    length of a bucket
+   * @param prefetchBuckets number of buckets prefetched beyond the window in the direction it moved
+   * @param maxAttempts     number of times in a row a bucket of the window is fetched before it's left empty
+   * @param listener        notified when windows are ready and buckets are fetched
+   */
+  TimeSliceCache(ServiceFeatureTable featureTable, TimeExtent fullExtent, long bucketMillis, int prefetchBuckets,
+      int maxAttempts, Listener listener) {
+    mFeatureTable = featureTable;
+    mOutFields = Collections.singletonList("*");
+    mStartMillis = fullExtent.getStartTime().getTimeInMillis();
+    mBucketMillis = bucketMillis;
+    mPrefetchBuckets = prefetchBuckets;
+    mMaxAttempts = maxAttempts;
+    mListener = listener;
+    long span = fullExtent.getEndTime().getTimeInMillis() - mStartMillis;
+    mStates = new BucketState[(int) Math.max(1, (span + bucketMillis - 1) / bucketMillis)];
+    for (int i = 0; i < mStates.length; i++) {
+      mStates[i] = BucketState.EMPTY;
+    }
+    mAttempts = new int[mStates.length];
+  }
+
+  int getBucketCount() {
+    return mStates.length;
+  }
+
+  /**
+   * @return number of bucket fetches made so far
+   */
+  int getFetchCount() {
+    return mFetchCount;
+  }
+
+  /**
+   * @return number of windows assembled entirely from cached buckets
+   */
+  int getWindowHits() {
+    return mWindowHits;
+  }
+
+  /**
+   * @return time extent of the buckets first to last, inclusive
+   */
+  TimeExtent getExtent(int first, int last) {
+    return new TimeExtent(toCalendar(mStartMillis + first * mBucketMillis),
+        toCalendar(mStartMillis + (last + 1) * mBucketMillis));
+  }
+
+  /**
+   * Moves the window to the buckets first to last, inclusive. The listener is told when all of them are cached, which
+   * happens straight away if they already are.
+   */
+  void setWindow(int first, int last) {
+    if (mCancelled) {
+      return;
+    }
+    first = Math.max(0, first);
+    last = Math.min(mStates.length - 1, last);
+    int direction = mWindowFirst < 0 ? 1 : Integer.signum(first - mWindowFirst);
+    mWindowFirst = first;
+    mWindowLast = last;
+
+    // drop prefetches queued for the previous window
+    for (Integer bucket : mQueue) {
+      mStates[bucket] = BucketState.EMPTY;
+    }
+    mQueue.clear();
+
+    boolean cached = true;
+    for (int bucket = first; bucket <= last; bucket++) {
+      if (mStates[bucket] != BucketState.CACHED) {
+        cached = false;
+      }
+      // a bucket which ran out of attempts gets another round once a window asks for it again
+      mAttempts[bucket] = 0;
+      enqueue(bucket);
+    }
+    if (direction >= 0) {
+      for (int bucket = last + 1; bucket <= last + mPrefetchBuckets && bucket < mStates.length; bucket++) {
+        enqueue(bucket);
+      }
+    } else {
+      for (int bucket = first - 1; bucket >= first - mPrefetchBuckets && bucket >= 0; bucket--) {
+        enqueue(bucket);
+      }
+    }
+
+    if (cached) {
+      mWindowHits++;
+      mListener.onWindowReady(getExtent(first, last));
+    }
+    fetchNext();
+  }
+
+  private void enqueue(int bucket) {
+    if (mStates[bucket] == BucketState.EMPTY) {
+      mStates[bucket] = BucketState.QUEUED;
+      mQueue.addLast(bucket);
+    }
+  }
+
+  /**
+   * Cancels the fetch in progress and stops fetching buckets. The listener is not called again.
+   */
+  void cancel() {
+    mCancelled = true;
+    mQueue.clear();
+    if (mPopulateFuture != null) {
+      mPopulateFuture.cancel(true);
+      mPopulateFuture = null;
+    }
+  }
+
+  private void fetchNext() {
+    if (mCancelled || mFetching || mQueue.isEmpty()) {
+      return;
+    }
+    final int bucket = mQueue.removeFirst();
+    mStates[bucket] = BucketState.FETCHING;
+    mFetching = true;
+    fetchPage(bucket, -1, 0, System.currentTimeMillis());
+  }
+
+  /**
+   * Adds a page of the bucket's features to the table's cache, and fetches the next page if the service didn't return
+   * them all.
+   *
+   * @param afterObjectId largest object id of the pages fetched before, -1 for the first page
+   * @param featureCount  number of features in the pages fetched before
+   */
+  private void fetchPage(final int bucket, long afterObjectId, final long featureCount, final long start) {
+    final String objectIdField = mFeatureTable.getObjectIdField();
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause(afterObjectId < 0 ? "1=1" : objectIdField + " > " + afterObjectId);
+    queryParameters.setTimeExtent(getExtent(bucket, bucket));
+    queryParameters.getOrderByFields()
+        .add(new QueryParameters.OrderBy(objectIdField, QueryParameters.SortOrder.ASCENDING));
+    // add the bucket's features to the table's cache, keeping those of the buckets fetched before
+    final ListenableFuture<FeatureQueryResult> populateFuture = mFeatureTable
+        .populateFromServiceAsync(queryParameters, false, mOutFields);
+    mPopulateFuture = populateFuture;
+    populateFuture.addDoneListener(() -> {
+      if (mCancelled) {
+        return;
+      }
+      long pageCount = 0;
+      long lastObjectId = -1;
+      boolean truncated;
+      try {
+        FeatureQueryResult result = populateFuture.get();
+        for (Feature feature : result) {
+          pageCount++;
+          Object objectId = feature.getAttributes().get(objectIdField);
+          if (objectId instanceof Number) {
+            lastObjectId = Math.max(lastObjectId, ((Number) objectId).longValue());
+          }
+        }
+        truncated = result.isTransferLimitExceeded();
+      } catch (InterruptedException | ExecutionException e) {
+        onBucketFailed(bucket, start);
+        return;
+      }
+      if (truncated && lastObjectId >= 0) {
+        // the service returned its maximum record count, the rest of the bucket follows the last object id
+        fetchPage(bucket, lastObjectId, featureCount + pageCount, start);
+        return;
+      }
+      mPopulateFuture = null;
+      mFetching = false;
+      mFetchCount++;
+      mAttempts[bucket] = 0;
+      mStates[bucket] = BucketState.CACHED;
+      mListener.onBucketFetched(bucket, featureCount + pageCount, System.currentTimeMillis() - start);
+      if (bucket >= mWindowFirst && bucket <= mWindowLast && isWindowCached()) {
+        mListener.onWindowReady(getExtent(mWindowFirst, mWindowLast));
+      }
+      fetchNext();
+    });
+  }
+
+  /**
+   * Leaves a bucket which failed to be fetched again the next time a window needs it, retrying it straight away if
+   * the current window needs it and it has attempts left. The pages fetched before stay in the table's cache.
+   */
+  private void onBucketFailed(int bucket, long start) {
+    mPopulateFuture = null;
+    mFetching = false;
+    mFetchCount++;
+    mStates[bucket] = BucketState.EMPTY;
+    mAttempts[bucket]++;
+    mListener.onBucketFetched(bucket, -1, System.currentTimeMillis() - start);
+    if (bucket >= mWindowFirst && bucket <= mWindowLast && mAttempts[bucket] < mMaxAttempts) {
+      // ahead of the prefetches, as the window is shown with a hole until it's fetched
+      mStates[bucket] = BucketState.QUEUED;
+      mQueue.addFirst(bucket);
+    }
+    fetchNext();
+  }
+
+  private boolean isWindowCached() {
+    for (int bucket = mWindowFirst; bucket <= mWindowLast; bucket++) {
+      if (mStates[bucket] != BucketState.CACHED) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Calendar toCalendar(long millis) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(millis);
+    return calendar;
+  }
+}
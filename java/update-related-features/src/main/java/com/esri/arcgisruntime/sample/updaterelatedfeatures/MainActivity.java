@@ -16,6 +16,7 @@
 
 package com.esri.arcgisruntime.sample.updaterelatedfeatures;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -35,9 +36,7 @@ import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureEditResult;
-import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
@@ -65,6 +64,7 @@ public class MainActivity extends AppCompatActivity {
 
   private ProgressDialog mProgressDialog;
   private String mAttributeValue;
+  private RelatedRecordCache mRelatedRecordCache;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -99,6 +99,17 @@ public class MainActivity extends AppCompatActivity {
     // set the mArcGISMap to be displayed in this view
     mMapView.setMap(map);
 
+    // cache the related preserves of the parks, prefetching those of the parks in view whenever the map stops moving
+    mRelatedRecordCache = new RelatedRecordCache(mParksFeatureTable,
+        Arrays.asList(mParksFeatureTable, mPreservesFeatureTable),
+        getResources().getInteger(R.integer.related_prefetch_max_features),
+        getResources().getInteger(R.integer.related_cache_capacity));
+    mMapView.addNavigationChangedListener(navigationChangedEvent -> {
+      if (!navigationChangedEvent.isNavigating() && mMapView.getVisibleArea() != null) {
+        mRelatedRecordCache.prefetch(mMapView.getVisibleArea());
+      }
+    });
+
     // identify feature
     mMapView.setOnTouchListener(new DefaultMapViewOnTouchListener(this, mMapView) {
       @Override
@@ -146,20 +157,19 @@ public class MainActivity extends AppCompatActivity {
    * @param feature selected feature
    */
   private void queryRelatedFeatures(ArcGISFeature feature) {
-    final ListenableFuture<List<RelatedFeatureQueryResult>> relatedFeatureQueryResultFuture = mParksFeatureTable
-        .queryRelatedFeaturesAsync(feature);
-
-    relatedFeatureQueryResultFuture.addDoneListener(() -> {
-      try {
+    // related records come from the cache when the feature's area has been prefetched
+    mRelatedRecordCache.getRelatedRecords(feature, new RelatedRecordCache.Listener() {
+      @Override
+      public void onRelatedRecords(List<RelatedRecordCache.RelatedRecords> relatedRecordsList, boolean fromCache) {
         mProgressDialog.dismiss();
-        List<RelatedFeatureQueryResult> relatedFeatureQueryResultList = relatedFeatureQueryResultFuture.get();
-
-        // iterate over returned RelatedFeatureQueryResults
-        for (RelatedFeatureQueryResult relatedQueryResult : relatedFeatureQueryResultList) {
+        Log.d(TAG, "Related records " + (fromCache ? "served from cache" : "queried") + ", cache hits: "
+            + mRelatedRecordCache.getHitCount() + ", misses: " + mRelatedRecordCache.getMissCount());
+        // iterate over the related records of each relationship
+        for (RelatedRecordCache.RelatedRecords relatedRecords : relatedRecordsList) {
           // iterate over Features returned
-          for (Feature relatedFeature : relatedQueryResult) {
+          for (ArcGISFeature relatedFeature : relatedRecords.features) {
             // persist selected related feature
-            mSelectedRelatedFeature = (ArcGISFeature) relatedFeature;
+            mSelectedRelatedFeature = relatedFeature;
             // get preserve park name
             String parkName = mSelectedRelatedFeature.getAttributes().get("UNIT_NAME").toString();
             // use the Annual Visitors field to use as filter on related attributes
@@ -169,9 +179,13 @@ public class MainActivity extends AppCompatActivity {
             mMapView.setViewpointCenterAsync(mMapView.screenToLocation(mTappedPoint));
           }
         }
-      } catch (InterruptedException | ExecutionException e) {
+      }
+
+      @Override
+      public void onRelatedRecordsFailed(Exception e) {
+        mProgressDialog.dismiss();
         String error = "Error getting related feature query result: " + e.getMessage();
-        Toast.makeText(this, error, Toast.LENGTH_LONG).show();
+        Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
         Log.e(TAG, error);
       }
     });
@@ -248,6 +262,8 @@ public class MainActivity extends AppCompatActivity {
               List<FeatureEditResult> edits = serverResult.get();
               if (!edits.isEmpty()) {
                 if (!edits.get(0).hasCompletedWithErrors()) {
+                  // cached related records may no longer match the service
+                  mRelatedRecordCache.invalidate(mPreservesFeatureTable);
                   mParksFeatureLayer.clearSelection();
                   mProgressDialog.dismiss();
                   Toast.makeText(this, getString(R.string.update_success), Toast.LENGTH_SHORT).show();
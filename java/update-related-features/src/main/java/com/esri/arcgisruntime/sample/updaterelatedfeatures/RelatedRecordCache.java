@@ -0,0 +1,426 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.arcgisruntime.sample.updaterelatedfeatures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.esri.arcgisruntime.arcgisservices.RelationshipInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.ArcGISFeature;
+import com.esri.arcgisruntime.data.ArcGISFeatureTable;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+/**
+ * Caches the related records of the features in one table, keyed by relationship id and origin object id.
+ * <p>
+ * A feature which is not cached is looked up with {@link ArcGISFeatureTable#queryRelatedFeaturesAsync(ArcGISFeature)}
+ * and its results are cached. {@link #prefetch(Geometry)} fills the cache for every feature in an area up front: the
+ * features are queried once, then the related records of all of them are fetched with one query per relationship which
+ * matches the related table's key field against the key values of every feature. If the service truncates the result at
+ * its maximum record count, the key values are split in two and each half is queried again, until a single key value's
+ * records still don't fit, which is then left uncached, so a truncated result is never cached. Relationships which can
+ * not be resolved this way, such as many to many relationships, are left to be fetched when a feature is looked up.
+ * <p>
+ * All methods must be called on the main thread, which is also where the done listeners of the tables' futures are
+ * delivered.
+ */
+class RelatedRecordCache {
+
+  /**
+   * Receives the related records of a feature.
+   */
+  interface Listener {
+    void onRelatedRecords(List<RelatedRecords> relatedRecords, boolean fromCache);
+
+    void onRelatedRecordsFailed(Exception e);
+  }
+
+  /**
+   * The records related to one feature through one relationship.
+   */
+  static final class RelatedRecords {
+    final RelationshipInfo relationshipInfo;
+    final ArcGISFeatureTable relatedTable;
+    final List<ArcGISFeature> features;
+
+    RelatedRecords(RelationshipInfo relationshipInfo, ArcGISFeatureTable relatedTable, List<ArcGISFeature> features) {
+      this.relationshipInfo = relationshipInfo;
+      this.relatedTable = relatedTable;
+      this.features = features;
+    }
+  }
+
+  private static final class Key {
+    final long relationshipId;
+    final long objectId;
+
+    Key(long relationshipId, long objectId) {
+      this.relationshipId = relationshipId;
+      this.objectId = objectId;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return relationshipId == other.relationshipId && objectId == other.objectId;
+    }
+
+    @Override public int hashCode() {
+      return 31 * (int) (relationshipId ^ (relationshipId >>> 32)) + (int) (objectId ^ (objectId >>> 32));
+    }
+  }
+
+  private final ServiceFeatureTable mOriginTable;
+
+  private final List<ServiceFeatureTable> mTables;
+
+  private final int mMaxPrefetchFeatures;
+
+  private final Map<Key, RelatedRecords> mRecords;
+
+  // bumped by every prefetch and invalidation so results of a superseded prefetch are dropped
+  private int mGeneration;
+
+  // bumped by every invalidation so results of a lookup started before it are not cached
+  private int mInvalidationCount;
+
+  private int mHitCount;
+
+  private int mMissCount;
+
+  /**
+   * @param originTable         table of the features whose related records are cached
+   * @param tables              tables which may hold related records
+   * @param maxPrefetchFeatures most features prefetched from one area
+   * @param capacity            most relationship and feature pairs kept, least recently used are dropped first
+   */
+  RelatedRecordCache(ServiceFeatureTable originTable, List<ServiceFeatureTable> tables, int maxPrefetchFeatures,
+      final int capacity) {
+    mOriginTable = originTable;
+    mTables = tables;
+    mMaxPrefetchFeatures = maxPrefetchFeatures;
+    mRecords = new LinkedHashMap<Key, RelatedRecords>(16, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<Key, RelatedRecords> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Gets the related records of a feature of the origin table, from the cache if every relationship of the feature is
+   * cached.
+   */
+  void getRelatedRecords(ArcGISFeature feature, final Listener listener) {
+    final long objectId = getObjectId(mOriginTable, feature);
+    List<RelatedRecords> cached = new ArrayList<>();
+    for (RelationshipInfo relationshipInfo : getResolvableRelationships()) {
+      RelatedRecords records = mRecords.get(new Key(relationshipInfo.getId(), objectId));
+      if (records == null) {
+        cached = null;
+        break;
+      }
+      cached.add(records);
+    }
+    if (cached != null && !cached.isEmpty()) {
+      mHitCount++;
+      listener.onRelatedRecords(cached, true);
+      return;
+    }
+
+    mMissCount++;
+    final int invalidationCount = mInvalidationCount;
+    final ListenableFuture<List<RelatedFeatureQueryResult>> relatedFuture = mOriginTable
+        .queryRelatedFeaturesAsync(feature);
+    relatedFuture.addDoneListener(() -> {
+      try {
+        List<RelatedRecords> relatedRecords = new ArrayList<>();
+        for (RelatedFeatureQueryResult result : relatedFuture.get()) {
+          List<ArcGISFeature> features = new ArrayList<>();
+          for (Feature relatedFeature : result) {
+            features.add((ArcGISFeature) relatedFeature);
+          }
+          RelatedRecords records = new RelatedRecords(result.getRelationshipInfo(), result.getRelatedTable(),
+              features);
+          relatedRecords.add(records);
+          if (invalidationCount == mInvalidationCount) {
+            mRecords.put(new Key(records.relationshipInfo.getId(), objectId), records);
+          }
+        }
+        listener.onRelatedRecords(relatedRecords, false);
+      } catch (InterruptedException | ExecutionException e) {
+        listener.onRelatedRecordsFailed(e);
+      }
+    });
+  }
+
+  /**
+   * Fetches and caches the related records of the features of the origin table within the given area. Starting a new
+   * prefetch abandons the results of any earlier one which has not completed.
+   */
+  void prefetch(Geometry area) {
+    final int generation = ++mGeneration;
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setGeometry(area);
+    queryParameters.setReturnGeometry(false);
+    queryParameters.setMaxFeatures(mMaxPrefetchFeatures);
+    // key fields are not necessarily among the fields returned by default
+    final ListenableFuture<FeatureQueryResult> originFuture = mOriginTable
+        .queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
+    originFuture.addDoneListener(() -> {
+      if (generation != mGeneration) {
+        return;
+      }
+      List<ArcGISFeature> features = new ArrayList<>();
+      try {
+        for (Feature feature : originFuture.get()) {
+          features.add((ArcGISFeature) feature);
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        // prefetching is an optimisation only, features are still looked up when tapped
+        return;
+      }
+      for (RelationshipInfo relationshipInfo : getResolvableRelationships()) {
+        prefetchRelationship(relationshipInfo, features, generation);
+      }
+    });
+  }
+
+  /**
+   * Drops every cached entry whose related records come from the given table, e.g. after records in it were edited.
+   * Invalidating the origin table drops the whole cache.
+   */
+  void invalidate(ArcGISFeatureTable table) {
+    mGeneration++;
+    mInvalidationCount++;
+    if (table == mOriginTable) {
+      mRecords.clear();
+      return;
+    }
+    Iterator<RelatedRecords> iterator = mRecords.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().relatedTable == table) {
+        iterator.remove();
+      }
+    }
+  }
+
+  int getHitCount() {
+    return mHitCount;
+  }
+
+  int getMissCount() {
+    return mMissCount;
+  }
+
+  private void prefetchRelationship(final RelationshipInfo relationshipInfo, final List<ArcGISFeature> features,
+      final int generation) {
+    final ServiceFeatureTable relatedTable = findTable(relationshipInfo.getRelatedTableId());
+    if (relatedTable == null || relationshipInfo.getCardinality() == RelationshipInfo.Cardinality.MANY_TO_MANY) {
+      return;
+    }
+    relatedTable.loadAsync();
+    relatedTable.addDoneLoadingListener(() -> {
+      if (generation != mGeneration || relatedTable.getLoadStatus() != LoadStatus.LOADED) {
+        return;
+      }
+      RelationshipInfo relatedInfo = findRelationship(relatedTable, relationshipInfo.getId());
+      if (relatedInfo == null) {
+        return;
+      }
+      final String relatedKeyField = relatedInfo.getKeyField();
+
+      // group the features still missing this relationship by their key value
+      final Map<Object, List<Long>> objectIdsByKey = new HashMap<>();
+      for (ArcGISFeature feature : features) {
+        long objectId = getObjectId(mOriginTable, feature);
+        Object key = normalizeKey(feature.getAttributes().get(relationshipInfo.getKeyField()));
+        if (key == null || mRecords.containsKey(new Key(relationshipInfo.getId(), objectId))) {
+          continue;
+        }
+        List<Long> objectIds = objectIdsByKey.get(key);
+        if (objectIds == null) {
+          objectIds = new ArrayList<>(1);
+          objectIdsByKey.put(key, objectIds);
+        }
+        objectIds.add(objectId);
+      }
+      if (objectIdsByKey.isEmpty()) {
+        return;
+      }
+
+      queryRelated(relationshipInfo, relatedTable, relatedKeyField, objectIdsByKey, generation);
+    });
+  }
+
+  /**
+   * Fetches the records related to the features with the given key values with one query and caches them. A result
+   * truncated by the service's transfer limit is not cached: the key values are split in two and each half is fetched
+   * on its own, and the records of a single key value which doesn't fit are left to be fetched when looked up.
+   *
+   * @param objectIdsByKey object ids of the origin features, by their key value
+   */
+  private void queryRelated(final RelationshipInfo relationshipInfo, final ServiceFeatureTable relatedTable,
+      final String relatedKeyField, final Map<Object, List<Long>> objectIdsByKey, final int generation) {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause(buildInClause(relatedKeyField, objectIdsByKey.keySet()));
+    final ListenableFuture<FeatureQueryResult> relatedFuture = relatedTable
+        .queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
+    relatedFuture.addDoneListener(() -> {
+      if (generation != mGeneration) {
+        return;
+      }
+      Map<Long, List<ArcGISFeature>> relatedByObjectId = new HashMap<>();
+      try {
+        FeatureQueryResult result = relatedFuture.get();
+        if (result.isTransferLimitExceeded()) {
+          if (objectIdsByKey.size() > 1) {
+            Map<Object, List<Long>> firstHalf = new LinkedHashMap<>();
+            Map<Object, List<Long>> secondHalf = new LinkedHashMap<>();
+            for (Map.Entry<Object, List<Long>> entry : objectIdsByKey.entrySet()) {
+              (firstHalf.size() < objectIdsByKey.size() / 2 ? firstHalf : secondHalf)
+                  .put(entry.getKey(), entry.getValue());
+            }
+            queryRelated(relationshipInfo, relatedTable, relatedKeyField, firstHalf, generation);
+            queryRelated(relationshipInfo, relatedTable, relatedKeyField, secondHalf, generation);
+          }
+          return;
+        }
+        for (Feature relatedFeature : result) {
+          List<Long> objectIds = objectIdsByKey.get(normalizeKey(relatedFeature.getAttributes().get(relatedKeyField)));
+          if (objectIds == null) {
+            continue;
+          }
+          for (Long objectId : objectIds) {
+            List<ArcGISFeature> related = relatedByObjectId.get(objectId);
+            if (related == null) {
+              related = new ArrayList<>();
+              relatedByObjectId.put(objectId, related);
+            }
+            related.add((ArcGISFeature) relatedFeature);
+          }
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        return;
+      }
+      // the result is complete, so features without related records are cached too, and tapping them needs no query
+      for (List<Long> objectIds : objectIdsByKey.values()) {
+        for (Long objectId : objectIds) {
+          List<ArcGISFeature> related = relatedByObjectId.get(objectId);
+          mRecords.put(new Key(relationshipInfo.getId(), objectId), new RelatedRecords(relationshipInfo,
+              relatedTable, related != null ? related : Collections.<ArcGISFeature>emptyList()));
+        }
+      }
+    });
+  }
+
+  /**
+   * @return relationships of the origin table whose related table is one of the cache's tables
+   */
+  private List<RelationshipInfo> getResolvableRelationships() {
+    if (mOriginTable.getLoadStatus() != LoadStatus.LOADED) {
+      return Collections.emptyList();
+    }
+    List<RelationshipInfo> relationships = new ArrayList<>();
+    for (RelationshipInfo relationshipInfo : mOriginTable.getLayerInfo().getRelationshipInfos()) {
+      if (findTable(relationshipInfo.getRelatedTableId()) != null) {
+        relationships.add(relationshipInfo);
+      }
+    }
+    return relationships;
+  }
+
+  private ServiceFeatureTable findTable(long serviceLayerId) {
+    String serviceUrl = getServiceUrl(mOriginTable);
+    for (ServiceFeatureTable table : mTables) {
+      if (table.getLoadStatus() == LoadStatus.LOADED && table.getLayerInfo().getServiceLayerId() == serviceLayerId
+          && getServiceUrl(table).equalsIgnoreCase(serviceUrl)) {
+        return table;
+      }
+    }
+    return null;
+  }
+
+  private static RelationshipInfo findRelationship(ArcGISFeatureTable table, long relationshipId) {
+    for (RelationshipInfo relationshipInfo : table.getLayerInfo().getRelationshipInfos()) {
+      if (relationshipInfo.getId() == relationshipId) {
+        return relationshipInfo;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return url of the feature service a table belongs to
+   */
+  private static String getServiceUrl(ServiceFeatureTable table) {
+    String uri = table.getUri().trim();
+    while (uri.endsWith("/")) {
+      uri = uri.substring(0, uri.length() - 1);
+    }
+    return uri.substring(0, uri.lastIndexOf('/') + 1);
+  }
+
+  private static long getObjectId(ArcGISFeatureTable table, Feature feature) {
+    return ((Number) feature.getAttributes().get(table.getObjectIdField())).longValue();
+  }
+
+  /**
+   * Makes key values of the two sides of a relationship comparable, e.g. a short key field matching an integer one.
+   * Returns null for values which can not be matched in a where clause.
+   */
+  private static Object normalizeKey(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof String) {
+      return value;
+    }
+    return null;
+  }
+
+  private static String buildInClause(String field, Iterable<Object> keys) {
+    StringBuilder clause = new StringBuilder(field).append(" IN (");
+    boolean first = true;
+    for (Object key : keys) {
+      if (!first) {
+        clause.append(',');
+      }
+      first = false;
+      if (key instanceof String) {
+        clause.append('\'').append(((String) key).replace("'", "''")).append('\'');
+      } else {
+        clause.append(key);
+      }
+    }
+    return clause.append(')').toString();
+  }
+}
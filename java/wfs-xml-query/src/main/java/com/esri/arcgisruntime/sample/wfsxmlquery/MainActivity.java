@@ -16,19 +16,26 @@
 
 package com.esri.arcgisruntime.sample.wfsxmlquery;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Spinner;
 import android.widget.Toast;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
@@ -41,6 +48,10 @@ public class MainActivity extends AppCompatActivity {
   private static final String TAG = MainActivity.class.getSimpleName();
 
   private MapView mMapView;
+  private FeatureLayer mStatesLayer;
+
+  private WfsQueryTemplate mQueryTemplate;
+  private WfsQueryResultCache mQueryResultCache;
 
   @Override protected void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -61,24 +72,74 @@ public class MainActivity extends AppCompatActivity {
     statesTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
 
     // create a feature layer to visualize the table.
-    FeatureLayer statesLayer = new FeatureLayer(statesTable);
+    mStatesLayer = new FeatureLayer(statesTable);
 
     // add the layer to the map.
-    mMapView.getMap().getOperationalLayers().add(statesLayer);
-
-    try {
-      String xmlQuery = loadQueryFromAssets();
+    mMapView.getMap().getOperationalLayers().add(mStatesLayer);
 
-      ListenableFuture<FeatureQueryResult> featureQueryResultFuture = statesTable
-          .populateFromServiceAsync(xmlQuery, true);
+    // memoize query results so that repeating a query within the time to live doesn't go to the service
+    mQueryResultCache = new WfsQueryResultCache(statesTable,
+        getResources().getInteger(R.integer.query_result_time_to_live_seconds) * 1000L);
 
-      featureQueryResultFuture.addDoneListener(() -> {
-        // set the viewpoint of the map view to the extent reported by the feature layer
-        mMapView.setViewpointGeometryAsync(statesLayer.getFullExtent(), 50);
-      });
+    try {
+      // parse the query template once, it's then rendered for each genus the user selects
+      mQueryTemplate = WfsQueryTemplate.parse(getAssets().open(getString(R.string.xml_query_template_file_name)));
     } catch (IOException e) {
       logErrorToUser(getString(R.string.error_reading_xml_file, e.getMessage()));
+      return;
     }
+
+    // query trees of the selected genus
+    Spinner genusSpinner = findViewById(R.id.genusSpinner);
+    ArrayAdapter<CharSequence> genusAdapter = ArrayAdapter
+        .createFromResource(this, R.array.tree_genera, android.R.layout.simple_spinner_item);
+    genusAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+    genusSpinner.setAdapter(genusAdapter);
+    genusSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+      @Override public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+        queryGenus(parent.getItemAtPosition(position).toString());
+      }
+
+      @Override public void onNothingSelected(AdapterView<?> parent) {
+      }
+    });
+  }
+
+  /**
+   * Render the query template for the given genus and populate the table with the result, or reuse the memoized
+   * result if the genus was queried recently. The matching trees are selected and the map zooms to them.
+   *
+   * @param genus of trees to query
+   */
+  private void queryGenus(String genus) {
+    String xmlQuery = mQueryTemplate.render(new WfsQueryTemplate.Bindings()
+        .bindName("typeName", getString(R.string.wfs_feature_table_table_name))
+        .bindName("propertyName", getString(R.string.scientific_name_property))
+        .bindLiteral("value", genus + " *"));
+
+    boolean cached = mQueryResultCache.isCached(xmlQuery);
+    ListenableFuture<FeatureQueryResult> featureQueryResultFuture = mQueryResultCache.populateAsync(xmlQuery);
+    featureQueryResultFuture.addDoneListener(() -> {
+      try {
+        List<Feature> features = new ArrayList<>();
+        List<Envelope> extents = new ArrayList<>();
+        for (Feature feature : featureQueryResultFuture.get()) {
+          features.add(feature);
+          extents.add(feature.getGeometry().getExtent());
+        }
+        // the table holds the trees of every memoized query, so select the ones matching this query
+        mStatesLayer.clearSelection();
+        mStatesLayer.selectFeatures(features);
+        if (!extents.isEmpty()) {
+          // set the viewpoint of the map view to the extent of the matching trees
+          mMapView.setViewpointGeometryAsync(GeometryEngine.combineExtents(extents), 50);
+        }
+        Toast.makeText(this, getString(cached ? R.string.query_result_cached : R.string.query_result_from_service,
+            features.size(), genus), Toast.LENGTH_SHORT).show();
+      } catch (Exception e) {
+        logErrorToUser(getString(R.string.error_populating_table, e.getMessage()));
+      }
+    });
   }
 
   private void logErrorToUser(String error) {
@@ -86,18 +147,6 @@ public class MainActivity extends AppCompatActivity {
     Log.e(TAG, error);
   }
 
-  private String loadQueryFromAssets() throws IOException {
-    StringBuilder xmlString = new StringBuilder();
-    BufferedReader bufferedReader = new BufferedReader(
-        new InputStreamReader(getAssets().open(getString(R.string.xml_query_file_name))));
-    String line;
-    while ((line = bufferedReader.readLine()) != null) {
-      xmlString.append(line);
-    }
-    bufferedReader.close();
-    return xmlString.toString();
-  }
-
   @Override protected void onResume() {
     super.onResume();
     mMapView.resume();
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.esri.arcgisruntime.sample.wfsxmlquery;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import android.os.SystemClock;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.ogc.wfs.WfsFeatureTable;
+
+/**
+ * Memoizes the result of populating a {@link WfsFeatureTable} from an XML query for a fixed time to live. The table
+ * is populated without clearing its cache, so the features of every memoized query stay in the table and a repeated
+ * query within the time to live can be answered without going to the service. A query which fails is evicted as soon
+ * as it completes, so it's sent to the service again the next time it's made.
+ */
+class WfsQueryResultCache {
+
+  private final WfsFeatureTable mFeatureTable;
+  private final long mTimeToLiveMillis;
+  private final Map<String, Entry> mEntries = new HashMap<>();
+
+  /**
+   * @param featureTable     to populate, which should use {@code MANUAL_CACHE} feature request mode
+   * @param timeToLiveMillis how long a query result is reused for before the query is sent to the service again
+   */
+  WfsQueryResultCache(WfsFeatureTable featureTable, long timeToLiveMillis) {
+    mFeatureTable = featureTable;
+    mTimeToLiveMillis = timeToLiveMillis;
+  }
+
+  /**
+   * Populate the table with the features returned by the XML query, or return the memoized result if the same query
+   * was made within the time to live. Must be called on the UI thread.
+   *
+   * @param xmlQuery a rendered GetFeature query
+   * @return a future which completes with the query result
+   */
+  ListenableFuture<FeatureQueryResult> populateAsync(final String xmlQuery) {
+    long now = SystemClock.elapsedRealtime();
+    Entry entry = mEntries.get(xmlQuery);
+    if (entry != null && now - entry.mCreatedAt < mTimeToLiveMillis && !isFailed(entry.mFuture)) {
+      return entry.mFuture;
+    }
+    final ListenableFuture<FeatureQueryResult> future = mFeatureTable.populateFromServiceAsync(xmlQuery, false);
+    final Entry newEntry = new Entry(future, now);
+    mEntries.put(xmlQuery, newEntry);
+    future.addDoneListener(() -> {
+      // the query may have been made again since, in which case the newer entry is kept
+      if (isFailed(future) && mEntries.get(xmlQuery) == newEntry) {
+        mEntries.remove(xmlQuery);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * @return true if the result of the query is memoized, hasn't expired and didn't fail
+   */
+  boolean isCached(String xmlQuery) {
+    Entry entry = mEntries.get(xmlQuery);
+    return entry != null && SystemClock.elapsedRealtime() - entry.mCreatedAt < mTimeToLiveMillis
+        && !isFailed(entry.mFuture);
+  }
+
+  private static boolean isFailed(ListenableFuture<FeatureQueryResult> future) {
+    if (!future.isDone()) {
+      return false;
+    }
+    try {
+      future.get();
+      return false;
+    } catch (Exception e) {
+      return true;
+    }
+  }
+
+  private static final class Entry {
+    private final ListenableFuture<FeatureQueryResult> mFuture;
+    private final long mCreatedAt;
+
+    Entry(ListenableFuture<FeatureQueryResult> future, long createdAt) {
+      mFuture = future;
+      mCreatedAt = createdAt;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.esri.arcgisruntime.sample.wfsxmlquery;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+
+/**
+ * A GetFeature XML query with {@code {{name}}} placeholders. The template is split into text and placeholder
+ * segments once when it is parsed, so rendering is a single pass over the segments. Rendered queries are cached by
+ * their {@link Bindings}, so binding the same values again returns the same XML string without re-rendering.
+ */
+class WfsQueryTemplate {
+
+  private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(\\w+)\\}\\}");
+
+  // a property name, optionally qualified with a namespace prefix, e.g. Trees:SCIENTIFIC
+  private static final Pattern PROPERTY_NAME = Pattern.compile("[A-Za-z_][\\w.-]*(:[A-Za-z_][\\w.-]*)?");
+
+  private static final int MAX_CACHED_QUERIES = 32;
+
+  // even indices hold template text, odd indices hold placeholder names
+  private final List<String> mSegments = new ArrayList<>();
+
+  // keyed on immutable copies of the bound values, as bindings can still be changed after they are rendered
+  private final Map<Map<String, String>, String> mRenderedQueries = Collections
+      .synchronizedMap(new LinkedHashMap<Map<String, String>, String>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Map<String, String>, String> eldest) {
+          return size() > MAX_CACHED_QUERIES;
+        }
+      });
+
+  private WfsQueryTemplate(String template) {
+    Matcher matcher = PLACEHOLDER.matcher(template);
+    int textStart = 0;
+    while (matcher.find()) {
+      mSegments.add(template.substring(textStart, matcher.start()));
+      mSegments.add(matcher.group(1));
+      textStart = matcher.end();
+    }
+    mSegments.add(template.substring(textStart));
+  }
+
+  /**
+   * Parse a template from a stream, e.g. an asset. The stream is closed once read.
+   *
+   * @param inputStream containing the template XML
+   * @return the parsed template
+   * @throws IOException if the stream can't be read
+   */
+  static WfsQueryTemplate parse(InputStream inputStream) throws IOException {
+    StringBuilder template = new StringBuilder();
+    try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))) {
+      char[] buffer = new char[4096];
+      int read;
+      while ((read = bufferedReader.read(buffer)) != -1) {
+        template.append(buffer, 0, read);
+      }
+    }
+    return new WfsQueryTemplate(template.toString());
+  }
+
+  /**
+   * Render the template with the given bindings, reusing a previously rendered query for equal bindings.
+   *
+   * @param bindings values for every placeholder in the template
+   * @return the GetFeature XML
+   * @throws IllegalArgumentException if a placeholder has no bound value
+   */
+  String render(Bindings bindings) {
+    String query = mRenderedQueries.get(bindings.mValues);
+    if (query == null) {
+      StringBuilder xml = new StringBuilder();
+      for (int i = 0; i < mSegments.size(); i++) {
+        if (i % 2 == 0) {
+          xml.append(mSegments.get(i));
+        } else {
+          String value = bindings.mValues.get(mSegments.get(i));
+          if (value == null) {
+            throw new IllegalArgumentException("No value bound for placeholder " + mSegments.get(i));
+          }
+          xml.append(value);
+        }
+      }
+      query = xml.toString();
+      mRenderedQueries.put(Collections.unmodifiableMap(new TreeMap<>(bindings.mValues)), query);
+    }
+    return query;
+  }
+
+  /**
+   * Typed values for a template's placeholders. Each value is validated and XML encoded when it is bound, and two
+   * bindings with the same values are equal, which makes them usable as cache keys.
+   */
+  static final class Bindings {
+
+    // sorted so equal bindings have equal hash codes regardless of the order values were bound in
+    private final Map<String, String> mValues = new TreeMap<>();
+
+    /**
+     * Bind a property or type name, e.g. {@code Trees:SCIENTIFIC}.
+     */
+    Bindings bindName(String placeholder, String name) {
+      if (name == null || !PROPERTY_NAME.matcher(name).matches()) {
+        throw new IllegalArgumentException("Invalid property name: " + name);
+      }
+      mValues.put(placeholder, name);
+      return this;
+    }
+
+    /**
+     * Bind a filter literal. Characters which are special in XML are escaped.
+     */
+    Bindings bindLiteral(String placeholder, String literal) {
+      mValues.put(placeholder, escapeXml(literal));
+      return this;
+    }
+
+    /**
+     * Bind a numeric filter literal.
+     */
+    Bindings bindNumber(String placeholder, double number) {
+      mValues.put(placeholder, String.valueOf(number));
+      return this;
+    }
+
+    /**
+     * Bind a bounding box as a {@code gml:Envelope}, for use inside an {@code fes:BBOX} filter.
+     */
+    Bindings bindEnvelope(String placeholder, Envelope envelope) {
+      String srsName = envelope.getSpatialReference() != null ?
+          " srsName=\"urn:ogc:def:crs:EPSG::" + envelope.getSpatialReference().getWkid() + "\"" : "";
+      mValues.put(placeholder, String.format(Locale.ROOT,
+          "<gml:Envelope%s><gml:lowerCorner>%s %s</gml:lowerCorner><gml:upperCorner>%s %s</gml:upperCorner>"
+              + "</gml:Envelope>", srsName, envelope.getXMin(), envelope.getYMin(), envelope.getXMax(),
+          envelope.getYMax()));
+      return this;
+    }
+
+    @Override public boolean equals(Object o) {
+      return this == o || (o instanceof Bindings && mValues.equals(((Bindings) o).mValues));
+    }
+
+    @Override public int hashCode() {
+      return mValues.hashCode();
+    }
+
+    private static String escapeXml(String value) {
+      StringBuilder escaped = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        switch (c) {
+          case '<':
+            escaped.append("&lt;");
+            break;
+          case '>':
+            escaped.append("&gt;");
+            break;
+          case '&':
+            escaped.append("&amp;");
+            break;
+          case '"':
+            escaped.append("&quot;");
+            break;
+          case '\'':
+            escaped.append("&apos;");
+            break;
+          default:
+            escaped.append(c);
+        }
+      }
+      return escaped.toString();
+    }
+  }
+}